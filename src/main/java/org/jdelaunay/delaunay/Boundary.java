@@ -54,6 +54,8 @@ final class Boundary {
 	private List<DEdge> badEdges;
 	//The edges added to the mesh during the last point insertion.
 	private List<DEdge> addedEdges;
+	//The number of boundary parts the last inserted point has been connected to.
+	private int lastConnectedParts;
 
         Boundary(){
                 boundary = new ArrayList<BoundaryPart>();
@@ -112,6 +114,15 @@ final class Boundary {
 		return badEdges;
 	}
 
+	/**
+	 * Get the number of boundary parts the last inserted point has been
+	 * connected to.
+	 * @return
+	 */
+	int getLastConnectedParts(){
+		return lastConnectedParts;
+	}
+
         /**
          * Connect a new DPoint to the boundary. This operation will alter the
          * boundary, by potentially adding or removing some boundary parts. Moreover,
@@ -131,6 +142,7 @@ final class Boundary {
 		if(indices.isEmpty()){
 			throw new DelaunayError(DelaunayError.DELAUNAY_ERROR_CAN_NOT_CONNECT_POINT);
 		}
+		lastConnectedParts = indices.size();
 		List<DTriangle> addedTri;
 		List<BoundaryPart> tmpBd ;
 		BoundaryPart bp;
@@ -51,8 +51,11 @@ import org.jdelaunay.delaunay.geometries.DTriangle;
  */
 final class BoundaryPart {
 
+	//Under this number of edges, we don't bother indexing the boundary edges.
+	static final int INDEX_THRESHOLD = 32;
+
 	//the section of the boundary contained in this BoundaryPart.
-	private LinkedList<DEdge> boundaryEdges;
+	private List<DEdge> boundaryEdges;
 	//The constraint that define the lower scope of this boundary part.
 	//The upper scope will be defined by the next BoundaryPart in the Boundary class.
 	private DEdge constraint;
@@ -62,6 +65,14 @@ final class BoundaryPart {
 	private List<DEdge> addedEdges;
 
 	private DEdge splitMem;
+	//true if we know that boundaryEdges is a convex chain that contains neither
+	//degenerated nor shared edges. The visible edges can then be searched
+	//with the index.
+	private boolean regular = false;
+	//The number of insertions left before we check again if a chain that was
+	//found irregular has become regular. Checking the chain costs as much as
+	//walking along it, so we don't do it on each insertion.
+	private int skippedChecks = 0;
 
 	private void init(){
 		badEdges = new LinkedList<DEdge>();
@@ -82,7 +93,7 @@ final class BoundaryPart {
 	 */
 	BoundaryPart(List<DEdge> bound, DEdge cstr){
 		init();
-		boundaryEdges = bound instanceof LinkedList ? (LinkedList) bound : new LinkedList(bound);
+		boundaryEdges = asBoundaryList(bound);
 		constraint = cstr;
 	}
 
@@ -95,7 +106,7 @@ final class BoundaryPart {
 	 */
 	BoundaryPart(List<DEdge> bound){
 		init();
-		boundaryEdges = bound instanceof LinkedList ? (LinkedList) bound : new LinkedList(bound);
+		boundaryEdges = asBoundaryList(bound);
 		constraint = null;
 	}
 
@@ -126,8 +137,20 @@ final class BoundaryPart {
 		if(bound == null){
 			this.boundaryEdges = new LinkedList<DEdge>();
 		}else {
-			boundaryEdges = bound instanceof LinkedList ? (LinkedList) bound : new LinkedList(bound);
+			boundaryEdges = asBoundaryList(bound);
 		}
+		regular = false;
+		skippedChecks = 0;
+	}
+
+	/**
+	 * The lists we can work with directly are kept, the others are copied.
+	 * @param bound
+	 * @return
+	 */
+	private static List<DEdge> asBoundaryList(List<DEdge> bound){
+		return bound instanceof LinkedList || bound instanceof FrontEdgeList ?
+			bound : new LinkedList<DEdge>(bound);
 	}
 
 	/**
@@ -239,7 +262,7 @@ final class BoundaryPart {
 			return ret;
 		}
 		LinkedList<DEdge> futureBoundary = new LinkedList<DEdge>();
-		LinkedList<DEdge> otherBoundary = boundaryEdges;
+		List<DEdge> otherBoundary = boundaryEdges;
 		LinkedList<DEdge> degen = new LinkedList();
 		ListIterator<DEdge> iter = otherBoundary.listIterator();
 		DEdge course;
@@ -317,7 +340,15 @@ final class BoundaryPart {
 			boundaryEdges.get(boundaryEdges.size()-1).getEndPoint().equals(splitMem.getStartPoint()) :
 			false;
 		revertDir = removeDegen || revertDir;
-                ListIterator<DEdge> iter = boundaryEdges.listIterator();
+		//On a large part made of regular edges, we can jump directly to the
+		//edges that are visible from point instead of walking from the head.
+		boolean indexed = isIndexable();
+		regular = false;
+		ListIterator<DEdge> iter = indexed ? ((FrontEdgeList) boundaryEdges).visibleRun(point) : null;
+		if(iter == null){
+			iter = boundaryEdges.listIterator();
+		}
+		boolean special = false;
 		DEdge mem = null;
 		DEdge memBis = null;
 		boolean endShared = false;
@@ -333,6 +364,7 @@ final class BoundaryPart {
 			current = iter.next();
 			//We must put current the right direction if it is degenerated.
 			if(current.isDegenerated()){
+				special = true;
 				iter.previous();
 				mem = connectToDegenerated(iter, point, triList, mem, revertDir, nextCstr);
 				rightDeg = mem==null;
@@ -342,6 +374,7 @@ final class BoundaryPart {
 					return new ArrayList<DTriangle>();
 				}
 			} else if(current.isShared()){
+				special = true;
 				mem = connectToShared(iter, current, point, triList, mem, nextCstr);
 				endShared = mem == null ? false : mem.equals(memBis);
 				if(endShared){
@@ -401,6 +434,7 @@ final class BoundaryPart {
 						//in the boundaryEdges list.
 						iter.previous();
 						iter.add(mem);
+						regular = indexed && !special && isRegular(mem);
 						return triList;
 					}
 				}
@@ -417,10 +451,55 @@ final class BoundaryPart {
 			connectDegenOrphan(point, iter, nextCstr);
 		} else if(!rightDeg && !endShared){
 			iter.add(mem);
+			regular = indexed && !special && isRegular(mem);
 		}
 		return triList;
         }
 
+	/**
+	 * Check if the visible edges can be searched using the index. The
+	 * boundary edges are moved to an indexed list the first time this part
+	 * becomes large enough, and we check they form a regular convex chain if
+	 * we don't know it yet. Connecting a point to such a chain keeps it
+	 * convex. When the chain is not regular, it is not checked again before
+	 * as many insertions as it has edges, so that the checks don't cost more
+	 * than the walks they could save.
+	 * @return
+	 */
+	private boolean isIndexable(){
+		if(boundaryEdges.size() < INDEX_THRESHOLD){
+			return false;
+		}
+		if(!(boundaryEdges instanceof FrontEdgeList)){
+			boundaryEdges = new FrontEdgeList(boundaryEdges);
+			regular = false;
+		}
+		if(!regular){
+			if(skippedChecks > 0){
+				skippedChecks--;
+				return false;
+			}
+			regular = true;
+			DEdge prev = null;
+			for(DEdge ed : boundaryEdges){
+				if(!isRegular(ed) || (prev != null && (!prev.getEndPoint().equals(ed.getStartPoint())
+						|| prev.isRight(ed.getEndPoint())))){
+					regular = false;
+					break;
+				}
+				prev = ed;
+			}
+			if(!regular){
+				skippedChecks = boundaryEdges.size();
+			}
+		}
+		return regular;
+	}
+
+	private static boolean isRegular(DEdge ed){
+		return !ed.isDegenerated() && !ed.isShared();
+	}
+
 	/**
 	 * if we haven't found any triangle to build, or a set of degenerated edges
 	 * to complete, we must add one degenerated edge.
@@ -35,23 +35,39 @@ import java.awt.Graphics;
 import java.io.IOException;
 import java.io.ObjectInputStream;
 import java.io.Serializable;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.Deque;
 import java.util.HashMap;
+import java.util.IdentityHashMap;
 import java.util.Iterator;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.ListIterator;
 import java.util.Map;
+import java.util.Random;
 import java.util.Set;
+import org.jdelaunay.delaunay.evaluator.BatchEvaluator;
 import org.jdelaunay.delaunay.evaluator.InsertionEvaluator;
+import org.jdelaunay.delaunay.evaluator.SizeEvaluator;
+import org.jdelaunay.delaunay.evaluator.SizeField;
+import org.jdelaunay.delaunay.evaluator.SkinnyEvaluator;
 import org.jdelaunay.delaunay.error.DelaunayError;
 import org.jdelaunay.delaunay.geometries.BoundaryBox;
 import org.jdelaunay.delaunay.geometries.DEdge;
 import org.jdelaunay.delaunay.geometries.DPoint;
 import org.jdelaunay.delaunay.geometries.DTriangle;
 import org.jdelaunay.delaunay.geometries.Element;
+import org.jdelaunay.delaunay.metrics.MeshCounter;
+import org.jdelaunay.delaunay.metrics.MeshMetricsListener;
+import org.jdelaunay.delaunay.metrics.MeshPhase;
+import org.jdelaunay.delaunay.tools.HilbertOrder;
+import org.jdelaunay.delaunay.tools.IntIntMap;
+import org.jdelaunay.delaunay.tools.IntObjectMap;
+import org.jdelaunay.delaunay.tools.ParallelSort;
 import org.jdelaunay.delaunay.tools.Tools;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -110,9 +126,21 @@ public class ConstrainedMesh implements Serializable {
 	private Map<Integer, Integer> weights;
         //we need to store triangles in a map, temporarily. These maps are here, and are not 
         //intended to accessed externally - Don't search for accessors !
-        private transient Map<Integer, DTriangle> processed = null;
-        private transient Map<Integer, DTriangle> remaining = null;
-        private transient Map<Integer, DTriangle> buffer = null;
+        private transient IntObjectMap<DTriangle> processed = null;
+        private transient IntObjectMap<DTriangle> remaining = null;
+        private transient IntObjectMap<DTriangle> buffer = null;
+	//The listener that receives the metrics of the processing. null when
+	//the metrics are disabled.
+	private transient MeshMetricsListener metrics = null;
+	//If true, the points are inserted with an advancing front that is not
+	//kept convex, when there is no constraint.
+	private boolean frontSmoothing = false;
+	//If true, the edges and triangles are indexed according to their
+	//property bits. The index is built lazily, and dropped when the mesh changes.
+	private boolean propertyIndexing = false;
+	private transient PropertyIndex propertyIndex = null;
+	//The polygons added to the mesh, used to tag the triangles.
+	private PolygonTagger polygons = null;
 	// constants
 	public static final int MIN_POINTS_NUMBER = 3;
 	public static final int MAXITER = 5;
@@ -120,6 +148,8 @@ public class ConstrainedMesh implements Serializable {
 	public static final int REFINEMENT_MIN_ANGLE = 2;
 	public static final int REFINEMENT_SOFT_INTERPOLATE = 4;
 	public static final int REFINEMENT_OBTUSE_ANGLE = 8;
+	//The seed used to build the insertion order of the batches of points.
+	private static final long INSERTION_SEED = 1L;
 
 	//The two points that will be used to extend the mesh, and to reduce the number
 	//of edges in the boundary. They will be removed when the mesh will be computed,
@@ -235,6 +265,7 @@ public class ConstrainedMesh implements Serializable {
 	 *	the edge we want to add
 	 */
 	public final void addEdge(DEdge e) {
+		invalidatePropertyIndex();
 		if (edges == null) {
 			edges = new ArrayList<DEdge>();
 		}
@@ -253,6 +284,7 @@ public class ConstrainedMesh implements Serializable {
 	 * @param e
 	 */
 	public final void removeEdge(DEdge e) {
+		invalidatePropertyIndex();
 		//edges is a sorted list, using the left right sort. We are supposed
 		//to ensure unicity of objects in it, so we can use the binarysearch directly.
 		int index = Collections.binarySearch(edges, e);
@@ -349,6 +381,7 @@ public class ConstrainedMesh implements Serializable {
 	 * @param triangle
 	 */
 	public final void addTriangle(DTriangle triangle) {
+		invalidatePropertyIndex();
 		triangleList.add(triangle);
 		triangleGID++;
 		triangle.setGID(triangleGID);
@@ -375,6 +408,7 @@ public class ConstrainedMesh implements Serializable {
 	 * @param tri
 	 */
 	public final void removeTriangle(DTriangle tri) {
+		invalidatePropertyIndex();
 //		//first we search it
 		triangleList.remove(tri);
 	}
@@ -455,6 +489,149 @@ public class ConstrainedMesh implements Serializable {
 		verbose = verb;
 	}
 
+	/**
+	 * Get the listener that receives the metrics of the processing of this mesh.
+	 * @return
+	 *	The listener, or null if the metrics are disabled.
+	 */
+	public final MeshMetricsListener getMetricsListener() {
+		return metrics;
+	}
+
+	/**
+	 * Set the listener that will receive the duration of the phases of the
+	 * processing and the counts of the operations performed on this mesh.
+	 * Use null to disable the metrics : nothing is measured then.
+	 * @param listener
+	 */
+	public final void setMetricsListener(MeshMetricsListener listener) {
+		metrics = listener;
+	}
+
+	/**
+	 * Check if the front smoothing is used during the triangulation.
+	 * @return
+	 */
+	public final boolean isFrontSmoothing() {
+		return frontSmoothing;
+	}
+
+	/**
+	 * Set if the front smoothing must be used during the triangulation. When
+	 * it is used, the pockets of the front are filled as the points are
+	 * inserted, instead of keeping the front convex. This avoids the long and
+	 * thin triangles that must be flipped many times when the points are
+	 * regularly spaced, as in grids or contour lines.<br/>
+	 * It is only used when the mesh does not contain any constraint edge. It is
+	 * disabled by default.
+	 * @param smoothing
+	 */
+	public final void setFrontSmoothing(boolean smoothing) {
+		frontSmoothing = smoothing;
+	}
+
+	/**
+	 * Check if the edges and triangles are indexed according to their properties.
+	 * @return
+	 */
+	public final boolean isPropertyIndexing() {
+		return propertyIndexing;
+	}
+
+	/**
+	 * Set if the edges and triangles must be indexed according to their
+	 * property bits. The index is built when it is queried for the first time,
+	 * and rebuilt after each change of the mesh. The properties must be changed
+	 * with setElementProperty or addElementProperty to be taken into account
+	 * in an index that already exists. It is disabled by default.
+	 * @param indexing
+	 */
+	public final void setPropertyIndexing(boolean indexing) {
+		propertyIndexing = indexing;
+		propertyIndex = null;
+	}
+
+	/**
+	 * Get the edges of the mesh that have at least one of the bits of property.
+	 * @param property
+	 * @return
+	 *	The edges, sorted by GID if the property index is used.
+	 * @throws DelaunayError
+	 *	If the property index is used and two edges share the same GID.
+	 */
+	public final List<DEdge> edgesWithProperty(int property) throws DelaunayError {
+		if(propertyIndexing){
+			return getPropertyIndex().getEdges(property);
+		}
+		return filterProperty(edges, property);
+	}
+
+	/**
+	 * Get the triangles of the mesh that have at least one of the bits of property.
+	 * @param property
+	 * @return
+	 *	The triangles, sorted by GID if the property index is used.
+	 * @throws DelaunayError
+	 *	If the property index is used and two triangles share the same GID.
+	 */
+	public final List<DTriangle> trianglesWithProperty(int property) throws DelaunayError {
+		if(propertyIndexing){
+			return getPropertyIndex().getTriangles(property);
+		}
+		return filterProperty(triangleList, property);
+	}
+
+	/**
+	 * Set the property of an element of the mesh, keeping the property
+	 * index up to date.
+	 * @param el
+	 * @param property
+	 */
+	public final void setElementProperty(Element el, int property) {
+		int old = el.getProperty();
+		el.setProperty(property);
+		if(propertyIndex != null){
+			propertyIndex.update(el, old);
+		}
+	}
+
+	/**
+	 * Add a property to an element of the mesh, keeping the property index
+	 * up to date.
+	 * @param el
+	 * @param property
+	 */
+	public final void addElementProperty(Element el, int property) {
+		int old = el.getProperty();
+		el.addProperty(property);
+		if(propertyIndex != null){
+			propertyIndex.update(el, old);
+		}
+	}
+
+	private PropertyIndex getPropertyIndex() throws DelaunayError {
+		if(propertyIndex == null){
+			PropertyIndex index = new PropertyIndex();
+			index.build(edges, triangleList);
+			propertyIndex = index;
+		}
+		return propertyIndex;
+	}
+
+	private void invalidatePropertyIndex() {
+		propertyIndex = null;
+	}
+
+	private static <T extends Element> List<T> filterProperty(List<T> elements, int property) {
+		List<T> ret = new ArrayList<T>();
+		for(T el : elements){
+			if(el.hasProperty(property)){
+				ret.add(el);
+			}
+		}
+		return ret;
+	}
+
 	/**
 	 * Set the list of points to be used during the triangulation
 	 * If using this method. All the exisiting points are removed, and replaced by
@@ -465,10 +642,13 @@ public class ConstrainedMesh implements Serializable {
 		if(pts == null){
 			points = new ArrayList<DPoint>();
 		} else {
+			long start = metrics == null ? 0 : System.nanoTime();
 			Collections.sort(pts);
 			extMaxY = null;
 			extMinY = null;
 			extMinX = null;
+			//The extension points are computed from scratch.
+			points = new ArrayList<DPoint>();
 			for(DPoint pt : pts){
 				updateExtensionPoints(pt);
 			}
@@ -486,6 +666,9 @@ public class ConstrainedMesh implements Serializable {
 					}
 				}
 			}
+			if(metrics != null){
+				metrics.phaseCompleted(MeshPhase.SORT, System.nanoTime() - start);
+			}
 		}
 	}
 
@@ -506,6 +689,191 @@ public class ConstrainedMesh implements Serializable {
 		}
 	}
 
+	/**
+	 * Add a collection of points in the list that will be used to perform the
+	 * triangulation. The new points are sorted once and merged with the
+	 * existing ones in a single pass. As with addPoint, a point whose 2D
+	 * coordinates are already in the mesh is silently ignored, and only the
+	 * first of several duplicated input points is kept.
+	 * @param pts
+	 * @throws DelaunayError
+	 */
+	public final void addPoints(Collection<DPoint> pts) throws DelaunayError {
+		mergePoints(new ArrayList<DPoint>(pts), null);
+	}
+
+	/**
+	 * Add a collection of constraint edges. The ends of the edges are merged
+	 * with the points of the mesh in a single pass, as in addPoints, and
+	 * the edges are then wired to the points that are actually kept in
+	 * the mesh. The constraints are merged with the existing ones in a single
+	 * pass too. Degenerated and duplicated edges are silently ignored.
+	 * @param constraints
+	 * @throws DelaunayError
+	 */
+	public final void addConstraints(Collection<DEdge> constraints) throws DelaunayError {
+		if (constraintEdges == null) {
+			constraintEdges = new ArrayList<DEdge>();
+		}
+		List<DPoint> ends = new ArrayList<DPoint>(2 * constraints.size());
+		for(DEdge e : constraints){
+			ends.add(e.getStartPoint());
+			ends.add(e.getEndPoint());
+		}
+		Map<DPoint, DPoint> canonical = new IdentityHashMap<DPoint, DPoint>();
+		mergePoints(ends, canonical);
+		List<DEdge> added = new ArrayList<DEdge>(constraints.size());
+		for(DEdge e : constraints){
+			DPoint pt = canonical.get(e.getStartPoint());
+			if(pt != null){
+				e.setStartPoint(pt);
+			}
+			pt = canonical.get(e.getEndPoint());
+			if(pt != null){
+				e.setEndPoint(pt);
+			}
+			if(e.getStartPoint() != e.getEndPoint()){
+				e.setLocked(true);
+				fixConstraintDirection(e);
+				added.add(e);
+			}
+		}
+		long start = metrics == null ? 0 : System.nanoTime();
+		Collections.sort(added);
+		List<DEdge> merged = new ArrayList<DEdge>(constraintEdges.size() + added.size());
+		int i = 0;
+		DEdge last = null;
+		for(DEdge e : added){
+			while(i < constraintEdges.size() && constraintEdges.get(i).compareTo(e) <= 0){
+				last = constraintEdges.get(i);
+				merged.add(last);
+				i++;
+			}
+			if(last == null || last.compareTo(e) != 0){
+				merged.add(e);
+				last = e;
+			}
+		}
+		merged.addAll(constraintEdges.subList(i, constraintEdges.size()));
+		constraintEdges = merged;
+		if(metrics != null){
+			metrics.phaseCompleted(MeshPhase.SORT, System.nanoTime() - start);
+		}
+	}
+
+	/**
+	 * Add a polygon to the mesh. Its shell and its holes are added as
+	 * constraint edges, with the z of their points, and the polygon is kept
+	 * so that the triangles it contains can be tagged with tagPolygons once
+	 * the mesh is computed. The rings can be closed or not, in any orientation.
+	 * If the rings intersect other constraints, forceConstraintIntegrity must
+	 * be called before processDelaunay, as for any other constraint.
+	 * @param shell
+	 * @param holes
+	 * @param id
+	 *	The id given to the triangles of the polygon, as their external GID.
+	 * @throws DelaunayError
+	 *	If the mesh has already been computed, or if a ring has less than three points.
+	 */
+	public final void addPolygon(List<DPoint> shell, List<List<DPoint>> holes, int id) throws DelaunayError {
+		if(meshComputed){
+			throw new DelaunayError(DelaunayError.DELAUNAY_ERROR_GENERATED);
+		}
+		if(polygons == null){
+			polygons = new PolygonTagger();
+		}
+		List<DEdge> ringEdges = new ArrayList<DEdge>();
+		for(List<DPoint> ring : polygons.addPolygon(shell, holes, id)){
+			for(int i = 0; i < ring.size(); i++){
+				ringEdges.add(new DEdge(ring.get(i), ring.get((i + 1) % ring.size())));
+			}
+		}
+		addConstraints(ringEdges);
+	}
+
+	/**
+	 * Tag the triangles of the mesh according to the polygons added with
+	 * addPolygon. The triangles inside a polygon take its id as external GID,
+	 * and receive insideProperty. The triangles that are outside all
+	 * the polygons, or in their holes, receive outsideProperty.
+	 * @param insideProperty
+	 * @param outsideProperty
+	 * @return
+	 *	The number of triangles that are inside a polygon.
+	 * @throws DelaunayError
+	 *	If the mesh has not been computed, or if a polygon boundary is not
+	 *	in the mesh.
+	 */
+	public final int tagPolygons(int insideProperty, int outsideProperty) throws DelaunayError {
+		return tagPolygons(insideProperty, outsideProperty, outsideProperty);
+	}
+
+	/**
+	 * Tag the triangles of the mesh according to the polygons added with
+	 * addPolygon. The triangles inside a polygon take its id as external GID,
+	 * and receive insideProperty. The triangles that are in the hole of a
+	 * polygon, and not inside another polygon, receive holeProperty. The
+	 * other triangles receive outsideProperty. The triangles are tagged in a
+	 * single pass, by flooding each polygon and each hole from its boundary.
+	 * @param insideProperty
+	 * @param outsideProperty
+	 * @param holeProperty
+	 * @return
+	 *	The number of triangles that are inside a polygon.
+	 * @throws DelaunayError
+	 *	If the mesh has not been computed, or if a polygon boundary is not
+	 *	in the mesh.
+	 */
+	public final int tagPolygons(int insideProperty, int outsideProperty, int holeProperty) throws DelaunayError {
+		if(!meshComputed){
+			throw new DelaunayError(DelaunayError.DELAUNAY_ERROR_NOT_GENERATED);
+		}
+		if(polygons == null){
+			return 0;
+		}
+		return polygons.tag(this, insideProperty, outsideProperty, holeProperty);
+	}
+
+	/**
+	 * Sort the new points and merge them with the points of the mesh. The
+	 * existing points are kept when a new point has the same 2D coordinates.
+	 * @param newPoints
+	 * @param canonical
+	 *	if not null, receives, for each new point that has not been kept,
+	 *	the point of the mesh that replaces it.
+	 * @throws DelaunayError
+	 */
+	private void mergePoints(List<DPoint> newPoints, Map<DPoint, DPoint> canonical) throws DelaunayError {
+		long start = metrics == null ? 0 : System.nanoTime();
+		Collections.sort(newPoints);
+		List<DPoint> merged = new ArrayList<DPoint>(points.size() + newPoints.size());
+		int i = 0;
+		DPoint last = null;
+		for(DPoint pt : newPoints){
+			while(i < points.size() && points.get(i).compareTo(pt) <= 0){
+				last = points.get(i);
+				merged.add(last);
+				i++;
+			}
+			if(last != null && last.compareTo(pt) == 0){
+				if(canonical != null && last != pt){
+					canonical.put(pt, last);
+				}
+			} else {
+				updateExtensionPoints(pt);
+				pointGID++;
+				pt.setGID(pointGID);
+				merged.add(pt);
+				last = pt;
+			}
+		}
+		merged.addAll(points.subList(i, points.size()));
+		points = merged;
+		if(metrics != null){
+			metrics.phaseCompleted(MeshPhase.SORT, System.nanoTime() - start);
+		}
+	}
+
 	/**
 	 * Get the extension points that would be added to the mesh while computing
 	 * DT or CDT with the current set of points.
@@ -647,6 +1015,20 @@ public class ConstrainedMesh implements Serializable {
          * If you use it after, you will break the unicity of edges GID.
 	 */
 	public final void forceConstraintIntegrity() throws DelaunayError {
+		invalidatePropertyIndex();
+		if(metrics == null){
+			computeConstraintIntegrity();
+		} else {
+			long start = System.nanoTime();
+			computeConstraintIntegrity();
+			metrics.phaseCompleted(MeshPhase.CONSTRAINT_INTEGRITY, System.nanoTime() - start);
+		}
+	}
+
+	/**
+	 * The implementation of forceConstraintIntegrity.
+	 */
+	private void computeConstraintIntegrity() throws DelaunayError {
                 //We don't need to do anything if we don't have any constraint edge
                 if(constraintEdges.size()<1){
                         return;
@@ -685,6 +1067,9 @@ public class ConstrainedMesh implements Serializable {
 		int memoryPos = 0;
 		int rmCount;
 		int mem;
+		//The weights are read for each intersection : we don't want to box
+		//the properties each time.
+		IntIntMap weightMap = new IntIntMap(weights);
 		while (i < eventPoints.size()) {
 			//The max weight used to compute the current intersection
 			int maxWeight = Integer.MIN_VALUE;
@@ -723,7 +1108,7 @@ public class ConstrainedMesh implements Serializable {
 					j = j < 1 ? 1 : j;
 					e1 = edgeBuffer.get(j - 1);
 					e2 = edgeBuffer.get(j);
-					intersection = e1.getIntersection(e2,weights);
+					intersection = e1.getIntersection(e2,weightMap);
 					rmCount = 0;
 					if (intersection instanceof DPoint) {
 						//We have a single intersection point.
@@ -736,8 +1121,8 @@ public class ConstrainedMesh implements Serializable {
 							if (newEvent.equals2D(currentEvent)) {
 								//intersection.
 								if(!weights.isEmpty()){
-									w1 = e1.getMaxWeight(weights);
-									w2 = e2.getMaxWeight(weights);
+									w1 = e1.getMaxWeight(weightMap);
+									w2 = e2.getMaxWeight(weightMap);
 									if(w1<maxWeight && w2<maxWeight){
 										if(Double.isNaN(z)){
 											throw new DelaunayError("you're not supposed to have a NaN here !");
@@ -926,7 +1311,7 @@ public class ConstrainedMesh implements Serializable {
                                                         e1.setEndPoint(currentEvent);
                                                 }
                                                 if(!weights.isEmpty()){
-                                                        int w = e1.getMaxWeight(weights);
+                                                        int w = e1.getMaxWeight(weightMap);
                                                         if(w>maxWeight){
                                                                 maxWeight = w;
                                                         }
@@ -1133,11 +1518,14 @@ public class ConstrainedMesh implements Serializable {
 	 * @throws DelaunayError
 	 */
 	public final void processDelaunay() throws DelaunayError {
+		invalidatePropertyIndex();
 		if (isMeshComputed()) {
 			throw new DelaunayError(DelaunayError.DELAUNAY_ERROR_GENERATED);
 		} else if (points.size() < MIN_POINTS_NUMBER) {
 			throw new DelaunayError(DelaunayError.DELAUNAY_ERROR_NOT_ENOUGH_POINTS_FOUND);
 		} else {
+                        long start = metrics == null ? 0 : System.nanoTime();
+                        long flipTime;
                         pointGID=0;
                         for(DPoint pt : points){
                                 pt.setGID(++pointGID);
@@ -1149,45 +1537,17 @@ public class ConstrainedMesh implements Serializable {
 			edges = new ArrayList<DEdge>();
 			triangleList = new ArrayList<DTriangle>();
 
-			// sort points
-			if (verbose) {
-				LOG.trace("Getting points");
-			}
-			ListIterator<DPoint> iterPoint = points.listIterator();
-
-			DPoint p1 = iterPoint.next();
-			DPoint p2 = iterPoint.next();
-			DEdge e1 = new DEdge(p1, p2);
-			e1 = replaceByConstraint(e1);
-			List<DEdge> fromLeft = getConstraintFromLPVertical(p1);
-			//This operaton connects the two first points and their linked constraints.
-			Boundary bound = buildStartBoundary(p1, e1, fromLeft, getConstraintFromLPVertical(p2));
-			List<DEdge> added ;
-			List<DTriangle> tri;
-			while(iterPoint.hasNext()){
-				p2=iterPoint.next();
-				fromLeft = getConstraintFromLPVertical(p2);
-				//The insertion is performed here !
-				tri = bound.insertPoint(p2, fromLeft);
-				for(DTriangle t : tri){
-					triangleGID++;
-					t.setGID(triangleGID);
-				}
-				triangleList.addAll(tri);
-
-				//We retrieve the edges that have been added to the mesh.
-				added = bound.getAddedEdges();
-				for(DEdge e : added){
-					edgeGID++;
-					e.setGID(edgeGID);
-				}
-				edges.addAll(added);
-				//We retrieve the potential bad edges, and treat them.
-				badEdgesQueueList = bound.getBadEdges();
-				processBadEdges();
+			if(frontSmoothing && constraintEdges.isEmpty() && FrontSweep.canProcess(points)){
+				flipTime = sweepFront();
+			} else {
+				flipTime = sweepBoundary();
 			}
 
 			meshComputed = true;
+			if(metrics != null){
+				metrics.phaseCompleted(MeshPhase.FLIP, flipTime);
+				metrics.phaseCompleted(MeshPhase.SWEEP, System.nanoTime() - start - flipTime);
+			}
 
 			// It's fine, we computed the mesh
 			if (verbose) {
@@ -1200,6 +1560,149 @@ public class ConstrainedMesh implements Serializable {
 		}
 	}
 
+	/**
+	 * Insert the points in the mesh with the sweep line algorithm, using
+	 * a Boundary to manage the constraints.
+	 * @return
+	 *	The time spent in the flip operations, if metrics are enabled.
+	 * @throws DelaunayError
+	 */
+	private long sweepBoundary() throws DelaunayError {
+		long flipTime = 0;
+		// sort points
+		if (verbose) {
+			LOG.trace("Getting points");
+		}
+		ListIterator<DPoint> iterPoint = points.listIterator();
+
+		DPoint p1 = iterPoint.next();
+		DPoint p2 = iterPoint.next();
+		DEdge e1 = new DEdge(p1, p2);
+		e1 = replaceByConstraint(e1);
+		List<DEdge> fromLeft = getConstraintFromLPVertical(p1);
+		//This operaton connects the two first points and their linked constraints.
+		Boundary bound = buildStartBoundary(p1, e1, fromLeft, getConstraintFromLPVertical(p2));
+		List<DEdge> added ;
+		List<DTriangle> tri;
+		while(iterPoint.hasNext()){
+			p2=iterPoint.next();
+			fromLeft = getConstraintFromLPVertical(p2);
+			//The insertion is performed here !
+			tri = bound.insertPoint(p2, fromLeft);
+			if(metrics != null){
+				metrics.increment(MeshCounter.SWEEP_INSERTIONS, 1);
+				metrics.increment(MeshCounter.BOUNDARY_PARTS_CONNECTED, bound.getLastConnectedParts());
+			}
+			for(DTriangle t : tri){
+				triangleGID++;
+				t.setGID(triangleGID);
+			}
+			triangleList.addAll(tri);
+
+			//We retrieve the edges that have been added to the mesh.
+			added = bound.getAddedEdges();
+			for(DEdge e : added){
+				edgeGID++;
+				e.setGID(edgeGID);
+			}
+			edges.addAll(added);
+			//We retrieve the potential bad edges, and treat them.
+			badEdgesQueueList = bound.getBadEdges();
+			if(metrics == null){
+				processBadEdges();
+			} else {
+				metrics.increment(MeshCounter.BAD_EDGES_ENQUEUED, badEdgesQueueList.size());
+				long flipStart = System.nanoTime();
+				processBadEdges();
+				flipTime += System.nanoTime() - flipStart;
+			}
+		}
+		return flipTime;
+	}
+
+	/**
+	 * Insert the points in the mesh with an advancing front. There must not
+	 * be any constraint in the mesh.
+	 * @return
+	 *	The time spent in the flip operations, if metrics are enabled.
+	 * @throws DelaunayError
+	 */
+	private long sweepFront() throws DelaunayError {
+		FrontSweep sweep = new FrontSweep(this, points);
+		sweep.triangulate();
+		for(DTriangle t : sweep.getTriangles()){
+			t.setGID(++triangleGID);
+		}
+		triangleList.addAll(sweep.getTriangles());
+		for(DEdge e : sweep.getEdges()){
+			e.setGID(++edgeGID);
+		}
+		edges.addAll(sweep.getEdges());
+		return sweep.getFlipTime();
+	}
+
+	/**
+	 * Use a triangulation that has been computed outside of this mesh. The
+	 * edges and the triangles must be linked together, and their points must
+	 * be in pts. The GIDs are given again, and the mesh is then computed.
+	 * @param pts
+	 * @param eds
+	 * @param tris
+	 */
+	final void setTriangulation(List<DPoint> pts, List<DEdge> eds, List<DTriangle> tris) {
+		invalidatePropertyIndex();
+		points = new ArrayList<DPoint>(pts);
+		Collections.sort(points);
+		pointGID = 0;
+		for(DPoint pt : points){
+			pt.setGID(++pointGID);
+		}
+		//As after sweepFront, the edges are not sorted.
+		edges = new ArrayList<DEdge>(eds);
+		edgeGID = 0;
+		for(DEdge ed : edges){
+			ed.setGID(++edgeGID);
+		}
+		triangleList = new ArrayList<DTriangle>(tris);
+		triangleGID = 0;
+		for(DTriangle tri : triangleList){
+			tri.setGID(++triangleGID);
+		}
+		meshComputed = true;
+	}
+
+	/**
+	 * Check the consistency of the computed mesh : the links between the
+	 * edges and the triangles, the orientation of the triangles, the number
+	 * of triangles that share each edge, the registration of the locked
+	 * edges as constraints, the constrained Delaunay criterion, the duplicated
+	 * points and the Euler characteristic.
+	 * @return
+	 *	A report of the problems that have been found.
+	 * @throws DelaunayError if the mesh has not been computed yet.
+	 */
+	public final ValidationReport validate() throws DelaunayError {
+		return validate(1);
+	}
+
+	/**
+	 * Check the consistency of the computed mesh, using several threads. The
+	 * mesh must not be modified during the validation.
+	 * @param threads
+	 * @return
+	 *	A report of the problems that have been found.
+	 * @throws DelaunayError if the mesh has not been computed yet.
+	 */
+	public final ValidationReport validate(int threads) throws DelaunayError {
+		if(!meshComputed){
+			throw new DelaunayError(DelaunayError.DELAUNAY_ERROR_NOT_GENERATED);
+		}
+		if(threads < 1){
+			throw new IllegalArgumentException("At least one thread is needed");
+		}
+		return new MeshValidator(this).validate(threads);
+	}
+
 	/**
 	 * This operation remove the flat triangles by inserting new points in the mesh,
 	 * that come from the skeleton of the already computed mesh.
@@ -1208,10 +1711,12 @@ public class ConstrainedMesh implements Serializable {
 	 * @throws DelaunayError
 	 */
 	public final void removeFlatTriangles() throws DelaunayError {
+		invalidatePropertyIndex();
 		//if the mesh has not been computed, we throw an exception.
 		if(!meshComputed){
 			throw new DelaunayError(DelaunayError.DELAUNAY_ERROR_GENERATED);
 		}
+		long start = metrics == null ? 0 : System.nanoTime();
 		if((!triangleList.isEmpty() && triangleList.get(0).isSeenForFlatRemoval())){
 			for(DTriangle tri : triangleList){
 				tri.setSeenForFlatRemoval(false);
@@ -1246,49 +1751,521 @@ public class ConstrainedMesh implements Serializable {
 			fixConstraintDirection(e);
 		}
 		processDelaunay();
+		if(metrics != null){
+			metrics.phaseCompleted(MeshPhase.FLAT_REMOVAL, System.nanoTime() - start);
+		}
 	}
 
 	/**
-	 * Refine the mesh, using the Ruppert's algorithm.
+	 * Remove the triangles on the outside of the mesh, peeling them from the
+	 * convex hull inward. A triangle is removed when one of its edges is on
+	 * the outside of the mesh, is not locked, and is longer than maxLength.
+	 * Its other edges are then on the outside, and are processed in turn. The
+	 * locked edges are never crossed : with a maxLength of 0, all the
+	 * triangles that are not enclosed by constraints are removed, and with
+	 * a positive value we obtain a concave hull of the points.<br/>
+	 * The edges that don't belong to any triangle anymore are removed, and so
+	 * are the points that don't belong to any edge. The lists are compacted
+	 * once, at the end of the process.
+	 * @param maxLength
+	 * @return
+	 *	The number of triangles that have been removed.
+	 * @throws DelaunayError if the mesh has not been computed yet.
+	 */
+	public final int trimHull(double maxLength) throws DelaunayError {
+		invalidatePropertyIndex();
+		if(!meshComputed){
+			throw new DelaunayError(DelaunayError.DELAUNAY_ERROR_NOT_GENERATED);
+		}
+		long start = metrics == null ? 0 : System.nanoTime();
+		double maxSq = maxLength * maxLength;
+		Set<Element> removed = Collections.newSetFromMap(new IdentityHashMap<Element, Boolean>());
+		Deque<DEdge> queue = new ArrayDeque<DEdge>();
+		for(DEdge ed : edges){
+			if((ed.getLeft() == null) != (ed.getRight() == null)){
+				queue.add(ed);
+			}
+		}
+		int count = 0;
+		while(!queue.isEmpty()){
+			DEdge ed = queue.poll();
+			DTriangle tri = ed.getLeft() == null ? ed.getRight() : ed.getLeft();
+			if(tri == null || ed.isLocked() || ed.getSquared2DLength() <= maxSq){
+				continue;
+			}
+			removed.add(tri);
+			count++;
+			for(int i = 0; i < DTriangle.PT_NB; i++){
+				DEdge other = tri.getEdge(i);
+				if(other.getLeft() == tri){
+					other.setLeft(null);
+				}
+				if(other.getRight() == tri){
+					other.setRight(null);
+				}
+				if(other.getLeft() == null && other.getRight() == null){
+					removed.add(other);
+				} else {
+					queue.add(other);
+				}
+			}
+		}
+		if(count > 0){
+			triangleList = removeAll(triangleList, removed);
+			edges = removeAll(edges, removed);
+			constraintEdges = removeAll(constraintEdges, removed);
+			Set<Element> used = Collections.newSetFromMap(new IdentityHashMap<Element, Boolean>());
+			for(DEdge ed : edges){
+				used.add(ed.getStartPoint());
+				used.add(ed.getEndPoint());
+			}
+			List<DPoint> kept = new ArrayList<DPoint>(used.size());
+			for(DPoint pt : points){
+				if(used.contains(pt)){
+					kept.add(pt);
+				}
+			}
+			points = kept;
+		}
+		if(metrics != null){
+			metrics.phaseCompleted(MeshPhase.TRIMMING, System.nanoTime() - start);
+		}
+		return count;
+	}
+
+	private static <T extends Element> List<T> removeAll(List<T> elements, Set<Element> removed) {
+		List<T> ret = new ArrayList<T>(elements.size());
+		for(T el : elements){
+			if(!removed.contains(el)){
+				ret.add(el);
+			}
+		}
+		return ret;
+	}
+
+	/**
+	 * Reorder the points, the edges and the triangles of the computed mesh
+	 * along a Hilbert curve of their barycenters, and renumber them : after
+	 * this operation, the GIDs of each kind of element go from 1 to the
+	 * size of its list, in the order of the list. They can consequently be
+	 * used as indices in arrays, and the traversals of the lists visit the
+	 * elements that are close in the mesh one after the other.<br/>
+	 * As after a refinement, the list of points is not sorted anymore.
+	 * @param copy
+	 *	If true, the elements are replaced by copies that are allocated
+	 *	in their new order, so that they are close in memory too. The
+	 *	references to the old elements that are kept outside of the mesh
+	 *	must not be used anymore.
+	 * @throws DelaunayError if the mesh has not been computed yet.
+	 */
+	public final void compactAndReorder(boolean copy) throws DelaunayError {
+		invalidatePropertyIndex();
+		if(!meshComputed){
+			throw new DelaunayError(DelaunayError.DELAUNAY_ERROR_NOT_GENERATED);
+		}
+		int size = points.size();
+		double[] x = new double[size];
+		double[] y = new double[size];
+		for(int i = 0; i < size; i++){
+			x[i] = points.get(i).getX();
+			y[i] = points.get(i).getY();
+		}
+		List<DPoint> newPoints = reorder(points, HilbertOrder.sort(x, y));
+		size = edges.size();
+		x = new double[size];
+		y = new double[size];
+		for(int i = 0; i < size; i++){
+			DEdge ed = edges.get(i);
+			x[i] = (ed.getStartPoint().getX() + ed.getEndPoint().getX()) / 2;
+			y[i] = (ed.getStartPoint().getY() + ed.getEndPoint().getY()) / 2;
+		}
+		List<DEdge> newEdges = reorder(edges, HilbertOrder.sort(x, y));
+		List<DTriangle> oldTriangles = new ArrayList<DTriangle>(triangleList);
+		size = oldTriangles.size();
+		x = new double[size];
+		y = new double[size];
+		for(int i = 0; i < size; i++){
+			DTriangle tri = oldTriangles.get(i);
+			for(int j = 0; j < DTriangle.PT_NB; j++){
+				x[i] += tri.getPoint(j).getX() / DTriangle.PT_NB;
+				y[i] += tri.getPoint(j).getY() / DTriangle.PT_NB;
+			}
+		}
+		List<DTriangle> newTriangles = reorder(oldTriangles, HilbertOrder.sort(x, y));
+		if(copy){
+			copyElements(newPoints, newEdges, newTriangles);
+		}
+		points = newPoints;
+		edges = newEdges;
+		triangleList = newTriangles;
+		pointGID = renumber(points);
+		edgeGID = renumber(edges);
+		triangleGID = renumber(triangleList);
+	}
+
+	/**
+	 * Put the points, the edges and the triangles of the computed mesh in a
+	 * canonical order, that only depends on their coordinates, and renumber
+	 * them as compactAndReorder does. Two computations that build the same
+	 * mesh consequently give the same lists and the same GIDs, whatever the
+	 * order in which the elements have been created.<br/>
+	 * The points are sorted on (x, y, z). The edges are oriented from their
+	 * lower point to their upper one, and sorted on these two points, as
+	 * with sortLeftRight. The three edges of each triangle are sorted, and
+	 * the triangles are sorted on their three points. The constraint edges
+	 * are sorted as the edges.<br/>
+	 * The orientation of the edges may change : forceTopographicOrientation
+	 * must be called again afterwards if it is needed.
+	 * @throws DelaunayError if the mesh has not been computed yet.
+	 */
+	public final void canonicalize() throws DelaunayError {
+		canonicalize(1);
+	}
+
+	/**
+	 * Put the elements of the computed mesh in a canonical order, using
+	 * several threads to sort them. The result does not depend on the number
+	 * of threads.
+	 * @param threads
+	 * @throws DelaunayError if the mesh has not been computed yet.
+	 * @see #canonicalize()
+	 */
+	public final void canonicalize(int threads) throws DelaunayError {
+		invalidatePropertyIndex();
+		if(!meshComputed){
+			throw new DelaunayError(DelaunayError.DELAUNAY_ERROR_NOT_GENERATED);
+		}
+		int size = points.size();
+		final double[] x = new double[size];
+		final double[] y = new double[size];
+		final double[] z = new double[size];
+		for(int i = 0; i < size; i++){
+			x[i] = points.get(i).getX();
+			y[i] = points.get(i).getY();
+			z[i] = points.get(i).getZ();
+		}
+		points = reorder(points, ParallelSort.sort(size, new ParallelSort.IndexComparator() {
+			@Override
+			public int compare(int i, int j) {
+				int c = Double.compare(x[i], x[j]);
+				if(c == 0){
+					c = Double.compare(y[i], y[j]);
+				}
+				return c == 0 ? Double.compare(z[i], z[j]) : c;
+			}
+		}, threads));
+		pointGID = renumber(points);
+		//The GIDs of the points are now their ranks, and are used as keys.
+		size = edges.size();
+		final long[] keys = new long[size];
+		for(int i = 0; i < size; i++){
+			DEdge ed = edges.get(i);
+			if(ed.getStartPoint().getGID() > ed.getEndPoint().getGID()){
+				ed.swap();
+			}
+			keys[i] = ((long) ed.getStartPoint().getGID() << Integer.SIZE) | ed.getEndPoint().getGID();
+		}
+		edges = reorder(edges, ParallelSort.sort(size, new ParallelSort.IndexComparator() {
+			@Override
+			public int compare(int i, int j) {
+				return keys[i] < keys[j] ? -1 : (keys[i] == keys[j] ? 0 : 1);
+			}
+		}, threads));
+		edgeGID = renumber(edges);
+		size = triangleList.size();
+		final int[] vertices = new int[DTriangle.PT_NB * size];
+		for(int i = 0; i < size; i++){
+			DTriangle tri = triangleList.get(i);
+			sortEdges(tri);
+			for(int j = 0; j < DTriangle.PT_NB; j++){
+				vertices[DTriangle.PT_NB * i + j] = tri.getPoint(j).getGID();
+			}
+			Arrays.sort(vertices, DTriangle.PT_NB * i, DTriangle.PT_NB * (i + 1));
+		}
+		triangleList = reorder(triangleList, ParallelSort.sort(size, new ParallelSort.IndexComparator() {
+			@Override
+			public int compare(int i, int j) {
+				for(int k = 0; k < DTriangle.PT_NB; k++){
+					int a = vertices[DTriangle.PT_NB * i + k];
+					int b = vertices[DTriangle.PT_NB * j + k];
+					if(a != b){
+						return a < b ? -1 : 1;
+					}
+				}
+				return 0;
+			}
+		}, threads));
+		triangleGID = renumber(triangleList);
+		Collections.sort(constraintEdges);
+	}
+
+	/**
+	 * Sort the three edges of tri on their GIDs.
+	 */
+	private static void sortEdges(DTriangle tri) {
+		for(int i = 1; i < DTriangle.PT_NB; i++){
+			for(int j = i; j > 0 && tri.getEdge(j - 1).getGID() > tri.getEdge(j).getGID(); j--){
+				DEdge tmp = tri.getEdge(j);
+				tri.setEdge(j, tri.getEdge(j - 1));
+				tri.setEdge(j - 1, tmp);
+			}
+		}
+	}
+
+	/**
+	 * Set the GIDs of the elements of list from 1 to its size, in its order.
+	 * @return
+	 *	The greatest GID.
+	 */
+	private static int renumber(List<? extends Element> list) {
+		int gid = 0;
+		for(Element el : list){
+			el.setGID(++gid);
+		}
+		return gid;
+	}
+
+	/**
+	 * Build a new list with the elements of list, in the given order.
+	 */
+	private static <T> List<T> reorder(List<T> list, int[] order) {
+		List<T> ret = new ArrayList<T>(order.length);
+		for(int i : order){
+			ret.add(list.get(i));
+		}
+		return ret;
+	}
+
+	/**
+	 * Replace the elements of the three lists by copies, allocated in the
+	 * order of the lists, and link the copies together. The constraint edges
+	 * are replaced by their copies too.
+	 */
+	private void copyElements(List<DPoint> pts, List<DEdge> eds, List<DTriangle> tris) throws DelaunayError {
+		Map<DPoint, DPoint> pointCopies = new IdentityHashMap<DPoint, DPoint>(pts.size());
+		for(int i = 0; i < pts.size(); i++){
+			DPoint old = pts.get(i);
+			DPoint pt = new DPoint(old);
+			pt.setExternalGID(old.getExternalGID());
+			pointCopies.put(old, pt);
+			pts.set(i, pt);
+		}
+		Map<DEdge, DEdge> edgeCopies = new IdentityHashMap<DEdge, DEdge>(eds.size());
+		for(int i = 0; i < eds.size(); i++){
+			DEdge old = eds.get(i);
+			DEdge ed = new DEdge(old);
+			ed.setExternalGID(old.getExternalGID());
+			ed.setStartPoint(getCopy(pointCopies, old.getStartPoint()));
+			ed.setEndPoint(getCopy(pointCopies, old.getEndPoint()));
+			edgeCopies.put(old, ed);
+			eds.set(i, ed);
+		}
+		Map<DTriangle, DTriangle> triangleCopies = new IdentityHashMap<DTriangle, DTriangle>(tris.size());
+		for(int i = 0; i < tris.size(); i++){
+			DTriangle old = tris.get(i);
+			DTriangle tri = new DTriangle(old);
+			tri.setExternalGID(old.getExternalGID());
+			tri.setSeenForFlatRemoval(old.isSeenForFlatRemoval());
+			for(int j = 0; j < DTriangle.PT_NB; j++){
+				tri.setEdge(j, edgeCopies.get(old.getEdge(j)));
+			}
+			tri.computeCenter();
+			triangleCopies.put(old, tri);
+			tris.set(i, tri);
+		}
+		for(DEdge ed : eds){
+			ed.setLeft(ed.getLeft() == null ? null : triangleCopies.get(ed.getLeft()));
+			ed.setRight(ed.getRight() == null ? null : triangleCopies.get(ed.getRight()));
+		}
+		for(int i = 0; i < constraintEdges.size(); i++){
+			DEdge ed = edgeCopies.get(constraintEdges.get(i));
+			if(ed != null){
+				constraintEdges.set(i, ed);
+			}
+		}
+	}
+
+	/**
+	 * Get the copy of pt, and create it if it does not exist yet.
+	 */
+	private static DPoint getCopy(Map<DPoint, DPoint> copies, DPoint pt) throws DelaunayError {
+		DPoint ret = copies.get(pt);
+		if(ret == null){
+			ret = new DPoint(pt);
+			ret.setGID(pt.getGID());
+			copies.put(pt, ret);
+		}
+		return ret;
+	}
+
+	/**
+	 * Refine the mesh, using the Ruppert's algorithm. If ev is a
+	 * BatchEvaluator, the worst triangles are refined first.
 	 * @param minLength
 	 *		The minimum length of an edge that could be inserted during the refinement.
 	 * @throws DelaunayError
          * @throws IllegalArgumentException if <code>minLength</code> is inferior or equal to 0
 	 */
 	public final void refineMesh(double minLength, InsertionEvaluator ev) throws DelaunayError {
+                invalidatePropertyIndex();
+                if(minLength <=0){
+                        throw new IllegalArgumentException("The minimum length must be strictly positive !");
+                }
+                long start = metrics == null ? 0 : System.nanoTime();
+		edgeSplitting(minLength);
+                triangleRefinement(minLength, ev);
+                if(metrics != null){
+                        metrics.phaseCompleted(MeshPhase.REFINEMENT, System.nanoTime() - start);
+                }
+	}
+
+	/**
+	 * Refine the mesh, using the Ruppert's algorithm, until the edges of
+	 * the triangles are not longer than the size given by field. The size
+	 * is sampled at the barycenter of the triangles. The mesh is
+	 * consequently only refined where it is needed.<br/>
+	 * A refinement pass can leave some of the triangles it has changed
+	 * unevaluated. Passes are consequently repeated until no triangle is
+	 * added. The sizes sampled by a pass are reused by the next one.
+	 * @param minLength
+	 *		The minimum length of an edge that could be inserted during the refinement.
+	 * @param field
+	 * @throws DelaunayError
+         * @throws IllegalArgumentException if <code>minLength</code> is inferior or equal to 0
+	 */
+	public final void refineMesh(double minLength, SizeField field) throws DelaunayError {
+                SizeEvaluator ev = new SizeEvaluator(field);
+                int size;
+                do {
+                        size = triangleList.size();
+                        refineMesh(minLength, ev);
+                } while(triangleList.size() > size);
+	}
+
+	/**
+	 * Refine the mesh, using a derivate of the Ruppert algorithm. We won't split any constraint
+         * edges here. If ev is a BatchEvaluator, the worst triangles are refined first.
+	 * @param minLength
+	 *		The minimum length of an edge that could be inserted during the refinement.
+	 * @throws DelaunayError
+         * @throws IllegalArgumentException if <code>minLength</code> is inferior or equal to 0
+	 */
+	public final void refineTriangles(double minLength, InsertionEvaluator ev) throws DelaunayError {
+                invalidatePropertyIndex();
                 if(minLength <=0){
                         throw new IllegalArgumentException("The minimum length must be strictly positive !");
                 }
-		edgeSplitting(minLength);
-                triangleRefinement(minLength, ev);
+                long start = metrics == null ? 0 : System.nanoTime();
+                processed = new IntObjectMap<DTriangle>(triangleList.size());
+                remaining = new IntObjectMap<DTriangle>(triangleList.size());
+                buffer = new IntObjectMap<DTriangle>();
+                fillRemainingFromTriangles();
+                while(!remaining.isEmpty()) {
+                        for(DTriangle dt : nextTriangles(ev)){
+                                if(remaining.containsKey(dt.getGID()) && ev.evaluate(dt)){
+                                        buffer.clear();
+                                        DEdge ret = insertTriangleCircumCenter(dt, true, minLength);
+                                        putInProcessed(dt);
+                                        if(ret == null){
+                                                fillRemainingFromTriangles();
+                                        }
+                                }else {
+                                        putInProcessed(dt);
+                                }
+                        }
+                }
+                triangleList = new LinkedList<DTriangle>(processed.values());
+                processed = null;
+                remaining = null;
+                buffer = null;
+                if(metrics != null){
+                        metrics.phaseCompleted(MeshPhase.REFINEMENT, System.nanoTime() - start);
+                }
 	}
 
 	/**
-	 * Refine the mesh, using a derivate of the Ruppert algorithm. We won't split any constraint
-         * edges here.
+	 * Refine the mesh while keeping the identity of its constraints.<br/>
+	 * The triangles that have an angle smaller than minAngle, or that are
+	 * flagged by ev, are refined by inserting their off-center rather than their
+	 * circumcenter : the point is moved towards the middle of the shortest edge
+	 * so that the new triangle built on this edge has an angle of minAngle
+	 * at the new point. This way, far less points are inserted than with the
+	 * circumcenters.<br/>
+	 * If the off-center is hidden by a protected edge (a locked edge or an edge
+	 * of the hull), or if it lies in the lens of such an edge, where it would
+	 * create a triangle whose angles on the edge are too small, the protected edge
+	 * is split instead. Near the apex of an acute angle between protected edges,
+	 * the splits are made on concentric shells centered on the apex. The pieces of
+	 * a locked edge keep its property and its external GID, and are added to
+	 * constraintEdges.<br/>
+	 * The triangles whose smallest angle lies in a corner made by two protected edges
+	 * with an angle smaller than 60°, or whose shortest edge links two protected
+	 * polylines that make such an angle, are not refined for their shape, as no
+	 * insertion could improve them without splitting the constraints indefinitely.
+	 * That's what guarantees the termination on small input angles.
 	 * @param minLength
 	 *		The minimum length of an edge that could be inserted during the refinement.
+	 * @param minAngle
+	 *		The minimum angle of the triangles, in degrees.
+	 * @param ev
+	 *		An additional criterion used to refine the triangles. Can be null.
 	 * @throws DelaunayError
-         * @throws IllegalArgumentException if <code>minLength</code> is inferior or equal to 0
+	 *		if the mesh has not been computed yet.
+	 * @throws IllegalArgumentException if <code>minLength</code> is inferior or equal to 0,
+	 *		or if minAngle is not in [0, SkinnyEvaluator.MAX_VALUE]
 	 */
-	public final void refineTriangles(double minLength, InsertionEvaluator ev) throws DelaunayError {
+	public final void refineProtected(double minLength, double minAngle, InsertionEvaluator ev) throws DelaunayError {
                 if(minLength <=0){
                         throw new IllegalArgumentException("The minimum length must be strictly positive !");
                 }
-                processed = new HashMap<Integer, DTriangle>(triangleList.size());
-                remaining = new HashMap<Integer, DTriangle>(triangleList.size());
+                SkinnyEvaluator skinny = new SkinnyEvaluator(minAngle);
+                if(!meshComputed){
+                        throw new DelaunayError(DelaunayError.DELAUNAY_ERROR_NOT_GENERATED);
+                }
+                invalidatePropertyIndex();
+                long start = metrics == null ? 0 : System.nanoTime();
+                //The distance between the middle of the shortest edge and the
+                //off-center, for a shortest edge of length 1.
+                double offset = minAngle > 0 ? 0.5 / Math.tan(Math.toRadians(minAngle) / 2) : Double.POSITIVE_INFINITY;
+                double cosLimit = -Math.cos(Math.toRadians(2 * minAngle));
+                //As in refineMesh(double, SizeField), a pass can leave some of the
+                //triangles it has changed unevaluated.
+                int size;
+                do {
+                        size = triangleList.size();
+                        protectedPass(minLength, skinny, ev, offset, cosLimit);
+                } while(triangleList.size() > size);
+                if(metrics != null){
+                        metrics.phaseCompleted(MeshPhase.REFINEMENT, System.nanoTime() - start);
+                }
+	}
+
+        /**
+         * Process one pass of the protected refinement.
+         * @param minLength
+         * @param skinny
+         * @param ev
+         * @param offset
+         * @param cosLimit
+         * @throws DelaunayError 
+         */
+        private void protectedPass(double minLength, SkinnyEvaluator skinny, InsertionEvaluator ev,
+                        double offset, double cosLimit) throws DelaunayError {
+                processed = new IntObjectMap<DTriangle>(triangleList.size());
+                remaining = new IntObjectMap<DTriangle>(triangleList.size());
+                buffer = new IntObjectMap<DTriangle>();
                 fillRemainingFromTriangles();
-                Set<Map.Entry<Integer, DTriangle>> treatSet = remaining.entrySet();
-                while(!treatSet.isEmpty()) {
-                        Map.Entry<Integer, DTriangle> entry = treatSet.iterator().next();
-                        DTriangle dt = entry.getValue();
-                        if(ev.evaluate(dt)){
-                                buffer = new HashMap<Integer, DTriangle>();
-                                DEdge ret = insertTriangleCircumCenter(dt, true, minLength);
+                while(!remaining.isEmpty()) {
+                        DTriangle dt = remaining.any();
+                        boolean bad = ev != null && ev.evaluate(dt);
+                        if(!bad && skinny.getMinAngle() > 0 && skinny.evaluate(dt)){
+                                bad = !isInSmallInputAngle(dt) && !isAcrossSmallInputAngle(dt);
+                        }
+                        if(bad){
+                                buffer.clear();
+                                insertProtected(dt, offset, cosLimit, minLength);
                                 putInProcessed(dt);
-                                if(ret == null){
-                                        fillRemainingFromTriangles();
-                                }
+                                fillRemainingFromTriangles();
                         }else {
                                 putInProcessed(dt);
                         }
@@ -1297,7 +2274,483 @@ public class ConstrainedMesh implements Serializable {
                 processed = null;
                 remaining = null;
                 buffer = null;
+        }
+
+	/**
+	 * Refine the mesh until its triangles have no angle smaller than minAngle,
+	 * while keeping the identity of its constraints. See refineProtected(double, double, InsertionEvaluator).
+	 * @param minLength
+	 *		The minimum length of an edge that could be inserted during the refinement.
+	 * @param minAngle
+	 *		The minimum angle of the triangles, in degrees.
+	 * @throws DelaunayError
+	 */
+	public final void refineProtected(double minLength, double minAngle) throws DelaunayError {
+                refineProtected(minLength, minAngle, null);
 	}
+
+        /**
+         * Insert the off-center of dt, if it can be seen from dt without crossing
+         * a protected edge, and if it does not encroach such an edge. Otherwise, the
+         * protected edge is split.
+         * @param dt
+         * @param offset
+         *      The distance between the off-center and the middle of the shortest
+         *      edge, for an edge of length 1.
+         * @param cosLimit
+         *      The cosine of the smallest angle under which a point can't see
+         *      a protected edge.
+         * @param minLength
+         * @throws DelaunayError 
+         */
+        private void insertProtected(DTriangle dt, double offset, double cosLimit, double minLength) throws DelaunayError {
+                DPoint pt = getOffCenter(dt, getShortestEdge(dt), offset);
+                Element container = locateVisible(dt, pt);
+                DEdge encroached = null;
+                if(container instanceof DTriangle){
+                        DTriangle tri = (DTriangle) container;
+                        if(isOnProtectedEdge(tri, pt)){
+                                encroached = tri.getContainingEdge(pt);
+                        } else {
+                                encroached = getEncroachedProtectedEdge(tri, pt, cosLimit);
+                                if(encroached == null){
+                                        pt.setZ(tri.interpolateZ(pt));
+                                        pt.setProperty(tri.getPoint(0).getProperty());
+                                        insertPointInTriangle(pt, tri, minLength);
+                                        return;
+                                }
+                        }
+                } else if(container instanceof DEdge){
+                        encroached = (DEdge) container;
+                }
+                if(encroached == null || !splitProtectedEdge(encroached, minLength)){
+                        if(metrics != null){
+                                metrics.increment(MeshCounter.CIRCUMCENTERS_REJECTED, 1);
+                        }
+                }
+        }
+
+        /**
+         * Split a protected edge. If only one of its extremities is the apex of an
+         * acute corner made with another protected edge, the edge is split on the
+         * circle centered on this apex whose radius is the power of two that is
+         * the closest to half its length. The edges around the apex are consequently
+         * split on the same concentric shells, and have the same length : the
+         * new points can't encroach each other indefinitely. Otherwise, the edge
+         * is split in its middle.<br/>
+         * The second half of the edge keeps the property and the external GID
+         * of the edge, and is added to the constraints if the edge is locked.
+         * @param ed
+         * @param minLength
+         * @return
+         *      false if the edge has not been split, because one of its parts
+         *      would be shorter than minLength.
+         * @throws DelaunayError 
+         */
+        private boolean splitProtectedEdge(DEdge ed, double minLength) throws DelaunayError {
+                DPoint start = ed.getStartPoint();
+                DPoint end = ed.getEndPoint();
+                double length = Math.sqrt(ed.getSquared2DLength());
+                boolean acuteStart = isAcuteCorner(ed, start);
+                double ratio = 0.5;
+                if(acuteStart != isAcuteCorner(ed, end)){
+                        double shell = Math.pow(2, Math.round(Math.log(length / 2) / Math.log(2)));
+                        ratio = acuteStart ? shell / length : 1 - shell / length;
+                }
+                if(ratio * length < minLength){
+                        return false;
+                }
+                DPoint pt = new DPoint(start.getX() + ratio * (end.getX() - start.getX()),
+                        start.getY() + ratio * (end.getY() - start.getY()),
+                        start.getZ() + ratio * (end.getZ() - start.getZ()));
+                pt.setProperty(ed.getProperty());
+                DEdge secondHalf = splitEdge(ed, pt, minLength, false);
+                if(secondHalf == null){
+                        return false;
+                }
+                secondHalf.setProperty(ed.getProperty());
+                secondHalf.setExternalGID(ed.getExternalGID());
+                return true;
+        }
+
+        /**
+         * Check if v, an extremity of the protected edge ed, is the apex of a
+         * corner smaller than 90° made by ed and another protected edge.
+         * @param ed
+         * @param v
+         * @return 
+         */
+        private static boolean isAcuteCorner(DEdge ed, DPoint v) {
+                double limit = Math.PI / 2;
+                DTriangle[] sides = {ed.getLeft(), ed.getRight()};
+                for(DTriangle tri : sides){
+                        if(tri != null){
+                                double angle = getAngleAt(tri, v);
+                                DEdge next = null;
+                                for(int i = 0; i < DTriangle.PT_NB; i++){
+                                        DEdge other = tri.getEdge(i);
+                                        if(other != ed && other.isExtremity(v)){
+                                                next = other;
+                                        }
+                                }
+                                if(angle + turnToProtectedEdge(tri, next, v, limit - angle) < limit){
+                                        return true;
+                                }
+                        }
+                }
+                return false;
+        }
+
+        /**
+         * Get the shortest edge of dt.
+         * @param dt
+         * @return 
+         */
+        private static DEdge getShortestEdge(DTriangle dt) {
+                DEdge shortest = dt.getEdge(0);
+                for(int i = 1; i < DTriangle.PT_NB; i++){
+                        if(dt.getEdge(i).getSquared2DLength() < shortest.getSquared2DLength()){
+                                shortest = dt.getEdge(i);
+                        }
+                }
+                return shortest;
+        }
+
+        /**
+         * Compute the off-center of dt. It is its circumcenter, unless this one is 
+         * farther than offset times the length of the shortest edge from its middle.
+         * In this case, the point at this distance on the bisector is returned.
+         * @param dt
+         * @param shortest
+         *      The shortest edge of dt.
+         * @param offset
+         * @return
+         * @throws DelaunayError 
+         */
+        private static DPoint getOffCenter(DTriangle dt, DEdge shortest, double offset) throws DelaunayError {
+                DPoint cc = dt.getCircumCenter();
+                double mx = (shortest.getStartPoint().getX() + shortest.getEndPoint().getX()) / 2;
+                double my = (shortest.getStartPoint().getY() + shortest.getEndPoint().getY()) / 2;
+                double dist = Math.sqrt((cc.getX() - mx) * (cc.getX() - mx) + (cc.getY() - my) * (cc.getY() - my));
+                double max = offset * Math.sqrt(shortest.getSquared2DLength());
+                if(dist <= max){
+                        return new DPoint(cc.getX(), cc.getY(), 0);
+                }
+                double ratio = max / dist;
+                return new DPoint(mx + (cc.getX() - mx) * ratio, my + (cc.getY() - my) * ratio, 0);
+        }
+
+        /**
+         * Search the triangle that contains pt, walking from tri without crossing
+         * any protected edge.
+         * @param tri
+         * @param pt
+         * @return
+         *      The triangle that contains pt, the locked or hull edge that hides it
+         *      from tri, or null if the walk has failed.
+         */
+        private Element locateVisible(DTriangle tri, DPoint pt) {
+                DTriangle cur = tri;
+                int max = 2 * points.size() + 10;
+                for(int step = 0; step < max; step++){
+                        if(cur.isInside(pt)){
+                                return cur;
+                        }
+                        DTriangle next = null;
+                        for(int i = 0; i < DTriangle.PT_NB && next == null; i++){
+                                DEdge ed = cur.getEdge(i);
+                                DPoint op = cur.getOppositePoint(ed);
+                                boolean toRight = ed.isRight(pt) && ed.isLeft(op);
+                                if(toRight || (ed.isLeft(pt) && ed.isRight(op))){
+                                        next = toRight ? ed.getRight() : ed.getLeft();
+                                        if(next == null || ed.isLocked()){
+                                                return ed;
+                                        }
+                                }
+                        }
+                        if(next == null){
+                                return null;
+                        }
+                        cur = next;
+                }
+                return null;
+        }
+
+        /**
+         * Check if pt lies on a locked edge or on an edge of the hull of container.
+         * @param container
+         * @param pt
+         * @return 
+         */
+        private static boolean isOnProtectedEdge(DTriangle container, DPoint pt) {
+                if(!container.isOnAnEdge(pt)){
+                        return false;
+                }
+                DEdge ed = container.getContainingEdge(pt);
+                return ed.isLocked() || ed.getLeft() == null || ed.getRight() == null;
+        }
+
+        /**
+         * Check if the insertion of pt in container would create a triangle with
+         * a protected edge, and a too large angle at pt. The lens of an edge ab is
+         * the area where the angle apb is greater than 180° - 2 * minAngle. With
+         * a minimum angle of 45°, it is the diametral circle of ab. A point in
+         * this lens would create a triangle whose angles in a and b are too small,
+         * that could only be fixed by splitting ab. Such a point is consequently
+         * rejected, and ab is split instead, unless it sees ab under a smaller angle than the point that
+         * currently faces ab : the triangles built on the protected edges can only
+         * be improved, and we can't fall in a cascade of points going to ab.<br/>
+         * The triangles that will be linked to pt are the ones whose circumcircle 
+         * contains pt, and that can be reached from container without crossing 
+         * a protected edge.
+         * @param container
+         * @param pt
+         * @param cosLimit
+         *      The cosine of 180° - 2 * minAngle.
+         * @return 
+         *      The protected edge encroached by pt, or null if there is none.
+         */
+        private static DEdge getEncroachedProtectedEdge(DTriangle container, DPoint pt, double cosLimit) {
+                Set<DTriangle> seen = Collections.newSetFromMap(new IdentityHashMap<DTriangle, Boolean>());
+                Deque<DTriangle> stack = new ArrayDeque<DTriangle>();
+                stack.push(container);
+                seen.add(container);
+                while(!stack.isEmpty()){
+                        DTriangle tri = stack.pop();
+                        for(int i = 0; i < DTriangle.PT_NB; i++){
+                                DEdge ed = tri.getEdge(i);
+                                if(ed.isLocked() || ed.getLeft() == null || ed.getRight() == null){
+                                        double cos = getCosine(ed, pt);
+                                        if(cos < cosLimit && cos <= getCosine(ed, tri.getOppositePoint(ed))){
+                                                return ed;
+                                        }
+                                } else {
+                                        DTriangle other = ed.getLeft() == tri ? ed.getRight() : ed.getLeft();
+                                        if(!seen.contains(other) && other.inCircle(pt) == 1){
+                                                seen.add(other);
+                                                stack.push(other);
+                                        }
+                                }
+                        }
+                }
+                return null;
+        }
+
+        /**
+         * Get the cosine of the angle under which pt sees ed.
+         * @param ed
+         * @param pt
+         * @return 
+         */
+        private static double getCosine(DEdge ed, DPoint pt) {
+                double ux = ed.getStartPoint().getX() - pt.getX();
+                double uy = ed.getStartPoint().getY() - pt.getY();
+                double wx = ed.getEndPoint().getX() - pt.getX();
+                double wy = ed.getEndPoint().getY() - pt.getY();
+                double norms = Math.sqrt((ux * ux + uy * uy) * (wx * wx + wy * wy));
+                return norms == 0 ? -1 : (ux * wx + uy * wy) / norms;
+        }
+
+        /**
+         * Check if the smallest angle of tri lies in a corner made by two protected
+         * edges, with an angle smaller than 60°. We turn around the vertex, in both
+         * directions, until we find a locked or hull edge.
+         * @param tri
+         * @return 
+         */
+        private static boolean isInSmallInputAngle(DTriangle tri) {
+                int k = 0;
+                for(int i = 1; i < DTriangle.PT_NB; i++){
+                        if(tri.getAngle(i) < tri.getAngle(k)){
+                                k = i;
+                        }
+                }
+                DPoint v = tri.getPoint(k);
+                double limit = Math.PI / 3;
+                double wedge = getAngleAt(tri, v);
+                for(int i = 0; i < DTriangle.PT_NB && wedge < limit; i++){
+                        if(tri.getEdge(i).isExtremity(v)){
+                                wedge += turnToProtectedEdge(tri, tri.getEdge(i), v, limit - wedge);
+                        }
+                }
+                return wedge < limit;
+        }
+
+        /**
+         * Check if the shortest edge of tri links two protected polylines that
+         * start from the same vertex with an angle smaller than 60°. Such a triangle
+         * lies in the thin area between the two polylines, where it could only be
+         * improved by splitting them again and again towards their common vertex.
+         * @param tri
+         * @return 
+         */
+        private static boolean isAcrossSmallInputAngle(DTriangle tri) {
+                DEdge shortest = getShortestEdge(tri);
+                DPoint p = shortest.getStartPoint();
+                DPoint q = shortest.getEndPoint();
+                if(isProtected(shortest)){
+                        return false;
+                }
+                List<DEdge> aroundP = getProtectedEdges(tri, p);
+                List<DEdge> aroundQ = getProtectedEdges(tri, q);
+                if(aroundP.size() != 2 || aroundQ.size() != 2){
+                        return false;
+                }
+                for(DEdge ep : aroundP){
+                        DEdge lastP = getPolylineEnd(p, ep);
+                        for(DEdge eq : aroundQ){
+                                DEdge lastQ = getPolylineEnd(q, eq);
+                                if(lastP != null && lastQ != null && lastP != lastQ){
+                                        DPoint apex = lastP.isExtremity(lastQ.getStartPoint()) ? lastQ.getStartPoint()
+                                                : (lastP.isExtremity(lastQ.getEndPoint()) ? lastQ.getEndPoint() : null);
+                                        if(apex != null && getAngle(apex, p, q) < Math.PI / 3){
+                                                return true;
+                                        }
+                                }
+                        }
+                }
+                return false;
+        }
+
+        /**
+         * Follow the protected edges from v, starting with ed, as long as they
+         * make a polyline without any junction, and whose angles are greater
+         * than 120°.
+         * @param v
+         * @param ed
+         * @return
+         *      The last edge of the polyline, or null if it is closed.
+         */
+        private static DEdge getPolylineEnd(DPoint v, DEdge ed) {
+                DPoint cur = v;
+                DEdge last = ed;
+                while(true){
+                        DPoint next = last.getStartPoint().equals2D(cur) ? last.getEndPoint() : last.getStartPoint();
+                        List<DEdge> around = getProtectedEdges(last.getLeft() != null ? last.getLeft() : last.getRight(), next);
+                        if(around.size() != 2){
+                                return last;
+                        }
+                        DEdge following = around.get(0) == last ? around.get(1) : around.get(0);
+                        if(following == ed){
+                                return null;
+                        }
+                        DPoint after = following.getStartPoint().equals2D(next) ? following.getEndPoint()
+                                : following.getStartPoint();
+                        if(getAngle(next, cur, after) < 2 * Math.PI / 3){
+                                return last;
+                        }
+                        cur = next;
+                        last = following;
+                }
+        }
+
+        /**
+         * Get the locked and hull edges that contain v, turning around v from tri.
+         * @param tri
+         *      A triangle that contains v.
+         * @param v
+         * @return 
+         */
+        private static List<DEdge> getProtectedEdges(DTriangle tri, DPoint v) {
+                List<DEdge> ret = new ArrayList<DEdge>();
+                for(int i = 0; i < DTriangle.PT_NB; i++){
+                        DTriangle cur = tri;
+                        DEdge ed = tri.getEdge(i);
+                        if(!ed.isExtremity(v)){
+                                continue;
+                        }
+                        while(true){
+                                if(isProtected(ed) && !ret.contains(ed)){
+                                        ret.add(ed);
+                                }
+                                cur = ed.getLeft() == cur ? ed.getRight() : ed.getLeft();
+                                if(cur == null){
+                                        break;
+                                } else if(cur == tri){
+                                        return ret;
+                                }
+                                DEdge last = ed;
+                                for(int j = 0; j < DTriangle.PT_NB; j++){
+                                        DEdge other = cur.getEdge(j);
+                                        if(other != last && other.isExtremity(v)){
+                                                ed = other;
+                                        }
+                                }
+                        }
+                }
+                return ret;
+        }
+
+        private static boolean isProtected(DEdge ed) {
+                return ed.isLocked() || ed.getLeft() == null || ed.getRight() == null;
+        }
+
+        /**
+         * Get the angle (a, apex, b), in radians.
+         * @param apex
+         * @param a
+         * @param b
+         * @return 
+         */
+        private static double getAngle(DPoint apex, DPoint a, DPoint b) {
+                double ux = a.getX() - apex.getX();
+                double uy = a.getY() - apex.getY();
+                double wx = b.getX() - apex.getX();
+                double wy = b.getY() - apex.getY();
+                return Math.abs(Math.atan2(ux * wy - uy * wx, ux * wx + uy * wy));
+        }
+
+        /**
+         * Turn around v, starting from tri and crossing side, until a locked or hull
+         * edge is found.
+         * @param tri
+         * @param side
+         *      An edge of tri that contains v.
+         * @param v
+         * @param limit
+         * @return
+         *      The sum of the angles at v of the triangles that have been crossed,
+         *      tri excluded, or Double.POSITIVE_INFINITY if it reaches limit or if
+         *      we turn all around v.
+         */
+        private static double turnToProtectedEdge(DTriangle tri, DEdge side, DPoint v, double limit) {
+                DTriangle cur = tri;
+                DEdge ed = side;
+                double swept = 0;
+                while(!ed.isLocked() && ed.getLeft() != null && ed.getRight() != null){
+                        cur = ed.getLeft() == cur ? ed.getRight() : ed.getLeft();
+                        if(cur == tri){
+                                return Double.POSITIVE_INFINITY;
+                        }
+                        swept += getAngleAt(cur, v);
+                        if(swept >= limit){
+                                return Double.POSITIVE_INFINITY;
+                        }
+                        DEdge last = ed;
+                        for(int i = 0; i < DTriangle.PT_NB; i++){
+                                DEdge other = cur.getEdge(i);
+                                if(other != last && other.isExtremity(v)){
+                                        ed = other;
+                                }
+                        }
+                }
+                return swept;
+        }
+
+        /**
+         * Get the angle of tri at v, in radians.
+         * @param tri
+         * @param v
+         * @return 
+         */
+        private static double getAngleAt(DTriangle tri, DPoint v) {
+                DEdge op = tri.getOppositeEdge(v);
+                double ux = op.getStartPoint().getX() - v.getX();
+                double uy = op.getStartPoint().getY() - v.getY();
+                double wx = op.getEndPoint().getX() - v.getX();
+                double wy = op.getEndPoint().getY() - v.getY();
+                return Math.abs(Math.atan2(ux * wy - uy * wx, ux * wx + uy * wy));
+        }
         
         /**
          * Edges are split if encroached.
@@ -1324,34 +2777,33 @@ public class ConstrainedMesh implements Serializable {
          * @throws DelaunayError 
          */
         final void triangleRefinement(double minLength, InsertionEvaluator ev) throws DelaunayError {
-                DTriangle dt;
                 DEdge ret;
                 //We will use three maps to process our triangles efficietly. The first one 
                 //contains the triangles that are to be treated. The seconf one contains
                 //The triangles that have been treated. The last one is used to 
                 //retrieve in the treated triangles the one that need to be (potentially)
                 //processed again.
-                processed = new HashMap<Integer, DTriangle>(triangleList.size());
-                remaining = new HashMap<Integer, DTriangle>(triangleList.size());
+                processed = new IntObjectMap<DTriangle>(triangleList.size());
+                remaining = new IntObjectMap<DTriangle>(triangleList.size());
+                buffer = new IntObjectMap<DTriangle>();
                 fillRemainingFromTriangles();
                 //triangleList is still alive, but empty. Consequently, it can still be used
                 //in the following steps - in splitEncroachedEdge, for instance.
-                Set<Map.Entry<Integer, DTriangle>> treatSet = remaining.entrySet();
-                while(!treatSet.isEmpty()) {
-                        Map.Entry<Integer, DTriangle> entry = treatSet.iterator().next();
-                        dt = entry.getValue();
-                        if(ev.evaluate(dt)){
-                                buffer = new HashMap<Integer, DTriangle>();
-                                ret = insertTriangleCircumCenter(dt, true, minLength);
-                                if(ret != null && ret.get2DLength()>2*minLength){
+                while(!remaining.isEmpty()) {
+                        for(DTriangle dt : nextTriangles(ev)){
+                                if(remaining.containsKey(dt.getGID()) && ev.evaluate(dt)){
+                                        buffer.clear();
+                                        ret = insertTriangleCircumCenter(dt, true, minLength);
+                                        if(ret != null && ret.get2DLength()>2*minLength){
                                                 splitEncroachedEdge(ret, minLength);
                                                 fillRemainingFromTriangles();
                                         } else {
                                                 putInProcessed(dt);
                                                 fillRemainingFromTriangles();
                                         }
-                        }else { 
-                                putInProcessed(dt);
+                                }else { 
+                                        putInProcessed(dt);
+                                }
                         }
                 }
                 triangleList = new LinkedList<DTriangle>(processed.values());
@@ -1370,16 +2822,38 @@ public class ConstrainedMesh implements Serializable {
 	 * @throws DelaunayError
 	 */
 	final void splitEncroachedEdge(DEdge ed, double minLength) throws DelaunayError {
+                splitEdge(ed, ed.getMiddle(), minLength, true);
+	}
+
+	/**
+	 * Split ed in middle. ed keeps its start point and ends in middle, and the
+	 * second half of ed is added to the mesh.
+	 * @param ed
+	 *		The edge to be split.
+	 * @param middle
+	 *		A point that lies on ed.
+	 * @param minLength
+	 *		ed is not split if its second half would be shorter than
+	 *		minLength.
+	 * @param recursive
+	 *		If true, the encroached edges are split in turn.
+	 * @return
+	 *		The second half of ed, or null if ed has not been split.
+	 * @throws DelaunayError
+	 */
+	private DEdge splitEdge(DEdge ed, DPoint middle, double minLength, boolean recursive) throws DelaunayError {
 		//We must try to avoid creation of new objects. Rather use getters and setters
 		//instead, as we will not be forced to use sorted sets this way.
                 LinkedList<DEdge> li = new LinkedList<DEdge>();
 		DTriangle left = ed.getLeft();
 		DTriangle right = ed.getRight();
-		DPoint middle = ed.getMiddle();
 		//The newly generated edge.
 		DEdge secondHalf = new DEdge(middle, ed.getEndPoint());
 		if(secondHalf.getSquared2DLength() < minLength*minLength){
-			return;
+			return null;
+		}
+		if(metrics != null){
+			metrics.increment(MeshCounter.ENCROACHED_SPLITS, 1);
 		}
 		middle.setGID(++pointGID);
 		points.add(middle);
@@ -1468,6 +2942,9 @@ public class ConstrainedMesh implements Serializable {
                         constraintEdges.add(secondHalf);
                 }
 		edges.add(secondHalf);
+                if(!recursive){
+                        return secondHalf;
+                }
 		if(ed.isEncroached()){
 			splitEncroachedEdge(ed, minLength);
 		}
@@ -1490,6 +2967,7 @@ public class ConstrainedMesh implements Serializable {
                                 splitEncroachedEdge(startOp1, minLength);
                         }
                 }
+                return secondHalf;
 	}
 
         /**
@@ -1513,7 +2991,8 @@ public class ConstrainedMesh implements Serializable {
          * @throws DelaunayError 
          */
         public final DEdge insertTriangleCircumCenter(DTriangle tri, boolean revertible, double minLength) throws DelaunayError {
-                Element container = tri.getCircumCenterContainerSafe();
+                invalidatePropertyIndex();
+                Element container = tri.getCircumCenterContainerSafe(metrics);
                 DPoint cc = new DPoint(tri.getCircumCenter());
                 if(container instanceof DEdge ){
                         return (DEdge) container;
@@ -1725,6 +3204,9 @@ public class ConstrainedMesh implements Serializable {
                                                 if(ed.getLeft() != null && ed.getRight() != null
                                                         && !badEdgesQueueList.contains(ed)){
                                                         badEdgesQueueList.add(ed);
+                                                        if(metrics != null){
+                                                                metrics.increment(MeshCounter.BAD_EDGES_ENQUEUED, 1);
+                                                        }
                                                 }
                                         }
                                 }
@@ -1771,6 +3253,9 @@ public class ConstrainedMesh implements Serializable {
                                                 }else if(edge.getLeft() != null && edge.getRight() != null
                                                         && !badEdges.contains(edge)){
                                                         badEdges.add(edge);
+                                                        if(metrics != null){
+                                                                metrics.increment(MeshCounter.BAD_EDGES_ENQUEUED, 1);
+                                                        }
                                                 }
                                         }
                                 }
@@ -1808,18 +3293,21 @@ public class ConstrainedMesh implements Serializable {
 			// other triangle is inside or not
 			// DTriangle 1 is p1, p2, p3 or p2, p1, p3
 			p3 = left.getAlterPoint(p1, p2);
-			if (p3 != null && right.inCircle(p3) == 1) {
+			if (p3 != null && Tools.isInCircle(right.getPoint(0), right.getPoint(1), right.getPoint(2), p3)) {
 				exchange = true;
 			}
 
 			// DTriangle 2 is p2, p1, p4 or p1, p2, p4
 			p4 = right.getAlterPoint(p1, p2);
-			if (p4 != null && left.inCircle(p4) == 1) {
+			if (p4 != null && Tools.isInCircle(left.getPoint(0), left.getPoint(1), left.getPoint(2), p4)) {
 				exchange = true;
 			}
 			if (p3 != p4 && exchange ) {
                                 if( canSwap(ed)){
                                         flipFlap(ed);
+                                        if(metrics != null){
+                                                metrics.increment(MeshCounter.FLIPS, 1);
+                                        }
                                 } else {
                                         exchange = false;
                                 }
@@ -1848,13 +3336,10 @@ public class ConstrainedMesh implements Serializable {
          * Transfer all the entries that are present in buffer in remaining.
          */
         private void fromBufferToRemaining() {
-                Set<Map.Entry<Integer, DTriangle>> entries = buffer.entrySet();
-                Iterator<Map.Entry<Integer, DTriangle>> iter = entries.iterator();
-                while(iter.hasNext()){
-                        Map.Entry<Integer, DTriangle> ent = iter.next();
-                        ent.getValue().setProcessed(false);
-                        remaining.put(ent.getKey(), ent.getValue());
-                        processed.remove(ent.getKey());
+                for(DTriangle tri : buffer.values()){
+                        tri.setProcessed(false);
+                        remaining.put(tri.getGID(), tri);
+                        processed.remove(tri.getGID());
                 }
         }
         
@@ -1871,6 +3356,50 @@ public class ConstrainedMesh implements Serializable {
                 }
         }
         
+        /**
+         * Get the next triangles to be evaluated by a refinement. If ev is a
+         * BatchEvaluator, all the remaining triangles are scored at once : the
+         * ones that don't need to be refined are put in processed, and the others
+         * are returned, the worst first. Otherwise, any remaining triangle is
+         * returned.
+         * @param ev
+         * @return
+         * @throws DelaunayError 
+         */
+        private List<DTriangle> nextTriangles(InsertionEvaluator ev) throws DelaunayError {
+                if(!(ev instanceof BatchEvaluator)){
+                        return Collections.singletonList(remaining.any());
+                }
+                List<DTriangle> tris = remaining.values();
+                int count = tris.size();
+                double[] x = new double[DTriangle.PT_NB * count];
+                double[] y = new double[DTriangle.PT_NB * count];
+                for(int i = 0; i < count; i++){
+                        DTriangle tri = tris.get(i);
+                        for(int k = 0; k < DTriangle.PT_NB; k++){
+                                x[DTriangle.PT_NB * i + k] = tri.getPoint(k).getX();
+                                y[DTriangle.PT_NB * i + k] = tri.getPoint(k).getY();
+                        }
+                }
+                final double[] scores = new double[count];
+                ((BatchEvaluator) ev).score(x, y, count, scores);
+                int[] order = ParallelSort.sort(count, new ParallelSort.IndexComparator() {
+                        @Override
+                        public int compare(int i, int j) {
+                                return Double.compare(scores[j], scores[i]);
+                        }
+                }, 1);
+                List<DTriangle> ret = new ArrayList<DTriangle>();
+                for(int i : order){
+                        if(scores[i] > 0){
+                                ret.add(tris.get(i));
+                        } else {
+                                putInProcessed(tris.get(i));
+                        }
+                }
+                return ret;
+        }
+
         /**
          * Take (and remove) all the trinalges in triangleList to feed the Map remaining.
          */
@@ -2007,7 +3536,7 @@ public class ConstrainedMesh implements Serializable {
          * @param theList
          */
         private void changeUnqualifiedEdges(Map<DPoint, DPoint> replacePoints, List<DEdge> theList) {
-                ArrayList<DEdge> edgeToRemove = new ArrayList<DEdge>();
+                ArrayList<DEdge> edgeToKeep = new ArrayList<DEdge>(theList.size());
                 for (DEdge anEdge : theList) {
                         DPoint aPoint1 = anEdge.getStartPoint();
                         DPoint replaced1 = aPoint1;
@@ -2022,15 +3551,15 @@ public class ConstrainedMesh implements Serializable {
                                 anEdge.setEndPoint(replaced2);
                         }
                         // Ensure the two points are not equal
-                        if (replaced1.equals(replaced2)) {
-                                edgeToRemove.add(anEdge);
+                        if (!replaced1.equals(replaced2)) {
+                                edgeToKeep.add(anEdge);
                         }
                 }
-                // Remove bad edges
-                for (DEdge anEdge : edgeToRemove) {
-                        theList.remove(anEdge);
+                // Remove bad edges, in a single pass
+                if (edgeToKeep.size() < theList.size()) {
+                        theList.clear();
+                        theList.addAll(edgeToKeep);
                 }
-
         }
 
         /**
@@ -2069,6 +3598,7 @@ public class ConstrainedMesh implements Serializable {
          */
         public final DEdge insertIfNotEncroached(final DPoint pt, DTriangle container, double minLength) 
                         throws DelaunayError{
+                invalidatePropertyIndex();
                 if(!container.isInside(pt)){
                         throw new DelaunayError(0, "you must search for the containing triangle"
                                 + " before to proceed to the insertion.");
@@ -2083,6 +3613,9 @@ public class ConstrainedMesh implements Serializable {
                 } else {
                         ret = insertInTriangleRevertible(container, pt);
                 }
+                if(ret != null && metrics != null){
+                        metrics.increment(MeshCounter.CIRCUMCENTERS_REJECTED, 1);
+                }
                 return ret;
                 
         }
@@ -2321,6 +3854,49 @@ public class ConstrainedMesh implements Serializable {
                 tri.setEdge(i, ed);
                 tri.computeCenter();
         }
+        /**
+         * Insert a batch of points in the already computed mesh.<br/>
+         * The points are first sorted in a biased randomized order, along a
+         * Hilbert curve (cf HilbertOrder.brio), and each point is then searched
+         * from the triangle that received the previous one. This way, the search
+         * only visits a few triangles for each point.<br/>
+         * As with insertPointInTriangle, the z-coordinate of the points is not
+         * changed. The points that are outside the mesh, or that are closer than
+         * minLength to a point of the triangle that contains them, are not inserted.
+         * @param pts
+         * @param minLength
+         * @return
+         *      The number of points that have been inserted.
+         * @throws DelaunayError if the mesh has not been computed yet.
+         */
+        public final int insertPoints(Collection<DPoint> pts, double minLength) throws DelaunayError {
+                invalidatePropertyIndex();
+                if(!meshComputed){
+                        throw new DelaunayError(DelaunayError.DELAUNAY_ERROR_NOT_GENERATED);
+                }
+                if(pts.isEmpty() || triangleList.isEmpty()){
+                        return 0;
+                }
+                long start = metrics == null ? 0 : System.nanoTime();
+                int inserted = 0;
+                DTriangle last = triangleList.get(0);
+                for(DPoint pt : HilbertOrder.brio(pts, new Random(INSERTION_SEED))){
+                        Element container = last.searchPointContainer(pt, metrics);
+                        if(container instanceof DTriangle){
+                                last = (DTriangle) container;
+                                int size = points.size();
+                                insertPointInTriangle(pt, last, minLength);
+                                if(points.size() > size){
+                                        inserted++;
+                                }
+                        }
+                }
+                if(metrics != null){
+                        metrics.phaseCompleted(MeshPhase.INSERTION, System.nanoTime() - start);
+                }
+                return inserted;
+        }
+
         /**
          * Insert the point pt in the triangle container.<br/>
          * This method does not check if there are any new encroached edge
@@ -2339,6 +3915,7 @@ public class ConstrainedMesh implements Serializable {
          */
         public final void insertPointInTriangle(final DPoint pt, DTriangle container, double minLength) 
                         throws DelaunayError{
+                invalidatePropertyIndex();
                 if(!container.isInside(pt)){
                         throw new DelaunayError(0, "you must search for the containing triangle"
                                 + "before to proceed to the insertion.");
@@ -2409,6 +3986,8 @@ public class ConstrainedMesh implements Serializable {
                         container.setEdge(2, e3);
                 }
                 container.forceCoherenceWithEdges();
+                //container has changed : its circumcircle must be computed again.
+                container.computeCenter();
                 addTriangle(tri2);
                 edges.add(e1);
                 edges.add(e2);
@@ -2534,6 +4113,12 @@ public class ConstrainedMesh implements Serializable {
         /**
          * Ensure points are at least at epsilon from other points
          * NB : points are supposed to be already sorted
+         * Points that are closer than epsilon are merged transitively, and
+         * replaced by the lowest of them. Points that are closer than epsilon
+         * to a constraint edge are then moved on it, and the constraint is
+         * split there. The ends of the constraints are not moved. Points that
+         * have been brought closer than epsilon by these projections are
+         * merged too.
          * @param epsilon
          */
         public final void dataQualification(double epsilon) throws DelaunayError {
@@ -2544,48 +4129,10 @@ public class ConstrainedMesh implements Serializable {
                 } else if (epsilon <= 0) {
                         throw new DelaunayError("Epsilon must be positive");
                 } else {
+                        DataQualifier qualifier = new DataQualifier(epsilon);
                         HashMap<DPoint, DPoint> replacePoints = new HashMap<DPoint, DPoint>();
-                        double epsilon2 = epsilon * epsilon;
-
-                        int index = -1;
-                        for (DPoint aPoint : points) {
-                                index++;
-                                if (!replacePoints.containsKey(aPoint)){
-                                        // get all points at less than epsilon and put them in ReplacePoints
-                                        double x1 = aPoint.getX();
-                                        double y1 = aPoint.getY();
-
-                                        ListIterator<DPoint> iter = points.listIterator(index);
-                                        boolean ended = false;
-                                        while ((iter.hasNext()) && (!ended)) {
-                                                DPoint nextPoint = iter.next();
-                                                if (nextPoint != aPoint) {
-                                                        // We check if it is the same object, not the same point
-                                                        double x2 = nextPoint.getX();
-                                                        double y2 = nextPoint.getY();
-
-                                                        if ((x2 - x1) * (x2 - x1) + (y2 - y1) * (y2 - y1) <= epsilon2) {
-                                                                // too close to aPoint
-                                                                replacePoints.put(nextPoint, aPoint);
-                                                        }
-                                                        if (x2 > x1 + epsilon) {
-                                                                // not possible to have another point
-                                                                ended = true;
-                                                        }
-                                                }
-                                        }
-                                }
-                        }
-
-                        // Points are processed, we remove all points in the list that are in the HashMap
-                        ListIterator<DPoint> iterPts = points.listIterator();
-                        while (iterPts.hasNext()) {
-                                DPoint aPoint = iterPts.next();
-                                if (replacePoints.containsKey(aPoint)) {
-                                        // point to be replaces
-                                        iterPts.remove();
-                                }
-                        }
+                        // Points closer than epsilon are merged, and the list is compacted once.
+                        points = qualifier.mergeClosePoints(points, replacePoints);
 
                         // Then replace points in other structures
                         //      - edges
@@ -2593,7 +4140,16 @@ public class ConstrainedMesh implements Serializable {
                         //      - polygons
 
                         changeUnqualifiedEdges(replacePoints, edges);
-                        changeUnqualifiedEdges(replacePoints, constraintEdges);                        
+                        changeUnqualifiedEdges(replacePoints, constraintEdges);
+                        // Finally, points that are too close to a constraint are put on it.
+                        constraintEdges = qualifier.snapOnConstraints(points, constraintEdges);
+                        // The projected points can now be too close to other points.
+                        replacePoints.clear();
+                        points = qualifier.mergeClosePoints(points, replacePoints);
+                        if(!replacePoints.isEmpty()){
+                                changeUnqualifiedEdges(replacePoints, edges);
+                                changeUnqualifiedEdges(replacePoints, constraintEdges);
+                        }
                 }
         }
 
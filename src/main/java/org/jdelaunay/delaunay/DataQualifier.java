@@ -0,0 +1,384 @@
+/**
+ *
+ * jDelaunay is a library dedicated to the processing of Delaunay and constrained
+ * Delaunay triangulations from PSLG inputs.
+ *
+ * This library is developed at French IRSTV institute as part of the AvuPur and Eval-PDU project,
+ * funded by the French Agence Nationale de la Recherche (ANR) under contract
+ * ANR-07-VULN-01 and ANR-08-VILL-0005-01 .
+ *
+ * jDelaunay is distributed under GPL 3 license. It is produced by the "Atelier SIG" team of
+ * the IRSTV Institute <http://www.irstv.fr/> CNRS FR 2488.
+ *
+ * Copyright (C) 2010-2012 IRSTV FR CNRS 2488
+ *
+ * jDelaunay is free software: you can redistribute it and/or modify it under the
+ * terms of the GNU General Public License as published by the Free Software
+ * Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ *
+ * jDelaunay is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR
+ * A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * jDelaunay. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * For more information, please consult: <http://www.orbisgis.org/>
+ * or contact directly:
+ * info_at_ orbisgis.org
+ */
+package org.jdelaunay.delaunay;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import org.jdelaunay.delaunay.geometries.DEdge;
+import org.jdelaunay.delaunay.geometries.DPoint;
+
+/**
+ * The engine used by ConstrainedMesh.dataQualification.<p></p>
+ *
+ * The points that are closer than epsilon are gathered in clusters. The points
+ * are hashed in a grid whose cells have a diagonal equal to epsilon : all the
+ * points of a cell are consequently in the same cluster, and a point can only
+ * be close to the points of the 5x5 cells around its own cell. The clusters
+ * are managed with a union-find structure, and each of them is replaced by its
+ * lowest point, according to the order of DPoint.<p></p>
+ *
+ * The points that are closer than epsilon to a constraint are then projected
+ * on it, and the constraint is split there. The ends of the constraints are
+ * never moved.
+ *
+ * @author Alexis Guéganno
+ */
+final class DataQualifier {
+
+	//The number of cells, around a cell, that can contain points closer than
+	//epsilon to the points of this cell.
+	private static final int REACH = 2;
+
+	private final double epsilon;
+	private final double epsilon2;
+
+	/**
+	 * Build a new DataQualifier.
+	 * @param epsilon
+	 *	The distance under which two points are merged.
+	 */
+	DataQualifier(double epsilon){
+		this.epsilon = epsilon;
+		this.epsilon2 = epsilon * epsilon;
+	}
+
+	/**
+	 * Merge the points that are closer than epsilon.
+	 * @param points
+	 *	The sorted list of points.
+	 * @param replacePoints
+	 *	Receives the removed points, associated to the point that replaces them.
+	 * @return
+	 *	The sorted list of the points that have been kept.
+	 */
+	List<DPoint> mergeClosePoints(List<DPoint> points, Map<DPoint, DPoint> replacePoints) {
+		int n = points.size();
+		double[] xs = new double[n];
+		double[] ys = new double[n];
+		for(int i = 0; i < n; i++){
+			xs[i] = points.get(i).getX();
+			ys[i] = points.get(i).getY();
+		}
+		double cellSize = epsilon / Math.sqrt(2);
+		//The cells are stored as linked lists of points.
+		Map<Cell, Integer> cellIndex = new HashMap<Cell, Integer>();
+		List<Cell> cells = new ArrayList<Cell>();
+		List<Integer> heads = new ArrayList<Integer>();
+		int[] next = new int[n];
+		UnionFind clusters = new UnionFind(n);
+		Cell probe = new Cell(0, 0);
+		for(int i = 0; i < n; i++){
+			probe.x = (long) Math.floor(xs[i] / cellSize);
+			probe.y = (long) Math.floor(ys[i] / cellSize);
+			Integer c = cellIndex.get(probe);
+			if(c == null){
+				cellIndex.put(new Cell(probe.x, probe.y), cells.size());
+				cells.add(new Cell(probe.x, probe.y));
+				heads.add(i);
+				next[i] = -1;
+			} else {
+				int head = heads.get(c);
+				//All the points of a cell are closer than epsilon.
+				clusters.union(head, i);
+				next[i] = next[head];
+				next[head] = i;
+			}
+		}
+		for(int c = 0; c < cells.size(); c++){
+			Cell cell = cells.get(c);
+			int head = heads.get(c);
+			for(long dx = -REACH; dx <= REACH; dx++){
+				for(long dy = -REACH; dy <= REACH; dy++){
+					//Each pair of cells is processed once.
+					if(dx > 0 || (dx == 0 && dy > 0)){
+						probe.x = cell.x + dx;
+						probe.y = cell.y + dy;
+						Integer other = cellIndex.get(probe);
+						if(other != null && clusters.find(head) != clusters.find(heads.get(other))){
+							linkCells(head, heads.get(other), next, xs, ys, clusters);
+						}
+					}
+				}
+			}
+		}
+		//We keep the roots of the clusters, in a single pass.
+		List<DPoint> kept = new ArrayList<DPoint>(n);
+		for(int i = 0; i < n; i++){
+			int root = clusters.find(i);
+			if(root == i){
+				kept.add(points.get(i));
+			} else {
+				replacePoints.put(points.get(i), points.get(root));
+			}
+		}
+		return kept;
+	}
+
+	/**
+	 * Union the clusters of two cells if one of their points are closer than
+	 * epsilon. As each cell is included in a single cluster, we can stop at the
+	 * first pair of close points.
+	 */
+	private void linkCells(int first, int second, int[] next, double[] xs, double[] ys, UnionFind clusters) {
+		for(int i = first; i != -1; i = next[i]){
+			for(int j = second; j != -1; j = next[j]){
+				double dx = xs[i] - xs[j];
+				double dy = ys[i] - ys[j];
+				if(dx * dx + dy * dy <= epsilon2){
+					clusters.union(i, j);
+					return;
+				}
+			}
+		}
+	}
+
+	/**
+	 * Project the points that are closer than epsilon to a constraint on it, and
+	 * split the constraint on these points. The ends of all the constraints
+	 * are left where they are. The projections can bring points closer than
+	 * epsilon : the points must be merged again afterwards.
+	 * @param points
+	 *	The points of the mesh. The list is sorted again after the
+	 *	projections.
+	 * @param constraints
+	 * @return
+	 *	The new sorted list of constraints.
+	 */
+	List<DEdge> snapOnConstraints(List<DPoint> points, List<DEdge> constraints) {
+		int n = points.size();
+		if(n == 0 || constraints.isEmpty()){
+			return constraints;
+		}
+		double minX = Double.POSITIVE_INFINITY;
+		double minY = Double.POSITIVE_INFINITY;
+		double maxX = Double.NEGATIVE_INFINITY;
+		double maxY = Double.NEGATIVE_INFINITY;
+		for(DPoint pt : points){
+			minX = Math.min(minX, pt.getX());
+			minY = Math.min(minY, pt.getY());
+			maxX = Math.max(maxX, pt.getX());
+			maxY = Math.max(maxY, pt.getY());
+		}
+		//We use a grid with about one point per cell.
+		double area = (maxX - minX) * (maxY - minY);
+		double cellSize = area > 0 ? Math.sqrt(area / n) : (maxX - minX + maxY - minY) / n;
+		cellSize = Math.max(cellSize, epsilon);
+		int cols = (int) ((maxX - minX) / cellSize) + 1;
+		int rows = (int) ((maxY - minY) / cellSize) + 1;
+		int[] heads = new int[cols * rows];
+		Arrays.fill(heads, -1);
+		Set<DPoint> ends = Collections.newSetFromMap(new IdentityHashMap<DPoint, Boolean>());
+		for(DEdge ed : constraints){
+			ends.add(ed.getStartPoint());
+			ends.add(ed.getEndPoint());
+		}
+		int[] next = new int[n];
+		boolean[] snapped = new boolean[n];
+		for(int i = 0; i < n; i++){
+			DPoint pt = points.get(i);
+			//The ends of the constraints are not moved, so that we don't
+			//change the other constraints.
+			snapped[i] = ends.contains(pt);
+			int cell = cellOf(pt.getY(), minY, cellSize, rows) * cols + cellOf(pt.getX(), minX, cellSize, cols);
+			next[i] = heads[cell];
+			heads[cell] = i;
+		}
+		List<DEdge> ret = new ArrayList<DEdge>(constraints.size());
+		boolean moved = false;
+		List<Projection> found = new ArrayList<Projection>();
+		for(DEdge ed : constraints){
+			found.clear();
+			DPoint a = ed.getStartPoint();
+			DPoint b = ed.getEndPoint();
+			double ux = b.getX() - a.getX();
+			double uy = b.getY() - a.getY();
+			double len2 = ux * ux + uy * uy;
+			int c0 = cellOf(Math.min(a.getX(), b.getX()) - epsilon, minX, cellSize, cols);
+			int c1 = cellOf(Math.max(a.getX(), b.getX()) + epsilon, minX, cellSize, cols);
+			for(int col = c0; col <= c1 && len2 > 0; col++){
+				//The part of the edge that can be closer than epsilon
+				//to the points of this column.
+				double y0;
+				double y1;
+				if(ux == 0){
+					y0 = Math.min(a.getY(), b.getY());
+					y1 = Math.max(a.getY(), b.getY());
+				} else {
+					double xl = Math.max(minX + col * cellSize - epsilon, Math.min(a.getX(), b.getX()));
+					double xr = Math.min(minX + (col + 1) * cellSize + epsilon, Math.max(a.getX(), b.getX()));
+					double ya = a.getY() + (xl - a.getX()) * uy / ux;
+					double yb = a.getY() + (xr - a.getX()) * uy / ux;
+					y0 = Math.min(ya, yb);
+					y1 = Math.max(ya, yb);
+				}
+				int r0 = cellOf(y0 - epsilon, minY, cellSize, rows);
+				int r1 = cellOf(y1 + epsilon, minY, cellSize, rows);
+				for(int row = r0; row <= r1; row++){
+					for(int i = heads[row * cols + col]; i != -1; i = next[i]){
+						DPoint pt = points.get(i);
+						if(snapped[i]){
+							continue;
+						}
+						double t = ((pt.getX() - a.getX()) * ux + (pt.getY() - a.getY()) * uy) / len2;
+						if(t <= 0 || t >= 1){
+							continue;
+						}
+						double px = a.getX() + t * ux;
+						double py = a.getY() + t * uy;
+						double dx = pt.getX() - px;
+						double dy = pt.getY() - py;
+						if(dx * dx + dy * dy <= epsilon2){
+							snapped[i] = true;
+							pt.setX(px);
+							pt.setY(py);
+							found.add(new Projection(t, pt));
+							moved = true;
+						}
+					}
+				}
+			}
+			if(found.isEmpty()){
+				ret.add(ed);
+			} else {
+				Collections.sort(found);
+				DPoint start = a;
+				for(Projection p : found){
+					DEdge part = new DEdge(ed);
+					part.setStartPoint(start);
+					part.setEndPoint(p.point);
+					ret.add(part);
+					start = p.point;
+				}
+				DEdge part = new DEdge(ed);
+				part.setStartPoint(start);
+				ret.add(part);
+			}
+		}
+		if(moved){
+			Collections.sort(points);
+			Collections.sort(ret);
+		}
+		return ret;
+	}
+
+	/**
+	 * Get the index of the cell that contains v, on one axis of a grid.
+	 */
+	private static int cellOf(double v, double min, double cellSize, int max) {
+		int c = (int) ((v - min) / cellSize);
+		return c < 0 ? 0 : (c >= max ? max - 1 : c);
+	}
+
+	/**
+	 * A point projected on a constraint, at the parameter t.
+	 */
+	private static final class Projection implements Comparable<Projection> {
+		private final double t;
+		private final DPoint point;
+
+		Projection(double t, DPoint point){
+			this.t = t;
+			this.point = point;
+		}
+
+		@Override
+		public int compareTo(Projection o) {
+			return t < o.t ? -1 : (t > o.t ? 1 : 0);
+		}
+	}
+
+	/**
+	 * The coordinates of a cell of the grid used to merge the points.
+	 */
+	private static final class Cell {
+		private long x;
+		private long y;
+
+		Cell(long x, long y){
+			this.x = x;
+			this.y = y;
+		}
+
+		@Override
+		public boolean equals(Object o) {
+			if(o instanceof Cell){
+				Cell c = (Cell) o;
+				return c.x == x && c.y == y;
+			}
+			return false;
+		}
+
+		@Override
+		public int hashCode() {
+			long h = x * 31 + y;
+			return (int) (h ^ (h >>> 32));
+		}
+	}
+
+	/**
+	 * A union-find structure. The root of a set is always its lowest element.
+	 */
+	private static final class UnionFind {
+		private final int[] parent;
+
+		UnionFind(int n){
+			parent = new int[n];
+			for(int i = 0; i < n; i++){
+				parent[i] = i;
+			}
+		}
+
+		int find(int i) {
+			int r = i;
+			while(parent[r] != r){
+				parent[r] = parent[parent[r]];
+				r = parent[r];
+			}
+			return r;
+		}
+
+		void union(int i, int j) {
+			int ri = find(i);
+			int rj = find(j);
+			if(ri < rj){
+				parent[rj] = ri;
+			} else if(rj < ri){
+				parent[ri] = rj;
+			}
+		}
+	}
+}
@@ -0,0 +1,395 @@
+/**
+ *
+ * jDelaunay is a library dedicated to the processing of Delaunay and constrained
+ * Delaunay triangulations from PSLG inputs.
+ *
+ * This library is developed at French IRSTV institute as part of the AvuPur and Eval-PDU project,
+ * funded by the French Agence Nationale de la Recherche (ANR) under contract
+ * ANR-07-VULN-01 and ANR-08-VILL-0005-01 .
+ *
+ * jDelaunay is distributed under GPL 3 license. It is produced by the "Atelier SIG" team of
+ * the IRSTV Institute <http://www.irstv.fr/> CNRS FR 2488.
+ *
+ * Copyright (C) 2010-2012 IRSTV FR CNRS 2488
+ *
+ * jDelaunay is free software: you can redistribute it and/or modify it under the
+ * terms of the GNU General Public License as published by the Free Software
+ * Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ *
+ * jDelaunay is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR
+ * A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * jDelaunay. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * For more information, please consult: <http://www.orbisgis.org/>
+ * or contact directly:
+ * info_at_ orbisgis.org
+ */
+package org.jdelaunay.delaunay;
+
+import java.util.AbstractSequentialList;
+import java.util.Collection;
+import java.util.ConcurrentModificationException;
+import java.util.ListIterator;
+import java.util.NoSuchElementException;
+import org.jdelaunay.delaunay.geometries.DEdge;
+import org.jdelaunay.delaunay.geometries.DPoint;
+
+/**
+ * A doubly linked list of boundary edges that keeps a hash of its nodes
+ * on the ordinate of their points. It behaves like a LinkedList, but it can
+ * also give directly a ListIterator placed just before the edges of the front
+ * that are visible from a point, without walking from the head of the list.
+ *
+ * The hash is only a hint : a node found in it is always checked before being
+ * used, and a null iterator is returned when the search fails.
+ * @author Alexis Guéganno
+ */
+final class FrontEdgeList extends AbstractSequentialList<DEdge> {
+
+	//The minimal number of buckets in the hash.
+	private static final int MIN_BUCKETS = 16;
+	//The number of buckets we look in before giving up.
+	private static final int MAX_PROBES = 64;
+	//The number of edges we check around the hashed node.
+	private static final int MAX_STEPS = 16;
+
+	//The sentinel of the list. header.next is the first node.
+	private final Node header;
+	private int size;
+	//The hash of the nodes, on the y coordinate of their points.
+	private Node[] buckets;
+	private double minY;
+	private double bucketHeight;
+
+	/**
+	 * Build an empty list.
+	 */
+	FrontEdgeList(){
+		header = new Node(null);
+		header.next = header;
+		header.prev = header;
+		buckets = new Node[MIN_BUCKETS];
+	}
+
+	/**
+	 * Build a list that contains the edges of bound, in the same order.
+	 * @param bound
+	 */
+	FrontEdgeList(Collection<DEdge> bound){
+		this();
+		for(DEdge ed : bound){
+			Node n = new Node(ed);
+			n.next = header;
+			n.prev = header.prev;
+			header.prev.next = n;
+			header.prev = n;
+			size++;
+		}
+		rebuild();
+	}
+
+	@Override
+	public int size() {
+		return size;
+	}
+
+	@Override
+	public boolean add(DEdge ed) {
+		linkBefore(ed, header);
+		return true;
+	}
+
+	@Override
+	public ListIterator<DEdge> listIterator(int index) {
+		if(index < 0 || index > size){
+			throw new IndexOutOfBoundsException("Index: "+index+", Size: "+size);
+		}
+		Node n;
+		if(index < (size >> 1)){
+			n = header.next;
+			for(int i = 0; i < index; i++){
+				n = n.next;
+			}
+		} else {
+			n = header;
+			for(int i = size; i > index; i--){
+				n = n.prev;
+			}
+		}
+		return new Itr(n, index);
+	}
+
+	/**
+	 * Get an iterator placed just before the first edge of the run of edges
+	 * that have point on their right, ie that are visible from point.
+	 * The front is supposed to be a convex chain : the visible edges are then
+	 * contiguous, unless the run wraps around the ends of the chain. In this
+	 * last case, we let the caller walk from the head.
+	 * @param point
+	 * @return
+	 *	the iterator, or null if we can't find any visible edge quickly.
+	 */
+	ListIterator<DEdge> visibleRun(DPoint point) {
+		Node n = lookup(point.getY());
+		if(n == null){
+			return null;
+		}
+		Node found = null;
+		Node fwd = n;
+		Node bwd = n.prev;
+		for(int i = 0; i < MAX_STEPS && found == null; i++){
+			if(fwd != header){
+				if(fwd.edge.isRight(point)){
+					found = fwd;
+				}
+				fwd = fwd.next;
+			}
+			if(found == null && bwd != header){
+				if(bwd.edge.isRight(point)){
+					found = bwd;
+				}
+				bwd = bwd.prev;
+			}
+		}
+		if(found == null){
+			return null;
+		}
+		//We go back to the beginning of the run.
+		while(found.prev != header && found.prev.edge.isRight(point)){
+			found = found.prev;
+		}
+		if(found.prev != header && header.next.edge.isRight(point)){
+			return null;
+		}
+		return new Itr(found, -1);
+	}
+
+	/**
+	 * Retrieve a node that is still in the list, and that has been hashed
+	 * close to y.
+	 * @param y
+	 * @return
+	 */
+	private Node lookup(double y){
+		int b = bucket(y);
+		for(int d = 0; d < MAX_PROBES && d < buckets.length; d++){
+			if(b - d >= 0 && buckets[b-d] != null && buckets[b-d].live){
+				return buckets[b-d];
+			}
+			if(b + d < buckets.length && buckets[b+d] != null && buckets[b+d].live){
+				return buckets[b+d];
+			}
+		}
+		return null;
+	}
+
+	private int bucket(double y){
+		if(bucketHeight <= 0){
+			return 0;
+		}
+		double b = (y - minY) / bucketHeight;
+		if(b <= 0 || Double.isNaN(b)){
+			return 0;
+		}
+		return b >= buckets.length ? buckets.length - 1 : (int) b;
+	}
+
+	/**
+	 * Put n in the hash, under the ordinates of its two points.
+	 * @param n
+	 */
+	private void hash(Node n){
+		double ys = n.edge.getStartPoint().getY();
+		double ye = n.edge.getEndPoint().getY();
+		if(size > 2 * buckets.length || outOfRange(ys) || outOfRange(ye)){
+			rebuild();
+		} else {
+			buckets[bucket(ys)] = n;
+			buckets[bucket(ye)] = n;
+		}
+	}
+
+	private boolean outOfRange(double y){
+		return y < minY || y > minY + bucketHeight * buckets.length;
+	}
+
+	/**
+	 * Compute the hash again. The range of the hash is twice the range of the
+	 * edges, so that a front that grows steadily does not need to be rehashed
+	 * at each insertion.
+	 */
+	private void rebuild(){
+		double min = Double.POSITIVE_INFINITY;
+		double max = Double.NEGATIVE_INFINITY;
+		for(Node n = header.next; n != header; n = n.next){
+			min = Math.min(min, Math.min(n.edge.getStartPoint().getY(), n.edge.getEndPoint().getY()));
+			max = Math.max(max, Math.max(n.edge.getStartPoint().getY(), n.edge.getEndPoint().getY()));
+		}
+		buckets = new Node[Math.max(MIN_BUCKETS, 2 * size)];
+		if(size == 0){
+			bucketHeight = 0;
+			return;
+		}
+		double margin = (max - min) / 2;
+		minY = min - margin;
+		bucketHeight = (max - min + 2 * margin) / buckets.length;
+		if(bucketHeight > 0){
+			for(Node n = header.next; n != header; n = n.next){
+				buckets[bucket(n.edge.getStartPoint().getY())] = n;
+				buckets[bucket(n.edge.getEndPoint().getY())] = n;
+			}
+		}
+	}
+
+	private Node linkBefore(DEdge ed, Node succ){
+		Node n = new Node(ed);
+		n.next = succ;
+		n.prev = succ.prev;
+		succ.prev.next = n;
+		succ.prev = n;
+		size++;
+		modCount++;
+		hash(n);
+		return n;
+	}
+
+	private void unlink(Node n){
+		n.prev.next = n.next;
+		n.next.prev = n.prev;
+		n.live = false;
+		size--;
+		modCount++;
+	}
+
+	/**
+	 * A node of the list.
+	 */
+	private static final class Node {
+		private DEdge edge;
+		private Node prev;
+		private Node next;
+		private boolean live = true;
+
+		private Node(DEdge ed){
+			edge = ed;
+		}
+	}
+
+	/**
+	 * The ListIterator of this list. Its index is computed lazily when it
+	 * has been built from a node.
+	 */
+	private final class Itr implements ListIterator<DEdge> {
+
+		private Node next;
+		private Node lastReturned;
+		private int index;
+		private int expectedModCount = modCount;
+
+		private Itr(Node n, int idx){
+			next = n;
+			index = idx;
+		}
+
+		@Override
+		public boolean hasNext() {
+			return next != header;
+		}
+
+		@Override
+		public DEdge next() {
+			checkForComodification();
+			if(next == header){
+				throw new NoSuchElementException();
+			}
+			lastReturned = next;
+			next = next.next;
+			if(index >= 0){
+				index++;
+			}
+			return lastReturned.edge;
+		}
+
+		@Override
+		public boolean hasPrevious() {
+			return next.prev != header;
+		}
+
+		@Override
+		public DEdge previous() {
+			checkForComodification();
+			if(next.prev == header){
+				throw new NoSuchElementException();
+			}
+			next = next.prev;
+			lastReturned = next;
+			if(index >= 0){
+				index--;
+			}
+			return lastReturned.edge;
+		}
+
+		@Override
+		public int nextIndex() {
+			if(index < 0){
+				index = 0;
+				for(Node n = header.next; n != next; n = n.next){
+					index++;
+				}
+			}
+			return index;
+		}
+
+		@Override
+		public int previousIndex() {
+			return nextIndex() - 1;
+		}
+
+		@Override
+		public void remove() {
+			checkForComodification();
+			if(lastReturned == null){
+				throw new IllegalStateException();
+			}
+			if(next == lastReturned){
+				next = lastReturned.next;
+			} else if(index >= 0){
+				index--;
+			}
+			unlink(lastReturned);
+			lastReturned = null;
+			expectedModCount = modCount;
+		}
+
+		@Override
+		public void set(DEdge e) {
+			checkForComodification();
+			if(lastReturned == null){
+				throw new IllegalStateException();
+			}
+			lastReturned.edge = e;
+			hash(lastReturned);
+		}
+
+		@Override
+		public void add(DEdge e) {
+			checkForComodification();
+			linkBefore(e, next);
+			lastReturned = null;
+			if(index >= 0){
+				index++;
+			}
+			expectedModCount = modCount;
+		}
+
+		private void checkForComodification(){
+			if(modCount != expectedModCount){
+				throw new ConcurrentModificationException();
+			}
+		}
+	}
+}
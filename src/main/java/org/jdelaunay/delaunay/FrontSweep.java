@@ -0,0 +1,533 @@
+/**
+ *
+ * jDelaunay is a library dedicated to the processing of Delaunay and constrained
+ * Delaunay triangulations from PSLG inputs.
+ *
+ * This library is developed at French IRSTV institute as part of the AvuPur and Eval-PDU project,
+ * funded by the French Agence Nationale de la Recherche (ANR) under contract
+ * ANR-07-VULN-01 and ANR-08-VILL-0005-01 .
+ *
+ * jDelaunay is distributed under GPL 3 license. It is produced by the "Atelier SIG" team of
+ * the IRSTV Institute <http://www.irstv.fr/> CNRS FR 2488.
+ *
+ * Copyright (C) 2010-2012 IRSTV FR CNRS 2488
+ *
+ * jDelaunay is free software: you can redistribute it and/or modify it under the
+ * terms of the GNU General Public License as published by the Free Software
+ * Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ *
+ * jDelaunay is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR
+ * A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * jDelaunay. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * For more information, please consult: <http://www.orbisgis.org/>
+ * or contact directly:
+ * info_at_ orbisgis.org
+ */
+package org.jdelaunay.delaunay;
+
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import org.jdelaunay.delaunay.error.DelaunayError;
+import org.jdelaunay.delaunay.geometries.DEdge;
+import org.jdelaunay.delaunay.geometries.DPoint;
+import org.jdelaunay.delaunay.geometries.DTriangle;
+import org.jdelaunay.delaunay.metrics.MeshCounter;
+import org.jdelaunay.delaunay.metrics.MeshMetricsListener;
+import org.jdelaunay.delaunay.tools.Tools;
+
+/**
+ * An advancing front sweep used to triangulate a set of points that does not
+ * contain any constraint. The points are processed from left to right, and
+ * the boundary of the mesh is kept as a cycle of nodes, oriented counter
+ * clockwise. This cycle is made of three parts : the lower part of the hull,
+ * the front, that goes up from the lowest to the highest point, and the upper
+ * part of the hull.
+ *
+ * Contrary to the sweep made with the Boundary, the front is not kept convex :
+ * a new point is linked to the front edge it is projected on, and then to the
+ * neighbours of this edge as long as the angle they make with the point is
+ * lower than PI/2. This way, we avoid the long and thin triangles that are
+ * created when the points are regularly spaced, and that have to be flipped
+ * again and again. The pockets left in the front are filled at the end of the
+ * sweep.
+ * @author Alexis Guéganno
+ */
+final class FrontSweep {
+
+	//The minimal number of buckets in the hash of the front.
+	private static final int MIN_BUCKETS = 16;
+
+	private final ConstrainedMesh mesh;
+	private final List<DPoint> points;
+	private final List<DEdge> edges;
+	private final List<DTriangle> triangles;
+	//The first point of the sweep. It is always on the lower part of the hull.
+	private Node origin;
+	//The lowest and highest nodes of the front.
+	private Node bottom;
+	private Node top;
+	//The hash of the front nodes, on the y coordinate of their points.
+	private Node[] buckets;
+	private double minY;
+	private double bucketHeight;
+	//The edges that must be checked after the insertion of a point.
+	private final LinkedList<DEdge> badEdges;
+	private final Map<DEdge, DEdge> queued;
+	private long flipTime;
+
+	/**
+	 * Build a new sweep on points. points must be sorted, and must not
+	 * contain duplicates.
+	 * @param mesh
+	 *	The mesh that will receive the triangles. Its flip operations are
+	 *	used to restore the Delaunay property.
+	 * @param points
+	 */
+	FrontSweep(ConstrainedMesh mesh, List<DPoint> points){
+		this.mesh = mesh;
+		this.points = points;
+		edges = new ArrayList<DEdge>();
+		triangles = new ArrayList<DTriangle>();
+		badEdges = new LinkedList<DEdge>();
+		queued = new IdentityHashMap<DEdge, DEdge>();
+	}
+
+	/**
+	 * Check that points can be processed with this sweep, ie that they
+	 * are not all on the same line.
+	 * @param points
+	 * @return
+	 *	true if at least three points of the list are not aligned.
+	 */
+	static boolean canProcess(List<DPoint> points){
+		return points.size() >= ConstrainedMesh.MIN_POINTS_NUMBER && findApex(points) > 0;
+	}
+
+	/**
+	 * Compute the Delaunay triangulation of the points.
+	 * @throws DelaunayError
+	 */
+	void triangulate() throws DelaunayError {
+		int apex = findApex(points);
+		if(apex < 0){
+			throw new DelaunayError(DelaunayError.DELAUNAY_ERROR_NOT_ENOUGH_POINTS_FOUND);
+		}
+		MeshMetricsListener metrics = mesh.getMetricsListener();
+		init(apex);
+		if(metrics != null){
+			metrics.increment(MeshCounter.SWEEP_INSERTIONS, apex - 1);
+		}
+		legalize();
+		for(int i = apex + 1; i < points.size(); i++){
+			insertPoint(points.get(i));
+			if(metrics != null){
+				metrics.increment(MeshCounter.SWEEP_INSERTIONS, 1);
+			}
+			legalize();
+		}
+		fillFront();
+		legalize();
+	}
+
+	/**
+	 * Get the edges created during the triangulation.
+	 * @return
+	 */
+	List<DEdge> getEdges() {
+		return edges;
+	}
+
+	/**
+	 * Get the triangles created during the triangulation.
+	 * @return
+	 */
+	List<DTriangle> getTriangles() {
+		return triangles;
+	}
+
+	/**
+	 * Get the time spent in the flip operations, in nanoseconds. It is only
+	 * measured when the mesh has a metrics listener.
+	 * @return
+	 */
+	long getFlipTime() {
+		return flipTime;
+	}
+
+	/**
+	 * Get the index of the first point that is not aligned with the two
+	 * first points of the list.
+	 * @param points
+	 * @return
+	 *	the index of the point, or -1 if all the points are aligned.
+	 */
+	private static int findApex(List<DPoint> points){
+		DPoint p0 = points.get(0);
+		DPoint p1 = points.get(1);
+		for(int i = 2; i < points.size(); i++){
+			if(Math.abs(cross(p0, p1, points.get(i))) > Tools.EPSILON){
+				return i;
+			}
+		}
+		return -1;
+	}
+
+	/**
+	 * Build the first triangles : they link the apex to the aligned points
+	 * that come before it.
+	 * @param apex
+	 */
+	private void init(int apex) throws DelaunayError {
+		double yMin = Double.POSITIVE_INFINITY;
+		double yMax = Double.NEGATIVE_INFINITY;
+		for(DPoint pt : points){
+			yMin = Math.min(yMin, pt.getY());
+			yMax = Math.max(yMax, pt.getY());
+		}
+		buckets = new Node[Math.max(MIN_BUCKETS, 2 * (int) Math.sqrt(points.size()))];
+		minY = yMin;
+		bucketHeight = (yMax - yMin) / buckets.length;
+		DPoint ap = points.get(apex);
+		DEdge[] chain = new DEdge[apex - 1];
+		DEdge[] spokes = new DEdge[apex];
+		for(int i = 0; i < apex; i++){
+			spokes[i] = newEdge(points.get(i), ap);
+			if(i > 0){
+				chain[i - 1] = newEdge(points.get(i - 1), points.get(i));
+				addTriangle(chain[i - 1], spokes[i], spokes[i - 1]);
+			}
+		}
+		//We build the boundary counter clockwise.
+		Node[] nodes = new Node[apex + 1];
+		boolean ccw = cross(points.get(0), points.get(apex - 1), ap) > 0;
+		for(int i = 0; i <= apex; i++){
+			nodes[i] = new Node(ccw ? points.get(i) : points.get((apex + 1 - i) % (apex + 1)));
+		}
+		for(int i = 0; i <= apex; i++){
+			Node next = nodes[(i + 1) % (apex + 1)];
+			nodes[i].next = next;
+			next.prev = nodes[i];
+		}
+		if(ccw){
+			for(int i = 0; i < apex - 1; i++){
+				nodes[i].edge = chain[i];
+			}
+			nodes[apex - 1].edge = spokes[apex - 1];
+			nodes[apex].edge = spokes[0];
+		} else {
+			nodes[0].edge = spokes[0];
+			nodes[1].edge = spokes[apex - 1];
+			for(int i = 2; i <= apex; i++){
+				nodes[i].edge = chain[apex - i];
+			}
+		}
+		origin = nodes[0];
+		bottom = origin;
+		top = origin;
+		for(Node n : nodes){
+			//When several points share the same ordinate, the front
+			//starts and ends on the rightmost one.
+			double y = n.pt.getY();
+			if(y < bottom.pt.getY() || (y == bottom.pt.getY() && n.pt.getX() > bottom.pt.getX())){
+				bottom = n;
+			}
+			if(y > top.pt.getY() || (y == top.pt.getY() && n.pt.getX() > top.pt.getX())){
+				top = n;
+			}
+		}
+		Node n = bottom;
+		while(n != top){
+			hash(n);
+			n = n.next;
+		}
+		hash(top);
+	}
+
+	/**
+	 * Insert pt in the mesh. pt is on the right of all the points that have
+	 * already been inserted.
+	 * @param pt
+	 */
+	private void insertPoint(DPoint pt) throws DelaunayError {
+		Node n;
+		if(pt.getY() < bottom.pt.getY()){
+			//pt becomes the lowest point of the front. It sees the first
+			//edge of the front, or the last edge of the lower hull.
+			Node low = bottom;
+			if(cross(low.pt, low.next.pt, pt) < -Tools.EPSILON){
+				n = attach(low, pt);
+				low.front = false;
+			} else if(cross(low.prev.pt, low.pt, pt) < -Tools.EPSILON){
+				n = attach(low.prev, pt);
+			} else {
+				throw new DelaunayError(DelaunayError.DELAUNAY_ERROR_CAN_NOT_CONNECT_POINT);
+			}
+			while(n.prev != origin && cross(n.prev.prev.pt, n.prev.pt, pt) < -Tools.EPSILON){
+				removePrevious(n);
+			}
+			bottom = n;
+			closeUp(n);
+		} else if(pt.getY() >= top.pt.getY()){
+			//pt becomes the highest point of the front.
+			Node high = top;
+			if(cross(high.prev.pt, high.pt, pt) < -Tools.EPSILON){
+				n = attach(high.prev, pt);
+				high.front = false;
+			} else if(cross(high.pt, high.next.pt, pt) < -Tools.EPSILON){
+				n = attach(high, pt);
+			} else {
+				throw new DelaunayError(DelaunayError.DELAUNAY_ERROR_CAN_NOT_CONNECT_POINT);
+			}
+			while(n.next != origin && cross(n.next.pt, n.next.next.pt, pt) < -Tools.EPSILON){
+				removeNext(n);
+			}
+			top = n;
+			closeDown(n);
+		} else {
+			//pt is projected horizontally on the front.
+			n = attach(locate(pt.getY()), pt);
+			closeUp(n);
+			closeDown(n);
+		}
+	}
+
+	/**
+	 * Link pt to the edge that goes from l to l.next, and insert its node
+	 * between them.
+	 * @param l
+	 * @param pt
+	 * @return
+	 *	The node of pt.
+	 */
+	private Node attach(Node l, DPoint pt) throws DelaunayError {
+		Node r = l.next;
+		Node n = new Node(pt);
+		DEdge el = newEdge(l.pt, pt);
+		DEdge er = newEdge(pt, r.pt);
+		addTriangle(l.edge, er, el);
+		n.prev = l;
+		n.next = r;
+		l.next = n;
+		r.prev = n;
+		l.edge = el;
+		n.edge = er;
+		hash(n);
+		return n;
+	}
+
+	/**
+	 * Remove the node that comes before n in the boundary, by linking n
+	 * to the node that comes before it.
+	 * @param n
+	 */
+	private void removePrevious(Node n) throws DelaunayError {
+		Node l = n.prev;
+		Node w = l.prev;
+		DEdge ed = newEdge(w.pt, n.pt);
+		addTriangle(w.edge, l.edge, ed);
+		w.next = n;
+		n.prev = w;
+		w.edge = ed;
+		l.front = false;
+	}
+
+	/**
+	 * Remove the node that comes after n in the boundary, by linking n
+	 * to the node that comes after it.
+	 * @param n
+	 */
+	private void removeNext(Node n) throws DelaunayError {
+		Node u = n.next;
+		Node w = u.next;
+		DEdge ed = newEdge(n.pt, w.pt);
+		addTriangle(n.edge, u.edge, ed);
+		n.next = w;
+		w.prev = n;
+		n.edge = ed;
+		u.front = false;
+	}
+
+	/**
+	 * Link the point of n to the front nodes above it, as long as they
+	 * make an acute angle with it.
+	 * @param n
+	 */
+	private void closeUp(Node n) throws DelaunayError {
+		DPoint pt = n.pt;
+		Node u = n.next;
+		while(u != top && isAcute(pt, u.pt, u.next.pt) && cross(u.pt, u.next.pt, pt) < -Tools.EPSILON){
+			removeNext(n);
+			u = n.next;
+		}
+	}
+
+	/**
+	 * Link the point of n to the front nodes below it, as long as they
+	 * make an acute angle with it.
+	 * @param n
+	 */
+	private void closeDown(Node n) throws DelaunayError {
+		DPoint pt = n.pt;
+		Node l = n.prev;
+		while(l != bottom && isAcute(pt, l.pt, l.prev.pt) && cross(l.prev.pt, l.pt, pt) < -Tools.EPSILON){
+			removePrevious(n);
+			l = n.prev;
+		}
+	}
+
+	/**
+	 * Fill the pockets of the front, so that the boundary of the mesh
+	 * becomes its convex hull. The lower and upper parts of the hull are
+	 * already convex.
+	 */
+	private void fillFront() throws DelaunayError {
+		Node v = bottom.next;
+		while(v != top){
+			if(cross(v.prev.pt, v.pt, v.next.pt) < -Tools.EPSILON){
+				Node a = v.prev;
+				removeNext(a);
+				v = a == bottom ? a.next : a;
+			} else {
+				v = v.next;
+			}
+		}
+	}
+
+	/**
+	 * Restore the Delaunay property around the edges that have been added
+	 * or modified since the last call.
+	 */
+	private void legalize() throws DelaunayError {
+		long start = mesh.getMetricsListener() == null ? 0 : System.nanoTime();
+		while(!badEdges.isEmpty()){
+			DEdge ed = badEdges.removeFirst();
+			queued.remove(ed);
+			if(mesh.swapTriangle(ed)){
+				DTriangle left = ed.getLeft();
+				DTriangle right = ed.getRight();
+				addBadEdge(left.getOppositeEdge(ed.getStartPoint()));
+				addBadEdge(left.getOppositeEdge(ed.getEndPoint()));
+				addBadEdge(right.getOppositeEdge(ed.getStartPoint()));
+				addBadEdge(right.getOppositeEdge(ed.getEndPoint()));
+			}
+		}
+		if(start != 0){
+			flipTime += System.nanoTime() - start;
+		}
+	}
+
+	/**
+	 * Find the last node of the front whose point is not above y.
+	 * @param y
+	 * @return
+	 */
+	private Node locate(double y) {
+		Node n = lookup(y);
+		while(n != top && n.next.pt.getY() <= y){
+			n = n.next;
+		}
+		while(n != bottom && n.pt.getY() > y){
+			n = n.prev;
+		}
+		return n;
+	}
+
+	/**
+	 * Search the hash for a node of the front close to y.
+	 * @param y
+	 * @return
+	 *	A node of the front, or the bottom of the front if none is found.
+	 */
+	private Node lookup(double y) {
+		int b = bucket(y);
+		for(int i = 0; i < buckets.length; i++){
+			Node n = b + i < buckets.length ? buckets[b + i] : null;
+			if(n != null && n.front){
+				return n;
+			}
+			n = b - i >= 0 ? buckets[b - i] : null;
+			if(n != null && n.front){
+				return n;
+			}
+			if(b + i >= buckets.length && b - i < 0){
+				break;
+			}
+		}
+		return bottom;
+	}
+
+	private void hash(Node n) {
+		buckets[bucket(n.pt.getY())] = n;
+	}
+
+	private int bucket(double y) {
+		if(bucketHeight <= 0){
+			return 0;
+		}
+		int b = (int) ((y - minY) / bucketHeight);
+		return Math.max(0, Math.min(buckets.length - 1, b));
+	}
+
+	private DEdge newEdge(DPoint start, DPoint end) {
+		DEdge ed = new DEdge(start, end);
+		edges.add(ed);
+		return ed;
+	}
+
+	private void addTriangle(DEdge e1, DEdge e2, DEdge e3) throws DelaunayError {
+		triangles.add(new DTriangle(e1, e2, e3));
+		addBadEdge(e1);
+		addBadEdge(e2);
+		addBadEdge(e3);
+	}
+
+	private void addBadEdge(DEdge ed) {
+		if(!queued.containsKey(ed)){
+			queued.put(ed, ed);
+			badEdges.add(ed);
+			MeshMetricsListener metrics = mesh.getMetricsListener();
+			if(metrics != null){
+				metrics.increment(MeshCounter.BAD_EDGES_ENQUEUED, 1);
+			}
+		}
+	}
+
+	/**
+	 * Compute the cross product of b-a and c-a. It is positive when c is
+	 * on the left of the line that goes from a to b.
+	 */
+	private static double cross(DPoint a, DPoint b, DPoint c) {
+		return (b.getX() - a.getX()) * (c.getY() - a.getY()) - (b.getY() - a.getY()) * (c.getX() - a.getX());
+	}
+
+	/**
+	 * Check that the angle made by a, b and c in b is lower than PI/2.
+	 */
+	private static boolean isAcute(DPoint a, DPoint b, DPoint c) {
+		return (a.getX() - b.getX()) * (c.getX() - b.getX()) + (a.getY() - b.getY()) * (c.getY() - b.getY()) > 0;
+	}
+
+	/**
+	 * A node of the boundary. edge links it to the next node.
+	 */
+	private static final class Node {
+		private final DPoint pt;
+		private Node prev;
+		private Node next;
+		private DEdge edge;
+		//true while the node is part of the front.
+		private boolean front = true;
+
+		Node(DPoint pt){
+			this.pt = pt;
+		}
+	}
+}
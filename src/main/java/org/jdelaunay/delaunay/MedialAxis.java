@@ -0,0 +1,284 @@
+/**
+ *
+ * jDelaunay is a library dedicated to the processing of Delaunay and constrained
+ * Delaunay triangulations from PSLG inputs.
+ *
+ * This library is developed at French IRSTV institute as part of the AvuPur and Eval-PDU project,
+ * funded by the French Agence Nationale de la Recherche (ANR) under contract
+ * ANR-07-VULN-01 and ANR-08-VILL-0005-01 .
+ *
+ * jDelaunay is distributed under GPL 3 license. It is produced by the "Atelier SIG" team of
+ * the IRSTV Institute <http://www.irstv.fr/> CNRS FR 2488.
+ *
+ * Copyright (C) 2010-2012 IRSTV FR CNRS 2488
+ *
+ * jDelaunay is free software: you can redistribute it and/or modify it under the
+ * terms of the GNU General Public License as published by the Free Software
+ * Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ *
+ * jDelaunay is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR
+ * A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * jDelaunay. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * For more information, please consult: <http://www.orbisgis.org/>
+ * or contact directly:
+ * info_at_ orbisgis.org
+ */
+package org.jdelaunay.delaunay;
+
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import org.jdelaunay.delaunay.error.DelaunayError;
+import org.jdelaunay.delaunay.geometries.DEdge;
+import org.jdelaunay.delaunay.geometries.DPoint;
+import org.jdelaunay.delaunay.geometries.DTriangle;
+
+/**
+ * Extracts the medial axis of regions of a computed mesh, as their chordal
+ * axis : the triangles of a region are classified according to the number
+ * of their edges that are inside the region.
+ * <ul>
+ * <li>a triangle with two inner edges links their middles,</li>
+ * <li>a triangle with three inner edges is a junction : its barycenter is
+ * linked to the middles of the three edges,</li>
+ * <li>a triangle with one inner edge is an end : its barycenter is linked to
+ * the middle of the inner edge.</li>
+ * </ul>
+ * The lines are followed from junction to junction, so that each triangle
+ * of the regions is visited once.<br/>
+ * The distance to the boundary of each point of the skeleton is computed as
+ * its distance to the closest vertex of the triangles it comes from. It is a
+ * good approximation when the vertices of the regions are on their
+ * boundaries, as when the polygons have not been refined, or in the flat
+ * areas of a mesh built from contour lines.
+ * @author Alexis Guéganno
+ */
+public final class MedialAxis {
+
+	private final ConstrainedMesh mesh;
+
+	/**
+	 * Prepare the extraction of the skeleton of the regions of mesh.
+	 * @param mesh
+	 * @throws DelaunayError
+	 *	If mesh has not been computed.
+	 */
+	public MedialAxis(ConstrainedMesh mesh) throws DelaunayError {
+		if(!mesh.isMeshComputed()){
+			throw new DelaunayError(DelaunayError.DELAUNAY_ERROR_NOT_GENERATED);
+		}
+		this.mesh = mesh;
+	}
+
+	/**
+	 * Compute the skeleton of the polygons of the mesh. The triangles of a
+	 * polygon are the ones that have the given property, and the same
+	 * external GID, as set by ConstrainedMesh.tagPolygons.
+	 * @param property
+	 * @return
+	 * @throws DelaunayError
+	 */
+	public List<SkeletonLine> getPolygonSkeleton(final int property) throws DelaunayError {
+		return extract(new Region() {
+			@Override
+			public boolean contains(DTriangle tri) {
+				return tri.hasProperty(property);
+			}
+
+			@Override
+			public boolean isInner(DEdge ed, DTriangle tri, DTriangle other) {
+				return other.hasProperty(property) && other.getExternalGID() == tri.getExternalGID();
+			}
+		});
+	}
+
+	/**
+	 * Compute the skeleton of the flat areas of the mesh. A flat area is made
+	 * of flat triangles, and is bounded by the locked edges.
+	 * @return
+	 * @throws DelaunayError
+	 */
+	public List<SkeletonLine> getFlatSkeleton() throws DelaunayError {
+		return extract(new Region() {
+			@Override
+			public boolean contains(DTriangle tri) {
+				return tri.isFlatSlope();
+			}
+
+			@Override
+			public boolean isInner(DEdge ed, DTriangle tri, DTriangle other) {
+				return !ed.isLocked() && other.isFlatSlope();
+			}
+		});
+	}
+
+	private List<SkeletonLine> extract(Region region) throws DelaunayError {
+		List<SkeletonLine> lines = new ArrayList<SkeletonLine>();
+		Map<DEdge, DEdge> visited = new IdentityHashMap<DEdge, DEdge>();
+		Map<DTriangle, DPoint> nodes = new IdentityHashMap<DTriangle, DPoint>();
+		List<DTriangle> sleeves = new ArrayList<DTriangle>();
+		for(DTriangle tri : mesh.getTriangleList()){
+			if(!region.contains(tri)){
+				continue;
+			}
+			int inner = countInnerEdges(region, tri);
+			if(inner == 2){
+				sleeves.add(tri);
+			} else if(inner == 0){
+				List<DPoint> pts = new ArrayList<DPoint>(1);
+				pts.add(tri.getBarycenter());
+				lines.add(new SkeletonLine(pts, new double[]{getDistance(pts.get(0), tri, null)},
+					tri.getExternalGID()));
+			} else {
+				//We start from the ends and the junctions.
+				for(int i = 0; i < DTriangle.PT_NB; i++){
+					DEdge ed = tri.getEdge(i);
+					if(isInner(region, ed, tri) && !visited.containsKey(ed)){
+						lines.add(follow(region, tri, ed, getNode(nodes, tri), visited, nodes));
+					}
+				}
+			}
+		}
+		//The sleeves that have not been visited are on loops.
+		for(DTriangle tri : sleeves){
+			for(int i = 0; i < DTriangle.PT_NB; i++){
+				DEdge ed = tri.getEdge(i);
+				if(isInner(region, ed, tri) && !visited.containsKey(ed)){
+					lines.add(follow(region, tri, ed, null, visited, nodes));
+				}
+			}
+		}
+		return lines;
+	}
+
+	/**
+	 * Follow the skeleton from tri, through ed, until we find an end, a
+	 * junction, or the edge we started from.
+	 * @param start
+	 *	The node the line starts from, or null if we follow a loop.
+	 */
+	private SkeletonLine follow(Region region, DTriangle tri, DEdge ed, DPoint start,
+			Map<DEdge, DEdge> visited, Map<DTriangle, DPoint> nodes) throws DelaunayError {
+		List<DPoint> pts = new ArrayList<DPoint>();
+		List<Double> dists = new ArrayList<Double>();
+		if(start != null){
+			pts.add(start);
+			dists.add(getDistance(start, tri, null));
+		}
+		DTriangle current = tri;
+		DEdge edge = ed;
+		while(!visited.containsKey(edge)){
+			visited.put(edge, edge);
+			DTriangle next = getOther(edge, current);
+			DPoint middle = edge.getMiddle();
+			pts.add(middle);
+			dists.add(getDistance(middle, current, next));
+			if(countInnerEdges(region, next) != 2){
+				DPoint end = getNode(nodes, next);
+				pts.add(end);
+				dists.add(getDistance(end, next, null));
+				break;
+			}
+			edge = getOtherInnerEdge(region, next, edge);
+			current = next;
+		}
+		if(start == null){
+			//We are back on the first edge of a loop.
+			pts.add(pts.get(0));
+			dists.add(dists.get(0));
+		}
+		double[] distances = new double[dists.size()];
+		for(int i = 0; i < distances.length; i++){
+			distances[i] = dists.get(i);
+		}
+		return new SkeletonLine(pts, distances, tri.getExternalGID());
+	}
+
+	/**
+	 * The node of a junction is shared by the lines that meet there.
+	 */
+	private static DPoint getNode(Map<DTriangle, DPoint> nodes, DTriangle tri) throws DelaunayError {
+		DPoint node = nodes.get(tri);
+		if(node == null){
+			node = tri.getBarycenter();
+			nodes.put(tri, node);
+		}
+		return node;
+	}
+
+	private static DTriangle getOther(DEdge ed, DTriangle tri) {
+		return ed.getLeft() == tri ? ed.getRight() : ed.getLeft();
+	}
+
+	private static boolean isInner(Region region, DEdge ed, DTriangle tri) {
+		DTriangle other = getOther(ed, tri);
+		return other != null && region.contains(other) && region.isInner(ed, tri, other);
+	}
+
+	private static int countInnerEdges(Region region, DTriangle tri) {
+		int count = 0;
+		for(int i = 0; i < DTriangle.PT_NB; i++){
+			if(isInner(region, tri.getEdge(i), tri)){
+				count++;
+			}
+		}
+		return count;
+	}
+
+	private static DEdge getOtherInnerEdge(Region region, DTriangle tri, DEdge ed) {
+		for(int i = 0; i < DTriangle.PT_NB; i++){
+			DEdge other = tri.getEdge(i);
+			if(other != ed && isInner(region, other, tri)){
+				return other;
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * Get the distance between pt and the closest vertex of t1 and t2.
+	 */
+	private static double getDistance(DPoint pt, DTriangle t1, DTriangle t2) {
+		double dist = Double.POSITIVE_INFINITY;
+		for(int i = 0; i < DTriangle.PT_NB; i++){
+			dist = Math.min(dist, distance2D(pt, t1.getPoint(i)));
+			if(t2 != null){
+				dist = Math.min(dist, distance2D(pt, t2.getPoint(i)));
+			}
+		}
+		return dist;
+	}
+
+	private static double distance2D(DPoint p1, DPoint p2) {
+		double dx = p1.getX() - p2.getX();
+		double dy = p1.getY() - p2.getY();
+		return Math.sqrt(dx * dx + dy * dy);
+	}
+
+	/**
+	 * Defines the triangles of the regions, and the edges that are inside
+	 * them.
+	 */
+	private interface Region {
+		/**
+		 * @param tri
+		 * @return true if tri is in a region.
+		 */
+		boolean contains(DTriangle tri);
+
+		/**
+		 * @param ed
+		 * @param tri
+		 * @param other
+		 * @return true if ed, shared by tri and other that are both in a
+		 * region, is inside this region.
+		 */
+		boolean isInner(DEdge ed, DTriangle tri, DTriangle other);
+	}
+}
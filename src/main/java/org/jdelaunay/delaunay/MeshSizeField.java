@@ -0,0 +1,283 @@
+/**
+ *
+ * jDelaunay is a library dedicated to the processing of Delaunay and constrained
+ * Delaunay triangulations from PSLG inputs.
+ *
+ * This library is developed at French IRSTV institute as part of the AvuPur and Eval-PDU project,
+ * funded by the French Agence Nationale de la Recherche (ANR) under contract
+ * ANR-07-VULN-01 and ANR-08-VILL-0005-01 .
+ *
+ * jDelaunay is distributed under GPL 3 license. It is produced by the "Atelier SIG" team of
+ * the IRSTV Institute <http://www.irstv.fr/> CNRS FR 2488.
+ *
+ * Copyright (C) 2010-2012 IRSTV FR CNRS 2488
+ *
+ * jDelaunay is free software: you can redistribute it and/or modify it under the
+ * terms of the GNU General Public License as published by the Free Software
+ * Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ *
+ * jDelaunay is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR
+ * A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * jDelaunay. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * For more information, please consult: <http://www.orbisgis.org/>
+ * or contact directly:
+ * info_at_ orbisgis.org
+ */
+package org.jdelaunay.delaunay;
+
+import java.util.Arrays;
+import org.jdelaunay.delaunay.error.DelaunayError;
+import org.jdelaunay.delaunay.evaluator.RasterSizeField;
+import org.jdelaunay.delaunay.evaluator.SizeField;
+import org.jdelaunay.delaunay.geometries.BoundaryBox;
+import org.jdelaunay.delaunay.geometries.DEdge;
+import org.jdelaunay.delaunay.geometries.DPoint;
+import org.jdelaunay.delaunay.geometries.DTriangle;
+
+/**
+ * A size field computed from a mesh, before its refinement. The size is the
+ * smallest of :
+ * <ul>
+ * <li>the maximal size,</li>
+ * <li>the minimal size plus the distance to the closest constraint edge
+ * multiplied by a gradient, if a gradient has been set,</li>
+ * <li>the length for which a linear interpolation stays within a given
+ * tolerance of the surface, estimated from the variation of the slope
+ * between neighbour triangles, if a z tolerance has been set.</li>
+ * </ul>
+ * It is never lower than the minimal size. The size is computed on the nodes
+ * of a grid by compute(), so that it is then cheap to sample, and so that
+ * it does not change while the mesh is refined.
+ * @author Alexis Guéganno
+ */
+public final class MeshSizeField implements SizeField {
+
+	private final double minSize;
+	private final double maxSize;
+	private final double cellSize;
+	private double gradient = Double.NaN;
+	private double zTolerance = Double.NaN;
+	private final ConstrainedMesh mesh;
+	private RasterSizeField raster;
+
+	/**
+	 * Prepare a size field for mesh.
+	 * @param mesh
+	 * @param minSize
+	 * @param maxSize
+	 * @param cellSize
+	 *	The distance between the nodes of the grid the size is computed on.
+	 * @throws DelaunayError
+	 *	If mesh has not been computed.
+	 * @throws IllegalArgumentException
+	 *	If the sizes are not strictly positive, or if minSize is greater than maxSize.
+	 */
+	public MeshSizeField(ConstrainedMesh mesh, double minSize, double maxSize, double cellSize) throws DelaunayError {
+		if(!mesh.isMeshComputed()){
+			throw new DelaunayError(DelaunayError.DELAUNAY_ERROR_NOT_GENERATED);
+		}
+		if(minSize <= 0 || maxSize < minSize || cellSize <= 0){
+			throw new IllegalArgumentException("The sizes must be strictly positive, and minSize <= maxSize");
+		}
+		this.mesh = mesh;
+		this.minSize = minSize;
+		this.maxSize = maxSize;
+		this.cellSize = cellSize;
+	}
+
+	/**
+	 * Set the growth of the size with the distance to the constraint edges.
+	 * The size is minSize on the constraints.
+	 * @param gradient
+	 */
+	public void setConstraintGradient(double gradient) {
+		if(gradient <= 0){
+			throw new IllegalArgumentException("The gradient must be strictly positive");
+		}
+		this.gradient = gradient;
+		raster = null;
+	}
+
+	/**
+	 * Set the maximal distance between the surface and its linear
+	 * interpolation in the refined mesh. The curvature of the surface is
+	 * estimated from the variation of the slope between neighbour triangles.
+	 * @param zTolerance
+	 */
+	public void setZTolerance(double zTolerance) {
+		if(zTolerance <= 0){
+			throw new IllegalArgumentException("The tolerance must be strictly positive");
+		}
+		this.zTolerance = zTolerance;
+		raster = null;
+	}
+
+	/**
+	 * @throws IllegalStateException
+	 *	If the field has not been computed since its last change.
+	 */
+	@Override
+	public double getSize(double x, double y) {
+		if(raster == null){
+			throw new IllegalStateException("The size field must be computed before being sampled");
+		}
+		return raster.getSize(x, y);
+	}
+
+	/**
+	 * Compute the size on the nodes of the grid, from the current state of
+	 * the mesh.
+	 * @throws DelaunayError
+	 */
+	public void compute() throws DelaunayError {
+		BoundaryBox box = mesh.getBoundingBox();
+		double minX = box.getMinX();
+		double minY = box.getMinY();
+		int cols = (int) Math.ceil((box.getMaxX() - minX) / cellSize) + 1;
+		int rows = (int) Math.ceil((box.getMaxY() - minY) / cellSize) + 1;
+		Grid grid = new Grid(minX, minY, cols, rows);
+		Arrays.fill(grid.values, maxSize);
+		if(!Double.isNaN(gradient)){
+			//The constraints have an influence up to this distance.
+			double reach = (maxSize - minSize) / gradient;
+			for(DEdge ed : mesh.getConstraintEdges()){
+				DPoint p = ed.getStartPoint();
+				DPoint q = ed.getEndPoint();
+				int[] cells = grid.getCells(Math.min(p.getX(), q.getX()) - reach, Math.min(p.getY(), q.getY()) - reach,
+					Math.max(p.getX(), q.getX()) + reach, Math.max(p.getY(), q.getY()) + reach);
+				for(int j = cells[1]; j <= cells[3]; j++){
+					for(int i = cells[0]; i <= cells[2]; i++){
+						double dist = distance(minX + i * cellSize, minY + j * cellSize, p, q);
+						grid.lower(i, j, minSize + gradient * dist);
+					}
+				}
+			}
+		}
+		if(!Double.isNaN(zTolerance)){
+			for(DEdge ed : mesh.getEdges()){
+				DTriangle left = ed.getLeft();
+				DTriangle right = ed.getRight();
+				if(left != null && right != null){
+					lowerWithCurvature(grid, left, right);
+				}
+			}
+		}
+		for(int k = 0; k < grid.values.length; k++){
+			grid.values[k] = Math.max(minSize, grid.values[k]);
+		}
+		raster = new RasterSizeField(minX, minY, cellSize, cols, rows, grid.values);
+	}
+
+	/**
+	 * The surface is approximated on the two triangles by a parabola, whose
+	 * second derivative is the variation of the slope divided by the distance
+	 * between their barycenters. The interpolation error over a length h is
+	 * then k * h * h / 8.
+	 */
+	private void lowerWithCurvature(Grid grid, DTriangle t1, DTriangle t2) throws DelaunayError {
+		double[] g1 = getGradient(t1);
+		double[] g2 = getGradient(t2);
+		DPoint c1 = t1.getBarycenter();
+		DPoint c2 = t2.getBarycenter();
+		double dist = Math.hypot(c1.getX() - c2.getX(), c1.getY() - c2.getY());
+		double k = Math.hypot(g1[0] - g2[0], g1[1] - g2[1]) / dist;
+		if(!(k > 0)){
+			return;
+		}
+		double size = Math.sqrt(8 * zTolerance / k);
+		if(size >= maxSize){
+			return;
+		}
+		//The size is applied on the nodes of the grid around the two triangles.
+		double minX = Double.POSITIVE_INFINITY;
+		double minY = Double.POSITIVE_INFINITY;
+		double maxX = Double.NEGATIVE_INFINITY;
+		double maxY = Double.NEGATIVE_INFINITY;
+		for(int i = 0; i < DTriangle.PT_NB; i++){
+			for(DPoint pt : new DPoint[]{t1.getPoint(i), t2.getPoint(i)}){
+				minX = Math.min(minX, pt.getX());
+				minY = Math.min(minY, pt.getY());
+				maxX = Math.max(maxX, pt.getX());
+				maxY = Math.max(maxY, pt.getY());
+			}
+		}
+		int[] cells = grid.getCells(minX - cellSize, minY - cellSize, maxX + cellSize, maxY + cellSize);
+		for(int j = cells[1]; j <= cells[3]; j++){
+			for(int i = cells[0]; i <= cells[2]; i++){
+				grid.lower(i, j, size);
+			}
+		}
+	}
+
+	/**
+	 * Get the gradient of the plane of tri.
+	 */
+	private static double[] getGradient(DTriangle tri) {
+		DPoint a = tri.getPoint(0);
+		DPoint b = tri.getPoint(1);
+		DPoint c = tri.getPoint(2);
+		double bx = b.getX() - a.getX();
+		double by = b.getY() - a.getY();
+		double bz = b.getZ() - a.getZ();
+		double cx = c.getX() - a.getX();
+		double cy = c.getY() - a.getY();
+		double cz = c.getZ() - a.getZ();
+		double det = bx * cy - by * cx;
+		return new double[]{(bz * cy - cz * by) / det, (cz * bx - bz * cx) / det};
+	}
+
+	/**
+	 * Get the distance between (x, y) and the segment pq.
+	 */
+	private static double distance(double x, double y, DPoint p, DPoint q) {
+		double dx = q.getX() - p.getX();
+		double dy = q.getY() - p.getY();
+		double len = dx * dx + dy * dy;
+		double t = len == 0 ? 0 : ((x - p.getX()) * dx + (y - p.getY()) * dy) / len;
+		t = Math.max(0, Math.min(1, t));
+		return Math.hypot(x - p.getX() - t * dx, y - p.getY() - t * dy);
+	}
+
+	/**
+	 * The values of the nodes of the grid, while they are computed.
+	 */
+	private final class Grid {
+		private final double minX;
+		private final double minY;
+		private final int cols;
+		private final int rows;
+		private final double[] values;
+
+		private Grid(double minX, double minY, int cols, int rows) {
+			this.minX = minX;
+			this.minY = minY;
+			this.cols = cols;
+			this.rows = rows;
+			values = new double[cols * rows];
+		}
+
+		/**
+		 * Get the range of the nodes in the given box, as
+		 * {minI, minJ, maxI, maxJ}.
+		 */
+		private int[] getCells(double x1, double y1, double x2, double y2) {
+			return new int[]{
+				Math.max(0, (int) Math.ceil((x1 - minX) / cellSize)),
+				Math.max(0, (int) Math.ceil((y1 - minY) / cellSize)),
+				Math.min(cols - 1, (int) Math.floor((x2 - minX) / cellSize)),
+				Math.min(rows - 1, (int) Math.floor((y2 - minY) / cellSize))};
+		}
+
+		private void lower(int i, int j, double value) {
+			int k = j * cols + i;
+			if(value < values[k]){
+				values[k] = value;
+			}
+		}
+	}
+}
@@ -0,0 +1,371 @@
+/**
+ *
+ * jDelaunay is a library dedicated to the processing of Delaunay and constrained
+ * Delaunay triangulations from PSLG inputs.
+ *
+ * This library is developed at French IRSTV institute as part of the AvuPur and Eval-PDU project,
+ * funded by the French Agence Nationale de la Recherche (ANR) under contract
+ * ANR-07-VULN-01 and ANR-08-VILL-0005-01 .
+ *
+ * jDelaunay is distributed under GPL 3 license. It is produced by the "Atelier SIG" team of
+ * the IRSTV Institute <http://www.irstv.fr/> CNRS FR 2488.
+ *
+ * Copyright (C) 2010-2012 IRSTV FR CNRS 2488
+ *
+ * jDelaunay is free software: you can redistribute it and/or modify it under the
+ * terms of the GNU General Public License as published by the Free Software
+ * Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ *
+ * jDelaunay is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR
+ * A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * jDelaunay. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * For more information, please consult: <http://www.orbisgis.org/>
+ * or contact directly:
+ * info_at_ orbisgis.org
+ */
+package org.jdelaunay.delaunay;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import org.jdelaunay.delaunay.ValidationReport.Problem;
+import org.jdelaunay.delaunay.error.DelaunayError;
+import org.jdelaunay.delaunay.geometries.DEdge;
+import org.jdelaunay.delaunay.geometries.DPoint;
+import org.jdelaunay.delaunay.geometries.DTriangle;
+import org.jdelaunay.delaunay.tools.Tools;
+
+/**
+ * Checks the consistency of a computed mesh. The triangles, then the edges,
+ * are checked by chunks that can be processed by several threads. The mesh
+ * is only read, and must not be modified during the validation.
+ * @author Alexis Guéganno
+ */
+final class MeshValidator {
+
+	//The number of chunks given to each thread.
+	private static final int CHUNKS_PER_THREAD = 4;
+
+	private final List<DTriangle> triangles;
+	private final List<DEdge> edges;
+	private final List<DPoint> points;
+	private final Set<DEdge> constraints;
+	private final Map<DEdge, Integer> edgeIndex;
+	private final Map<DTriangle, Integer> triangleIndex;
+	//The number of triangles that refer to each edge.
+	private final AtomicIntegerArray references;
+
+	MeshValidator(ConstrainedMesh mesh) {
+		//The triangles are stored in a linked list after a refinement: we
+		//copy the lists to access them by index.
+		triangles = new ArrayList<DTriangle>(mesh.getTriangleList());
+		edges = new ArrayList<DEdge>(mesh.getEdges());
+		points = mesh.getPoints();
+		constraints = Collections.newSetFromMap(new IdentityHashMap<DEdge, Boolean>());
+		constraints.addAll(mesh.getConstraintEdges());
+		edgeIndex = new IdentityHashMap<DEdge, Integer>(edges.size());
+		for(int i = 0; i < edges.size(); i++){
+			edgeIndex.put(edges.get(i), i);
+		}
+		triangleIndex = new IdentityHashMap<DTriangle, Integer>(triangles.size());
+		for(int i = 0; i < triangles.size(); i++){
+			triangleIndex.put(triangles.get(i), i);
+		}
+		references = new AtomicIntegerArray(edges.size());
+	}
+
+	/**
+	 * Check the mesh.
+	 * @param threads
+	 * @return
+	 * @throws DelaunayError
+	 */
+	ValidationReport validate(int threads) throws DelaunayError {
+		int chunks = threads == 1 ? 1 : threads * CHUNKS_PER_THREAD;
+		List<Callable<ValidationReport>> tasks = new ArrayList<Callable<ValidationReport>>(chunks);
+		for(int c = 0; c < chunks; c++){
+			final int start = (int) ((long) triangles.size() * c / chunks);
+			final int end = (int) ((long) triangles.size() * (c + 1) / chunks);
+			tasks.add(new Callable<ValidationReport>() {
+				@Override
+				public ValidationReport call() {
+					ValidationReport part = new ValidationReport();
+					for(int i = start; i < end; i++){
+						checkTriangle(triangles.get(i), part);
+					}
+					return part;
+				}
+			});
+		}
+		ValidationReport report = run(tasks, threads);
+		//The edges are checked once all the references have been counted.
+		tasks.clear();
+		for(int c = 0; c < chunks; c++){
+			final int start = (int) ((long) edges.size() * c / chunks);
+			final int end = (int) ((long) edges.size() * (c + 1) / chunks);
+			tasks.add(new Callable<ValidationReport>() {
+				@Override
+				public ValidationReport call() {
+					ValidationReport part = new ValidationReport();
+					for(int i = start; i < end; i++){
+						checkEdge(i, part);
+					}
+					return part;
+				}
+			});
+		}
+		report.merge(run(tasks, threads));
+		checkPoints(report);
+		//The boundaries can't be followed safely if the links are broken.
+		if(report.getCount(Problem.EDGE_NOT_LINKED) == 0 && report.getCount(Problem.TRIANGLE_NOT_IN_MESH) == 0
+			&& report.getCount(Problem.EDGE_NOT_IN_MESH) == 0 && report.getCount(Problem.BROKEN_TRIANGLE) == 0
+			&& report.getCount(Problem.OVERSHARED_EDGE) == 0 && report.getCount(Problem.WRONG_ORIENTATION) == 0){
+			checkEuler(report);
+		}
+		return report;
+	}
+
+	private void checkTriangle(DTriangle tri, ValidationReport report) {
+		if(!tri.checkTopology()){
+			report.add(Problem.BROKEN_TRIANGLE, tri);
+		}
+		for(int k = 0; k < 3; k++){
+			Integer index = edgeIndex.get(tri.getEdge(k));
+			if(index == null){
+				report.add(Problem.EDGE_NOT_IN_MESH, tri);
+			} else {
+				references.incrementAndGet(index);
+			}
+		}
+	}
+
+	private void checkEdge(int index, ValidationReport report) {
+		DEdge ed = edges.get(index);
+		DTriangle left = ed.getLeft();
+		DTriangle right = ed.getRight();
+		int sides = (left == null ? 0 : 1) + (right == null ? 0 : 1);
+		if(sides == 0){
+			report.add(Problem.DANGLING_EDGE, ed);
+		}
+		DPoint p3 = left == null ? null : left.getAlterPoint(ed.getStartPoint(), ed.getEndPoint());
+		DPoint p4 = right == null ? null : right.getAlterPoint(ed.getStartPoint(), ed.getEndPoint());
+		boolean linked = references.get(index) == sides && checkSide(ed, left, p3, true, report)
+			&& checkSide(ed, right, p4, false, report);
+		if(references.get(index) > 2){
+			report.add(Problem.OVERSHARED_EDGE, ed);
+		} else if(!linked){
+			report.add(Problem.EDGE_NOT_LINKED, ed);
+		}
+		if(ed.isLocked()){
+			if(!constraints.contains(ed)){
+				report.add(Problem.UNREGISTERED_CONSTRAINT, ed);
+			}
+		} else if(left != null && right != null
+			&& ((p3 != null && Tools.isInCircle(right.getPoint(0), right.getPoint(1), right.getPoint(2), p3))
+			|| (p4 != null && Tools.isInCircle(left.getPoint(0), left.getPoint(1), left.getPoint(2), p4)))){
+			report.add(Problem.NOT_DELAUNAY, ed);
+		}
+	}
+
+	/**
+	 * Check the triangle on one side of ed, whose point that is not on ed is
+	 * alter. Return false if ed and tri are not linked to each other.
+	 */
+	private boolean checkSide(DEdge ed, DTriangle tri, DPoint alter, boolean isLeft, ValidationReport report) {
+		if(tri == null){
+			return true;
+		}
+		if(!triangleIndex.containsKey(tri)){
+			report.add(Problem.TRIANGLE_NOT_IN_MESH, ed);
+			return true;
+		}
+		if(tri.getEdge(0) != ed && tri.getEdge(1) != ed && tri.getEdge(2) != ed){
+			return false;
+		}
+		if(alter == null || (isLeft ? !ed.isLeft(alter) : !ed.isRight(alter))){
+			report.add(Problem.WRONG_ORIENTATION, tri);
+		}
+		return true;
+	}
+
+	/**
+	 * Search the points that have the same coordinates, by sorting them
+	 * on x.
+	 */
+	private void checkPoints(ValidationReport report) {
+		List<DPoint> sorted = new ArrayList<DPoint>(points);
+		Collections.sort(sorted, new Comparator<DPoint>() {
+			@Override
+			public int compare(DPoint p1, DPoint p2) {
+				return Double.compare(p1.getX(), p2.getX());
+			}
+		});
+		for(int i = 0; i < sorted.size(); i++){
+			DPoint pt = sorted.get(i);
+			for(int j = i + 1; j < sorted.size() && sorted.get(j).getX() - pt.getX() < Tools.EPSILON; j++){
+				if(Math.abs(sorted.get(j).getY() - pt.getY()) < Tools.EPSILON){
+					report.add(Problem.DUPLICATE_POINT, sorted.get(j));
+				}
+			}
+		}
+	}
+
+	/**
+	 * Compute the Euler characteristic of the triangles, and compare it to
+	 * the one expected from their components and boundaries. The points
+	 * where several fans of triangles meet are counted once per fan, so that
+	 * each component is a disc with holes : its characteristic is 2 minus
+	 * the number of its boundary loops.
+	 */
+	private void checkEuler(ValidationReport report) {
+		int[] parents = new int[triangles.size()];
+		for(int i = 0; i < parents.length; i++){
+			parents[i] = i;
+		}
+		int components = triangles.size();
+		int usedEdges = 0;
+		Set<DPoint> vertices = Collections.newSetFromMap(new IdentityHashMap<DPoint, Boolean>(points.size()));
+		for(DTriangle tri : triangles){
+			for(int k = 0; k < 3; k++){
+				vertices.add(tri.getPoint(k));
+			}
+		}
+		//The number of boundary edges that start from each boundary point.
+		Map<DPoint, int[]> fans = new IdentityHashMap<DPoint, int[]>();
+		boolean[] visited = new boolean[edges.size()];
+		for(DEdge ed : edges){
+			DTriangle left = ed.getLeft();
+			DTriangle right = ed.getRight();
+			if(left != null && right != null){
+				usedEdges++;
+				int a = find(parents, triangleIndex.get(left));
+				int b = find(parents, triangleIndex.get(right));
+				if(a != b){
+					parents[a] = b;
+					components--;
+				}
+			} else if(left != null || right != null){
+				usedEdges++;
+				DPoint from = left != null ? ed.getStartPoint() : ed.getEndPoint();
+				int[] count = fans.get(from);
+				if(count == null){
+					fans.put(from, new int[]{1});
+				} else {
+					count[0]++;
+				}
+			}
+		}
+		int splitVertices = vertices.size();
+		for(int[] count : fans.values()){
+			splitVertices += count[0] - 1;
+		}
+		int loops = 0;
+		for(int i = 0; i < edges.size(); i++){
+			DEdge ed = edges.get(i);
+			if(visited[i] || (ed.getLeft() == null) == (ed.getRight() == null)){
+				continue;
+			}
+			loops++;
+			DTriangle[] container = {ed.getLeft() != null ? ed.getLeft() : ed.getRight()};
+			int j = i;
+			while(!visited[j]){
+				visited[j] = true;
+				ed = nextBoundaryEdge(ed, container);
+				if(ed == null){
+					report.add(Problem.EULER_CHARACTERISTIC, edges.get(j));
+					return;
+				}
+				j = edgeIndex.get(ed);
+			}
+		}
+		report.setEuler(splitVertices - usedEdges + triangles.size(), components, loops);
+	}
+
+	/**
+	 * Get the boundary edge that follows ed when going around the triangles
+	 * with the triangles on the left. container holds the triangle of ed, and
+	 * is updated with the triangle of the returned edge. Return null if the
+	 * boundary can't be followed.
+	 */
+	private DEdge nextBoundaryEdge(DEdge ed, DTriangle[] container) {
+		DTriangle tri = container[0];
+		DPoint apex = tri == ed.getLeft() ? ed.getEndPoint() : ed.getStartPoint();
+		DEdge cur = ed;
+		for(int steps = 0; steps <= triangles.size(); steps++){
+			DEdge next = null;
+			for(int k = 0; k < 3; k++){
+				DEdge candidate = tri.getEdge(k);
+				if(candidate != cur && candidate.isExtremity(apex)){
+					next = candidate;
+				}
+			}
+			if(next == null){
+				return null;
+			}
+			DTriangle other = next.getLeft() == tri ? next.getRight() : next.getLeft();
+			if(other == null){
+				container[0] = tri;
+				return next;
+			}
+			tri = other;
+			cur = next;
+		}
+		return null;
+	}
+
+	private static int find(int[] parents, int i) {
+		int root = i;
+		while(parents[root] != root){
+			root = parents[root];
+		}
+		while(parents[i] != root){
+			int next = parents[i];
+			parents[i] = root;
+			i = next;
+		}
+		return root;
+	}
+
+	private static ValidationReport run(List<Callable<ValidationReport>> tasks, int threads) throws DelaunayError {
+		ValidationReport ret = new ValidationReport();
+		try {
+			if(threads == 1){
+				for(Callable<ValidationReport> task : tasks){
+					ret.merge(task.call());
+				}
+			} else {
+				ExecutorService executor = Executors.newFixedThreadPool(threads);
+				try {
+					for(Future<ValidationReport> future : executor.invokeAll(tasks)){
+						ret.merge(future.get());
+					}
+				} finally {
+					executor.shutdown();
+				}
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new DelaunayError(DelaunayError.DELAUNAY_ERROR_INTERNAL_ERROR, "interrupted");
+		} catch (ExecutionException e) {
+			throw new DelaunayError(DelaunayError.DELAUNAY_ERROR_INTERNAL_ERROR, e.getCause().toString());
+		} catch (Exception e) {
+			throw new DelaunayError(DelaunayError.DELAUNAY_ERROR_INTERNAL_ERROR, e.toString());
+		}
+		return ret;
+	}
+}
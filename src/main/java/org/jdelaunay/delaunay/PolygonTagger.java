@@ -0,0 +1,350 @@
+/**
+ *
+ * jDelaunay is a library dedicated to the processing of Delaunay and constrained
+ * Delaunay triangulations from PSLG inputs.
+ *
+ * This library is developed at French IRSTV institute as part of the AvuPur and Eval-PDU project,
+ * funded by the French Agence Nationale de la Recherche (ANR) under contract
+ * ANR-07-VULN-01 and ANR-08-VILL-0005-01 .
+ *
+ * jDelaunay is distributed under GPL 3 license. It is produced by the "Atelier SIG" team of
+ * the IRSTV Institute <http://www.irstv.fr/> CNRS FR 2488.
+ *
+ * Copyright (C) 2010-2012 IRSTV FR CNRS 2488
+ *
+ * jDelaunay is free software: you can redistribute it and/or modify it under the
+ * terms of the GNU General Public License as published by the Free Software
+ * Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ *
+ * jDelaunay is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR
+ * A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * jDelaunay. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * For more information, please consult: <http://www.orbisgis.org/>
+ * or contact directly:
+ * info_at_ orbisgis.org
+ */
+package org.jdelaunay.delaunay;
+
+import java.io.Serializable;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import org.jdelaunay.delaunay.error.DelaunayError;
+import org.jdelaunay.delaunay.geometries.DEdge;
+import org.jdelaunay.delaunay.geometries.DPoint;
+import org.jdelaunay.delaunay.geometries.DTriangle;
+
+/**
+ * Keeps the polygons inserted in a ConstrainedMesh, and tags the triangles
+ * of the mesh according to the polygon that contains them.<br/>
+ * The rings are stored so that the inside of their polygon is always on
+ * their left. Once the mesh is computed, we follow each ring in the mesh to
+ * find the triangles that are just inside the polygon, and we propagate the
+ * polygon from these seeds to their neighbours, without crossing the rings.
+ * The holes are flooded the same way, from the triangles on the right of
+ * their rings, once all the polygons have been processed. Each triangle is
+ * visited once. When polygons overlap, the triangles of the overlap are given
+ * to the smallest polygon.
+ * @author Alexis Guéganno
+ */
+final class PolygonTagger implements Serializable {
+	private static final long serialVersionUID = 1L;
+
+	//The cosinus of the maximal angle between the sub-edges of a ring and
+	//the ring segment they come from.
+	private static final double MIN_COS = 1 - 1e-6;
+
+	private final List<Polygon> polygons = new ArrayList<Polygon>();
+
+	/**
+	 * Record a new polygon. The rings are copied and oriented : the shell
+	 * counterclockwise, the holes clockwise.
+	 * @param shell
+	 * @param holes
+	 * @param id
+	 * @return
+	 *	The oriented rings of the polygon, to be inserted as constraints.
+	 * @throws DelaunayError
+	 *	If a ring has less than three points.
+	 */
+	List<List<DPoint>> addPolygon(List<DPoint> shell, List<List<DPoint>> holes, int id) throws DelaunayError {
+		Polygon poly = new Polygon(id);
+		List<DPoint> ring = getRing(shell);
+		double area = getSignedArea(ring);
+		if(area < 0){
+			Collections.reverse(ring);
+		}
+		poly.rings.add(ring);
+		poly.area = Math.abs(area);
+		for(List<DPoint> hole : holes){
+			ring = getRing(hole);
+			area = getSignedArea(ring);
+			if(area > 0){
+				Collections.reverse(ring);
+			}
+			poly.rings.add(ring);
+			poly.area -= Math.abs(area);
+		}
+		polygons.add(poly);
+		return poly.rings;
+	}
+
+	/**
+	 * @return the number of polygons recorded in this tagger.
+	 */
+	int size() {
+		return polygons.size();
+	}
+
+	/**
+	 * Tag the triangles of mesh. The triangles that are inside a polygon
+	 * receive its id as their external GID, and the property insideProperty.
+	 * The triangles that are in a hole, and not in another polygon, receive
+	 * holeProperty. The other ones receive outsideProperty.
+	 * @param mesh
+	 * @param insideProperty
+	 * @param outsideProperty
+	 * @param holeProperty
+	 * @return
+	 *	The number of triangles that are inside a polygon.
+	 * @throws DelaunayError
+	 *	If a ring can't be found in the mesh.
+	 */
+	int tag(ConstrainedMesh mesh, int insideProperty, int outsideProperty, int holeProperty) throws DelaunayError {
+		Map<DPoint, List<DEdge>> star = new IdentityHashMap<DPoint, List<DEdge>>();
+		for(DEdge ed : mesh.getEdges()){
+			if(ed.isLocked()){
+				addToStar(star, ed.getStartPoint(), ed);
+				addToStar(star, ed.getEndPoint(), ed);
+			}
+		}
+		//The points of the rings are retrieved among the ends of the locked
+		//edges. We can't rely on the order of the points of the mesh, that
+		//is lost by the refinement and by the reordering methods.
+		List<DPoint> ends = new ArrayList<DPoint>(star.keySet());
+		Collections.sort(ends);
+		//The smallest polygons are processed first, so that they are not
+		//covered by the ones that contain them.
+		List<Polygon> sorted = new ArrayList<Polygon>(polygons);
+		Collections.sort(sorted, new Comparator<Polygon>() {
+			@Override
+			public int compare(Polygon p1, Polygon p2) {
+				return Double.compare(p1.area, p2.area);
+			}
+		});
+		Set<DEdge> walls = Collections.newSetFromMap(new IdentityHashMap<DEdge, Boolean>());
+		List<List<DTriangle>> seeds = new ArrayList<List<DTriangle>>(sorted.size());
+		List<DTriangle> holeSeeds = new ArrayList<DTriangle>();
+		for(Polygon poly : sorted){
+			List<DTriangle> polySeeds = new ArrayList<DTriangle>();
+			for(int r = 0; r < poly.rings.size(); r++){
+				List<DPoint> ring = poly.rings.get(r);
+				//The first ring is the shell, the other ones are holes.
+				List<DTriangle> inHole = r == 0 ? null : holeSeeds;
+				for(int i = 0; i < ring.size(); i++){
+					followSegment(ends, star, ring.get(i), ring.get((i + 1) % ring.size()),
+						walls, polySeeds, inHole);
+				}
+			}
+			seeds.add(polySeeds);
+		}
+		for(DTriangle tri : mesh.getTriangleList()){
+			tri.setProcessed(false);
+		}
+		int count = 0;
+		for(int p = 0; p < sorted.size(); p++){
+			int id = sorted.get(p).id;
+			List<DTriangle> inside = flood(mesh, seeds.get(p), walls, insideProperty);
+			for(DTriangle tri : inside){
+				tri.setExternalGID(id);
+			}
+			count += inside.size();
+		}
+		//The holes are processed last, so that the polygons they contain
+		//keep their triangles.
+		flood(mesh, holeSeeds, walls, holeProperty);
+		for(DTriangle tri : mesh.getTriangleList()){
+			if(tri.isProcessed()){
+				tri.setProcessed(false);
+			} else {
+				mesh.addElementProperty(tri, outsideProperty);
+			}
+		}
+		return count;
+	}
+
+	/**
+	 * Propagate from the seeds to the triangles that can be reached without
+	 * crossing walls, and that have not been processed yet. They are marked
+	 * as processed and receive property.
+	 * @return
+	 *	The triangles that have been reached.
+	 */
+	private static List<DTriangle> flood(ConstrainedMesh mesh, List<DTriangle> seeds,
+			Set<DEdge> walls, int property) {
+		List<DTriangle> reached = new ArrayList<DTriangle>();
+		Deque<DTriangle> stack = new ArrayDeque<DTriangle>();
+		for(DTriangle seed : seeds){
+			if(!seed.isProcessed()){
+				seed.setProcessed(true);
+				stack.push(seed);
+			}
+		}
+		while(!stack.isEmpty()){
+			DTriangle tri = stack.pop();
+			mesh.addElementProperty(tri, property);
+			reached.add(tri);
+			for(int i = 0; i < DTriangle.PT_NB; i++){
+				DEdge ed = tri.getEdge(i);
+				if(!walls.contains(ed)){
+					DTriangle other = ed.getLeft() == tri ? ed.getRight() : ed.getLeft();
+					if(other != null && !other.isProcessed()){
+						other.setProcessed(true);
+						stack.push(other);
+					}
+				}
+			}
+		}
+		return reached;
+	}
+
+	/**
+	 * Walk along the mesh edges that cover the segment from a to b, mark them
+	 * as walls and add the triangles on their left to seeds. If holeSeeds is
+	 * not null, the triangles on their right are added to it.
+	 */
+	private void followSegment(List<DPoint> ends, Map<DPoint, List<DEdge>> star,
+			DPoint a, DPoint b, Set<DEdge> walls, List<DTriangle> seeds,
+			List<DTriangle> holeSeeds) throws DelaunayError {
+		DPoint current = getMeshPoint(ends, a);
+		DPoint end = getMeshPoint(ends, b);
+		while(current != end){
+			List<DEdge> around = star.get(current);
+			DEdge next = null;
+			DPoint other = null;
+			double bestCos = MIN_COS;
+			double dx = end.getX() - current.getX();
+			double dy = end.getY() - current.getY();
+			double norm = Math.sqrt(dx * dx + dy * dy);
+			if(around != null){
+				for(DEdge ed : around){
+					DPoint op = ed.getStartPoint() == current ? ed.getEndPoint() : ed.getStartPoint();
+					double ex = op.getX() - current.getX();
+					double ey = op.getY() - current.getY();
+					double cos = (ex * dx + ey * dy) / (norm * Math.sqrt(ex * ex + ey * ey));
+					if(cos > bestCos){
+						bestCos = cos;
+						next = ed;
+						other = op;
+					}
+				}
+			}
+			if(next == null){
+				throw new DelaunayError(DelaunayError.DELAUNAY_ERROR_INCORRECT_TOPOLOGY,
+					"the polygon boundary from "+a+" to "+b+" is not in the mesh");
+			}
+			walls.add(next);
+			DTriangle left = getLeftOf(next, current, other);
+			if(left != null){
+				seeds.add(left);
+			}
+			if(holeSeeds != null){
+				DTriangle right = getLeftOf(next, other, current);
+				if(right != null){
+					holeSeeds.add(right);
+				}
+			}
+			current = other;
+		}
+	}
+
+	/**
+	 * Get the triangle of ed that is on the left when going from start to end.
+	 */
+	private static DTriangle getLeftOf(DEdge ed, DPoint start, DPoint end) {
+		DTriangle[] tris = {ed.getLeft(), ed.getRight()};
+		for(DTriangle tri : tris){
+			if(tri != null){
+				DPoint op = tri.getOppositePoint(ed);
+				double cross = (end.getX() - start.getX()) * (op.getY() - start.getY())
+					- (end.getY() - start.getY()) * (op.getX() - start.getX());
+				if(cross > 0){
+					return tri;
+				}
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * Get the point of the mesh that has the coordinates of pt, in the sorted
+	 * list of the ends of the locked edges.
+	 */
+	private static DPoint getMeshPoint(List<DPoint> ends, DPoint pt) throws DelaunayError {
+		int index = Collections.binarySearch(ends, pt);
+		if(index < 0){
+			throw new DelaunayError(DelaunayError.DELAUNAY_ERROR_POINT_NOT_FOUND,
+				"the polygon point "+pt+" is not in the mesh");
+		}
+		return ends.get(index);
+	}
+
+	private static void addToStar(Map<DPoint, List<DEdge>> star, DPoint pt, DEdge ed) {
+		List<DEdge> around = star.get(pt);
+		if(around == null){
+			around = new ArrayList<DEdge>(2);
+			star.put(pt, around);
+		}
+		around.add(ed);
+	}
+
+	/**
+	 * Copy the points of a ring, without the last one if it closes the ring.
+	 */
+	private static List<DPoint> getRing(List<DPoint> pts) throws DelaunayError {
+		List<DPoint> ring = new ArrayList<DPoint>(pts);
+		if(ring.size() > 1 && ring.get(0).equals2D(ring.get(ring.size() - 1))){
+			ring.remove(ring.size() - 1);
+		}
+		if(ring.size() < ConstrainedMesh.MIN_POINTS_NUMBER){
+			throw new DelaunayError(DelaunayError.DELAUNAY_ERROR_NOT_ENOUGH_POINTS_FOUND,
+				"a polygon ring needs at least three points");
+		}
+		return ring;
+	}
+
+	private static double getSignedArea(List<DPoint> ring) {
+		double area = 0;
+		for(int i = 0; i < ring.size(); i++){
+			DPoint p1 = ring.get(i);
+			DPoint p2 = ring.get((i + 1) % ring.size());
+			area += p1.getX() * p2.getY() - p2.getX() * p1.getY();
+		}
+		return area / 2;
+	}
+
+	/**
+	 * A polygon : its id, its rings and its area.
+	 */
+	private static final class Polygon implements Serializable {
+		private static final long serialVersionUID = 1L;
+		private final int id;
+		private final List<List<DPoint>> rings = new ArrayList<List<DPoint>>();
+		private double area;
+
+		private Polygon(int id) {
+			this.id = id;
+		}
+	}
+}
@@ -0,0 +1,165 @@
+/**
+ *
+ * jDelaunay is a library dedicated to the processing of Delaunay and constrained
+ * Delaunay triangulations from PSLG inputs.
+ *
+ * This library is developed at French IRSTV institute as part of the AvuPur and Eval-PDU project,
+ * funded by the French Agence Nationale de la Recherche (ANR) under contract
+ * ANR-07-VULN-01 and ANR-08-VILL-0005-01 .
+ *
+ * jDelaunay is distributed under GPL 3 license. It is produced by the "Atelier SIG" team of
+ * the IRSTV Institute <http://www.irstv.fr/> CNRS FR 2488.
+ *
+ * Copyright (C) 2010-2012 IRSTV FR CNRS 2488
+ *
+ * jDelaunay is free software: you can redistribute it and/or modify it under the
+ * terms of the GNU General Public License as published by the Free Software
+ * Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ *
+ * jDelaunay is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR
+ * A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * jDelaunay. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * For more information, please consult: <http://www.orbisgis.org/>
+ * or contact directly:
+ * info_at_ orbisgis.org
+ */
+package org.jdelaunay.delaunay;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+import org.jdelaunay.delaunay.error.DelaunayError;
+import org.jdelaunay.delaunay.geometries.DEdge;
+import org.jdelaunay.delaunay.geometries.DTriangle;
+import org.jdelaunay.delaunay.geometries.Element;
+import org.jdelaunay.delaunay.tools.IntObjectMap;
+
+/**
+ * Index of the edges and triangles of a mesh according to their property
+ * bits. For each bit, we keep the set of the GIDs of the elements that have
+ * it, so that the elements of a given class can be retrieved without scanning
+ * the whole mesh. The GIDs must be positive and unique for each kind of
+ * element.
+ * @author Alexis Guéganno
+ */
+final class PropertyIndex {
+
+	private final Bits<DEdge> edges = new Bits<DEdge>();
+	private final Bits<DTriangle> triangles = new Bits<DTriangle>();
+
+	/**
+	 * Fill the index with the given edges and triangles. The current content
+	 * is forgotten.
+	 * @param edgeList
+	 * @param triangleList
+	 * @throws DelaunayError
+	 *	if two edges or two triangles share the same GID.
+	 */
+	void build(List<DEdge> edgeList, List<DTriangle> triangleList) throws DelaunayError {
+		edges.build(edgeList);
+		triangles.build(triangleList);
+	}
+
+	/**
+	 * Update the index after the property of el has been changed.
+	 * @param el
+	 * @param oldProperty
+	 *	The property of el before the change.
+	 */
+	void update(Element el, int oldProperty) {
+		if(el instanceof DEdge){
+			edges.update((DEdge) el, oldProperty);
+		} else if(el instanceof DTriangle){
+			triangles.update((DTriangle) el, oldProperty);
+		}
+	}
+
+	/**
+	 * @param property
+	 * @return the indexed edges that have at least one of the bits of property.
+	 */
+	List<DEdge> getEdges(int property) {
+		return edges.get(property);
+	}
+
+	/**
+	 * @param property
+	 * @return the indexed triangles that have at least one of the bits of property.
+	 */
+	List<DTriangle> getTriangles(int property) {
+		return triangles.get(property);
+	}
+
+	/**
+	 * The index of one kind of element : one set of GIDs per bit, and the
+	 * elements sorted by GID.
+	 */
+	private static final class Bits<T extends Element> {
+
+		private final BitSet[] sets = new BitSet[Integer.SIZE];
+		private IntObjectMap<T> byGid = new IntObjectMap<T>();
+
+		private void build(List<T> elements) throws DelaunayError {
+			for(int i = 0; i < sets.length; i++){
+				sets[i] = null;
+			}
+			byGid = new IntObjectMap<T>(elements.size());
+			for(T el : elements){
+				if(el.getGID() < 0 || byGid.put(el.getGID(), el) != null){
+					throw new DelaunayError(DelaunayError.DELAUNAY_ERROR_INVALID_CALL,
+						"invalid or duplicated GID : "+el.getGID());
+				}
+				set(el.getGID(), el.getProperty());
+			}
+		}
+
+		private void update(T el, int oldProperty) {
+			if(byGid.get(el.getGID()) != el){
+				return;
+			}
+			int removed = oldProperty & ~el.getProperty();
+			for(int bit = 0; removed != 0; bit++, removed >>>= 1){
+				if((removed & 1) != 0 && sets[bit] != null){
+					sets[bit].clear(el.getGID());
+				}
+			}
+			set(el.getGID(), el.getProperty());
+		}
+
+		private void set(int gid, int property) {
+			int prop = property;
+			for(int bit = 0; prop != 0; bit++, prop >>>= 1){
+				if((prop & 1) != 0){
+					if(sets[bit] == null){
+						sets[bit] = new BitSet();
+					}
+					sets[bit].set(gid);
+				}
+			}
+		}
+
+		private List<T> get(int property) {
+			BitSet gids = new BitSet();
+			int prop = property;
+			for(int bit = 0; prop != 0; bit++, prop >>>= 1){
+				if((prop & 1) != 0 && sets[bit] != null){
+					gids.or(sets[bit]);
+				}
+			}
+			List<T> ret = new ArrayList<T>(gids.cardinality());
+			for(int gid = gids.nextSetBit(0); gid >= 0; gid = gids.nextSetBit(gid + 1)){
+				T el = byGid.get(gid);
+				//The property may have been changed directly on the element.
+				if(el != null && el.hasProperty(property)){
+					ret.add(el);
+				}
+			}
+			return ret;
+		}
+	}
+}
@@ -0,0 +1,91 @@
+/**
+ *
+ * jDelaunay is a library dedicated to the processing of Delaunay and constrained
+ * Delaunay triangulations from PSLG inputs.
+ *
+ * This library is developed at French IRSTV institute as part of the AvuPur and Eval-PDU project,
+ * funded by the French Agence Nationale de la Recherche (ANR) under contract
+ * ANR-07-VULN-01 and ANR-08-VILL-0005-01 .
+ *
+ * jDelaunay is distributed under GPL 3 license. It is produced by the "Atelier SIG" team of
+ * the IRSTV Institute <http://www.irstv.fr/> CNRS FR 2488.
+ *
+ * Copyright (C) 2010-2012 IRSTV FR CNRS 2488
+ *
+ * jDelaunay is free software: you can redistribute it and/or modify it under the
+ * terms of the GNU General Public License as published by the Free Software
+ * Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ *
+ * jDelaunay is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR
+ * A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * jDelaunay. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * For more information, please consult: <http://www.orbisgis.org/>
+ * or contact directly:
+ * info_at_ orbisgis.org
+ */
+package org.jdelaunay.delaunay;
+
+import java.util.List;
+import org.jdelaunay.delaunay.geometries.DPoint;
+
+/**
+ * A polyline of the skeleton computed by MedialAxis. The lines of a region
+ * are connected : the lines that meet at a junction share the same DPoint
+ * instance as their first or last point.
+ * @author Alexis Guéganno
+ */
+public final class SkeletonLine {
+
+	private final List<DPoint> points;
+	private final double[] distances;
+	private final int externalGID;
+
+	/**
+	 * Build a new line.
+	 * @param points
+	 * @param distances
+	 * @param externalGID
+	 */
+	SkeletonLine(List<DPoint> points, double[] distances, int externalGID) {
+		this.points = points;
+		this.distances = distances;
+		this.externalGID = externalGID;
+	}
+
+	/**
+	 * @return the points of the line. Their z is interpolated in the mesh.
+	 * A closed line repeats its first point at the end.
+	 */
+	public List<DPoint> getPoints() {
+		return points;
+	}
+
+	/**
+	 * Get the distance between the i-th point of the line and the boundary
+	 * of its region.
+	 * @param i
+	 * @return
+	 */
+	public double getDistance(int i) {
+		return distances[i];
+	}
+
+	/**
+	 * @return the external GID of the triangles the line has been built from.
+	 */
+	public int getExternalGID() {
+		return externalGID;
+	}
+
+	/**
+	 * @return true if the line is a loop, without any junction nor end.
+	 */
+	public boolean isClosed() {
+		return points.size() > 1 && points.get(0) == points.get(points.size() - 1);
+	}
+}
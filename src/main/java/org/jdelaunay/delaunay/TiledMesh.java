@@ -0,0 +1,614 @@
+/**
+ *
+ * jDelaunay is a library dedicated to the processing of Delaunay and constrained
+ * Delaunay triangulations from PSLG inputs.
+ *
+ * This library is developed at French IRSTV institute as part of the AvuPur and Eval-PDU project,
+ * funded by the French Agence Nationale de la Recherche (ANR) under contract
+ * ANR-07-VULN-01 and ANR-08-VILL-0005-01 .
+ *
+ * jDelaunay is distributed under GPL 3 license. It is produced by the "Atelier SIG" team of
+ * the IRSTV Institute <http://www.irstv.fr/> CNRS FR 2488.
+ *
+ * Copyright (C) 2010-2012 IRSTV FR CNRS 2488
+ *
+ * jDelaunay is free software: you can redistribute it and/or modify it under the
+ * terms of the GNU General Public License as published by the Free Software
+ * Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ *
+ * jDelaunay is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR
+ * A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * jDelaunay. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * For more information, please consult: <http://www.orbisgis.org/>
+ * or contact directly:
+ * info_at_ orbisgis.org
+ */
+package org.jdelaunay.delaunay;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import org.jdelaunay.delaunay.error.DelaunayError;
+import org.jdelaunay.delaunay.geometries.DEdge;
+import org.jdelaunay.delaunay.geometries.DPoint;
+import org.jdelaunay.delaunay.geometries.DTriangle;
+import org.jdelaunay.delaunay.tools.Tools;
+
+/**
+ * Computes the Delaunay triangulation of a large set of points by tiles.<br/>
+ * The bounding box of the points is split in a grid of tiles. Each tile is
+ * extended with a margin, and the points of the extended tile are triangulated
+ * independently, possibly in parallel. A triangle whose circumcircle lies
+ * inside the extended tile can't contain any other point of the whole set :
+ * it is a triangle of the global triangulation. It is kept by the tile whose
+ * core contains its circumcenter, so that it is kept only once.<br/>
+ * A point whose triangles are all kept is finished. The points that are not
+ * finished are triangulated again in a last pass, and the triangles of this
+ * pass whose circumcircle does not contain any finished point fill the seams
+ * between the tiles.<br/>
+ * The points are supposed to be in general position : when four points are
+ * cocircular, two tiles may choose different diagonals. Constraints are not
+ * supported. Duplicated points are removed silently.
+ * @author Alexis Guéganno
+ */
+public final class TiledMesh {
+
+	private final List<DPoint> points;
+	private final int tilesX;
+	private final int tilesY;
+	private final double margin;
+	private int threads = 1;
+	private boolean frontSmoothing = false;
+	//The geometry of the grid, computed from the points.
+	private double minX;
+	private double minY;
+	private double tileWidth;
+	private double tileHeight;
+	//The number of points that have been processed in the last pass.
+	private int seamPoints = 0;
+
+	/**
+	 * Prepare the tiled triangulation of points.
+	 * @param points
+	 * @param tilesX
+	 *	The number of tiles on the x axis.
+	 * @param tilesY
+	 *	The number of tiles on the y axis.
+	 * @param margin
+	 *	The width of the band added around each tile. The wider it is, the
+	 *	less points are left to the last pass.
+	 */
+	public TiledMesh(List<DPoint> points, int tilesX, int tilesY, double margin) {
+		if(tilesX < 1 || tilesY < 1 || margin < 0){
+			throw new IllegalArgumentException("Invalid tiling : "+tilesX+"x"+tilesY+", margin "+margin);
+		}
+		this.points = points;
+		this.tilesX = tilesX;
+		this.tilesY = tilesY;
+		this.margin = margin;
+	}
+
+	/**
+	 * @return the number of threads used to process the tiles.
+	 */
+	public int getThreads() {
+		return threads;
+	}
+
+	/**
+	 * Set the number of threads used to process the tiles. The default is 1 :
+	 * the tiles are processed one after the other.
+	 * @param threads
+	 */
+	public void setThreads(int threads) {
+		if(threads < 1){
+			throw new IllegalArgumentException("At least one thread is needed");
+		}
+		this.threads = threads;
+	}
+
+	/**
+	 * @return true if the tiles are triangulated with the front smoothing.
+	 */
+	public boolean isFrontSmoothing() {
+		return frontSmoothing;
+	}
+
+	/**
+	 * Set if the front smoothing of ConstrainedMesh must be used to
+	 * triangulate the tiles. It is disabled by default.
+	 * @param smoothing
+	 */
+	public void setFrontSmoothing(boolean smoothing) {
+		frontSmoothing = smoothing;
+	}
+
+	/**
+	 * @return the number of points that have been triangulated again in the
+	 * last pass of process.
+	 */
+	public int getSeamPoints() {
+		return seamPoints;
+	}
+
+	/**
+	 * Triangulate the points, tile by tile, and stitch the tiles. The points
+	 * of the resulting mesh are the points given to this object.
+	 * @return
+	 *	The computed mesh.
+	 * @throws DelaunayError
+	 */
+	public ConstrainedMesh process() throws DelaunayError {
+		List<DPoint> unique = getUniquePoints();
+		if(unique.size() < ConstrainedMesh.MIN_POINTS_NUMBER){
+			throw new DelaunayError(DelaunayError.DELAUNAY_ERROR_NOT_ENOUGH_POINTS_FOUND);
+		}
+		initGrid(unique);
+		List<int[]> tilePoints = distribute(unique);
+		List<TileResult> results = processTiles(unique, tilePoints);
+		BitSet finished = new BitSet(unique.size());
+		IntList triangles = new IntList();
+		for(TileResult res : results){
+			for(int i = 0; i < res.finished.size; i++){
+				finished.set(res.finished.data[i]);
+			}
+			triangles.addAll(res.triangles);
+		}
+		processSeams(unique, finished, triangles);
+		return buildMesh(unique, triangles);
+	}
+
+	/**
+	 * Sort the points and remove the duplicates.
+	 */
+	private List<DPoint> getUniquePoints() {
+		List<DPoint> sorted = new ArrayList<DPoint>(points);
+		Collections.sort(sorted);
+		List<DPoint> unique = new ArrayList<DPoint>(sorted.size());
+		for(DPoint pt : sorted){
+			if(unique.isEmpty() || !unique.get(unique.size() - 1).equals2D(pt)){
+				unique.add(pt);
+			}
+		}
+		return unique;
+	}
+
+	private void initGrid(List<DPoint> pts) {
+		minX = Double.POSITIVE_INFINITY;
+		minY = Double.POSITIVE_INFINITY;
+		double maxX = Double.NEGATIVE_INFINITY;
+		double maxY = Double.NEGATIVE_INFINITY;
+		for(DPoint pt : pts){
+			minX = Math.min(minX, pt.getX());
+			minY = Math.min(minY, pt.getY());
+			maxX = Math.max(maxX, pt.getX());
+			maxY = Math.max(maxY, pt.getY());
+		}
+		tileWidth = maxX > minX ? (maxX - minX) / tilesX : 1;
+		tileHeight = maxY > minY ? (maxY - minY) / tilesY : 1;
+	}
+
+	/**
+	 * Get the indices of the points of each extended tile.
+	 */
+	private List<int[]> distribute(List<DPoint> pts) {
+		IntList[] lists = new IntList[tilesX * tilesY];
+		for(int t = 0; t < lists.length; t++){
+			lists[t] = new IntList();
+		}
+		for(int k = 0; k < pts.size(); k++){
+			DPoint pt = pts.get(k);
+			int i0 = getColumn(pt.getX() - margin);
+			int i1 = getColumn(pt.getX() + margin);
+			int j0 = getRow(pt.getY() - margin);
+			int j1 = getRow(pt.getY() + margin);
+			for(int i = i0; i <= i1; i++){
+				for(int j = j0; j <= j1; j++){
+					lists[j * tilesX + i].add(k);
+				}
+			}
+		}
+		List<int[]> ret = new ArrayList<int[]>(lists.length);
+		for(IntList list : lists){
+			ret.add(list.toArray());
+		}
+		return ret;
+	}
+
+	private List<TileResult> processTiles(final List<DPoint> pts, final List<int[]> tilePoints)
+			throws DelaunayError {
+		List<TileResult> results = new ArrayList<TileResult>(tilePoints.size());
+		if(threads == 1){
+			for(int t = 0; t < tilePoints.size(); t++){
+				results.add(processTile(pts, t, tilePoints.get(t)));
+			}
+			return results;
+		}
+		ExecutorService executor = Executors.newFixedThreadPool(threads);
+		try {
+			List<Future<TileResult>> futures = new ArrayList<Future<TileResult>>(tilePoints.size());
+			for(int t = 0; t < tilePoints.size(); t++){
+				final int tile = t;
+				futures.add(executor.submit(new Callable<TileResult>() {
+					@Override
+					public TileResult call() throws DelaunayError {
+						return processTile(pts, tile, tilePoints.get(tile));
+					}
+				}));
+			}
+			for(Future<TileResult> future : futures){
+				results.add(future.get());
+			}
+			return results;
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new DelaunayError(DelaunayError.DELAUNAY_ERROR_INTERNAL_ERROR, "interrupted");
+		} catch (ExecutionException e) {
+			if(e.getCause() instanceof DelaunayError){
+				throw (DelaunayError) e.getCause();
+			}
+			throw new DelaunayError(DelaunayError.DELAUNAY_ERROR_INTERNAL_ERROR, e.getCause().toString());
+		} finally {
+			executor.shutdown();
+		}
+	}
+
+	/**
+	 * Triangulate the points of an extended tile, and keep the triangles
+	 * that are in the global triangulation and that belong to the tile.
+	 */
+	private TileResult processTile(List<DPoint> pts, int tile, int[] indices) throws DelaunayError {
+		TileResult res = new TileResult();
+		ConstrainedMesh mesh = triangulate(pts, indices);
+		if(mesh == null){
+			return res;
+		}
+		//The points are numbered from 1 in the mesh of the tile.
+		BitSet unfinished = new BitSet(indices.length + 1);
+		for(DEdge ed : mesh.getEdges()){
+			if(ed.getLeft() == null || ed.getRight() == null){
+				unfinished.set(ed.getStartPoint().getGID());
+				unfinished.set(ed.getEndPoint().getGID());
+			}
+		}
+		int[] tri = new int[DTriangle.PT_NB];
+		double[] circle = new double[DTriangle.PT_NB];
+		for(DTriangle dt : mesh.getTriangleList()){
+			getSortedIndices(dt, tri);
+			getCircle(pts, tri, circle);
+			int owner = getOwner(circle[0], circle[1]);
+			if(isInside(tile, circle) && isInside(owner, circle)){
+				if(owner == tile){
+					res.triangles.addAll(tri);
+				}
+			} else {
+				for(int i = 0; i < DTriangle.PT_NB; i++){
+					unfinished.set(dt.getPoint(i).getGID());
+				}
+			}
+		}
+		for(DPoint pt : mesh.getPoints()){
+			if(!unfinished.get(pt.getGID()) && getOwner(pt.getX(), pt.getY()) == tile){
+				res.finished.add(pt.getExternalGID());
+			}
+		}
+		return res;
+	}
+
+	/**
+	 * Triangulate the points that are not finished, and add the triangles
+	 * that are missing in the global triangulation.
+	 */
+	private void processSeams(List<DPoint> pts, BitSet finished, IntList triangles) throws DelaunayError {
+		IntList seam = new IntList();
+		for(int k = finished.nextClearBit(0); k < pts.size(); k = finished.nextClearBit(k + 1)){
+			seam.add(k);
+		}
+		seamPoints = seam.size;
+		ConstrainedMesh mesh = triangulate(pts, seam.toArray());
+		if(mesh == null){
+			return;
+		}
+		//The triangles whose points are all in the seams may have been
+		//kept by a tile already.
+		Set<Triangle> known = new HashSet<Triangle>();
+		for(int t = 0; t < triangles.size; t += DTriangle.PT_NB){
+			if(!finished.get(triangles.data[t]) && !finished.get(triangles.data[t + 1])
+					&& !finished.get(triangles.data[t + 2])){
+				known.add(new Triangle(triangles.data, t));
+			}
+		}
+		PointGrid grid = new PointGrid(pts, finished);
+		int[] tri = new int[DTriangle.PT_NB];
+		double[] circle = new double[DTriangle.PT_NB];
+		for(DTriangle dt : mesh.getTriangleList()){
+			getSortedIndices(dt, tri);
+			if(!known.contains(new Triangle(tri, 0))){
+				getCircle(pts, tri, circle);
+				if(!grid.hasPointInside(circle)){
+					triangles.addAll(tri);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Triangulate copies of the given points. The external GID of each copy
+	 * is the index of its original.
+	 * @return the mesh, or null if there are not enough points.
+	 */
+	private ConstrainedMesh triangulate(List<DPoint> pts, int[] indices) throws DelaunayError {
+		if(indices.length < ConstrainedMesh.MIN_POINTS_NUMBER){
+			return null;
+		}
+		List<DPoint> copies = new ArrayList<DPoint>(indices.length);
+		for(int k : indices){
+			DPoint copy = new DPoint(pts.get(k));
+			copy.setExternalGID(k);
+			copies.add(copy);
+		}
+		ConstrainedMesh mesh = new ConstrainedMesh();
+		mesh.setFrontSmoothing(frontSmoothing);
+		mesh.setPoints(copies);
+		mesh.processDelaunay();
+		return mesh;
+	}
+
+	/**
+	 * Build the final mesh with the triangles, given as triples of indices.
+	 */
+	private static ConstrainedMesh buildMesh(List<DPoint> pts, IntList triangles) throws DelaunayError {
+		Map<Long, DEdge> edgeMap = new HashMap<Long, DEdge>(triangles.size);
+		List<DTriangle> tris = new ArrayList<DTriangle>(triangles.size / DTriangle.PT_NB);
+		DEdge[] eds = new DEdge[DTriangle.PT_NB];
+		for(int t = 0; t < triangles.size; t += DTriangle.PT_NB){
+			for(int i = 0; i < DTriangle.PT_NB; i++){
+				int a = triangles.data[t + i];
+				int b = triangles.data[t + (i + 1) % DTriangle.PT_NB];
+				long key = (long) Math.min(a, b) * pts.size() + Math.max(a, b);
+				DEdge ed = edgeMap.get(key);
+				if(ed == null){
+					ed = new DEdge(pts.get(a), pts.get(b));
+					edgeMap.put(key, ed);
+				}
+				eds[i] = ed;
+			}
+			tris.add(new DTriangle(eds[0], eds[1], eds[2]));
+		}
+		ConstrainedMesh mesh = new ConstrainedMesh();
+		mesh.setTriangulation(pts, new ArrayList<DEdge>(edgeMap.values()), tris);
+		return mesh;
+	}
+
+	private static void getSortedIndices(DTriangle dt, int[] tri) {
+		for(int i = 0; i < DTriangle.PT_NB; i++){
+			tri[i] = dt.getPoint(i).getExternalGID();
+		}
+		Arrays.sort(tri);
+	}
+
+	/**
+	 * Compute the circumcircle of a triangle given by sorted indices, so that
+	 * all the tiles find exactly the same values.
+	 * @param circle
+	 *	receives the center and the radius. The radius is infinite if the
+	 *	points are aligned.
+	 */
+	private static void getCircle(List<DPoint> pts, int[] tri, double[] circle) {
+		DPoint a = pts.get(tri[0]);
+		DPoint b = pts.get(tri[1]);
+		DPoint c = pts.get(tri[2]);
+		double bx = b.getX() - a.getX();
+		double by = b.getY() - a.getY();
+		double cx = c.getX() - a.getX();
+		double cy = c.getY() - a.getY();
+		double d = 2 * (bx * cy - by * cx);
+		if(d == 0){
+			circle[0] = a.getX();
+			circle[1] = a.getY();
+			circle[2] = Double.POSITIVE_INFINITY;
+			return;
+		}
+		double b2 = bx * bx + by * by;
+		double c2 = cx * cx + cy * cy;
+		double ux = (cy * b2 - by * c2) / d;
+		double uy = (bx * c2 - cx * b2) / d;
+		circle[0] = a.getX() + ux;
+		circle[1] = a.getY() + uy;
+		circle[2] = Math.sqrt(ux * ux + uy * uy);
+	}
+
+	private int getColumn(double x) {
+		return Math.max(0, Math.min(tilesX - 1, (int) Math.floor((x - minX) / tileWidth)));
+	}
+
+	private int getRow(double y) {
+		return Math.max(0, Math.min(tilesY - 1, (int) Math.floor((y - minY) / tileHeight)));
+	}
+
+	private int getOwner(double x, double y) {
+		return getRow(y) * tilesX + getColumn(x);
+	}
+
+	/**
+	 * Check if the circle is inside the extended tile.
+	 */
+	private boolean isInside(int tile, double[] circle) {
+		int i = tile % tilesX;
+		int j = tile / tilesX;
+		double r = circle[2] + Tools.EPSILON;
+		return circle[0] - r > minX + i * tileWidth - margin
+			&& circle[0] + r < minX + (i + 1) * tileWidth + margin
+			&& circle[1] - r > minY + j * tileHeight - margin
+			&& circle[1] + r < minY + (j + 1) * tileHeight + margin;
+	}
+
+	/**
+	 * What a tile sends back : the triangles it keeps, as triples of indices,
+	 * and the points it has finished.
+	 */
+	private static final class TileResult {
+		private final IntList triangles = new IntList();
+		private final IntList finished = new IntList();
+	}
+
+	/**
+	 * A growable array of ints.
+	 */
+	private static final class IntList {
+		private int[] data = new int[16];
+		private int size = 0;
+
+		private void add(int value) {
+			if(size == data.length){
+				data = Arrays.copyOf(data, 2 * size);
+			}
+			data[size++] = value;
+		}
+
+		private void addAll(int[] values) {
+			for(int v : values){
+				add(v);
+			}
+		}
+
+		private void addAll(IntList other) {
+			for(int i = 0; i < other.size; i++){
+				add(other.data[i]);
+			}
+		}
+
+		private int[] toArray() {
+			return Arrays.copyOf(data, size);
+		}
+	}
+
+	/**
+	 * A triangle given by its sorted indices, used as a key.
+	 */
+	private static final class Triangle {
+		private final int a;
+		private final int b;
+		private final int c;
+
+		private Triangle(int[] data, int offset) {
+			a = data[offset];
+			b = data[offset + 1];
+			c = data[offset + 2];
+		}
+
+		@Override
+		public boolean equals(Object o) {
+			if(!(o instanceof Triangle)){
+				return false;
+			}
+			Triangle t = (Triangle) o;
+			return a == t.a && b == t.b && c == t.c;
+		}
+
+		@Override
+		public int hashCode() {
+			return (a * 31 + b) * 31 + c;
+		}
+	}
+
+	/**
+	 * A regular grid on the finished points, used to check that the
+	 * circumcircles of the triangles of the seams are empty.
+	 */
+	private final class PointGrid {
+		private final List<DPoint> pts;
+		private final int columns;
+		private final int rows;
+		private final double cellWidth;
+		private final double cellHeight;
+		//The points of cell c are cellPoints[cellStart[c]] to cellPoints[cellStart[c+1]-1].
+		private final int[] cellStart;
+		private final int[] cellPoints;
+
+		private PointGrid(List<DPoint> pts, BitSet finished) {
+			this.pts = pts;
+			int count = Math.max(1, finished.cardinality());
+			int side = Math.max(1, (int) Math.sqrt(count / 2.0));
+			columns = side * tilesX;
+			rows = side * tilesY;
+			cellWidth = tileWidth / side;
+			cellHeight = tileHeight / side;
+			cellStart = new int[columns * rows + 1];
+			for(int k = finished.nextSetBit(0); k >= 0; k = finished.nextSetBit(k + 1)){
+				cellStart[getCell(pts.get(k).getX(), pts.get(k).getY()) + 1]++;
+			}
+			for(int c = 0; c < columns * rows; c++){
+				cellStart[c + 1] += cellStart[c];
+			}
+			cellPoints = new int[cellStart[columns * rows]];
+			int[] fill = Arrays.copyOf(cellStart, columns * rows);
+			for(int k = finished.nextSetBit(0); k >= 0; k = finished.nextSetBit(k + 1)){
+				cellPoints[fill[getCell(pts.get(k).getX(), pts.get(k).getY())]++] = k;
+			}
+		}
+
+		private int getCell(double x, double y) {
+			int i = Math.max(0, Math.min(columns - 1, (int) Math.floor((x - minX) / cellWidth)));
+			int j = Math.max(0, Math.min(rows - 1, (int) Math.floor((y - minY) / cellHeight)));
+			return j * columns + i;
+		}
+
+		/**
+		 * Check if a finished point lies strictly inside the circle. The cell
+		 * of the center is checked first, as it is the most likely to contain
+		 * such a point.
+		 */
+		private boolean hasPointInside(double[] circle) {
+			if(Double.isInfinite(circle[2])){
+				return true;
+			}
+			int center = getCell(circle[0], circle[1]);
+			if(hasPointInside(center, circle)){
+				return true;
+			}
+			int i0 = getCell(circle[0] - circle[2], circle[1]) % columns;
+			int i1 = getCell(circle[0] + circle[2], circle[1]) % columns;
+			int j0 = getCell(circle[0], circle[1] - circle[2]) / columns;
+			int j1 = getCell(circle[0], circle[1] + circle[2]) / columns;
+			for(int j = j0; j <= j1; j++){
+				for(int i = i0; i <= i1; i++){
+					int cell = j * columns + i;
+					if(cell != center && hasPointInside(cell, circle)){
+						return true;
+					}
+				}
+			}
+			return false;
+		}
+
+		private boolean hasPointInside(int cell, double[] circle) {
+			double r = circle[2] - Tools.EPSILON;
+			for(int p = cellStart[cell]; p < cellStart[cell + 1]; p++){
+				DPoint pt = pts.get(cellPoints[p]);
+				double dx = pt.getX() - circle[0];
+				double dy = pt.getY() - circle[1];
+				if(dx * dx + dy * dy < r * r){
+					return true;
+				}
+			}
+			return false;
+		}
+	}
+}
@@ -0,0 +1,355 @@
+/**
+ *
+ * jDelaunay is a library dedicated to the processing of Delaunay and constrained
+ * Delaunay triangulations from PSLG inputs.
+ *
+ * This library is developed at French IRSTV institute as part of the AvuPur and Eval-PDU project,
+ * funded by the French Agence Nationale de la Recherche (ANR) under contract
+ * ANR-07-VULN-01 and ANR-08-VILL-0005-01 .
+ *
+ * jDelaunay is distributed under GPL 3 license. It is produced by the "Atelier SIG" team of
+ * the IRSTV Institute <http://www.irstv.fr/> CNRS FR 2488.
+ *
+ * Copyright (C) 2010-2012 IRSTV FR CNRS 2488
+ *
+ * jDelaunay is free software: you can redistribute it and/or modify it under the
+ * terms of the GNU General Public License as published by the Free Software
+ * Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ *
+ * jDelaunay is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR
+ * A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * jDelaunay. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * For more information, please consult: <http://www.orbisgis.org/>
+ * or contact directly:
+ * info_at_ orbisgis.org
+ */
+package org.jdelaunay.delaunay;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import org.jdelaunay.delaunay.error.DelaunayError;
+import org.jdelaunay.delaunay.geometries.DEdge;
+import org.jdelaunay.delaunay.geometries.DPoint;
+import org.jdelaunay.delaunay.geometries.DTriangle;
+import org.jdelaunay.delaunay.geometries.Element;
+import org.jdelaunay.delaunay.tools.HilbertOrder;
+
+/**
+ * Builds a coarse approximation of a computed mesh, by greedy insertion.<br/>
+ * The coarse mesh starts with the points of the convex hull and the
+ * constraints of the dense mesh. Each other point of the dense mesh is
+ * affected to the coarse triangle that contains it, and each triangle
+ * knows its worst point : the one whose z is the farthest from the plane
+ * of the triangle. The worst point of the whole mesh is inserted, the points
+ * of the triangles that have changed are affected again, and we start again
+ * until the vertical error is lower than the tolerance, or until the
+ * budget of points is reached.
+ * @author Alexis Guéganno
+ */
+public final class TinSimplifier {
+
+	private final ConstrainedMesh dense;
+	private double maxError = 0;
+	private int maxPoints = Integer.MAX_VALUE;
+	//The vertical error of the last simplified mesh.
+	private double error = 0;
+	//The points waiting to be inserted, and the queue of the triangles.
+	private Map<DTriangle, Bucket> buckets;
+	private PriorityQueue<Candidate> queue;
+
+	/**
+	 * Prepare the simplification of mesh.
+	 * @param mesh
+	 * @throws DelaunayError
+	 *	If mesh has not been computed.
+	 */
+	public TinSimplifier(ConstrainedMesh mesh) throws DelaunayError {
+		if(!mesh.isMeshComputed()){
+			throw new DelaunayError(DelaunayError.DELAUNAY_ERROR_NOT_GENERATED);
+		}
+		dense = mesh;
+	}
+
+	/**
+	 * @return the vertical tolerance of the simplification.
+	 */
+	public double getMaxError() {
+		return maxError;
+	}
+
+	/**
+	 * Set the vertical tolerance : the simplification stops when all the
+	 * points of the dense mesh are closer than maxError, on the z axis, to
+	 * the coarse mesh. It is 0 by default.
+	 * @param maxError
+	 */
+	public void setMaxError(double maxError) {
+		this.maxError = maxError;
+	}
+
+	/**
+	 * @return the maximal number of points of the coarse mesh.
+	 */
+	public int getMaxPoints() {
+		return maxPoints;
+	}
+
+	/**
+	 * Set the maximal number of points of the coarse mesh. The points of the
+	 * hull and of the constraints are always kept, even if they are more
+	 * numerous. There is no limit by default.
+	 * @param maxPoints
+	 */
+	public void setMaxPoints(int maxPoints) {
+		this.maxPoints = maxPoints;
+	}
+
+	/**
+	 * @return the largest vertical distance between a point of the dense
+	 * mesh and the last computed coarse mesh.
+	 */
+	public double getError() {
+		return error;
+	}
+
+	/**
+	 * Build the coarse mesh. Its points are copies of the points of the
+	 * dense mesh.
+	 * @return
+	 *	The coarse mesh.
+	 * @throws DelaunayError
+	 */
+	public ConstrainedMesh simplify() throws DelaunayError {
+		ConstrainedMesh coarse = getInitialMesh();
+		buckets = new IdentityHashMap<DTriangle, Bucket>();
+		queue = new PriorityQueue<Candidate>();
+		fillBuckets(coarse);
+		int count = coarse.getPoints().size();
+		while(!queue.isEmpty() && count < maxPoints){
+			Candidate cand = queue.poll();
+			Bucket bucket = buckets.get(cand.triangle);
+			if(bucket == null || bucket.version != cand.version){
+				continue;
+			}
+			if(cand.error <= maxError){
+				break;
+			}
+			DPoint pt = new DPoint(bucket.worst);
+			bucket.points.remove(bucket.worst);
+			coarse.insertPointInTriangle(pt, cand.triangle, 0);
+			count++;
+			redistribute(pt, cand.triangle);
+		}
+		error = 0;
+		for(Bucket bucket : buckets.values()){
+			error = Math.max(error, bucket.error);
+		}
+		buckets = null;
+		queue = null;
+		return coarse;
+	}
+
+	/**
+	 * Triangulate the points of the convex hull and the constraints of the
+	 * dense mesh.
+	 */
+	private ConstrainedMesh getInitialMesh() throws DelaunayError {
+		Map<DPoint, DPoint> copies = new IdentityHashMap<DPoint, DPoint>();
+		for(DEdge ed : dense.getEdges()){
+			if(ed.getLeft() == null || ed.getRight() == null){
+				getCopy(copies, ed.getStartPoint());
+				getCopy(copies, ed.getEndPoint());
+			}
+		}
+		List<DEdge> constraints = new ArrayList<DEdge>();
+		for(DEdge ed : dense.getConstraintEdges()){
+			DEdge copy = new DEdge(getCopy(copies, ed.getStartPoint()), getCopy(copies, ed.getEndPoint()));
+			copy.setProperty(ed.getProperty());
+			constraints.add(copy);
+		}
+		ConstrainedMesh coarse = new ConstrainedMesh();
+		coarse.setPoints(new ArrayList<DPoint>(copies.values()));
+		coarse.addConstraints(constraints);
+		coarse.processDelaunay();
+		return coarse;
+	}
+
+	private static DPoint getCopy(Map<DPoint, DPoint> copies, DPoint pt) throws DelaunayError {
+		DPoint copy = copies.get(pt);
+		if(copy == null){
+			copy = new DPoint(pt);
+			copies.put(pt, copy);
+		}
+		return copy;
+	}
+
+	/**
+	 * Affect the points of the dense mesh that are not in the coarse one to
+	 * the coarse triangles. They are located in the order of a Hilbert curve,
+	 * so that each search starts close to its target.
+	 */
+	private void fillBuckets(ConstrainedMesh coarse) throws DelaunayError {
+		List<DPoint> remaining = new ArrayList<DPoint>();
+		for(DPoint pt : dense.getPoints()){
+			if(coarse.listContainsPoint(pt) < 0){
+				remaining.add(pt);
+			}
+		}
+		DTriangle last = coarse.getTriangleList().get(0);
+		for(DPoint pt : HilbertOrder.sort(remaining)){
+			DTriangle tri = locate(last, pt);
+			if(tri != null){
+				getBucket(tri).points.add(pt);
+				last = tri;
+			}
+		}
+		for(Map.Entry<DTriangle, Bucket> entry : buckets.entrySet()){
+			update(entry.getKey(), entry.getValue());
+		}
+	}
+
+	/**
+	 * After the insertion of pt, affect again the points of the triangles
+	 * that have changed. All of them now share pt, and they cover the area
+	 * of the triangles they replace.
+	 */
+	private void redistribute(DPoint pt, DTriangle container) throws DelaunayError {
+		List<DTriangle> star = getStar(pt, container);
+		List<DPoint> pts = new ArrayList<DPoint>();
+		for(DTriangle tri : star){
+			Bucket bucket = buckets.remove(tri);
+			if(bucket != null){
+				pts.addAll(bucket.points);
+			}
+		}
+		for(DPoint p : pts){
+			DTriangle tri = null;
+			for(DTriangle t : star){
+				if(t.isInside(p)){
+					tri = t;
+					break;
+				}
+			}
+			if(tri == null){
+				tri = locate(container, p);
+			}
+			if(tri != null){
+				getBucket(tri).points.add(p);
+			}
+		}
+		for(DTriangle tri : star){
+			Bucket bucket = buckets.get(tri);
+			if(bucket != null){
+				update(tri, bucket);
+			}
+		}
+	}
+
+	/**
+	 * Get the triangles that share pt, starting from one of them.
+	 */
+	private static List<DTriangle> getStar(DPoint pt, DTriangle start) {
+		List<DTriangle> star = new ArrayList<DTriangle>();
+		Map<DTriangle, DTriangle> seen = new IdentityHashMap<DTriangle, DTriangle>();
+		Deque<DTriangle> todo = new ArrayDeque<DTriangle>();
+		todo.add(start);
+		seen.put(start, start);
+		while(!todo.isEmpty()){
+			DTriangle tri = todo.poll();
+			star.add(tri);
+			for(int i = 0; i < DTriangle.PT_NB; i++){
+				DEdge ed = tri.getEdge(i);
+				if(ed.getStartPoint() == pt || ed.getEndPoint() == pt){
+					DTriangle other = ed.getLeft() == tri ? ed.getRight() : ed.getLeft();
+					if(other != null && !seen.containsKey(other)){
+						seen.put(other, other);
+						todo.add(other);
+					}
+				}
+			}
+		}
+		return star;
+	}
+
+	private static DTriangle locate(DTriangle start, DPoint pt) throws DelaunayError {
+		Element el = start.searchPointContainer(pt);
+		if(el instanceof DTriangle){
+			return (DTriangle) el;
+		} else if(el instanceof DEdge && ((DEdge) el).isOnEdge(pt)){
+			DEdge ed = (DEdge) el;
+			return ed.getLeft() != null ? ed.getLeft() : ed.getRight();
+		}
+		return null;
+	}
+
+	private Bucket getBucket(DTriangle tri) {
+		Bucket bucket = buckets.get(tri);
+		if(bucket == null){
+			bucket = new Bucket();
+			buckets.put(tri, bucket);
+		}
+		return bucket;
+	}
+
+	/**
+	 * Find the worst point of the triangle, and put it in the queue.
+	 */
+	private void update(DTriangle tri, Bucket bucket) {
+		bucket.version++;
+		bucket.worst = null;
+		bucket.error = 0;
+		for(DPoint p : bucket.points){
+			double err = Math.abs(p.getZ() - tri.interpolateZ(p));
+			if(bucket.worst == null || err > bucket.error){
+				bucket.worst = p;
+				bucket.error = err;
+			}
+		}
+		if(bucket.worst != null){
+			queue.add(new Candidate(tri, bucket.error, bucket.version));
+		}
+	}
+
+	/**
+	 * The points of the dense mesh that are in a coarse triangle.
+	 */
+	private static final class Bucket {
+		private final List<DPoint> points = new ArrayList<DPoint>();
+		private DPoint worst;
+		private double error;
+		//Incremented each time the worst point changes, to ignore the
+		//obsolete candidates of the queue.
+		private int version;
+	}
+
+	/**
+	 * An entry of the queue : the error of a triangle at a given time.
+	 */
+	private static final class Candidate implements Comparable<Candidate> {
+		private final DTriangle triangle;
+		private final double error;
+		private final int version;
+
+		private Candidate(DTriangle triangle, double error, int version) {
+			this.triangle = triangle;
+			this.error = error;
+			this.version = version;
+		}
+
+		@Override
+		public int compareTo(Candidate o) {
+			//The largest error comes first.
+			return Double.compare(o.error, error);
+		}
+	}
+}
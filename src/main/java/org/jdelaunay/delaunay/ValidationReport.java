@@ -0,0 +1,194 @@
+/**
+ *
+ * jDelaunay is a library dedicated to the processing of Delaunay and constrained
+ * Delaunay triangulations from PSLG inputs.
+ *
+ * This library is developed at French IRSTV institute as part of the AvuPur and Eval-PDU project,
+ * funded by the French Agence Nationale de la Recherche (ANR) under contract
+ * ANR-07-VULN-01 and ANR-08-VILL-0005-01 .
+ *
+ * jDelaunay is distributed under GPL 3 license. It is produced by the "Atelier SIG" team of
+ * the IRSTV Institute <http://www.irstv.fr/> CNRS FR 2488.
+ *
+ * Copyright (C) 2010-2012 IRSTV FR CNRS 2488
+ *
+ * jDelaunay is free software: you can redistribute it and/or modify it under the
+ * terms of the GNU General Public License as published by the Free Software
+ * Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ *
+ * jDelaunay is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR
+ * A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * jDelaunay. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * For more information, please consult: <http://www.orbisgis.org/>
+ * or contact directly:
+ * info_at_ orbisgis.org
+ */
+package org.jdelaunay.delaunay;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import org.jdelaunay.delaunay.geometries.Element;
+
+/**
+ * The result of the validation of a mesh. It counts, for each kind of
+ * problem, the number of elements that have it, and keeps a few of them as
+ * examples. It also contains the terms of the Euler characteristic of the
+ * mesh.
+ * @author Alexis Guéganno
+ */
+public final class ValidationReport {
+
+	/**
+	 * The problems that can be found in a mesh.
+	 */
+	public enum Problem {
+		/** An edge refers to a triangle that does not refer to it. */
+		EDGE_NOT_LINKED,
+		/** An edge refers to a triangle that is not in the mesh. */
+		TRIANGLE_NOT_IN_MESH,
+		/** A triangle refers to an edge that is not in the mesh. */
+		EDGE_NOT_IN_MESH,
+		/** A triangle does not have three edges that refer to it and three distinct points. */
+		BROKEN_TRIANGLE,
+		/** A triangle is on the wrong side of an edge, or is flat. */
+		WRONG_ORIENTATION,
+		/** An edge is referred to by more than two triangles. */
+		OVERSHARED_EDGE,
+		/** An edge does not belong to any triangle. */
+		DANGLING_EDGE,
+		/** A locked edge is not one of the constraint edges of the mesh. */
+		UNREGISTERED_CONSTRAINT,
+		/** An unlocked edge does not respect the Delaunay criterion. */
+		NOT_DELAUNAY,
+		/** Two points of the mesh have the same coordinates. */
+		DUPLICATE_POINT,
+		/** The Euler characteristic does not match the boundaries of the mesh. */
+		EULER_CHARACTERISTIC
+	}
+
+	//The number of elements kept as examples for each problem.
+	private static final int MAX_EXAMPLES = 10;
+
+	private final long[] counts = new long[Problem.values().length];
+	private final List<List<Element>> examples = new ArrayList<List<Element>>();
+	private int eulerCharacteristic;
+	private int components;
+	private int boundaryLoops;
+
+	ValidationReport() {
+		for(int i = 0; i < counts.length; i++){
+			examples.add(new ArrayList<Element>());
+		}
+	}
+
+	/**
+	 * Record that el has the problem p.
+	 */
+	void add(Problem p, Element el) {
+		counts[p.ordinal()]++;
+		List<Element> list = examples.get(p.ordinal());
+		if(el != null && list.size() < MAX_EXAMPLES){
+			list.add(el);
+		}
+	}
+
+	/**
+	 * Add the problems found in other to this report.
+	 */
+	void merge(ValidationReport other) {
+		for(int i = 0; i < counts.length; i++){
+			counts[i] += other.counts[i];
+			List<Element> list = examples.get(i);
+			for(Element el : other.examples.get(i)){
+				if(list.size() < MAX_EXAMPLES){
+					list.add(el);
+				}
+			}
+		}
+	}
+
+	void setEuler(int eulerCharacteristic, int components, int boundaryLoops) {
+		this.eulerCharacteristic = eulerCharacteristic;
+		this.components = components;
+		this.boundaryLoops = boundaryLoops;
+		if(eulerCharacteristic != 2 * components - boundaryLoops){
+			add(Problem.EULER_CHARACTERISTIC, null);
+		}
+	}
+
+	/**
+	 * Check that no problem has been found.
+	 * @return
+	 */
+	public boolean isValid() {
+		for(long c : counts){
+			if(c > 0){
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Get the number of elements that have the problem p.
+	 * @param p
+	 * @return
+	 */
+	public long getCount(Problem p) {
+		return counts[p.ordinal()];
+	}
+
+	/**
+	 * Get some of the elements that have the problem p.
+	 * @param p
+	 * @return
+	 *	At most ten elements, in no particular order.
+	 */
+	public List<Element> getExamples(Problem p) {
+		return Collections.unmodifiableList(examples.get(p.ordinal()));
+	}
+
+	/**
+	 * Get V - E + T, where the points that are the apex of several fans of
+	 * triangles are counted once for each fan, and where only the points and
+	 * edges that belong to triangles are counted.
+	 * @return
+	 */
+	public int getEulerCharacteristic() {
+		return eulerCharacteristic;
+	}
+
+	/**
+	 * Get the number of groups of triangles connected by their edges.
+	 * @return
+	 */
+	public int getComponentCount() {
+		return components;
+	}
+
+	/**
+	 * Get the number of closed loops of boundary edges, holes included.
+	 * @return
+	 */
+	public int getBoundaryLoopCount() {
+		return boundaryLoops;
+	}
+
+	@Override
+	public String toString() {
+		StringBuilder sb = new StringBuilder("ValidationReport[");
+		for(Problem p : Problem.values()){
+			if(counts[p.ordinal()] > 0){
+				sb.append(p).append("=").append(counts[p.ordinal()]).append(", ");
+			}
+		}
+		return sb.append("euler=").append(eulerCharacteristic).append(", components=").append(components)
+			.append(", loops=").append(boundaryLoops).append("]").toString();
+	}
+}
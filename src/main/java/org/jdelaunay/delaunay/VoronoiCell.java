@@ -0,0 +1,86 @@
+/**
+ *
+ * jDelaunay is a library dedicated to the processing of Delaunay and constrained
+ * Delaunay triangulations from PSLG inputs.
+ *
+ * This library is developed at French IRSTV institute as part of the AvuPur and Eval-PDU project,
+ * funded by the French Agence Nationale de la Recherche (ANR) under contract
+ * ANR-07-VULN-01 and ANR-08-VILL-0005-01 .
+ *
+ * jDelaunay is distributed under GPL 3 license. It is produced by the "Atelier SIG" team of
+ * the IRSTV Institute <http://www.irstv.fr/> CNRS FR 2488.
+ *
+ * Copyright (C) 2010-2012 IRSTV FR CNRS 2488
+ *
+ * jDelaunay is free software: you can redistribute it and/or modify it under the
+ * terms of the GNU General Public License as published by the Free Software
+ * Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ *
+ * jDelaunay is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR
+ * A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * jDelaunay. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * For more information, please consult: <http://www.orbisgis.org/>
+ * or contact directly:
+ * info_at_ orbisgis.org
+ */
+package org.jdelaunay.delaunay;
+
+import java.util.List;
+import org.jdelaunay.delaunay.geometries.DPoint;
+
+/**
+ * A cell of a diagram built by VoronoiDiagram : the polygon that surrounds
+ * a point of the mesh.
+ * @author Alexis Guéganno
+ */
+public final class VoronoiCell {
+
+	private final DPoint site;
+	private final List<DPoint> vertices;
+
+	/**
+	 * Build a new cell.
+	 * @param site
+	 * @param vertices
+	 *	The vertices of the polygon, counterclockwise, without repeating
+	 *	the first one at the end.
+	 */
+	VoronoiCell(DPoint site, List<DPoint> vertices) {
+		this.site = site;
+		this.vertices = vertices;
+	}
+
+	/**
+	 * @return the point of the mesh this cell has been built for.
+	 */
+	public DPoint getSite() {
+		return site;
+	}
+
+	/**
+	 * @return the vertices of the polygon, counterclockwise. The first vertex
+	 * is not repeated at the end. The list is empty if the cell is outside
+	 * the clipping box.
+	 */
+	public List<DPoint> getVertices() {
+		return vertices;
+	}
+
+	/**
+	 * @return the area of the polygon.
+	 */
+	public double getArea() {
+		double area = 0;
+		for(int i = 0; i < vertices.size(); i++){
+			DPoint p1 = vertices.get(i);
+			DPoint p2 = vertices.get((i + 1) % vertices.size());
+			area += p1.getX() * p2.getY() - p2.getX() * p1.getY();
+		}
+		return area / 2;
+	}
+}
@@ -0,0 +1,428 @@
+/**
+ *
+ * jDelaunay is a library dedicated to the processing of Delaunay and constrained
+ * Delaunay triangulations from PSLG inputs.
+ *
+ * This library is developed at French IRSTV institute as part of the AvuPur and Eval-PDU project,
+ * funded by the French Agence Nationale de la Recherche (ANR) under contract
+ * ANR-07-VULN-01 and ANR-08-VILL-0005-01 .
+ *
+ * jDelaunay is distributed under GPL 3 license. It is produced by the "Atelier SIG" team of
+ * the IRSTV Institute <http://www.irstv.fr/> CNRS FR 2488.
+ *
+ * Copyright (C) 2010-2012 IRSTV FR CNRS 2488
+ *
+ * jDelaunay is free software: you can redistribute it and/or modify it under the
+ * terms of the GNU General Public License as published by the Free Software
+ * Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ *
+ * jDelaunay is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR
+ * A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * jDelaunay. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * For more information, please consult: <http://www.orbisgis.org/>
+ * or contact directly:
+ * info_at_ orbisgis.org
+ */
+package org.jdelaunay.delaunay;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import org.jdelaunay.delaunay.error.DelaunayError;
+import org.jdelaunay.delaunay.geometries.BoundaryBox;
+import org.jdelaunay.delaunay.geometries.DEdge;
+import org.jdelaunay.delaunay.geometries.DPoint;
+import org.jdelaunay.delaunay.geometries.DTriangle;
+
+/**
+ * Extracts the dual of a computed mesh : one cell for each point of the
+ * mesh, clipped to a box.<br/>
+ * The triangles around each point are visited by turning around it through
+ * the edges, so that the cells are built in a single pass over the
+ * adjacency of the mesh. The cells can be assembled by several threads.<br/>
+ * The cells of the points of the convex hull are open : they are closed far
+ * away, along the bisectors of the hull edges, before being clipped.
+ * With a constrained mesh, the cells are the duals of the actual triangles,
+ * and can overlap near the constraints.
+ * @author Alexis Guéganno
+ */
+public final class VoronoiDiagram {
+
+	/**
+	 * The kinds of cells that can be built.
+	 */
+	public enum CellType {
+		/** The Voronoi cells, whose vertices are the circumcenters. */
+		VORONOI,
+		/**
+		 * The cells of the power diagram, whose vertices are the power
+		 * centers of the triangles, computed with the weights of the points.
+		 * They are exact when the mesh is the regular triangulation of the
+		 * weighted points, for instance when the weights are small.
+		 */
+		POWER,
+		/**
+		 * The barycentric dual, made of the centroids of the triangles and
+		 * of the middles of the edges. Its cells never overlap, even in a
+		 * constrained mesh, and the cells of the hull points are closed.
+		 */
+		BARYCENTRIC
+	}
+
+	private final ConstrainedMesh mesh;
+	private int threads = 1;
+	private double[] weights = null;
+
+	/**
+	 * Prepare the extraction of the dual of mesh.
+	 * @param mesh
+	 * @throws DelaunayError
+	 *	If mesh has not been computed.
+	 */
+	public VoronoiDiagram(ConstrainedMesh mesh) throws DelaunayError {
+		if(!mesh.isMeshComputed()){
+			throw new DelaunayError(DelaunayError.DELAUNAY_ERROR_NOT_GENERATED);
+		}
+		this.mesh = mesh;
+	}
+
+	/**
+	 * @return the number of threads used to build the cells.
+	 */
+	public int getThreads() {
+		return threads;
+	}
+
+	/**
+	 * Set the number of threads used to build the cells. It is 1 by default.
+	 * @param threads
+	 */
+	public void setThreads(int threads) {
+		if(threads < 1){
+			throw new IllegalArgumentException("At least one thread is needed");
+		}
+		this.threads = threads;
+	}
+
+	/**
+	 * Set the weights used to build the power diagram. The weight of a point
+	 * is read at the index given by its GID. The points whose GID is out of
+	 * the array have a null weight.
+	 * @param weights
+	 */
+	public void setWeights(double[] weights) {
+		this.weights = weights;
+	}
+
+	/**
+	 * Build the cells of all the points of the mesh, clipped to the
+	 * bounding box of the mesh.
+	 * @param type
+	 * @return
+	 *	The cells, in the order of the points of the mesh.
+	 * @throws DelaunayError
+	 */
+	public List<VoronoiCell> getCells(CellType type) throws DelaunayError {
+		return getCells(type, mesh.getBoundingBox());
+	}
+
+	/**
+	 * Build the cells of all the points of the mesh, clipped to box.
+	 * @param type
+	 * @param box
+	 * @return
+	 *	The cells, in the order of the points of the mesh.
+	 * @throws DelaunayError
+	 */
+	public List<VoronoiCell> getCells(final CellType type, final BoundaryBox box) throws DelaunayError {
+		final List<DPoint> points = mesh.getPoints();
+		//For each point, an edge to start turning around it. The edges of
+		//the hull are preferred, so that we start on the outside.
+		final Map<DPoint, DEdge> starts = new IdentityHashMap<DPoint, DEdge>(points.size());
+		for(DEdge ed : mesh.getEdges()){
+			setStart(starts, ed.getStartPoint(), ed);
+			setStart(starts, ed.getEndPoint(), ed);
+		}
+		final VoronoiCell[] cells = new VoronoiCell[points.size()];
+		if(threads == 1){
+			buildCells(type, box, points, starts, cells, 0, points.size());
+		} else {
+			ExecutorService executor = Executors.newFixedThreadPool(threads);
+			try {
+				List<Future<Object>> futures = new ArrayList<Future<Object>>();
+				int chunk = (points.size() + threads - 1) / threads;
+				for(int start = 0; start < points.size(); start += chunk){
+					final int from = start;
+					final int to = Math.min(points.size(), start + chunk);
+					futures.add(executor.submit(new Callable<Object>() {
+						@Override
+						public Object call() throws DelaunayError {
+							buildCells(type, box, points, starts, cells, from, to);
+							return null;
+						}
+					}));
+				}
+				for(Future<Object> future : futures){
+					future.get();
+				}
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new DelaunayError(DelaunayError.DELAUNAY_ERROR_INTERNAL_ERROR, "interrupted");
+			} catch (ExecutionException e) {
+				if(e.getCause() instanceof DelaunayError){
+					throw (DelaunayError) e.getCause();
+				}
+				throw new DelaunayError(DelaunayError.DELAUNAY_ERROR_INTERNAL_ERROR, e.getCause().toString());
+			} finally {
+				executor.shutdown();
+			}
+		}
+		List<VoronoiCell> ret = new ArrayList<VoronoiCell>(cells.length);
+		for(VoronoiCell cell : cells){
+			if(cell != null){
+				ret.add(cell);
+			}
+		}
+		return ret;
+	}
+
+	private static void setStart(Map<DPoint, DEdge> starts, DPoint pt, DEdge ed) {
+		if(ed.getLeft() == null && ed.getRight() == null){
+			return;
+		}
+		DEdge current = starts.get(pt);
+		if(current == null || (isOnHull(ed) && !isOnHull(current))){
+			starts.put(pt, ed);
+		}
+	}
+
+	private static boolean isOnHull(DEdge ed) {
+		return ed.getLeft() == null || ed.getRight() == null;
+	}
+
+	private void buildCells(CellType type, BoundaryBox box, List<DPoint> points,
+			Map<DPoint, DEdge> starts, VoronoiCell[] cells, int from, int to) throws DelaunayError {
+		Polygon poly = new Polygon();
+		//The far points must be outside the box, whatever the position of the cell.
+		BoundaryBox bb = mesh.getBoundingBox();
+		double far = 4 * (Math.max(box.getMaxX(), bb.getMaxX()) - Math.min(box.getMinX(), bb.getMinX())
+			+ Math.max(box.getMaxY(), bb.getMaxY()) - Math.min(box.getMinY(), bb.getMinY())) + 1;
+		for(int i = from; i < to; i++){
+			DPoint pt = points.get(i);
+			DEdge start = starts.get(pt);
+			if(start != null){
+				poly.size = 0;
+				turnAround(type, pt, start, poly, far);
+				poly.clip(box);
+				List<DPoint> vertices = new ArrayList<DPoint>(poly.size);
+				for(int k = 0; k < poly.size; k++){
+					vertices.add(new DPoint(poly.x[k], poly.y[k], pt.getZ()));
+				}
+				cells[i] = new VoronoiCell(pt, vertices);
+			}
+		}
+	}
+
+	/**
+	 * Turn counterclockwise around pt, starting from start, and add the
+	 * vertices of the cell to poly.
+	 */
+	private void turnAround(CellType type, DPoint pt, DEdge start, Polygon poly, double far)
+			throws DelaunayError {
+		DEdge ed = start;
+		boolean hull = isOnHull(start);
+		//On the hull, we must start with the edge that has the outside on its right.
+		if(hull){
+			ed = getFirstHullEdge(pt, start);
+		}
+		DEdge first = ed;
+		if(hull && type != CellType.BARYCENTRIC){
+			addRay(type, pt, ed, poly, far, false);
+		} else if(hull){
+			poly.add(pt.getX(), pt.getY());
+		}
+		int steps = 0;
+		do {
+			DTriangle tri = getLeftOf(ed, pt);
+			if(type == CellType.BARYCENTRIC){
+				addMiddle(ed, poly);
+			}
+			addCenter(type, tri, poly);
+			ed = getOtherEdge(tri, ed, pt);
+			if(++steps > mesh.getEdges().size()){
+				throw new DelaunayError(DelaunayError.DELAUNAY_ERROR_INCORRECT_TOPOLOGY,
+					"can't turn around "+pt);
+			}
+		} while(ed != first && getLeftOf(ed, pt) != null);
+		if(hull){
+			if(type == CellType.BARYCENTRIC){
+				addMiddle(ed, poly);
+			} else {
+				addRay(type, pt, ed, poly, far, true);
+			}
+		}
+	}
+
+	/**
+	 * Get the edge of the hull, around pt, that has the outside on its right.
+	 */
+	private static DEdge getFirstHullEdge(DPoint pt, DEdge hullEdge) {
+		DEdge ed = hullEdge;
+		//We turn clockwise until we find the edge with nothing on its right.
+		while(getRightOf(ed, pt) != null){
+			DTriangle tri = getRightOf(ed, pt);
+			ed = getOtherEdge(tri, ed, pt);
+		}
+		return ed;
+	}
+
+	/**
+	 * Get the triangle on the left of ed, when ed is oriented from pt.
+	 */
+	private static DTriangle getLeftOf(DEdge ed, DPoint pt) {
+		return ed.getStartPoint() == pt ? ed.getLeft() : ed.getRight();
+	}
+
+	private static DTriangle getRightOf(DEdge ed, DPoint pt) {
+		return ed.getStartPoint() == pt ? ed.getRight() : ed.getLeft();
+	}
+
+	/**
+	 * Get the edge of tri, other than ed, that contains pt.
+	 */
+	private static DEdge getOtherEdge(DTriangle tri, DEdge ed, DPoint pt) {
+		for(int i = 0; i < DTriangle.PT_NB; i++){
+			DEdge other = tri.getEdge(i);
+			if(other != ed && (other.getStartPoint() == pt || other.getEndPoint() == pt)){
+				return other;
+			}
+		}
+		return null;
+	}
+
+	private static void addMiddle(DEdge ed, Polygon poly) {
+		poly.add((ed.getStartPoint().getX() + ed.getEndPoint().getX()) / 2,
+			(ed.getStartPoint().getY() + ed.getEndPoint().getY()) / 2);
+	}
+
+	private void addCenter(CellType type, DTriangle tri, Polygon poly) {
+		DPoint a = tri.getPoint(0);
+		DPoint b = tri.getPoint(1);
+		DPoint c = tri.getPoint(2);
+		if(type == CellType.BARYCENTRIC){
+			poly.add((a.getX() + b.getX() + c.getX()) / 3, (a.getY() + b.getY() + c.getY()) / 3);
+			return;
+		}
+		double bx = b.getX() - a.getX();
+		double by = b.getY() - a.getY();
+		double cx = c.getX() - a.getX();
+		double cy = c.getY() - a.getY();
+		double b2 = bx * bx + by * by;
+		double c2 = cx * cx + cy * cy;
+		if(type == CellType.POWER){
+			double wa = getWeight(a);
+			b2 -= getWeight(b) - wa;
+			c2 -= getWeight(c) - wa;
+		}
+		double d = 2 * (bx * cy - by * cx);
+		poly.add(a.getX() + (cy * b2 - by * c2) / d, a.getY() + (bx * c2 - cx * b2) / d);
+	}
+
+	private double getWeight(DPoint pt) {
+		int gid = pt.getGID();
+		return weights != null && gid >= 0 && gid < weights.length ? weights[gid] : 0;
+	}
+
+	/**
+	 * Add the far point of the cell of pt, on the bisector of the hull edge
+	 * ed. After the last ray, we add a point far behind pt, so that the
+	 * polygon covers the whole outside part of the cell.
+	 */
+	private void addRay(CellType type, DPoint pt, DEdge ed, Polygon poly, double far, boolean last) {
+		DPoint other = ed.getStartPoint() == pt ? ed.getEndPoint() : ed.getStartPoint();
+		double dx = other.getX() - pt.getX();
+		double dy = other.getY() - pt.getY();
+		double norm = Math.sqrt(dx * dx + dy * dy);
+		//The outside is on the right of the first edge, on the left of the last one.
+		double nx = last ? -dy / norm : dy / norm;
+		double ny = last ? dx / norm : -dx / norm;
+		double mx = (pt.getX() + other.getX()) / 2;
+		double my = (pt.getY() + other.getY()) / 2;
+		poly.add(mx + far * nx, my + far * ny);
+		if(last){
+			double bx = poly.x[0] - pt.getX() + mx + far * nx - pt.getX();
+			double by = poly.y[0] - pt.getY() + my + far * ny - pt.getY();
+			double bn = Math.sqrt(bx * bx + by * by);
+			if(bn > 0){
+				poly.add(pt.getX() + 2 * far * bx / bn, pt.getY() + 2 * far * by / bn);
+			}
+		}
+	}
+
+	/**
+	 * A polygon stored in arrays of coordinates, that can be clipped by a box.
+	 */
+	private static final class Polygon {
+		private double[] x = new double[16];
+		private double[] y = new double[16];
+		private int size = 0;
+
+		private void add(double px, double py) {
+			if(size == x.length){
+				x = Arrays.copyOf(x, 2 * size);
+				y = Arrays.copyOf(y, 2 * size);
+			}
+			x[size] = px;
+			y[size] = py;
+			size++;
+		}
+
+		/**
+		 * Clip the polygon with the four sides of the box, with the
+		 * Sutherland-Hodgman algorithm.
+		 */
+		private void clip(BoundaryBox box) {
+			clip(1, 0, box.getMinX());
+			clip(-1, 0, -box.getMaxX());
+			clip(0, 1, box.getMinY());
+			clip(0, -1, -box.getMaxY());
+		}
+
+		/**
+		 * Keep the part of the polygon where a * x + b * y >= c.
+		 */
+		private void clip(double a, double b, double c) {
+			if(size == 0){
+				return;
+			}
+			double[] ox = Arrays.copyOf(x, size);
+			double[] oy = Arrays.copyOf(y, size);
+			int n = size;
+			size = 0;
+			for(int i = 0; i < n; i++){
+				int j = (i + 1) % n;
+				double di = a * ox[i] + b * oy[i] - c;
+				double dj = a * ox[j] + b * oy[j] - c;
+				if(di >= 0){
+					add(ox[i], oy[i]);
+				}
+				if((di >= 0) != (dj >= 0)){
+					double t = di / (di - dj);
+					add(ox[i] + t * (ox[j] - ox[i]), oy[i] + t * (oy[j] - oy[i]));
+				}
+			}
+		}
+	}
+}
@@ -30,9 +30,12 @@
  */
 package org.jdelaunay.delaunay;
 
+import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.IdentityHashMap;
 import java.util.List;
+import java.util.Map;
 import org.jdelaunay.delaunay.error.DelaunayError;
 import org.jdelaunay.delaunay.geometries.DEdge;
 import org.jdelaunay.delaunay.geometries.DPoint;
@@ -51,6 +54,11 @@ class VoronoiGraph {
 	 * The list of nodes contained in this graph, sorted.
 	 */
 	private List<VoronoiNode> sortedNodes;
+	/**
+	 * The nodes of the graph, indexed by their parent triangle, used to
+	 * avoid the creation of duplicates.
+	 */
+	private Map<DTriangle, VoronoiNode> registry;
 	/**
 	 * The VoronoiNode that has been used as a start point to build this graph.
 	 */
@@ -77,6 +85,7 @@ class VoronoiGraph {
 	public VoronoiGraph(DTriangle base) throws DelaunayError{
 		startNode = new VoronoiNode(base);
 		sortedNodes = new ArrayList<VoronoiNode>();
+		registry = new IdentityHashMap<DTriangle, VoronoiNode>();
 		addNode(startNode);
 		notFlat = null;
 	}
@@ -138,6 +147,7 @@ class VoronoiGraph {
 	 */
 	private void addNode(VoronoiNode vn){
 		sortedNodes.add(vn);
+		registry.put(vn.getParent(), vn);
 	}
 
 	/**
@@ -158,45 +168,45 @@ class VoronoiGraph {
 	 */
 	public void fillUntilNotFlatFound() throws DelaunayError {
 		if(startNode.getParent().isFlatSlope()){
-			processNeighbours(startNode);
+			processNeighbours();
+			Collections.sort(sortedNodes);
 		}
 	}
 
 	/**
-	 * Compute the graph recursively.
-	 * @param vn
+	 * Compute the graph with a breadth-first search on the flat triangles,
+	 * starting from the start node.
 	 * @throws DelaunayError
 	 */
-	private void processNeighbours(VoronoiNode vn) throws DelaunayError {
-		vn.getParent().setSeenForFlatRemoval(true);
-		List<VoronoiNode> neighbours = vn.getNeighbourNodes();
-		List<VoronoiNode> toBeTreated = new ArrayList<VoronoiNode>();
-		int index;
-		for(VoronoiNode neigh : neighbours){
-			//We don't want to create duplicate nodes.Consequently,
-			//We make a search and replace the unwanted duplicates.
-			index = Collections.binarySearch(sortedNodes, neigh);
-			if(index >=0){
-				vn.replaceNode(sortedNodes.get(index));
-			} else {
-				sortedNodes.add(-index-1, neigh);
-				if(neigh.getParent().isFlatSlope()){
-					toBeTreated.add(neigh);
-				} else if(notFlat == null){
-					notFlat = neigh;
-					lastFlat = vn;
+	private void processNeighbours() throws DelaunayError {
+		ArrayDeque<VoronoiNode> queue = new ArrayDeque<VoronoiNode>();
+		startNode.getParent().setSeenForFlatRemoval(true);
+		queue.add(startNode);
+		while(!queue.isEmpty()){
+			VoronoiNode vn = queue.poll();
+			List<VoronoiNode> neighbours = vn.getNeighbourNodes();
+			for(int i = 0; i < neighbours.size(); i++){
+				VoronoiNode neigh = neighbours.get(i);
+				//We don't want to create duplicate nodes. Consequently,
+				//we replace the nodes we already know.
+				VoronoiNode known = registry.get(neigh.getParent());
+				if(known != null){
+					neighbours.set(i, known);
+				} else {
+					addNode(neigh);
+					if(neigh.getParent().isFlatSlope()){
+						//The triangles seen by a previous graph are not processed again.
+						if(!neigh.getParent().isSeenForFlatRemoval()){
+							neigh.getParent().setSeenForFlatRemoval(true);
+							queue.add(neigh);
+						}
+					} else if(notFlat == null){
+						notFlat = neigh;
+						lastFlat = vn;
+					}
 				}
 			}
 		}
-		for(VoronoiNode treat : toBeTreated){
-			//we only process the nodes that were not already in the list,
-			//and so either treated, either referenced to be treat in the
-			//stack.
-                        if(!treat.getParent().isSeenForFlatRemoval()){
-                                processNeighbours(treat);
-                        }
-		}
-
 	}
 
 	/**
@@ -284,20 +294,35 @@ class VoronoiGraph {
 	}
 
 	/**
-	 * Compute recursively the depth of the graph.
-	 * @param vn
+	 * Compute the depth of the graph, with a depth-first search that uses
+	 * an explicit stack rather than recursion.
+	 * @param root
 	 * @return
 	 * @throws DelaunayError
 	 */
-	private int getMaxLength(VoronoiNode vn) throws DelaunayError {
+	private int getMaxLength(VoronoiNode root) throws DelaunayError {
+		ArrayDeque<Frame> stack = new ArrayDeque<Frame>();
+		root.setSeen(true);
+		stack.push(new Frame(root, 0, 0));
 		int length = 0;
-		vn.setSeen(true);
-		for(VoronoiNode voro : vn.getLinkedNodes()){
-			if(!voro.isSeen()){
-				length = Math.max(length, getMaxLength(voro));
+		while(!stack.isEmpty()){
+			Frame frame = stack.peek();
+			List<VoronoiNode> linked = frame.node.getLinkedNodes();
+			if(frame.index < linked.size()){
+				VoronoiNode voro = linked.get(frame.index++);
+				if(!voro.isSeen()){
+					voro.setSeen(true);
+					stack.push(new Frame(voro, 0, 0));
+				}
+			} else {
+				stack.pop();
+				length = frame.depth + 1;
+				if(!stack.isEmpty()){
+					stack.peek().depth = Math.max(stack.peek().depth, length);
+				}
 			}
 		}
-		return length+1;
+		return length;
 	}
 
 	/**
@@ -334,30 +359,76 @@ class VoronoiGraph {
 	}
 
 	/**
-	 * Compute the z values for the node locations recursively.
-	 * @param vn
+	 * Compute the z values for the node locations, with a depth-first search
+	 * that uses an explicit stack rather than recursion.
+	 * @param root
 	 * @param delta
 	 * @param prevAlt
 	 * @param flatHeight
 	 * @throws DelaunayError
 	 */
-	private void assignValues(final VoronoiNode vn, final double delta, final double prevAlt, final double flatHeight) throws DelaunayError{
-		if(!vn.getParent().isFlatSlope()){
-			return;
+	private void assignValues(final VoronoiNode root, final double delta, final double prevAlt, final double flatHeight) throws DelaunayError{
+		ArrayDeque<Frame> stack = new ArrayDeque<Frame>();
+		Frame frame = assignValue(root, delta, prevAlt, flatHeight);
+		if(frame != null){
+			stack.push(frame);
 		}
-		double alt = prevAlt - delta;
-		if((prevAlt > flatHeight && alt < flatHeight)||(prevAlt < flatHeight && alt > flatHeight)){
-			final double deltaBis = delta/4;
-			assignValues(vn, deltaBis, prevAlt, flatHeight);
-		} else {
-			vn.setSeen(true);
-			vn.getLocation().setZ(alt);
-			for(VoronoiNode vor : vn.getLinkedNodes()){
+		while(!stack.isEmpty()){
+			frame = stack.peek();
+			List<VoronoiNode> linked = frame.node.getLinkedNodes();
+			if(frame.index < linked.size()){
+				VoronoiNode vor = linked.get(frame.index++);
 				if(!vor.isSeen()){
-					assignValues(vor, delta, alt, flatHeight);
+					Frame next = assignValue(vor, frame.delta, frame.alt, flatHeight);
+					if(next != null){
+						stack.push(next);
+					}
 				}
+			} else {
+				stack.pop();
 			}
 		}
 	}
 
+	/**
+	 * Compute the z value of the location of vn, if its parent is flat. The
+	 * delta is divided until we don't cross the flat height.
+	 * @return the frame to use to process the neighbours of vn, or null if
+	 * its parent is not flat.
+	 */
+	private Frame assignValue(VoronoiNode vn, double delta, double prevAlt, double flatHeight) throws DelaunayError {
+		if(!vn.getParent().isFlatSlope()){
+			return null;
+		}
+		double d = delta;
+		double alt = prevAlt - d;
+		while((prevAlt > flatHeight && alt < flatHeight)||(prevAlt < flatHeight && alt > flatHeight)){
+			d = d/4;
+			alt = prevAlt - d;
+		}
+		vn.setSeen(true);
+		vn.getLocation().setZ(alt);
+		return new Frame(vn, alt, d);
+	}
+
+	/**
+	 * A node in the explicit stacks used to traverse the graph, with the index
+	 * of the next linked node to visit.
+	 */
+	private static final class Frame {
+		private final VoronoiNode node;
+		private int index = 0;
+		//The depth found below the node, when computing the depth of the graph.
+		private int depth = 0;
+		//The altitude and delta of the node, when assigning the z values.
+		private final double alt;
+		private final double delta;
+
+		private Frame(VoronoiNode node, double alt, double delta) {
+			this.node = node;
+			this.alt = alt;
+			this.delta = delta;
+		}
+	}
+
 }
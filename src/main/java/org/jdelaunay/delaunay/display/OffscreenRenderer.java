@@ -0,0 +1,561 @@
+/**
+ *
+ * jDelaunay is a library dedicated to the processing of Delaunay and constrained
+ * Delaunay triangulations from PSLG inputs.
+ *
+ * This library is developed at French IRSTV institute as part of the AvuPur and Eval-PDU project,
+ * funded by the French Agence Nationale de la Recherche (ANR) under contract
+ * ANR-07-VULN-01 and ANR-08-VILL-0005-01 .
+ *
+ * jDelaunay is distributed under GPL 3 license. It is produced by the "Atelier SIG" team of
+ * the IRSTV Institute <http://www.irstv.fr/> CNRS FR 2488.
+ *
+ * Copyright (C) 2010-2012 IRSTV FR CNRS 2488
+ *
+ * jDelaunay is free software: you can redistribute it and/or modify it under the
+ * terms of the GNU General Public License as published by the Free Software
+ * Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ *
+ * jDelaunay is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR
+ * A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * jDelaunay. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * For more information, please consult: <http://www.orbisgis.org/>
+ * or contact directly:
+ * info_at_ orbisgis.org
+ */
+package org.jdelaunay.delaunay.display;
+
+import java.awt.Color;
+import java.awt.image.BufferedImage;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import org.jdelaunay.delaunay.ConstrainedMesh;
+import org.jdelaunay.delaunay.error.DelaunayError;
+import org.jdelaunay.delaunay.geometries.BoundaryBox;
+import org.jdelaunay.delaunay.geometries.DEdge;
+import org.jdelaunay.delaunay.geometries.DPoint;
+import org.jdelaunay.delaunay.geometries.DTriangle;
+
+/**
+ * Draws a mesh, or a window of it, in a BufferedImage, without any display :
+ * it can be used on headless servers.<br/>
+ * The triangles are copied in arrays of coordinates, and dispatched in the
+ * tiles of the image they overlap. The tiles are then drawn independently,
+ * possibly by several threads, in arrays of pixels that are finally copied
+ * in the image. Each triangle is filled with a single color, computed from
+ * its mean z, from its slope or from its property.
+ * @author Alexis Guéganno
+ */
+public final class OffscreenRenderer {
+
+        /**
+         * The ways the triangles can be colored.
+         */
+        public enum Coloring {
+                /** From blue for the lowest triangles to red for the highest ones. */
+                Z,
+                /** From blue for the flat triangles to red for the vertical ones. */
+                SLOPE,
+                /** A different color for each property value. */
+                PROPERTY
+        }
+
+        private static final int DEFAULT_TILE_SIZE = 256;
+        //The hue of the lowest values, in the color ramp.
+        private static final float LOW_HUE = 2f / 3;
+        //Used to spread the colors of the properties.
+        private static final float GOLDEN_RATIO = 0.618034f;
+
+        private final ConstrainedMesh mesh;
+        private Coloring coloring = Coloring.Z;
+        private Color background = Color.WHITE;
+        private Color edgeColor = null;
+        private Color constraintColor = Color.BLACK;
+        private int tileSize = DEFAULT_TILE_SIZE;
+        private int threads = 1;
+
+        /**
+         * Prepare the rendering of mesh.
+         * @param mesh
+         */
+        public OffscreenRenderer(ConstrainedMesh mesh) {
+                this.mesh = mesh;
+        }
+
+        /**
+         * Set the way the triangles are colored. It is Z by default.
+         * @param coloring
+         */
+        public void setColoring(Coloring coloring) {
+                this.coloring = coloring;
+        }
+
+        /**
+         * Set the color of the background. It is white by default.
+         * @param background
+         */
+        public void setBackground(Color background) {
+                this.background = background;
+        }
+
+        /**
+         * Set the color of the edges of the triangles. They are not drawn by
+         * default, or if the color is null.
+         * @param edgeColor
+         */
+        public void setEdgeColor(Color edgeColor) {
+                this.edgeColor = edgeColor;
+        }
+
+        /**
+         * Set the color of the constraint edges. They are black by default,
+         * and they are not drawn if the color is null.
+         * @param constraintColor
+         */
+        public void setConstraintColor(Color constraintColor) {
+                this.constraintColor = constraintColor;
+        }
+
+        /**
+         * Set the size, in pixels, of the tiles the image is divided in.
+         * @param tileSize
+         */
+        public void setTileSize(int tileSize) {
+                if(tileSize < 1){
+                        throw new IllegalArgumentException("The tiles must contain at least one pixel");
+                }
+                this.tileSize = tileSize;
+        }
+
+        /**
+         * Set the number of threads used to draw the tiles. It is 1 by default.
+         * @param threads
+         */
+        public void setThreads(int threads) {
+                if(threads < 1){
+                        throw new IllegalArgumentException("At least one thread is needed");
+                }
+                this.threads = threads;
+        }
+
+        /**
+         * Draw the whole mesh in an image of the given width. The height of
+         * the image is computed so that the scale is the same on both axis.
+         * @param width
+         * @return
+         * @throws DelaunayError
+         */
+        public BufferedImage render(int width) throws DelaunayError {
+                BoundaryBox box = mesh.getBoundingBox();
+                double w = box.getMaxX() - box.getMinX();
+                double h = box.getMaxY() - box.getMinY();
+                int height = w > 0 ? Math.max(1, (int) Math.round(width * h / w)) : width;
+                return render(box, width, height);
+        }
+
+        /**
+         * Draw the part of the mesh that is in window in an image of the given
+         * size. The window fills the whole image.
+         * @param window
+         * @param width
+         * @param height
+         * @return
+         * @throws DelaunayError
+         */
+        public BufferedImage render(BoundaryBox window, int width, int height) throws DelaunayError {
+                if(width < 1 || height < 1){
+                        throw new IllegalArgumentException("The image must contain at least one pixel");
+                }
+                final View view = new View(window, width, height);
+                final Scene scene = new Scene(view);
+                BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
+                final int tilesX = (width + tileSize - 1) / tileSize;
+                final int tilesY = (height + tileSize - 1) / tileSize;
+                final IntList[] bins = scene.bin(tilesX, tilesY);
+                List<Callable<int[]>> tasks = new ArrayList<Callable<int[]>>();
+                for(int ty = 0; ty < tilesY; ty++){
+                        for(int tx = 0; tx < tilesX; tx++){
+                                final int x0 = tx * tileSize;
+                                final int y0 = ty * tileSize;
+                                final IntList bin = bins[ty * tilesX + tx];
+                                tasks.add(new Callable<int[]>() {
+                                        @Override
+                                        public int[] call() {
+                                                return scene.drawTile(x0, y0, Math.min(tileSize, view.width - x0),
+                                                        Math.min(tileSize, view.height - y0), bin);
+                                        }
+                                });
+                        }
+                }
+                List<int[]> tiles = run(tasks);
+                for(int k = 0; k < tiles.size(); k++){
+                        int x0 = (k % tilesX) * tileSize;
+                        int y0 = (k / tilesX) * tileSize;
+                        int w = Math.min(tileSize, width - x0);
+                        image.setRGB(x0, y0, w, tiles.get(k).length / w, tiles.get(k), 0, w);
+                }
+                return image;
+        }
+
+        private List<int[]> run(List<Callable<int[]>> tasks) throws DelaunayError {
+                List<int[]> ret = new ArrayList<int[]>(tasks.size());
+                try {
+                        if(threads == 1){
+                                for(Callable<int[]> task : tasks){
+                                        ret.add(task.call());
+                                }
+                        } else {
+                                ExecutorService executor = Executors.newFixedThreadPool(threads);
+                                try {
+                                        for(Future<int[]> future : executor.invokeAll(tasks)){
+                                                ret.add(future.get());
+                                        }
+                                } finally {
+                                        executor.shutdown();
+                                }
+                        }
+                } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        throw new DelaunayError(DelaunayError.DELAUNAY_ERROR_INTERNAL_ERROR, "interrupted");
+                } catch (ExecutionException e) {
+                        throw new DelaunayError(DelaunayError.DELAUNAY_ERROR_INTERNAL_ERROR, e.getCause().toString());
+                } catch (Exception e) {
+                        throw new DelaunayError(DelaunayError.DELAUNAY_ERROR_INTERNAL_ERROR, e.toString());
+                }
+                return ret;
+        }
+
+        /**
+         * Get the color of a value between 0 and 1, from blue to red.
+         */
+        private static int ramp(double value) {
+                double v = Double.isNaN(value) ? 0 : Math.max(0, Math.min(1, value));
+                return Color.HSBtoRGB((float) (LOW_HUE * (1 - v)), 1f, 1f);
+        }
+
+        /**
+         * The transformation from the coordinates of the mesh to the pixels.
+         */
+        private static final class View {
+                private final double minX;
+                private final double maxY;
+                private final double scaleX;
+                private final double scaleY;
+                private final int width;
+                private final int height;
+
+                private View(BoundaryBox window, int width, int height) {
+                        this.minX = window.getMinX();
+                        this.maxY = window.getMaxY();
+                        double w = window.getMaxX() - window.getMinX();
+                        double h = window.getMaxY() - window.getMinY();
+                        this.scaleX = w > 0 ? width / w : 1;
+                        this.scaleY = h > 0 ? height / h : 1;
+                        this.width = width;
+                        this.height = height;
+                }
+
+                private double toPixelX(double x) {
+                        return (x - minX) * scaleX;
+                }
+
+                private double toPixelY(double y) {
+                        return (maxY - y) * scaleY;
+                }
+        }
+
+        /**
+         * The triangles and the edges to draw, in pixel coordinates.
+         */
+        private final class Scene {
+                private final View view;
+                //The vertices of the triangle i are at 6i, 6i+2 and 6i+4 (x), and
+                //6i+1, 6i+3 and 6i+5 (y).
+                private double[] triangles;
+                private int[] colors;
+                private int triangleCount = 0;
+                //The extremities of the segment i are at 4i, 4i+2 (x) and 4i+1, 4i+3 (y).
+                private double[] segments;
+                private int[] segmentColors;
+                private int segmentCount = 0;
+
+                private Scene(View view) throws DelaunayError {
+                        this.view = view;
+                        List<DTriangle> list = mesh.getTriangleList();
+                        triangles = new double[6 * list.size()];
+                        colors = new int[list.size()];
+                        double[] values = new double[list.size()];
+                        double min = Double.POSITIVE_INFINITY;
+                        double max = Double.NEGATIVE_INFINITY;
+                        for(DTriangle tri : list){
+                                DPoint a = tri.getPoint(0);
+                                DPoint b = tri.getPoint(1);
+                                DPoint c = tri.getPoint(2);
+                                int k = 6 * triangleCount;
+                                triangles[k] = view.toPixelX(a.getX());
+                                triangles[k + 1] = view.toPixelY(a.getY());
+                                triangles[k + 2] = view.toPixelX(b.getX());
+                                triangles[k + 3] = view.toPixelY(b.getY());
+                                triangles[k + 4] = view.toPixelX(c.getX());
+                                triangles[k + 5] = view.toPixelY(c.getY());
+                                if(!isVisible(triangles, k, 3)){
+                                        continue;
+                                }
+                                double value;
+                                if(coloring == Coloring.Z){
+                                        value = (a.getZ() + b.getZ() + c.getZ()) / 3;
+                                        min = Math.min(min, value);
+                                        max = Math.max(max, value);
+                                } else if(coloring == Coloring.SLOPE){
+                                        value = getSlope(a, b, c) / (Math.PI / 2);
+                                } else {
+                                        value = tri.getProperty();
+                                }
+                                values[triangleCount] = value;
+                                triangleCount++;
+                        }
+                        for(int i = 0; i < triangleCount; i++){
+                                if(coloring == Coloring.Z){
+                                        colors[i] = ramp(max > min ? (values[i] - min) / (max - min) : 0);
+                                } else if(coloring == Coloring.SLOPE){
+                                        colors[i] = ramp(values[i]);
+                                } else {
+                                        float hue = ((int) values[i] * GOLDEN_RATIO) % 1f;
+                                        colors[i] = Color.HSBtoRGB(hue, 0.6f, 0.95f);
+                                }
+                        }
+                        List<DEdge> edges = new ArrayList<DEdge>();
+                        List<Integer> edgeColors = new ArrayList<Integer>();
+                        if(edgeColor != null){
+                                for(DEdge ed : mesh.getEdges()){
+                                        edges.add(ed);
+                                        edgeColors.add(ed.isLocked() && constraintColor != null
+                                                ? constraintColor.getRGB() : edgeColor.getRGB());
+                                }
+                        } else if(constraintColor != null){
+                                for(DEdge ed : mesh.getConstraintEdges()){
+                                        edges.add(ed);
+                                        edgeColors.add(constraintColor.getRGB());
+                                }
+                        }
+                        segments = new double[4 * edges.size()];
+                        segmentColors = new int[edges.size()];
+                        for(int i = 0; i < edges.size(); i++){
+                                DEdge ed = edges.get(i);
+                                int k = 4 * segmentCount;
+                                segments[k] = view.toPixelX(ed.getStartPoint().getX());
+                                segments[k + 1] = view.toPixelY(ed.getStartPoint().getY());
+                                segments[k + 2] = view.toPixelX(ed.getEndPoint().getX());
+                                segments[k + 3] = view.toPixelY(ed.getEndPoint().getY());
+                                if(isVisible(segments, k, 2)){
+                                        segmentColors[segmentCount] = edgeColors.get(i);
+                                        segmentCount++;
+                                }
+                        }
+                }
+
+                /**
+                 * Check that the bounding box of the n points stored from
+                 * index k in coords overlaps the image.
+                 */
+                private boolean isVisible(double[] coords, int k, int n) {
+                        double minX = Double.POSITIVE_INFINITY;
+                        double minY = Double.POSITIVE_INFINITY;
+                        double maxX = Double.NEGATIVE_INFINITY;
+                        double maxY = Double.NEGATIVE_INFINITY;
+                        for(int i = 0; i < n; i++){
+                                minX = Math.min(minX, coords[k + 2 * i]);
+                                maxX = Math.max(maxX, coords[k + 2 * i]);
+                                minY = Math.min(minY, coords[k + 2 * i + 1]);
+                                maxY = Math.max(maxY, coords[k + 2 * i + 1]);
+                        }
+                        return maxX >= 0 && maxY >= 0 && minX <= view.width && minY <= view.height;
+                }
+
+                /**
+                 * Dispatch the triangles and the segments in the tiles their
+                 * bounding boxes overlap. The triangles are stored as i, the
+                 * segments as -i-1.
+                 */
+                private IntList[] bin(int tilesX, int tilesY) {
+                        IntList[] bins = new IntList[tilesX * tilesY];
+                        for(int i = 0; i < bins.length; i++){
+                                bins[i] = new IntList();
+                        }
+                        for(int i = 0; i < triangleCount; i++){
+                                addToBins(bins, tilesX, tilesY, triangles, 6 * i, 3, i);
+                        }
+                        for(int i = 0; i < segmentCount; i++){
+                                addToBins(bins, tilesX, tilesY, segments, 4 * i, 2, -i - 1);
+                        }
+                        return bins;
+                }
+
+                private void addToBins(IntList[] bins, int tilesX, int tilesY, double[] coords, int k, int n, int value) {
+                        double minX = Double.POSITIVE_INFINITY;
+                        double minY = Double.POSITIVE_INFINITY;
+                        double maxX = Double.NEGATIVE_INFINITY;
+                        double maxY = Double.NEGATIVE_INFINITY;
+                        for(int i = 0; i < n; i++){
+                                minX = Math.min(minX, coords[k + 2 * i]);
+                                maxX = Math.max(maxX, coords[k + 2 * i]);
+                                minY = Math.min(minY, coords[k + 2 * i + 1]);
+                                maxY = Math.max(maxY, coords[k + 2 * i + 1]);
+                        }
+                        int tx0 = Math.max(0, (int) Math.floor(minX / tileSize));
+                        int ty0 = Math.max(0, (int) Math.floor(minY / tileSize));
+                        int tx1 = Math.min(tilesX - 1, (int) Math.floor(maxX / tileSize));
+                        int ty1 = Math.min(tilesY - 1, (int) Math.floor(maxY / tileSize));
+                        for(int ty = ty0; ty <= ty1; ty++){
+                                for(int tx = tx0; tx <= tx1; tx++){
+                                        bins[ty * tilesX + tx].add(value);
+                                }
+                        }
+                }
+
+                /**
+                 * Draw the elements of bin in a tile, whose upper left pixel
+                 * is (x0, y0).
+                 */
+                private int[] drawTile(int x0, int y0, int w, int h, IntList bin) {
+                        int[] pixels = new int[w * h];
+                        Arrays.fill(pixels, background == null ? 0 : background.getRGB());
+                        for(int k = 0; k < bin.size; k++){
+                                int i = bin.values[k];
+                                if(i >= 0){
+                                        fillTriangle(pixels, x0, y0, w, h, 6 * i, colors[i]);
+                                }
+                        }
+                        for(int k = 0; k < bin.size; k++){
+                                int i = bin.values[k];
+                                if(i < 0){
+                                        drawSegment(pixels, x0, y0, w, h, 4 * (-i - 1), segmentColors[-i - 1]);
+                                }
+                        }
+                        return pixels;
+                }
+
+                /**
+                 * Fill the pixels whose center is in the triangle.
+                 */
+                private void fillTriangle(int[] pixels, int x0, int y0, int w, int h, int k, int color) {
+                        double ax = triangles[k];
+                        double ay = triangles[k + 1];
+                        double bx = triangles[k + 2];
+                        double by = triangles[k + 3];
+                        double cx = triangles[k + 4];
+                        double cy = triangles[k + 5];
+                        double area = (bx - ax) * (cy - ay) - (by - ay) * (cx - ax);
+                        if(area == 0){
+                                return;
+                        }
+                        double sign = area > 0 ? 1 : -1;
+                        //The pixels are tested in the coordinates of the image, so that the
+                        //result does not depend on the tiles.
+                        int i0 = Math.max(x0, (int) Math.ceil(Math.min(ax, Math.min(bx, cx)) - 0.5));
+                        int i1 = Math.min(x0 + w - 1, (int) Math.floor(Math.max(ax, Math.max(bx, cx)) - 0.5));
+                        int j0 = Math.max(y0, (int) Math.ceil(Math.min(ay, Math.min(by, cy)) - 0.5));
+                        int j1 = Math.min(y0 + h - 1, (int) Math.floor(Math.max(ay, Math.max(by, cy)) - 0.5));
+                        for(int j = j0; j <= j1; j++){
+                                double py = j + 0.5;
+                                for(int i = i0; i <= i1; i++){
+                                        double px = i + 0.5;
+                                        if(sign * ((bx - ax) * (py - ay) - (by - ay) * (px - ax)) >= 0
+                                                && sign * ((cx - bx) * (py - by) - (cy - by) * (px - bx)) >= 0
+                                                && sign * ((ax - cx) * (py - cy) - (ay - cy) * (px - cx)) >= 0){
+                                                pixels[(j - y0) * w + i - x0] = color;
+                                        }
+                                }
+                        }
+                }
+
+                /**
+                 * Draw a segment, with a step of one pixel along its main direction.
+                 */
+                private void drawSegment(int[] pixels, int x0, int y0, int w, int h, int k, int color) {
+                        double ax = segments[k];
+                        double ay = segments[k + 1];
+                        double bx = segments[k + 2];
+                        double by = segments[k + 3];
+                        int steps = (int) Math.ceil(Math.max(Math.abs(bx - ax), Math.abs(by - ay)));
+                        //Only the samples that are near the tile are computed.
+                        double[] range = {0, 1};
+                        if(!clip(ax - x0 + 1, bx - ax, range) || !clip(x0 + w + 1 - ax, ax - bx, range)
+                                || !clip(ay - y0 + 1, by - ay, range) || !clip(y0 + h + 1 - ay, ay - by, range)){
+                                return;
+                        }
+                        int first = (int) Math.floor(range[0] * steps);
+                        int last = (int) Math.ceil(range[1] * steps);
+                        for(int s = first; s <= last; s++){
+                                double t = steps == 0 ? 0 : (double) s / steps;
+                                int i = (int) Math.floor(ax + t * (bx - ax)) - x0;
+                                int j = (int) Math.floor(ay + t * (by - ay)) - y0;
+                                if(i >= 0 && i < w && j >= 0 && j < h){
+                                        pixels[j * w + i] = color;
+                                }
+                        }
+                }
+        }
+
+        /**
+         * Restrict range to the values of t for which q + p.t is positive.
+         * Return false if range becomes empty.
+         */
+        private static boolean clip(double q, double p, double[] range) {
+                if(p == 0){
+                        return q >= 0;
+                }
+                double t = -q / p;
+                if(p > 0){
+                        range[0] = Math.max(range[0], t);
+                } else {
+                        range[1] = Math.min(range[1], t);
+                }
+                return range[0] <= range[1];
+        }
+
+        /**
+         * Get the slope of the triangle abc, in radians.
+         */
+        private static double getSlope(DPoint a, DPoint b, DPoint c) {
+                double bx = b.getX() - a.getX();
+                double by = b.getY() - a.getY();
+                double bz = b.getZ() - a.getZ();
+                double cx = c.getX() - a.getX();
+                double cy = c.getY() - a.getY();
+                double cz = c.getZ() - a.getZ();
+                double det = bx * cy - by * cx;
+                if(det == 0){
+                        return Math.PI / 2;
+                }
+                double gx = (bz * cy - cz * by) / det;
+                double gy = (cz * bx - bz * cx) / det;
+                return Math.atan(Math.sqrt(gx * gx + gy * gy));
+        }
+
+        /**
+         * A growable list of ints.
+         */
+        private static final class IntList {
+                private int[] values = new int[8];
+                private int size = 0;
+
+                private void add(int value) {
+                        if(size == values.length){
+                                values = Arrays.copyOf(values, 2 * size);
+                        }
+                        values[size++] = value;
+                }
+        }
+}
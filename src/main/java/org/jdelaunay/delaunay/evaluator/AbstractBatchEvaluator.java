@@ -0,0 +1,69 @@
+/**
+ *
+ * jDelaunay is a library dedicated to the processing of Delaunay and constrained
+ * Delaunay triangulations from PSLG inputs.
+ *
+ * This library is developed at French IRSTV institute as part of the AvuPur and Eval-PDU project,
+ * funded by the French Agence Nationale de la Recherche (ANR) under contract
+ * ANR-07-VULN-01 and ANR-08-VILL-0005-01 .
+ *
+ * jDelaunay is distributed under GPL 3 license. It is produced by the "Atelier SIG" team of
+ * the IRSTV Institute <http://www.irstv.fr/> CNRS FR 2488.
+ *
+ * Copyright (C) 2010-2012 IRSTV FR CNRS 2488
+ *
+ * jDelaunay is free software: you can redistribute it and/or modify it under the
+ * terms of the GNU General Public License as published by the Free Software
+ * Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ *
+ * jDelaunay is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR
+ * A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * jDelaunay. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * For more information, please consult: <http://www.orbisgis.org/>
+ * or contact directly:
+ * info_at_ orbisgis.org
+ */
+package org.jdelaunay.delaunay.evaluator;
+
+import org.jdelaunay.delaunay.geometries.DPoint;
+import org.jdelaunay.delaunay.geometries.DTriangle;
+
+/**
+ * Base class for the evaluators that only need the coordinates of the
+ * vertices of a triangle to compute its score.
+ * @author Alexis Guéganno
+ */
+public abstract class AbstractBatchEvaluator implements BatchEvaluator {
+
+        @Override
+        public boolean evaluate(DTriangle dt) {
+                return score(dt) > 0;
+        }
+
+        @Override
+        public double score(DTriangle dt) {
+                DPoint a = dt.getPoint(0);
+                DPoint b = dt.getPoint(1);
+                DPoint c = dt.getPoint(2);
+                return score(a.getX(), a.getY(), b.getX(), b.getY(), c.getX(), c.getY());
+        }
+
+        @Override
+        public void score(double[] x, double[] y, int count, double[] scores) {
+                for(int i = 0, j = 0; i < count; i++, j += 3){
+                        scores[i] = score(x[j], y[j], x[j + 1], y[j + 1], x[j + 2], y[j + 2]);
+                }
+        }
+
+        /**
+         * Compute the score of the triangle abc.
+         * @return
+         *      A strictly positive value if the triangle must be refined.
+         */
+        protected abstract double score(double ax, double ay, double bx, double by, double cx, double cy);
+}
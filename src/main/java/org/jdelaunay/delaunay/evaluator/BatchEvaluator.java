@@ -0,0 +1,63 @@
+/**
+ *
+ * jDelaunay is a library dedicated to the processing of Delaunay and constrained
+ * Delaunay triangulations from PSLG inputs.
+ *
+ * This library is developed at French IRSTV institute as part of the AvuPur and Eval-PDU project,
+ * funded by the French Agence Nationale de la Recherche (ANR) under contract
+ * ANR-07-VULN-01 and ANR-08-VILL-0005-01 .
+ *
+ * jDelaunay is distributed under GPL 3 license. It is produced by the "Atelier SIG" team of
+ * the IRSTV Institute <http://www.irstv.fr/> CNRS FR 2488.
+ *
+ * Copyright (C) 2010-2012 IRSTV FR CNRS 2488
+ *
+ * jDelaunay is free software: you can redistribute it and/or modify it under the
+ * terms of the GNU General Public License as published by the Free Software
+ * Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ *
+ * jDelaunay is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR
+ * A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * jDelaunay. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * For more information, please consult: <http://www.orbisgis.org/>
+ * or contact directly:
+ * info_at_ orbisgis.org
+ */
+package org.jdelaunay.delaunay.evaluator;
+
+import org.jdelaunay.delaunay.geometries.DTriangle;
+
+/**
+ * An evaluator that gives a priority to the triangles rather than a sole
+ * boolean, and that can score many triangles at once from arrays of
+ * coordinates. A triangle must be refined if its score is strictly
+ * positive, and the greater the score, the worse the triangle.
+ * @author Alexis Guéganno
+ */
+public interface BatchEvaluator extends InsertionEvaluator {
+
+        /**
+         * Compute the score of dt.
+         * @param dt
+         * @return
+         *      A strictly positive value if the circumcenter of dt must be
+         *      inserted, that is greater for worse triangles.
+         */
+        double score(DTriangle dt);
+
+        /**
+         * Compute the scores of count triangles. The vertices of the i-th
+         * triangle are (x[3i], y[3i]), (x[3i+1], y[3i+1]) and (x[3i+2], y[3i+2]).
+         * @param x
+         * @param y
+         * @param count
+         * @param scores
+         *      The array where the score of the i-th triangle is stored, at index i.
+         */
+        void score(double[] x, double[] y, int count, double[] scores);
+}
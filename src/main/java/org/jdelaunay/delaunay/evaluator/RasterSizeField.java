@@ -0,0 +1,95 @@
+/**
+ *
+ * jDelaunay is a library dedicated to the processing of Delaunay and constrained
+ * Delaunay triangulations from PSLG inputs.
+ *
+ * This library is developed at French IRSTV institute as part of the AvuPur and Eval-PDU project,
+ * funded by the French Agence Nationale de la Recherche (ANR) under contract
+ * ANR-07-VULN-01 and ANR-08-VILL-0005-01 .
+ *
+ * jDelaunay is distributed under GPL 3 license. It is produced by the "Atelier SIG" team of
+ * the IRSTV Institute <http://www.irstv.fr/> CNRS FR 2488.
+ *
+ * Copyright (C) 2010-2012 IRSTV FR CNRS 2488
+ *
+ * jDelaunay is free software: you can redistribute it and/or modify it under the
+ * terms of the GNU General Public License as published by the Free Software
+ * Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ *
+ * jDelaunay is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR
+ * A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * jDelaunay. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * For more information, please consult: <http://www.orbisgis.org/>
+ * or contact directly:
+ * info_at_ orbisgis.org
+ */
+package org.jdelaunay.delaunay.evaluator;
+
+/**
+ * A size field defined by the values of the nodes of a regular grid, that is
+ * bilinearly interpolated between the nodes. Outside the grid, the value of
+ * the closest border is used.
+ * @author Alexis Guéganno
+ */
+public class RasterSizeField implements SizeField {
+
+        private final double minX;
+        private final double minY;
+        private final double cellSize;
+        private final int cols;
+        private final int rows;
+        private final double[] values;
+
+        /**
+         * Build a new raster size field. The node (i, j) is at
+         * (minX + i * cellSize, minY + j * cellSize), and its value is
+         * values[j * cols + i].
+         * @param minX
+         * @param minY
+         * @param cellSize
+         * @param cols
+         * @param rows
+         * @param values
+         * @throws IllegalArgumentException
+         *      if cellSize is not strictly positive, or if values does not
+         *      contain cols * rows values.
+         */
+        public RasterSizeField(double minX, double minY, double cellSize, int cols, int rows, double[] values) {
+                if(cellSize <= 0){
+                        throw new IllegalArgumentException("The cell size must be strictly positive");
+                }
+                if(cols < 1 || rows < 1 || values.length != cols * rows){
+                        throw new IllegalArgumentException("The raster must contain cols * rows values");
+                }
+                this.minX = minX;
+                this.minY = minY;
+                this.cellSize = cellSize;
+                this.cols = cols;
+                this.rows = rows;
+                this.values = values;
+        }
+
+        @Override
+        public double getSize(double x, double y) {
+                double fx = clamp((x - minX) / cellSize, cols - 1);
+                double fy = clamp((y - minY) / cellSize, rows - 1);
+                int i = Math.min((int) fx, Math.max(cols - 2, 0));
+                int j = Math.min((int) fy, Math.max(rows - 2, 0));
+                double tx = fx - i;
+                double ty = fy - j;
+                int i1 = Math.min(i + 1, cols - 1);
+                int j1 = Math.min(j + 1, rows - 1);
+                double bottom = values[j * cols + i] * (1 - tx) + values[j * cols + i1] * tx;
+                double top = values[j1 * cols + i] * (1 - tx) + values[j1 * cols + i1] * tx;
+                return bottom * (1 - ty) + top * ty;
+        }
+
+        private static double clamp(double v, int max) {
+                return v < 0 ? 0 : (v > max ? max : v);
+        }
+}
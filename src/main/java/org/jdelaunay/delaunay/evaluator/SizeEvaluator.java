@@ -0,0 +1,122 @@
+/**
+ *
+ * jDelaunay is a library dedicated to the processing of Delaunay and constrained
+ * Delaunay triangulations from PSLG inputs.
+ *
+ * This library is developed at French IRSTV institute as part of the AvuPur and Eval-PDU project,
+ * funded by the French Agence Nationale de la Recherche (ANR) under contract
+ * ANR-07-VULN-01 and ANR-08-VILL-0005-01 .
+ *
+ * jDelaunay is distributed under GPL 3 license. It is produced by the "Atelier SIG" team of
+ * the IRSTV Institute <http://www.irstv.fr/> CNRS FR 2488.
+ *
+ * Copyright (C) 2010-2012 IRSTV FR CNRS 2488
+ *
+ * jDelaunay is free software: you can redistribute it and/or modify it under the
+ * terms of the GNU General Public License as published by the Free Software
+ * Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ *
+ * jDelaunay is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR
+ * A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * jDelaunay. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * For more information, please consult: <http://www.orbisgis.org/>
+ * or contact directly:
+ * info_at_ orbisgis.org
+ */
+package org.jdelaunay.delaunay.evaluator;
+
+import java.util.IdentityHashMap;
+import java.util.Map;
+import org.jdelaunay.delaunay.geometries.DPoint;
+import org.jdelaunay.delaunay.geometries.DTriangle;
+
+/**
+ * Evaluator used to refine the triangles whose longest edge is longer than
+ * the size given by a SizeField at their barycenter. The size field is
+ * sampled once for each triangle : the sample is kept as long as the
+ * triangle keeps the same vertices.
+ * @author Alexis Guéganno
+ */
+public class SizeEvaluator extends AbstractBatchEvaluator {
+
+        private final SizeField field;
+        private final Map<DTriangle, Sample> samples = new IdentityHashMap<DTriangle, Sample>();
+
+        /**
+         * Build a new evaluator, that uses the given size field.
+         * @param field
+         */
+        public SizeEvaluator(SizeField field) {
+                this.field = field;
+        }
+
+        /**
+         * Get the size field used by this evaluator.
+         * @return
+         */
+        public final SizeField getSizeField() {
+                return field;
+        }
+
+        /**
+         * Forget the sizes sampled so far.
+         */
+        public final void clearCache() {
+                samples.clear();
+        }
+
+        /**
+         * The score is the squared ratio between the longest edge of dt and
+         * the size sampled at its barycenter, minus one.
+         */
+        @Override
+        public double score(DTriangle dt) {
+                DPoint a = dt.getPoint(0);
+                DPoint b = dt.getPoint(1);
+                DPoint c = dt.getPoint(2);
+                Sample sample = samples.get(dt);
+                if(sample == null || sample.a != a || sample.b != b || sample.c != c){
+                        sample = new Sample(a, b, c, field.getSize((a.getX() + b.getX() + c.getX()) / 3,
+                                (a.getY() + b.getY() + c.getY()) / 3));
+                        samples.put(dt, sample);
+                }
+                return score(a.getX(), a.getY(), b.getX(), b.getY(), c.getX(), c.getY(), sample.size);
+        }
+
+        @Override
+        protected double score(double ax, double ay, double bx, double by, double cx, double cy) {
+                return score(ax, ay, bx, by, cx, cy, field.getSize((ax + bx + cx) / 3, (ay + by + cy) / 3));
+        }
+
+        private static double score(double ax, double ay, double bx, double by, double cx, double cy, double size) {
+                if(!(size > 0)){
+                        return -1;
+                }
+                double ab = (bx - ax) * (bx - ax) + (by - ay) * (by - ay);
+                double ac = (cx - ax) * (cx - ax) + (cy - ay) * (cy - ay);
+                double bc = (cx - bx) * (cx - bx) + (cy - by) * (cy - by);
+                return Math.max(ab, Math.max(ac, bc)) / (size * size) - 1;
+        }
+
+        /**
+         * The size sampled for a triangle, with the vertices it had then.
+         */
+        private static final class Sample {
+                private final DPoint a;
+                private final DPoint b;
+                private final DPoint c;
+                private final double size;
+
+                private Sample(DPoint a, DPoint b, DPoint c, double size) {
+                        this.a = a;
+                        this.b = b;
+                        this.c = c;
+                        this.size = size;
+                }
+        }
+}
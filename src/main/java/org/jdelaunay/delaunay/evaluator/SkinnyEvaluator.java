@@ -35,9 +35,13 @@ import org.jdelaunay.delaunay.geometries.DTriangle;
 /**
  * Evaluator used to determine if a triangle is skinny (ie if it has an angle 
  * inferior to a given value) or not.
+ * The smallest angle is opposite to the shortest edge, so its sine is twice
+ * the area divided by the product of the two longest edges. We compare the
+ * squared sines, that can be computed from the squared lengths without any
+ * call to acos or sqrt.
  * @author Alexis Guéganno
  */
-public class SkinnyEvaluator implements InsertionEvaluator {
+public class SkinnyEvaluator extends AbstractBatchEvaluator {
         /**
          * The maximum valule that can be used in a skinny evaluator. As the Ruppert
          * algorithm won't end for angles superior to this value, such values are 
@@ -45,6 +49,8 @@ public class SkinnyEvaluator implements InsertionEvaluator {
          */
         public final static double MAX_VALUE = 32;
         private double minAngle;
+        //The squared sine of minAngle.
+        private double sin2;
 
         /**
          * Instanciate a new SkinnyEvaluator, with the given threshold angle value,
@@ -61,6 +67,8 @@ public class SkinnyEvaluator implements InsertionEvaluator {
                         throw new IllegalArgumentException("Threshold value can't be negative");
                 }
                 this.minAngle = minAngle;
+                double sin = Math.sin(Math.toRadians(minAngle));
+                this.sin2 = sin * sin;
         }
 
         /**
@@ -88,11 +96,45 @@ public class SkinnyEvaluator implements InsertionEvaluator {
                         throw new IllegalArgumentException("Threshold value can't be negative");
                 }
                 this.minAngle = minAngle;
+                double sin = Math.sin(Math.toRadians(minAngle));
+                this.sin2 = sin * sin;
         }
         
         @Override
         public final boolean evaluate(DTriangle dt) {
-                return minAngle > dt.getMinAngle();
+                return score(dt) > 0;
+        }
+
+        /**
+         * The score is 1 - (sin(a) / sin(minAngle))², where a is the smallest
+         * angle of the triangle.
+         */
+        @Override
+        protected final double score(double ax, double ay, double bx, double by, double cx, double cy) {
+                double abx = bx - ax;
+                double aby = by - ay;
+                double acx = cx - ax;
+                double acy = cy - ay;
+                double bcx = cx - bx;
+                double bcy = cy - by;
+                double ab = abx * abx + aby * aby;
+                double ac = acx * acx + acy * acy;
+                double bc = bcx * bcx + bcy * bcy;
+                //The product of the two longest squared lengths.
+                double prod;
+                if(ab <= ac && ab <= bc){
+                        prod = ac * bc;
+                } else if(ac <= bc){
+                        prod = ab * bc;
+                } else {
+                        prod = ab * ac;
+                }
+                double den = sin2 * prod;
+                if(den == 0){
+                        return -1;
+                }
+                double cross = abx * acy - aby * acx;
+                return 1 - cross * cross / den;
         }
         
 }
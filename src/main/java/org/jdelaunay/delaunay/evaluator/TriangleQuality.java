@@ -30,18 +30,17 @@
  */
 package org.jdelaunay.delaunay.evaluator;
 
-import org.jdelaunay.delaunay.geometries.DTriangle;
-
 /**
  *  Triangle quality evaluation. Better results than {@link org.jdelaunay.delaunay.evaluator.SkinnyEvaluator}
  *  @see "Bank, Randolph E., PLTMG: A Software Package for Solving Elliptic Partial Differential Equations, User's Guide 6.0,
  *  Society for Industrial and Applied Mathematics, Philadelphia, PA, 1990."
+ *  The quality is compared through its square, computed from the squared lengths of the
+ *  edges, without any square root.
  * @author Nicolas Fortin
  */
-public class TriangleQuality implements InsertionEvaluator {
+public class TriangleQuality extends AbstractBatchEvaluator {
     private final double targetQuality;
     public static final double DEFAULT_QUALITY = 0.6;
-    private static final double SQRT3 = Math.sqrt(3.);
 
     /**
      * Default constructor
@@ -58,11 +57,24 @@ public class TriangleQuality implements InsertionEvaluator {
         this.targetQuality = targetQuality;
     }
 
+    /**
+     * The score is 1 - (quality / targetQuality)².
+     */
     @Override
-    public boolean evaluate(DTriangle dTriangle) {
-        return (4 * dTriangle.getArea() * SQRT3) / (
-                Math.pow(dTriangle.getEdge(0).get2DLength(), 2) +
-                        Math.pow(dTriangle.getEdge(1).get2DLength(), 2) +
-                        Math.pow(dTriangle.getEdge(2).get2DLength(), 2)) < targetQuality;
+    protected double score(double ax, double ay, double bx, double by, double cx, double cy) {
+        double abx = bx - ax;
+        double aby = by - ay;
+        double acx = cx - ax;
+        double acy = cy - ay;
+        double bcx = cx - bx;
+        double bcy = cy - by;
+        double sum = abx * abx + aby * aby + acx * acx + acy * acy + bcx * bcx + bcy * bcy;
+        if(targetQuality <= 0 || sum == 0){
+            return -1;
+        }
+        double den = targetQuality * targetQuality * sum * sum;
+        //4 * sqrt(3) * area = 2 * sqrt(3) * |cross|
+        double cross = abx * acy - aby * acx;
+        return 1 - 12 * cross * cross / den;
     }
-}
\ No newline at end of file
+}
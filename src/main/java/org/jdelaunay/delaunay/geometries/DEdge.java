@@ -39,6 +39,7 @@ import java.awt.Graphics2D;
 import java.util.LinkedList;
 import java.util.Map;
 import org.jdelaunay.delaunay.error.DelaunayError;
+import org.jdelaunay.delaunay.tools.IntIntMap;
 import org.jdelaunay.delaunay.tools.Tools;
 
 /**
@@ -754,6 +755,24 @@ public class DEdge extends Element implements Comparable<DEdge> {
 		return getIntersection(ed.startPoint, ed.endPoint);
 	}
 
+	/**
+	 * Same as getIntersection(DEdge, Map), the weights being read in a
+	 * primitive map.
+	 * @param ed
+	 * @param weights
+	 * @return
+         *      The intersection, as an element instance. It can be a DPoint, a DEdge, or null.
+	 * @throws DelaunayError
+	 */
+	public final Element getIntersection(DEdge ed, IntIntMap weights) throws DelaunayError {
+		if(weights.isEmpty()){
+			return getIntersection(ed.startPoint, ed.endPoint, false);
+		}
+		int wt = getMaxWeight(weights);
+		int wo = ed.getMaxWeight(weights);
+		return getIntersection(ed.startPoint, ed.endPoint, wo>wt);
+	}
+
 	/**
 	 * Get the intersection, using the weights given in argument to compute the z :
 	 * we will use the z from the edge with the highest weight.
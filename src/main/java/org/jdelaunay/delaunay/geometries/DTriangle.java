@@ -40,6 +40,8 @@ import java.util.List;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 import org.jdelaunay.delaunay.error.DelaunayError;
+import org.jdelaunay.delaunay.metrics.MeshCounter;
+import org.jdelaunay.delaunay.metrics.MeshMetricsListener;
 import org.jdelaunay.delaunay.tools.Tools;
 
 /**
@@ -1284,8 +1286,27 @@ public class DTriangle extends Element implements Comparable<DTriangle>{
          * @throws DelaunayError 
          */
         public final Element getCircumCenterContainerSafe() throws DelaunayError{
+                return getCircumCenterContainerSafe(null);
+        }
+
+        /**
+         * Return the triangle of the mesh that contains the center of this DTriangle,
+         * and report the number of triangles visited to the search to metrics.
+         * @param metrics
+         *      The listener that receives the number of visited triangles. Can be null.
+         * @return
+         *      The same value as getCircumCenterContainerSafe().
+         * @throws DelaunayError
+         */
+        public final Element getCircumCenterContainerSafe(MeshMetricsListener metrics) throws DelaunayError{
                 DPoint cc = new DPoint(getCircumCenter());
-                return searchPointImpl(cc, true);
+                if(metrics == null){
+                        return searchPointImpl(cc, true, null);
+                }
+                int[] steps = new int[1];
+                Element ret = searchPointImpl(cc, true, steps);
+                metrics.increment(MeshCounter.LOCATION_STEPS, steps[0]);
+                return ret;
         }
         
         /**
@@ -1298,18 +1319,43 @@ public class DTriangle extends Element implements Comparable<DTriangle>{
          * @throws DelaunayError 
          */
         public final Element searchPointContainer(final DPoint pt) throws DelaunayError {
-                return searchPointImpl(pt, false);
+                return searchPointImpl(pt, false, null);
+        }
+
+        /**
+         * Search for pt in the mesh, as searchPointContainer(pt), and report
+         * the number of triangles visited to the search to metrics.
+         * @param pt
+         * @param metrics
+         *      The listener that receives the number of visited triangles. Can be null.
+         * @return
+         *      The same value as searchPointContainer(pt).
+         * @throws DelaunayError
+         */
+        public final Element searchPointContainer(final DPoint pt, MeshMetricsListener metrics) throws DelaunayError {
+                if(metrics == null){
+                        return searchPointImpl(pt, false, null);
+                }
+                int[] steps = new int[1];
+                Element ret = searchPointImpl(pt, false, steps);
+                metrics.increment(MeshCounter.LOCATION_STEPS, steps[0]);
+                return ret;
         }
         
         /**
          * Common implementation for the search operations.
          * @param pt
          * @param safe
+         * @param steps
+         *      if not null, its first element is incremented for each visited triangle.
          * @return
          * @throws DelaunayError 
          */
-        private Element searchPointImpl(final DPoint pt, final boolean safe) throws DelaunayError {
+        private Element searchPointImpl(final DPoint pt, final boolean safe, final int[] steps) throws DelaunayError {
                 Element ret = null;
+                if(steps != null){
+                        steps[0]++;
+                }
                 if(contains(pt)){
                         return this;
                 } else {
@@ -1319,7 +1365,7 @@ public class DTriangle extends Element implements Comparable<DTriangle>{
                                         if(ed.isLocked() && safe){
                                                 return null;
                                         } else if(ed.getRight() != null){
-                                                return ed.getRight().searchPointContainer(pt );
+                                                return ed.getRight().searchPointImpl(pt, false, steps);
                                         } else {
                                                 ret = ed;
                                         }
@@ -1327,7 +1373,7 @@ public class DTriangle extends Element implements Comparable<DTriangle>{
                                         if(ed.isLocked() && safe){
                                                 return null;
                                         } else if(ed.getLeft() != null){
-                                                return ed.getLeft().searchPointContainer(pt);
+                                                return ed.getLeft().searchPointImpl(pt, false, steps);
                                         } else {
                                                 ret = ed;
                                         }
@@ -34,6 +34,7 @@ import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 import org.jdelaunay.delaunay.error.DelaunayError;
+import org.jdelaunay.delaunay.tools.IntIntMap;
 
 
 /**
@@ -174,6 +175,23 @@ public abstract class Element {
 		}
 		return weight;
 	}
+
+	/**
+	 * Get the weight of this element, reading the weights in a primitive map.
+	 * @param map
+	 * @return
+         * The maximal weight
+	 */
+	public final int getMaxWeight(IntIntMap map){
+		int weight = -1;
+		for(int i = 0; i < WEIGHTED_PROPERTIES.size(); i++){
+			int prop = WEIGHTED_PROPERTIES.get(i);
+			if(hasProperty(prop) && map.containsKey(prop)){
+				weight = Math.max(weight, map.get(prop, -1));
+			}
+		}
+		return weight;
+	}
 	/**
 	 * Set an external GID, referencing this object for an external use, and 
 	 * eventually make correspondances with an external attributes table.
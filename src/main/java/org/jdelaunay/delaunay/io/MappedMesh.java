@@ -0,0 +1,513 @@
+/**
+ *
+ * jDelaunay is a library dedicated to the processing of Delaunay and constrained
+ * Delaunay triangulations from PSLG inputs.
+ *
+ * This library is developed at French IRSTV institute as part of the AvuPur and Eval-PDU project,
+ * funded by the French Agence Nationale de la Recherche (ANR) under contract
+ * ANR-07-VULN-01 and ANR-08-VILL-0005-01 .
+ *
+ * jDelaunay is distributed under GPL 3 license. It is produced by the "Atelier SIG" team of
+ * the IRSTV Institute <http://www.irstv.fr/> CNRS FR 2488.
+ *
+ * Copyright (C) 2010-2012 IRSTV FR CNRS 2488
+ *
+ * jDelaunay is free software: you can redistribute it and/or modify it under the
+ * terms of the GNU General Public License as published by the Free Software
+ * Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ *
+ * jDelaunay is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR
+ * A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * jDelaunay. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * For more information, please consult: <http://www.orbisgis.org/>
+ * or contact directly:
+ * info_at_ orbisgis.org
+ */
+package org.jdelaunay.delaunay.io;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.Arrays;
+import org.jdelaunay.delaunay.tools.Tools;
+
+/**
+ * A read-only view of a computed mesh, backed by a memory-mapped file written
+ * with MappedMeshWriter.<p></p>
+ *
+ * The coordinates, the triangles, their neighbours and a regular grid used as a
+ * spatial index are read directly from the mapped file. No object is created
+ * when opening the file, and the pages of the file are shared between all the
+ * processes that map it. Consequently, several JVMs can serve queries on the
+ * same mesh with only one physical copy of the data in memory.<p></p>
+ *
+ * The triangles are stored counterclockwise. The neighbour k of a triangle is
+ * the triangle on the other side of the edge opposite to its vertex k, or -1
+ * if this edge is on the boundary of the mesh.<p></p>
+ *
+ * Instances of this class are safe for concurrent reads.
+ *
+ * @author Alexis Guéganno
+ */
+public final class MappedMesh implements Closeable {
+
+	//The magic number written at the beginning of the file ("JDM1").
+	static final int MAGIC = 0x4A444D31;
+	static final int VERSION = 1;
+	//magic, version, point count, triangle count, grid columns, grid rows
+	//and six doubles : minX, minY, maxX, maxY, cell width, cell height.
+	static final int HEADER_SIZE = 6 * 4 + 6 * 8;
+	static final int POINT_SIZE = 3 * 8;
+	static final int TRIANGLE_SIZE = 3 * 4;
+	//The file is mapped by segments of 1GB, as a single MappedByteBuffer can't
+	//be larger than 2GB. All the values are aligned on their size, so that
+	//no value is split between two segments.
+	private static final int SEGMENT_SHIFT = 30;
+	private static final long SEGMENT_SIZE = 1L << SEGMENT_SHIFT;
+	private static final long SEGMENT_MASK = SEGMENT_SIZE - 1;
+	//The number of vertices of a triangle.
+	private static final int DTRI = 3;
+
+	private final RandomAccessFile file;
+	private MappedByteBuffer[] segments;
+	private final int pointCount;
+	private final int triangleCount;
+	private final int gridCols;
+	private final int gridRows;
+	private final double minX;
+	private final double minY;
+	private final double maxX;
+	private final double maxY;
+	private final double cellWidth;
+	private final double cellHeight;
+	private final long pointsOffset;
+	private final long trianglesOffset;
+	private final long neighboursOffset;
+	private final long gridOffset;
+	//1 if the domain covered by the mesh is convex, 0 if it is not, -1 if
+	//it has not been computed yet.
+	private volatile int convex = -1;
+
+	/**
+	 * Map the file f in memory. The file must have been written by
+	 * MappedMeshWriter.
+	 * @param f
+	 * @throws IOException
+	 *	If the file can't be read, or if it is not a mapped mesh file.
+	 */
+	public MappedMesh(File f) throws IOException {
+		file = new RandomAccessFile(f, "r");
+		try {
+			FileChannel channel = file.getChannel();
+			long size = channel.size();
+			int nbSegments = (int) ((size + SEGMENT_SIZE - 1) >>> SEGMENT_SHIFT);
+			segments = new MappedByteBuffer[nbSegments];
+			for(int i = 0; i < nbSegments; i++){
+				long start = ((long) i) << SEGMENT_SHIFT;
+				long length = Math.min(SEGMENT_SIZE, size - start);
+				segments[i] = channel.map(FileChannel.MapMode.READ_ONLY, start, length);
+				segments[i].order(ByteOrder.LITTLE_ENDIAN);
+			}
+			if(size < HEADER_SIZE || getInt(0) != MAGIC){
+				throw new IOException("Not a mapped mesh file : " + f);
+			}
+			if(getInt(4) != VERSION){
+				throw new IOException("Unsupported mapped mesh version : " + getInt(4));
+			}
+			pointCount = getInt(8);
+			triangleCount = getInt(12);
+			gridCols = getInt(16);
+			gridRows = getInt(20);
+			minX = getDouble(24);
+			minY = getDouble(32);
+			maxX = getDouble(40);
+			maxY = getDouble(48);
+			cellWidth = getDouble(56);
+			cellHeight = getDouble(64);
+			pointsOffset = HEADER_SIZE;
+			trianglesOffset = pointsOffset + (long) pointCount * POINT_SIZE;
+			neighboursOffset = align(trianglesOffset + (long) triangleCount * TRIANGLE_SIZE);
+			gridOffset = align(neighboursOffset + (long) triangleCount * TRIANGLE_SIZE);
+			if(gridOffset + 4L * gridCols * gridRows > size){
+				throw new IOException("Truncated mapped mesh file : " + f);
+			}
+		} catch (IOException e) {
+			file.close();
+			throw e;
+		}
+	}
+
+	/**
+	 * Align an offset on 8 bytes.
+	 * @param offset
+	 * @return
+	 *	The smallest multiple of 8 greater or equal to offset.
+	 */
+	static long align(long offset) {
+		return (offset + 7L) & ~7L;
+	}
+
+	private int getInt(long offset) {
+		return segments[(int) (offset >>> SEGMENT_SHIFT)].getInt((int) (offset & SEGMENT_MASK));
+	}
+
+	private double getDouble(long offset) {
+		return segments[(int) (offset >>> SEGMENT_SHIFT)].getDouble((int) (offset & SEGMENT_MASK));
+	}
+
+	/**
+	 * Get the number of points stored in this mesh.
+	 * @return
+	 *	The number of points.
+	 */
+	public int getPointCount() {
+		return pointCount;
+	}
+
+	/**
+	 * Get the number of triangles stored in this mesh.
+	 * @return
+	 *	The number of triangles.
+	 */
+	public int getTriangleCount() {
+		return triangleCount;
+	}
+
+	/**
+	 * Get the minimum x-coordinate of the mesh.
+	 * @return
+	 *	min x
+	 */
+	public double getMinX() {
+		return minX;
+	}
+
+	/**
+	 * Get the minimum y-coordinate of the mesh.
+	 * @return
+	 *	min y
+	 */
+	public double getMinY() {
+		return minY;
+	}
+
+	/**
+	 * Get the maximum x-coordinate of the mesh.
+	 * @return
+	 *	max x
+	 */
+	public double getMaxX() {
+		return maxX;
+	}
+
+	/**
+	 * Get the maximum y-coordinate of the mesh.
+	 * @return
+	 *	max y
+	 */
+	public double getMaxY() {
+		return maxY;
+	}
+
+	/**
+	 * Get the x-coordinate of the point number i.
+	 * @param i
+	 * @return
+	 *	The x-coordinate.
+	 */
+	public double getX(int i) {
+		return getDouble(pointsOffset + (long) i * POINT_SIZE);
+	}
+
+	/**
+	 * Get the y-coordinate of the point number i.
+	 * @param i
+	 * @return
+	 *	The y-coordinate.
+	 */
+	public double getY(int i) {
+		return getDouble(pointsOffset + (long) i * POINT_SIZE + 8);
+	}
+
+	/**
+	 * Get the z-coordinate of the point number i.
+	 * @param i
+	 * @return
+	 *	The z-coordinate.
+	 */
+	public double getZ(int i) {
+		return getDouble(pointsOffset + (long) i * POINT_SIZE + 16);
+	}
+
+	/**
+	 * Get the index of the vertex k (0, 1 or 2) of the triangle tri.
+	 * @param tri
+	 * @param k
+	 * @return
+	 *	The index of the point.
+	 */
+	public int getVertex(int tri, int k) {
+		return getInt(trianglesOffset + (long) tri * TRIANGLE_SIZE + 4 * k);
+	}
+
+	/**
+	 * Get the index of the triangle that is on the other side of the edge
+	 * opposite to the vertex k of tri.
+	 * @param tri
+	 * @param k
+	 * @return
+	 *	The index of the neighbour, -1 if the edge is on the boundary of the mesh.
+	 */
+	public int getNeighbour(int tri, int k) {
+		return getInt(neighboursOffset + (long) tri * TRIANGLE_SIZE + 4 * k);
+	}
+
+	/**
+	 * Get the triangle that is used to start the search of (x,y) in the mesh.
+	 * @param x
+	 * @param y
+	 * @return
+	 */
+	private int getSeed(double x, double y) {
+		int col = (int) ((x - minX) / cellWidth);
+		int row = (int) ((y - minY) / cellHeight);
+		col = col < 0 ? 0 : (col >= gridCols ? gridCols - 1 : col);
+		row = row < 0 ? 0 : (row >= gridRows ? gridRows - 1 : row);
+		return getInt(gridOffset + 4L * ((long) row * gridCols + col));
+	}
+
+	/**
+	 * Search the triangle that contains the point (x,y). The search starts
+	 * from the triangle referenced by the spatial index, and walks through
+	 * the neighbours until the point is found. If the walk leaves the mesh
+	 * through one of its boundary edges, (x,y) is outside the mesh only if
+	 * its domain is convex. Otherwise, the point may lie in another part of
+	 * the mesh (beyond a concavity, or on the other side of a hole), and all
+	 * the triangles are scanned.
+	 * @param x
+	 * @param y
+	 * @return
+	 *	The index of the containing triangle, -1 if (x,y) is outside the mesh.
+	 */
+	public int locate(double x, double y) {
+		if(triangleCount == 0 || x < minX || x > maxX || y < minY || y > maxY){
+			return -1;
+		}
+		int tri = getSeed(x, y);
+		int prev = -1;
+		for(int step = 0; step < triangleCount; step++){
+			int next = -2;
+			//We don't want to go back to the triangle we come from,
+			//so we start the test with a different edge at each step.
+			for(int i = 0; i < DTRI && next == -2; i++){
+				int k = (i + step) % DTRI;
+				int a = getVertex(tri, (k + 1) % DTRI);
+				int b = getVertex(tri, (k + 2) % DTRI);
+				if(orientation(a, b, x, y) < -Tools.EPSILON){
+					next = getNeighbour(tri, k);
+				}
+			}
+			if(next == -2){
+				return tri;
+			} else if(next == -1){
+				return isConvex() ? -1 : scan(x, y);
+			} else if(next == prev){
+				//We are cycling, it can only happen on degenerated
+				//configurations. We stop walking.
+				break;
+			}
+			prev = tri;
+			tri = next;
+		}
+		return scan(x, y);
+	}
+
+	/**
+	 * Check if the domain covered by the mesh is convex, ie if its boundary
+	 * is a single loop that never turns right. It is computed on the first
+	 * call only.
+	 * @return
+	 */
+	private boolean isConvex() {
+		if(convex < 0){
+			convex = computeConvex() ? 1 : 0;
+		}
+		return convex == 1;
+	}
+
+	private boolean computeConvex() {
+		//next[a] is the end of the boundary edge that starts at a. The
+		//triangles are counterclockwise, so the mesh is on the left of
+		//these edges.
+		int[] next = new int[pointCount];
+		Arrays.fill(next, -1);
+		int boundary = 0;
+		int start = -1;
+		for(int tri = 0; tri < triangleCount; tri++){
+			for(int k = 0; k < DTRI; k++){
+				if(getNeighbour(tri, k) == -1){
+					int a = getVertex(tri, (k + 1) % DTRI);
+					if(next[a] != -1){
+						//a is shared by two boundary loops.
+						return false;
+					}
+					next[a] = getVertex(tri, (k + 2) % DTRI);
+					start = a;
+					boundary++;
+				}
+			}
+		}
+		int a = start;
+		for(int i = 0; i < boundary; i++){
+			int b = next[a];
+			int c = next[b];
+			if(c == -1 || orientation(a, b, getX(c), getY(c)) < -Tools.EPSILON){
+				return false;
+			}
+			a = b;
+			if(a == start && i < boundary - 1){
+				//There are several boundary loops.
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Search (x,y) in all the triangles.
+	 * @param x
+	 * @param y
+	 * @return
+	 */
+	private int scan(double x, double y) {
+		for(int tri = 0; tri < triangleCount; tri++){
+			boolean inside = true;
+			for(int k = 0; k < DTRI && inside; k++){
+				inside = orientation(getVertex(tri, (k + 1) % DTRI), getVertex(tri, (k + 2) % DTRI), x, y)
+					>= -Tools.EPSILON;
+			}
+			if(inside){
+				return tri;
+			}
+		}
+		return -1;
+	}
+
+	/**
+	 * Compute the cross product (b-a)^(p-a)
+	 * @return
+	 *	a positive value if p is on the left of [a b]
+	 */
+	private double orientation(int a, int b, double x, double y) {
+		double ax = getX(a);
+		double ay = getY(a);
+		return (getX(b) - ax) * (y - ay) - (getY(b) - ay) * (x - ax);
+	}
+
+	/**
+	 * Compute the coefficients (a, b, c) of the plane z = a*x + b*y + c of
+	 * the triangle tri.
+	 * @param tri
+	 * @param coefs
+	 *	An array of length 3 that will be filled.
+	 * @return
+	 *	false if the triangle is vertical.
+	 */
+	private boolean getPlane(int tri, double[] coefs) {
+		int p1 = getVertex(tri, 0);
+		int p2 = getVertex(tri, 1);
+		int p3 = getVertex(tri, 2);
+		double x1 = getX(p1);
+		double y1 = getY(p1);
+		double z1 = getZ(p1);
+		double ux = getX(p2) - x1;
+		double uy = getY(p2) - y1;
+		double uz = getZ(p2) - z1;
+		double vx = getX(p3) - x1;
+		double vy = getY(p3) - y1;
+		double vz = getZ(p3) - z1;
+		double a = uy * vz - uz * vy;
+		double b = uz * vx - ux * vz;
+		double c = ux * vy - uy * vx;
+		if(Math.abs(c) <= Tools.EPSILON){
+			return false;
+		}
+		coefs[0] = -a / c;
+		coefs[1] = -b / c;
+		coefs[2] = (a * x1 + b * y1 + c * z1) / c;
+		return true;
+	}
+
+	/**
+	 * Get the Z value of the point (x,y), interpolated in the triangle of the
+	 * mesh that contains it.
+	 * @param x
+	 * @param y
+	 * @return
+	 *	The interpolated Z, Double.NaN if (x,y) is outside the mesh, 0 if
+	 *	the containing triangle is vertical (as in DTriangle.interpolateZ).
+	 */
+	public double interpolateZ(double x, double y) {
+		int tri = locate(x, y);
+		if(tri < 0){
+			return Double.NaN;
+		}
+		double[] coefs = new double[DTRI];
+		if(!getPlane(tri, coefs)){
+			return 0;
+		}
+		return coefs[0] * x + coefs[1] * y + coefs[2];
+	}
+
+	/**
+	 * Get the slope of the triangle that contains (x,y). As in DTriangle.getSlope,
+	 * the value is negative, as it is the slope of the steepest downward vector.
+	 * @param x
+	 * @param y
+	 * @return
+	 *	The slope, Double.NaN if (x,y) is outside the mesh or if the
+	 *	containing triangle is vertical.
+	 */
+	public double getSlope(double x, double y) {
+		int tri = locate(x, y);
+		if(tri < 0){
+			return Double.NaN;
+		}
+		double[] coefs = new double[DTRI];
+		if(!getPlane(tri, coefs)){
+			return Double.NaN;
+		}
+		return -Math.sqrt(coefs[0] * coefs[0] + coefs[1] * coefs[1]);
+	}
+
+	/**
+	 * Get the slope of the triangle that contains (x,y), in degrees.
+	 * @param x
+	 * @param y
+	 * @return
+	 *	The slope, in degrees, Double.NaN if it can't be computed.
+	 */
+	public double getSlopeInDegree(double x, double y) {
+		return Math.toDegrees(Math.atan(getSlope(x, y)));
+	}
+
+	/**
+	 * Release the file used by this mesh. The mapped buffers are released
+	 * by the garbage collector, and must not be used after this call.
+	 * @throws IOException
+	 */
+	@Override
+	public void close() throws IOException {
+		segments = null;
+		file.close();
+	}
+}
@@ -0,0 +1,254 @@
+/**
+ *
+ * jDelaunay is a library dedicated to the processing of Delaunay and constrained
+ * Delaunay triangulations from PSLG inputs.
+ *
+ * This library is developed at French IRSTV institute as part of the AvuPur and Eval-PDU project,
+ * funded by the French Agence Nationale de la Recherche (ANR) under contract
+ * ANR-07-VULN-01 and ANR-08-VILL-0005-01 .
+ *
+ * jDelaunay is distributed under GPL 3 license. It is produced by the "Atelier SIG" team of
+ * the IRSTV Institute <http://www.irstv.fr/> CNRS FR 2488.
+ *
+ * Copyright (C) 2010-2012 IRSTV FR CNRS 2488
+ *
+ * jDelaunay is free software: you can redistribute it and/or modify it under the
+ * terms of the GNU General Public License as published by the Free Software
+ * Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ *
+ * jDelaunay is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR
+ * A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * jDelaunay. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * For more information, please consult: <http://www.orbisgis.org/>
+ * or contact directly:
+ * info_at_ orbisgis.org
+ */
+package org.jdelaunay.delaunay.io;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import org.jdelaunay.delaunay.ConstrainedMesh;
+import org.jdelaunay.delaunay.error.DelaunayError;
+import org.jdelaunay.delaunay.geometries.DEdge;
+import org.jdelaunay.delaunay.geometries.DPoint;
+import org.jdelaunay.delaunay.geometries.DTriangle;
+
+/**
+ * Writes a computed mesh in the file format read by MappedMesh.
+ *
+ * @author Alexis Guéganno
+ */
+public final class MappedMeshWriter {
+
+	//The size of the buffer used to write the file.
+	private static final int BUFFER_SIZE = 1 << 16;
+	//The mean number of triangles in a cell of the spatial index.
+	private static final int TRIANGLES_PER_CELL = 2;
+
+	/**
+	 * Default constructor is private : this is an utility class.
+	 */
+	private MappedMeshWriter(){
+	}
+
+	/**
+	 * Write the mesh in the file f, so that it can be opened with MappedMesh.
+	 * @param mesh
+	 *	A mesh where processDelaunay has been called.
+	 * @param f
+	 * @throws IOException
+	 * @throws DelaunayError
+	 *	If the mesh has not been computed yet.
+	 */
+	public static void write(ConstrainedMesh mesh, File f) throws IOException, DelaunayError {
+		if(!mesh.isMeshComputed()){
+			throw new DelaunayError(DelaunayError.DELAUNAY_ERROR_NOT_GENERATED);
+		}
+		List<DPoint> points = mesh.getPoints();
+		List<DTriangle> triangles = mesh.getTriangleList();
+		Map<DPoint, Integer> pointIndex = new IdentityHashMap<DPoint, Integer>(points.size());
+		for(int i = 0; i < points.size(); i++){
+			pointIndex.put(points.get(i), i);
+		}
+		Map<DTriangle, Integer> triIndex = new IdentityHashMap<DTriangle, Integer>(triangles.size());
+		for(int i = 0; i < triangles.size(); i++){
+			triIndex.put(triangles.get(i), i);
+		}
+		int nbTri = triangles.size();
+		int[] vertices = new int[3 * nbTri];
+		int[] neighbours = new int[3 * nbTri];
+		double minX = Double.POSITIVE_INFINITY;
+		double minY = Double.POSITIVE_INFINITY;
+		double maxX = Double.NEGATIVE_INFINITY;
+		double maxY = Double.NEGATIVE_INFINITY;
+		for(DPoint pt : points){
+			minX = Math.min(minX, pt.getX());
+			minY = Math.min(minY, pt.getY());
+			maxX = Math.max(maxX, pt.getX());
+			maxY = Math.max(maxY, pt.getY());
+		}
+		for(int t = 0; t < nbTri; t++){
+			DTriangle tri = triangles.get(t);
+			DPoint p0 = tri.getPoint(0);
+			DPoint p1 = tri.getPoint(1);
+			DPoint p2 = tri.getPoint(2);
+			double cross = (p1.getX() - p0.getX()) * (p2.getY() - p0.getY())
+				- (p1.getY() - p0.getY()) * (p2.getX() - p0.getX());
+			if(cross < 0){
+				DPoint swap = p1;
+				p1 = p2;
+				p2 = swap;
+			}
+			DPoint[] pts = {p0, p1, p2};
+			for(int k = 0; k < 3; k++){
+				vertices[3 * t + k] = pointIndex.get(pts[k]);
+				DEdge opp = tri.getOppositeEdge(pts[k]);
+				DTriangle other = opp.getLeft() == tri ? opp.getRight() : opp.getLeft();
+				Integer n = other == null ? null : triIndex.get(other);
+				neighbours[3 * t + k] = n == null ? -1 : n;
+			}
+		}
+		//The spatial index.
+		int nbCells = Math.max(1, nbTri / TRIANGLES_PER_CELL);
+		double width = Math.max(maxX - minX, Double.MIN_VALUE);
+		double height = Math.max(maxY - minY, Double.MIN_VALUE);
+		int cols = Math.max(1, (int) Math.round(Math.sqrt(nbCells * width / height)));
+		cols = Math.min(cols, nbCells);
+		int rows = Math.max(1, nbCells / cols);
+		double cellWidth = width / cols;
+		double cellHeight = height / rows;
+		int[] grid = buildGrid(points, triangles, vertices, cols, rows, minX, minY, cellWidth, cellHeight);
+		FileOutputStream out = new FileOutputStream(f);
+		try {
+			FileChannel channel = out.getChannel();
+			ByteBuffer buf = ByteBuffer.allocateDirect(BUFFER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+			buf.putInt(MappedMesh.MAGIC);
+			buf.putInt(MappedMesh.VERSION);
+			buf.putInt(points.size());
+			buf.putInt(nbTri);
+			buf.putInt(cols);
+			buf.putInt(rows);
+			buf.putDouble(minX);
+			buf.putDouble(minY);
+			buf.putDouble(maxX);
+			buf.putDouble(maxY);
+			buf.putDouble(cellWidth);
+			buf.putDouble(cellHeight);
+			long written = MappedMesh.HEADER_SIZE;
+			for(DPoint pt : points){
+				ensure(channel, buf, MappedMesh.POINT_SIZE);
+				buf.putDouble(pt.getX());
+				buf.putDouble(pt.getY());
+				buf.putDouble(pt.getZ());
+			}
+			written += (long) points.size() * MappedMesh.POINT_SIZE;
+			written = putInts(channel, buf, vertices, written);
+			written = putInts(channel, buf, neighbours, written);
+			putInts(channel, buf, grid, written);
+			flush(channel, buf);
+		} finally {
+			out.close();
+		}
+	}
+
+	/**
+	 * Build the grid used as a spatial index. Each cell references a triangle
+	 * that is in, or close to, the cell.
+	 */
+	private static int[] buildGrid(List<DPoint> points, List<DTriangle> triangles, int[] vertices,
+			int cols, int rows, double minX, double minY, double cellWidth, double cellHeight) {
+		int[] grid = new int[cols * rows];
+		Arrays.fill(grid, -1);
+		int[] queue = new int[grid.length];
+		int tail = 0;
+		for(int t = 0; t < triangles.size(); t++){
+			double x = 0;
+			double y = 0;
+			for(int k = 0; k < 3; k++){
+				DPoint pt = points.get(vertices[3 * t + k]);
+				x += pt.getX();
+				y += pt.getY();
+			}
+			int col = Math.min(cols - 1, Math.max(0, (int) ((x / 3 - minX) / cellWidth)));
+			int row = Math.min(rows - 1, Math.max(0, (int) ((y / 3 - minY) / cellHeight)));
+			int cell = row * cols + col;
+			if(grid[cell] == -1){
+				grid[cell] = t;
+				queue[tail++] = cell;
+			}
+		}
+		if(tail == 0){
+			Arrays.fill(grid, 0);
+			return grid;
+		}
+		//The empty cells receive the triangle of their nearest filled cell.
+		for(int head = 0; head < tail; head++){
+			int cell = queue[head];
+			int col = cell % cols;
+			int row = cell / cols;
+			int[] next = {col > 0 ? cell - 1 : -1, col < cols - 1 ? cell + 1 : -1,
+				row > 0 ? cell - cols : -1, row < rows - 1 ? cell + cols : -1};
+			for(int n : next){
+				if(n >= 0 && grid[n] == -1){
+					grid[n] = grid[cell];
+					queue[tail++] = n;
+				}
+			}
+		}
+		return grid;
+	}
+
+	/**
+	 * Write the values in the buffer, and pad them with zeros to keep the
+	 * next section aligned on 8 bytes.
+	 * @return
+	 *	The offset of the next section in the file.
+	 */
+	private static long putInts(FileChannel channel, ByteBuffer buf, int[] values, long written)
+			throws IOException {
+		for(int v : values){
+			ensure(channel, buf, 4);
+			buf.putInt(v);
+		}
+		long end = written + 4L * values.length;
+		long aligned = MappedMesh.align(end);
+		for(long i = end; i < aligned; i++){
+			ensure(channel, buf, 1);
+			buf.put((byte) 0);
+		}
+		return aligned;
+	}
+
+	/**
+	 * Flush the buffer if it can't receive size more bytes.
+	 */
+	private static void ensure(FileChannel channel, ByteBuffer buf, int size) throws IOException {
+		if(buf.remaining() < size){
+			flush(channel, buf);
+		}
+	}
+
+	/**
+	 * Write the content of the buffer in the channel, and clear it.
+	 */
+	private static void flush(FileChannel channel, ByteBuffer buf) throws IOException {
+		buf.flip();
+		while(buf.hasRemaining()){
+			channel.write(buf);
+		}
+		buf.clear();
+	}
+}
@@ -0,0 +1,124 @@
+/**
+ *
+ * jDelaunay is a library dedicated to the processing of Delaunay and constrained
+ * Delaunay triangulations from PSLG inputs.
+ *
+ * This library is developed at French IRSTV institute as part of the AvuPur and Eval-PDU project,
+ * funded by the French Agence Nationale de la Recherche (ANR) under contract
+ * ANR-07-VULN-01 and ANR-08-VILL-0005-01 .
+ *
+ * jDelaunay is distributed under GPL 3 license. It is produced by the "Atelier SIG" team of
+ * the IRSTV Institute <http://www.irstv.fr/> CNRS FR 2488.
+ *
+ * Copyright (C) 2010-2012 IRSTV FR CNRS 2488
+ *
+ * jDelaunay is free software: you can redistribute it and/or modify it under the
+ * terms of the GNU General Public License as published by the Free Software
+ * Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ *
+ * jDelaunay is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR
+ * A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * jDelaunay. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * For more information, please consult: <http://www.orbisgis.org/>
+ * or contact directly:
+ * info_at_ orbisgis.org
+ */
+package org.jdelaunay.delaunay.io;
+
+import java.util.ArrayList;
+import java.util.List;
+import org.jdelaunay.delaunay.ConstrainedMesh;
+import org.jdelaunay.delaunay.error.DelaunayError;
+import org.jdelaunay.delaunay.geometries.DEdge;
+import org.jdelaunay.delaunay.geometries.DPoint;
+
+/**
+ * Gathers the points and the constraint edges read from an input source, and
+ * loads them in a ConstrainedMesh in one pass.<p></p>
+ *
+ * Adding the input data one by one with addPoint or addConstraintEdge
+ * costs an insertion in a sorted list for each new point, and is consequently
+ * quadratic. Here, the data are sent to the mesh with addPoints and
+ * addConstraints, that sort and deduplicate them only once.
+ *
+ * @author Alexis Guéganno
+ */
+public final class MeshLoader {
+
+	private List<DPoint> points;
+	private List<DEdge> edges;
+
+	/**
+	 * Build a new, empty, loader.
+	 */
+	public MeshLoader(){
+		points = new ArrayList<DPoint>();
+		edges = new ArrayList<DEdge>();
+	}
+
+	/**
+	 * Add a point.
+	 * @param x
+	 * @param y
+	 * @param z
+	 * @return
+	 *	The newly created point.
+	 * @throws DelaunayError
+	 */
+	public DPoint addPoint(double x, double y, double z) throws DelaunayError {
+		DPoint pt = new DPoint(x, y, z);
+		points.add(pt);
+		return pt;
+	}
+
+	/**
+	 * Add a constraint edge between two points that have been created with
+	 * addPoint. Degenerated edges are ignored.
+	 * @param start
+	 * @param end
+	 */
+	public void addEdge(DPoint start, DPoint end) {
+		if(!start.equals(end)){
+			edges.add(new DEdge(start, end));
+		}
+	}
+
+	/**
+	 * Get the points that have been read so far.
+	 * @return
+	 *	The points, including the ends of the edges.
+	 */
+	public List<DPoint> getPoints() {
+		return points;
+	}
+
+	/**
+	 * Get the constraint edges that have been read so far.
+	 * @return
+	 *	The constraint edges.
+	 */
+	public List<DEdge> getEdges() {
+		return edges;
+	}
+
+	/**
+	 * Load the points and the edges in the mesh. The points and the constraints
+	 * already present in the mesh are kept. When several points share the
+	 * same (x,y) coordinates, only the first one is kept.
+	 * @param mesh
+	 * @throws DelaunayError
+	 *	If the mesh has already been computed.
+	 */
+	public void load(ConstrainedMesh mesh) throws DelaunayError {
+		if(mesh.isMeshComputed()){
+			throw new DelaunayError(DelaunayError.DELAUNAY_ERROR_GENERATED);
+		}
+		mesh.addPoints(points);
+		mesh.addConstraints(edges);
+	}
+}
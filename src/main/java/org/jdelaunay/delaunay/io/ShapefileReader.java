@@ -0,0 +1,194 @@
+/**
+ *
+ * jDelaunay is a library dedicated to the processing of Delaunay and constrained
+ * Delaunay triangulations from PSLG inputs.
+ *
+ * This library is developed at French IRSTV institute as part of the AvuPur and Eval-PDU project,
+ * funded by the French Agence Nationale de la Recherche (ANR) under contract
+ * ANR-07-VULN-01 and ANR-08-VILL-0005-01 .
+ *
+ * jDelaunay is distributed under GPL 3 license. It is produced by the "Atelier SIG" team of
+ * the IRSTV Institute <http://www.irstv.fr/> CNRS FR 2488.
+ *
+ * Copyright (C) 2010-2012 IRSTV FR CNRS 2488
+ *
+ * jDelaunay is free software: you can redistribute it and/or modify it under the
+ * terms of the GNU General Public License as published by the Free Software
+ * Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ *
+ * jDelaunay is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR
+ * A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * jDelaunay. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * For more information, please consult: <http://www.orbisgis.org/>
+ * or contact directly:
+ * info_at_ orbisgis.org
+ */
+package org.jdelaunay.delaunay.io;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import org.jdelaunay.delaunay.error.DelaunayError;
+import org.jdelaunay.delaunay.geometries.DPoint;
+
+/**
+ * A reader for the main file (.shp) of the ESRI Shapefile format. The points
+ * and the polylines, with or without Z, are supported. The vertices are sent
+ * to a MeshLoader, the polylines are sent as constraint edges.
+ *
+ * @author Alexis Guéganno
+ */
+public final class ShapefileReader {
+
+	public static final int NULL_SHAPE = 0;
+	public static final int POINT = 1;
+	public static final int POLYLINE = 3;
+	public static final int MULTIPOINT = 8;
+	public static final int POINTZ = 11;
+	public static final int POLYLINEZ = 13;
+	public static final int MULTIPOINTZ = 18;
+	public static final int POINTM = 21;
+	public static final int POLYLINEM = 23;
+	public static final int MULTIPOINTM = 28;
+
+	private static final int FILE_CODE = 9994;
+	private static final int HEADER_SIZE = 100;
+	private static final int RECORD_HEADER_SIZE = 8;
+	//The size of a bounding box, and of a range of values.
+	private static final int BOX_SIZE = 32;
+	private static final int RANGE_SIZE = 16;
+
+	/**
+	 * Default constructor is private : this is an utility class.
+	 */
+	private ShapefileReader(){
+	}
+
+	/**
+	 * Read all the features of the .shp file f.
+	 * @param f
+	 * @param loader
+	 *	The loader that receives the points and the edges.
+	 * @throws IOException
+	 *	If f can't be read, or if it contains unsupported shapes.
+	 * @throws DelaunayError
+	 */
+	public static void read(File f, MeshLoader loader) throws IOException, DelaunayError {
+		RandomAccessFile file = new RandomAccessFile(f, "r");
+		try {
+			FileChannel channel = file.getChannel();
+			ByteBuffer buf = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+			read(buf, loader);
+		} finally {
+			file.close();
+		}
+	}
+
+	/**
+	 * Read all the features of the .shp file contained in buf.
+	 * @param buf
+	 * @param loader
+	 *	The loader that receives the points and the edges.
+	 * @throws IOException
+	 *	If buf does not contain a valid shapefile, or if it contains
+	 *	unsupported shapes.
+	 * @throws DelaunayError
+	 */
+	public static void read(ByteBuffer buf, MeshLoader loader) throws IOException, DelaunayError {
+		buf.order(ByteOrder.BIG_ENDIAN);
+		if(buf.limit() < HEADER_SIZE || buf.getInt(0) != FILE_CODE){
+			throw new IOException("Not a shapefile");
+		}
+		long length = Math.min(2L * buf.getInt(24), buf.limit());
+		int pos = HEADER_SIZE;
+		while(pos + RECORD_HEADER_SIZE <= length){
+			buf.order(ByteOrder.BIG_ENDIAN);
+			int contentLength = 2 * buf.getInt(pos + 4);
+			int start = pos + RECORD_HEADER_SIZE;
+			if(start + contentLength > length){
+				throw new IOException("Truncated shapefile");
+			}
+			buf.order(ByteOrder.LITTLE_ENDIAN);
+			readShape(buf, start, loader);
+			pos = start + contentLength;
+		}
+	}
+
+	/**
+	 * Read the shape whose content starts at pos.
+	 */
+	private static void readShape(ByteBuffer buf, int pos, MeshLoader loader) throws IOException, DelaunayError {
+		int type = buf.getInt(pos);
+		switch(type){
+			case NULL_SHAPE:
+				break;
+			case POINT:
+			case POINTM:
+				loader.addPoint(buf.getDouble(pos + 4), buf.getDouble(pos + 12), 0);
+				break;
+			case POINTZ:
+				loader.addPoint(buf.getDouble(pos + 4), buf.getDouble(pos + 12), buf.getDouble(pos + 20));
+				break;
+			case MULTIPOINT:
+			case MULTIPOINTM:
+			case MULTIPOINTZ:
+				readMultiPoint(buf, pos, type == MULTIPOINTZ, loader);
+				break;
+			case POLYLINE:
+			case POLYLINEM:
+			case POLYLINEZ:
+				readPolyLine(buf, pos, type == POLYLINEZ, loader);
+				break;
+			default:
+				throw new IOException("Unsupported shape type : " + type);
+		}
+	}
+
+	/**
+	 * Read a multipoint.
+	 */
+	private static void readMultiPoint(ByteBuffer buf, int pos, boolean hasZ, MeshLoader loader)
+			throws DelaunayError {
+		int numPoints = buf.getInt(pos + 4 + BOX_SIZE);
+		int xy = pos + 8 + BOX_SIZE;
+		int z = xy + 16 * numPoints + RANGE_SIZE;
+		for(int i = 0; i < numPoints; i++){
+			loader.addPoint(buf.getDouble(xy + 16 * i), buf.getDouble(xy + 16 * i + 8),
+				hasZ ? buf.getDouble(z + 8 * i) : 0);
+		}
+	}
+
+	/**
+	 * Read a polyline. Each of its parts is sent to the loader as a sequence of
+	 * constraint edges.
+	 */
+	private static void readPolyLine(ByteBuffer buf, int pos, boolean hasZ, MeshLoader loader)
+			throws DelaunayError {
+		int numParts = buf.getInt(pos + 4 + BOX_SIZE);
+		int numPoints = buf.getInt(pos + 8 + BOX_SIZE);
+		int parts = pos + 12 + BOX_SIZE;
+		int xy = parts + 4 * numParts;
+		int z = xy + 16 * numPoints + RANGE_SIZE;
+		for(int p = 0; p < numParts; p++){
+			int first = buf.getInt(parts + 4 * p);
+			int last = p + 1 < numParts ? buf.getInt(parts + 4 * (p + 1)) : numPoints;
+			DPoint prev = null;
+			for(int i = first; i < last; i++){
+				DPoint pt = loader.addPoint(buf.getDouble(xy + 16 * i), buf.getDouble(xy + 16 * i + 8),
+					hasZ ? buf.getDouble(z + 8 * i) : 0);
+				if(prev != null){
+					loader.addEdge(prev, pt);
+				}
+				prev = pt;
+			}
+		}
+	}
+}
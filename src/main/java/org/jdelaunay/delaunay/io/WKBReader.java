@@ -0,0 +1,195 @@
+/**
+ *
+ * jDelaunay is a library dedicated to the processing of Delaunay and constrained
+ * Delaunay triangulations from PSLG inputs.
+ *
+ * This library is developed at French IRSTV institute as part of the AvuPur and Eval-PDU project,
+ * funded by the French Agence Nationale de la Recherche (ANR) under contract
+ * ANR-07-VULN-01 and ANR-08-VILL-0005-01 .
+ *
+ * jDelaunay is distributed under GPL 3 license. It is produced by the "Atelier SIG" team of
+ * the IRSTV Institute <http://www.irstv.fr/> CNRS FR 2488.
+ *
+ * Copyright (C) 2010-2012 IRSTV FR CNRS 2488
+ *
+ * jDelaunay is free software: you can redistribute it and/or modify it under the
+ * terms of the GNU General Public License as published by the Free Software
+ * Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ *
+ * jDelaunay is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR
+ * A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * jDelaunay. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * For more information, please consult: <http://www.orbisgis.org/>
+ * or contact directly:
+ * info_at_ orbisgis.org
+ */
+package org.jdelaunay.delaunay.io;
+
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import org.jdelaunay.delaunay.error.DelaunayError;
+import org.jdelaunay.delaunay.geometries.DPoint;
+
+/**
+ * A reader for geometries encoded in Well-Known Binary. The points are sent
+ * to a MeshLoader, the linestrings and the rings of the polygons are sent as
+ * sequences of constraint edges.<p></p>
+ *
+ * Both the ISO (type + 1000 for Z) and the PostGIS extended (Z flag, optional
+ * SRID) encodings are supported. The M values are ignored.
+ *
+ * @author Alexis Guéganno
+ */
+public final class WKBReader {
+
+	public static final int POINT = 1;
+	public static final int LINESTRING = 2;
+	public static final int POLYGON = 3;
+	public static final int MULTIPOINT = 4;
+	public static final int MULTILINESTRING = 5;
+	public static final int MULTIPOLYGON = 6;
+	public static final int GEOMETRYCOLLECTION = 7;
+
+	//Flags of the extended WKB.
+	private static final int EWKB_Z = 0x80000000;
+	private static final int EWKB_M = 0x40000000;
+	private static final int EWKB_SRID = 0x20000000;
+	private static final int EWKB_FLAGS = EWKB_Z | EWKB_M | EWKB_SRID;
+	//ISO WKB dimension offsets.
+	private static final int ISO_Z = 1000;
+	private static final int ISO_M = 2000;
+	private static final int ISO_ZM = 3000;
+
+	/**
+	 * Default constructor is private : this is an utility class.
+	 */
+	private WKBReader(){
+	}
+
+	/**
+	 * Read the geometry encoded in wkb.
+	 * @param wkb
+	 * @param loader
+	 *	The loader that receives the points and the edges.
+	 * @throws IOException
+	 *	If wkb is not a valid geometry.
+	 * @throws DelaunayError
+	 */
+	public static void read(byte[] wkb, MeshLoader loader) throws IOException, DelaunayError {
+		read(ByteBuffer.wrap(wkb), loader);
+	}
+
+	/**
+	 * Read the geometry that starts at the current position of buf. After this
+	 * call, the position of buf is just after the geometry, so that
+	 * consecutive geometries can be read from the same buffer.
+	 * @param buf
+	 * @param loader
+	 *	The loader that receives the points and the edges.
+	 * @throws IOException
+	 *	If buf does not contain a valid geometry.
+	 * @throws DelaunayError
+	 */
+	public static void read(ByteBuffer buf, MeshLoader loader) throws IOException, DelaunayError {
+		try {
+			readGeometry(buf, loader);
+		} catch (BufferUnderflowException e) {
+			throw new IOException("Truncated WKB geometry", e);
+		}
+	}
+
+	/**
+	 * Read a geometry, with its header.
+	 */
+	private static void readGeometry(ByteBuffer buf, MeshLoader loader) throws IOException, DelaunayError {
+		byte order = buf.get();
+		if(order == 0){
+			buf.order(ByteOrder.BIG_ENDIAN);
+		} else if(order == 1){
+			buf.order(ByteOrder.LITTLE_ENDIAN);
+		} else {
+			throw new IOException("Invalid WKB byte order : " + order);
+		}
+		int type = buf.getInt();
+		boolean hasZ = (type & EWKB_Z) != 0;
+		boolean hasM = (type & EWKB_M) != 0;
+		if((type & EWKB_SRID) != 0){
+			buf.getInt();
+		}
+		type &= ~EWKB_FLAGS;
+		if(type > ISO_ZM){
+			hasZ = true;
+			hasM = true;
+			type -= ISO_ZM;
+		} else if(type > ISO_M){
+			hasM = true;
+			type -= ISO_M;
+		} else if(type > ISO_Z){
+			hasZ = true;
+			type -= ISO_Z;
+		}
+		switch(type){
+			case POINT:
+				readPoint(buf, hasZ, hasM, loader);
+				break;
+			case LINESTRING:
+				readLineString(buf, hasZ, hasM, loader);
+				break;
+			case POLYGON:
+				int rings = buf.getInt();
+				for(int i = 0; i < rings; i++){
+					readLineString(buf, hasZ, hasM, loader);
+				}
+				break;
+			case MULTIPOINT:
+			case MULTILINESTRING:
+			case MULTIPOLYGON:
+			case GEOMETRYCOLLECTION:
+				int n = buf.getInt();
+				for(int i = 0; i < n; i++){
+					readGeometry(buf, loader);
+				}
+				break;
+			default:
+				throw new IOException("Unsupported WKB geometry type : " + type);
+		}
+	}
+
+	/**
+	 * Read the coordinates of a point.
+	 */
+	private static DPoint readPoint(ByteBuffer buf, boolean hasZ, boolean hasM, MeshLoader loader)
+			throws DelaunayError {
+		double x = buf.getDouble();
+		double y = buf.getDouble();
+		double z = hasZ ? buf.getDouble() : 0;
+		if(hasM){
+			buf.getDouble();
+		}
+		return loader.addPoint(x, y, z);
+	}
+
+	/**
+	 * Read a linestring, or a ring. Its segments are sent to the loader as
+	 * constraint edges.
+	 */
+	private static void readLineString(ByteBuffer buf, boolean hasZ, boolean hasM, MeshLoader loader)
+			throws DelaunayError {
+		int n = buf.getInt();
+		DPoint prev = null;
+		for(int i = 0; i < n; i++){
+			DPoint pt = readPoint(buf, hasZ, hasM, loader);
+			if(prev != null){
+				loader.addEdge(prev, pt);
+			}
+			prev = pt;
+		}
+	}
+}
@@ -0,0 +1,214 @@
+/**
+ *
+ * jDelaunay is a library dedicated to the processing of Delaunay and constrained
+ * Delaunay triangulations from PSLG inputs.
+ *
+ * This library is developed at French IRSTV institute as part of the AvuPur and Eval-PDU project,
+ * funded by the French Agence Nationale de la Recherche (ANR) under contract
+ * ANR-07-VULN-01 and ANR-08-VILL-0005-01 .
+ *
+ * jDelaunay is distributed under GPL 3 license. It is produced by the "Atelier SIG" team of
+ * the IRSTV Institute <http://www.irstv.fr/> CNRS FR 2488.
+ *
+ * Copyright (C) 2010-2012 IRSTV FR CNRS 2488
+ *
+ * jDelaunay is free software: you can redistribute it and/or modify it under the
+ * terms of the GNU General Public License as published by the Free Software
+ * Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ *
+ * jDelaunay is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR
+ * A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * jDelaunay. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * For more information, please consult: <http://www.orbisgis.org/>
+ * or contact directly:
+ * info_at_ orbisgis.org
+ */
+package org.jdelaunay.delaunay.metrics;
+
+/**
+ * A histogram of values, with a fixed number of bins spread linearly or
+ * logarithmically between two bounds. The values out of these bounds are
+ * counted in the first or in the last bin. The exact minimum, maximum and sum
+ * of the values are kept too.<br/>
+ * Two histograms with the same bins can be merged, so that values can be
+ * accumulated in several threads and gathered at the end.
+ *
+ * @author Alexis Guéganno
+ */
+public final class Histogram {
+
+	private final double lower;
+	private final double upper;
+	private final boolean logarithmic;
+	//The bounds of the bins, in the space where they are regularly spaced.
+	private final double start;
+	private final double width;
+	private final long[] bins;
+	private long count = 0;
+	private double sum = 0;
+	private double min = Double.POSITIVE_INFINITY;
+	private double max = Double.NEGATIVE_INFINITY;
+
+	/**
+	 * Build an empty histogram.
+	 * @param lower
+	 *	The lower bound of the first bin. It must be positive if the bins
+	 *	are logarithmic.
+	 * @param upper
+	 *	The upper bound of the last bin.
+	 * @param binCount
+	 *	The number of bins.
+	 * @param logarithmic
+	 *	If true, the bins are regularly spaced on the logarithm of the values.
+	 */
+	public Histogram(double lower, double upper, int binCount, boolean logarithmic) {
+		if(binCount < 1 || !(upper > lower) || (logarithmic && lower <= 0)){
+			throw new IllegalArgumentException("Invalid bins : " + lower + ", " + upper + ", " + binCount);
+		}
+		this.lower = lower;
+		this.upper = upper;
+		this.logarithmic = logarithmic;
+		this.start = logarithmic ? Math.log(lower) : lower;
+		this.width = ((logarithmic ? Math.log(upper) : upper) - start) / binCount;
+		this.bins = new long[binCount];
+	}
+
+	/**
+	 * Add a value to this histogram. NaN values are ignored.
+	 * @param value
+	 */
+	public void add(double value) {
+		if(Double.isNaN(value)){
+			return;
+		}
+		double v;
+		if(logarithmic){
+			v = value > 0 ? Math.log(value) : Double.NEGATIVE_INFINITY;
+		} else {
+			v = value;
+		}
+		int index = (int) Math.max(0, Math.min(bins.length - 1, Math.floor((v - start) / width)));
+		bins[index]++;
+		count++;
+		sum += value;
+		min = Math.min(min, value);
+		max = Math.max(max, value);
+	}
+
+	/**
+	 * Add the values of other to this histogram.
+	 * @param other
+	 *	A histogram with the same bins as this one.
+	 */
+	public void merge(Histogram other) {
+		if(other.lower != lower || other.upper != upper || other.logarithmic != logarithmic
+			|| other.bins.length != bins.length){
+			throw new IllegalArgumentException("Histograms with different bins can't be merged");
+		}
+		for(int i = 0; i < bins.length; i++){
+			bins[i] += other.bins[i];
+		}
+		count += other.count;
+		sum += other.sum;
+		min = Math.min(min, other.min);
+		max = Math.max(max, other.max);
+	}
+
+	/**
+	 * Get the number of values in this histogram.
+	 * @return
+	 */
+	public long getCount() {
+		return count;
+	}
+
+	/**
+	 * Get the smallest value, or NaN if the histogram is empty.
+	 * @return
+	 */
+	public double getMin() {
+		return count == 0 ? Double.NaN : min;
+	}
+
+	/**
+	 * Get the greatest value, or NaN if the histogram is empty.
+	 * @return
+	 */
+	public double getMax() {
+		return count == 0 ? Double.NaN : max;
+	}
+
+	/**
+	 * Get the mean of the values, or NaN if the histogram is empty.
+	 * @return
+	 */
+	public double getMean() {
+		return count == 0 ? Double.NaN : sum / count;
+	}
+
+	/**
+	 * Get the number of bins.
+	 * @return
+	 */
+	public int getBinCount() {
+		return bins.length;
+	}
+
+	/**
+	 * Get the number of values in the bin i.
+	 * @param i
+	 * @return
+	 */
+	public long getBin(int i) {
+		return bins[i];
+	}
+
+	/**
+	 * Get the lower bound of the bin i.
+	 * @param i
+	 * @return
+	 */
+	public double getBinLowerBound(int i) {
+		double v = start + i * width;
+		return logarithmic ? Math.exp(v) : v;
+	}
+
+	/**
+	 * Get an estimation of the value below which a given fraction of the
+	 * values are. The estimation is interpolated in the bin that contains
+	 * the percentile, and is always between the minimum and the maximum.
+	 * @param fraction
+	 *	A number between 0 and 1, 0.5 for the median.
+	 * @return
+	 *	The percentile, or NaN if the histogram is empty.
+	 */
+	public double getPercentile(double fraction) {
+		if(fraction < 0 || fraction > 1){
+			throw new IllegalArgumentException("The fraction must be between 0 and 1");
+		}
+		if(count == 0){
+			return Double.NaN;
+		}
+		double target = Math.max(1, Math.ceil(fraction * count));
+		long before = 0;
+		int i = 0;
+		while(before + bins[i] < target){
+			before += bins[i];
+			i++;
+		}
+		double v = start + (i + (target - before) / bins[i]) * width;
+		double ret = logarithmic ? Math.exp(v) : v;
+		return Math.max(min, Math.min(max, ret));
+	}
+
+	@Override
+	public String toString() {
+		return "Histogram[count=" + count + ", min=" + getMin() + ", mean=" + getMean()
+			+ ", median=" + getPercentile(0.5) + ", max=" + getMax() + "]";
+	}
+}
@@ -0,0 +1,54 @@
+/**
+ *
+ * jDelaunay is a library dedicated to the processing of Delaunay and constrained
+ * Delaunay triangulations from PSLG inputs.
+ *
+ * This library is developed at French IRSTV institute as part of the AvuPur and Eval-PDU project,
+ * funded by the French Agence Nationale de la Recherche (ANR) under contract
+ * ANR-07-VULN-01 and ANR-08-VILL-0005-01 .
+ *
+ * jDelaunay is distributed under GPL 3 license. It is produced by the "Atelier SIG" team of
+ * the IRSTV Institute <http://www.irstv.fr/> CNRS FR 2488.
+ *
+ * Copyright (C) 2010-2012 IRSTV FR CNRS 2488
+ *
+ * jDelaunay is free software: you can redistribute it and/or modify it under the
+ * terms of the GNU General Public License as published by the Free Software
+ * Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ *
+ * jDelaunay is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR
+ * A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * jDelaunay. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * For more information, please consult: <http://www.orbisgis.org/>
+ * or contact directly:
+ * info_at_ orbisgis.org
+ */
+package org.jdelaunay.delaunay.metrics;
+
+/**
+ * The operations that are counted while processing a mesh, and reported to a
+ * MeshMetricsListener.
+ *
+ * @author Alexis Guéganno
+ */
+public enum MeshCounter {
+	/** The flip-flap operations that have been performed. */
+	FLIPS,
+	/** The edges that have been put in the queue of the flip-flap algorithm. */
+	BAD_EDGES_ENQUEUED,
+	/** The points inserted in the boundary during the sweep. */
+	SWEEP_INSERTIONS,
+	/** The boundary parts a point has been connected to, summed over the sweep. */
+	BOUNDARY_PARTS_CONNECTED,
+	/** The triangles visited while searching the container of a point. */
+	LOCATION_STEPS,
+	/** The circumcenters whose insertion has been reverted, because it encroached an edge. */
+	CIRCUMCENTERS_REJECTED,
+	/** The encroached edges that have been split. */
+	ENCROACHED_SPLITS
+}
@@ -0,0 +1,114 @@
+/**
+ *
+ * jDelaunay is a library dedicated to the processing of Delaunay and constrained
+ * Delaunay triangulations from PSLG inputs.
+ *
+ * This library is developed at French IRSTV institute as part of the AvuPur and Eval-PDU project,
+ * funded by the French Agence Nationale de la Recherche (ANR) under contract
+ * ANR-07-VULN-01 and ANR-08-VILL-0005-01 .
+ *
+ * jDelaunay is distributed under GPL 3 license. It is produced by the "Atelier SIG" team of
+ * the IRSTV Institute <http://www.irstv.fr/> CNRS FR 2488.
+ *
+ * Copyright (C) 2010-2012 IRSTV FR CNRS 2488
+ *
+ * jDelaunay is free software: you can redistribute it and/or modify it under the
+ * terms of the GNU General Public License as published by the Free Software
+ * Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ *
+ * jDelaunay is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR
+ * A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * jDelaunay. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * For more information, please consult: <http://www.orbisgis.org/>
+ * or contact directly:
+ * info_at_ orbisgis.org
+ */
+package org.jdelaunay.delaunay.metrics;
+
+/**
+ * A MeshMetricsListener that accumulates the durations and the counts it
+ * receives. It is not thread safe : an instance must be attached to only one
+ * mesh at a time.
+ *
+ * @author Alexis Guéganno
+ */
+public final class MeshMetrics implements MeshMetricsListener {
+
+	private static final double NANOS_PER_MILLI = 1e6;
+
+	private final long[] nanos = new long[MeshPhase.values().length];
+	private final long[] calls = new long[MeshPhase.values().length];
+	private final long[] counts = new long[MeshCounter.values().length];
+
+	@Override
+	public void phaseCompleted(MeshPhase phase, long duration) {
+		nanos[phase.ordinal()] += duration;
+		calls[phase.ordinal()]++;
+	}
+
+	@Override
+	public void increment(MeshCounter counter, long n) {
+		counts[counter.ordinal()] += n;
+	}
+
+	/**
+	 * Get the total time spent in a phase.
+	 * @param phase
+	 * @return
+	 *	The duration, in nanoseconds.
+	 */
+	public long getNanos(MeshPhase phase) {
+		return nanos[phase.ordinal()];
+	}
+
+	/**
+	 * Get the number of times a phase has been completed.
+	 * @param phase
+	 * @return
+	 *	The number of completions.
+	 */
+	public long getCalls(MeshPhase phase) {
+		return calls[phase.ordinal()];
+	}
+
+	/**
+	 * Get the value of a counter.
+	 * @param counter
+	 * @return
+	 *	The number of operations.
+	 */
+	public long getCount(MeshCounter counter) {
+		return counts[counter.ordinal()];
+	}
+
+	/**
+	 * Set all the durations and counters to 0.
+	 */
+	public void reset() {
+		for(int i = 0; i < nanos.length; i++){
+			nanos[i] = 0;
+			calls[i] = 0;
+		}
+		for(int i = 0; i < counts.length; i++){
+			counts[i] = 0;
+		}
+	}
+
+	@Override
+	public String toString() {
+		StringBuilder sb = new StringBuilder("MeshMetrics[");
+		for(MeshPhase phase : MeshPhase.values()){
+			sb.append(phase).append("=").append(nanos[phase.ordinal()] / NANOS_PER_MILLI).append("ms, ");
+		}
+		for(MeshCounter counter : MeshCounter.values()){
+			sb.append(counter).append("=").append(counts[counter.ordinal()]).append(", ");
+		}
+		sb.setLength(sb.length() - 2);
+		return sb.append("]").toString();
+	}
+}
@@ -0,0 +1,61 @@
+/**
+ *
+ * jDelaunay is a library dedicated to the processing of Delaunay and constrained
+ * Delaunay triangulations from PSLG inputs.
+ *
+ * This library is developed at French IRSTV institute as part of the AvuPur and Eval-PDU project,
+ * funded by the French Agence Nationale de la Recherche (ANR) under contract
+ * ANR-07-VULN-01 and ANR-08-VILL-0005-01 .
+ *
+ * jDelaunay is distributed under GPL 3 license. It is produced by the "Atelier SIG" team of
+ * the IRSTV Institute <http://www.irstv.fr/> CNRS FR 2488.
+ *
+ * Copyright (C) 2010-2012 IRSTV FR CNRS 2488
+ *
+ * jDelaunay is free software: you can redistribute it and/or modify it under the
+ * terms of the GNU General Public License as published by the Free Software
+ * Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ *
+ * jDelaunay is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR
+ * A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * jDelaunay. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * For more information, please consult: <http://www.orbisgis.org/>
+ * or contact directly:
+ * info_at_ orbisgis.org
+ */
+package org.jdelaunay.delaunay.metrics;
+
+/**
+ * A listener that receives the duration of the phases of the processing of a
+ * mesh, and the counts of the operations it performs. A listener is attached
+ * to a mesh with ConstrainedMesh.setMetricsListener. When no listener is
+ * attached, nothing is measured.<p></p>
+ *
+ * The methods of this interface are called from the hot paths of the
+ * triangulation : they must be fast.
+ *
+ * @author Alexis Guéganno
+ */
+public interface MeshMetricsListener {
+
+	/**
+	 * Called when a phase of the processing ends.
+	 * @param phase
+	 * @param nanos
+	 *	The duration of the phase, in nanoseconds.
+	 */
+	void phaseCompleted(MeshPhase phase, long nanos);
+
+	/**
+	 * Called when some operations have been performed.
+	 * @param counter
+	 * @param n
+	 *	The number of operations.
+	 */
+	void increment(MeshCounter counter, long n);
+}
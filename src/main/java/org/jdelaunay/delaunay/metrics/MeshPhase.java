@@ -0,0 +1,58 @@
+/**
+ *
+ * jDelaunay is a library dedicated to the processing of Delaunay and constrained
+ * Delaunay triangulations from PSLG inputs.
+ *
+ * This library is developed at French IRSTV institute as part of the AvuPur and Eval-PDU project,
+ * funded by the French Agence Nationale de la Recherche (ANR) under contract
+ * ANR-07-VULN-01 and ANR-08-VILL-0005-01 .
+ *
+ * jDelaunay is distributed under GPL 3 license. It is produced by the "Atelier SIG" team of
+ * the IRSTV Institute <http://www.irstv.fr/> CNRS FR 2488.
+ *
+ * Copyright (C) 2010-2012 IRSTV FR CNRS 2488
+ *
+ * jDelaunay is free software: you can redistribute it and/or modify it under the
+ * terms of the GNU General Public License as published by the Free Software
+ * Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ *
+ * jDelaunay is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR
+ * A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * jDelaunay. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * For more information, please consult: <http://www.orbisgis.org/>
+ * or contact directly:
+ * info_at_ orbisgis.org
+ */
+package org.jdelaunay.delaunay.metrics;
+
+/**
+ * The phases of the processing of a mesh whose duration is reported to a
+ * MeshMetricsListener. Some phases are nested : FLAT_REMOVAL includes the
+ * triangulation it triggers, and the time spent in FLIP is not included in
+ * SWEEP.
+ *
+ * @author Alexis Guéganno
+ */
+public enum MeshPhase {
+	/** The sort of the input points and constraints. */
+	SORT,
+	/** The computation of the intersections between the constraints. */
+	CONSTRAINT_INTEGRITY,
+	/** The sweep-line insertion of the points. */
+	SWEEP,
+	/** The flip-flap operations performed during the sweep. */
+	FLIP,
+	/** The refinement of the mesh. */
+	REFINEMENT,
+	/** The removal of the flat triangles. */
+	FLAT_REMOVAL,
+	/** The insertion of a batch of points in a computed mesh. */
+	INSERTION,
+	/** The removal of the triangles on the outside of the mesh. */
+	TRIMMING
+}
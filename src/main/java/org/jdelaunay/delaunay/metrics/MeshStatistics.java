@@ -0,0 +1,343 @@
+/**
+ *
+ * jDelaunay is a library dedicated to the processing of Delaunay and constrained
+ * Delaunay triangulations from PSLG inputs.
+ *
+ * This library is developed at French IRSTV institute as part of the AvuPur and Eval-PDU project,
+ * funded by the French Agence Nationale de la Recherche (ANR) under contract
+ * ANR-07-VULN-01 and ANR-08-VILL-0005-01 .
+ *
+ * jDelaunay is distributed under GPL 3 license. It is produced by the "Atelier SIG" team of
+ * the IRSTV Institute <http://www.irstv.fr/> CNRS FR 2488.
+ *
+ * Copyright (C) 2010-2012 IRSTV FR CNRS 2488
+ *
+ * jDelaunay is free software: you can redistribute it and/or modify it under the
+ * terms of the GNU General Public License as published by the Free Software
+ * Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ *
+ * jDelaunay is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR
+ * A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * jDelaunay. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * For more information, please consult: <http://www.orbisgis.org/>
+ * or contact directly:
+ * info_at_ orbisgis.org
+ */
+package org.jdelaunay.delaunay.metrics;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import org.jdelaunay.delaunay.ConstrainedMesh;
+import org.jdelaunay.delaunay.error.DelaunayError;
+import org.jdelaunay.delaunay.geometries.DEdge;
+import org.jdelaunay.delaunay.geometries.DPoint;
+import org.jdelaunay.delaunay.geometries.DTriangle;
+import org.jdelaunay.delaunay.tools.Tools;
+
+/**
+ * Statistics on the quality of a mesh, computed in a single pass on its
+ * triangles and on its edges. The distributions are kept in histograms whose
+ * bins do not depend on the mesh, so that the statistics of several meshes,
+ * or of several parts of a mesh processed by different threads, can be
+ * merged.
+ *
+ * @author Alexis Guéganno
+ */
+public final class MeshStatistics {
+
+	/**
+	 * The quantities whose distribution is measured.
+	 */
+	public enum Quantity {
+		/** The smallest angle of the triangles, in degrees. */
+		MIN_ANGLE,
+		/** The greatest angle of the triangles, in degrees. */
+		MAX_ANGLE,
+		/** The 2D area of the triangles. */
+		AREA,
+		/** The quality of the triangles, as defined in TriangleQuality : 1 for equilateral triangles. */
+		QUALITY,
+		/** The slope of the triangles, in degrees, between 0 and 90. */
+		SLOPE,
+		/** The 2D length of the edges. */
+		EDGE_LENGTH
+	}
+
+	//The bounds of the logarithmic histograms.
+	private static final double LOG_LOWER = 1e-9;
+	private static final double LOG_UPPER = 1e9;
+	private static final int LOG_BINS = 900;
+	private static final int ANGLE_BINS = 1800;
+	private static final int RATIO_BINS = 1000;
+	private static final double HALF_TURN = 180;
+	private static final double RIGHT_ANGLE = 90;
+	//4 * sqrt(3), to have a quality of 1 for equilateral triangles.
+	private static final double QUALITY_FACTOR = 4 * Math.sqrt(3);
+	//The number of chunks given to each thread.
+	private static final int CHUNKS_PER_THREAD = 4;
+
+	private final Histogram[] histograms = new Histogram[Quantity.values().length];
+	private long triangles = 0;
+	private long flatTriangles = 0;
+	private long edges = 0;
+	private long lockedEdges = 0;
+	private long delaunayViolations = 0;
+
+	/**
+	 * Build empty statistics.
+	 */
+	public MeshStatistics() {
+		histograms[Quantity.MIN_ANGLE.ordinal()] = new Histogram(0, HALF_TURN, ANGLE_BINS, false);
+		histograms[Quantity.MAX_ANGLE.ordinal()] = new Histogram(0, HALF_TURN, ANGLE_BINS, false);
+		histograms[Quantity.AREA.ordinal()] = new Histogram(LOG_LOWER, LOG_UPPER, LOG_BINS, true);
+		histograms[Quantity.QUALITY.ordinal()] = new Histogram(0, 1, RATIO_BINS, false);
+		histograms[Quantity.SLOPE.ordinal()] = new Histogram(0, RIGHT_ANGLE, ANGLE_BINS, false);
+		histograms[Quantity.EDGE_LENGTH.ordinal()] = new Histogram(LOG_LOWER, LOG_UPPER, LOG_BINS, true);
+	}
+
+	/**
+	 * Compute the statistics of a mesh in the current thread.
+	 * @param mesh
+	 * @return
+	 * @throws DelaunayError
+	 */
+	public static MeshStatistics compute(ConstrainedMesh mesh) throws DelaunayError {
+		return compute(mesh, 1);
+	}
+
+	/**
+	 * Compute the statistics of a mesh. The triangles and the edges are split
+	 * in chunks processed by a pool of threads, and the partial statistics are
+	 * merged at the end. The mesh must not be modified during the computation.
+	 * @param mesh
+	 * @param threads
+	 *	The number of threads to use.
+	 * @return
+	 * @throws DelaunayError
+	 */
+	public static MeshStatistics compute(ConstrainedMesh mesh, int threads) throws DelaunayError {
+		if(threads < 1){
+			throw new IllegalArgumentException("At least one thread is needed");
+		}
+		//The triangles are stored in a linked list after a refinement: we
+		//copy the lists to access them by index.
+		final List<DTriangle> triangleList = new ArrayList<DTriangle>(mesh.getTriangleList());
+		final List<DEdge> edgeList = new ArrayList<DEdge>(mesh.getEdges());
+		int chunks = threads == 1 ? 1 : threads * CHUNKS_PER_THREAD;
+		List<Callable<MeshStatistics>> tasks = new ArrayList<Callable<MeshStatistics>>(chunks);
+		for(int c = 0; c < chunks; c++){
+			final int triStart = (int) ((long) triangleList.size() * c / chunks);
+			final int triEnd = (int) ((long) triangleList.size() * (c + 1) / chunks);
+			final int edStart = (int) ((long) edgeList.size() * c / chunks);
+			final int edEnd = (int) ((long) edgeList.size() * (c + 1) / chunks);
+			tasks.add(new Callable<MeshStatistics>() {
+				@Override
+				public MeshStatistics call() throws DelaunayError {
+					MeshStatistics part = new MeshStatistics();
+					for(int i = triStart; i < triEnd; i++){
+						part.addTriangle(triangleList.get(i));
+					}
+					for(int i = edStart; i < edEnd; i++){
+						part.addEdge(edgeList.get(i));
+					}
+					return part;
+				}
+			});
+		}
+		MeshStatistics ret = new MeshStatistics();
+		try {
+			if(threads == 1){
+				for(Callable<MeshStatistics> task : tasks){
+					ret.merge(task.call());
+				}
+			} else {
+				ExecutorService executor = Executors.newFixedThreadPool(threads);
+				try {
+					for(Future<MeshStatistics> future : executor.invokeAll(tasks)){
+						ret.merge(future.get());
+					}
+				} finally {
+					executor.shutdown();
+				}
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new DelaunayError(DelaunayError.DELAUNAY_ERROR_INTERNAL_ERROR, "interrupted");
+		} catch (ExecutionException e) {
+			if(e.getCause() instanceof DelaunayError){
+				throw (DelaunayError) e.getCause();
+			}
+			throw new DelaunayError(DelaunayError.DELAUNAY_ERROR_INTERNAL_ERROR, e.getCause().toString());
+		} catch (DelaunayError e) {
+			throw e;
+		} catch (Exception e) {
+			throw new DelaunayError(DelaunayError.DELAUNAY_ERROR_INTERNAL_ERROR, e.toString());
+		}
+		return ret;
+	}
+
+	/**
+	 * Add the measures of a triangle to these statistics.
+	 * @param tri
+	 */
+	public void addTriangle(DTriangle tri) {
+		DPoint a = tri.getPoint(0);
+		DPoint b = tri.getPoint(1);
+		DPoint c = tri.getPoint(2);
+		double abx = b.getX() - a.getX();
+		double aby = b.getY() - a.getY();
+		double abz = b.getZ() - a.getZ();
+		double acx = c.getX() - a.getX();
+		double acy = c.getY() - a.getY();
+		double acz = c.getZ() - a.getZ();
+		double bcx = c.getX() - b.getX();
+		double bcy = c.getY() - b.getY();
+		double cross = abx * acy - aby * acx;
+		double abs = Math.abs(cross);
+		double angleA = Math.toDegrees(Math.atan2(abs, abx * acx + aby * acy));
+		double angleB = Math.toDegrees(Math.atan2(abs, -abx * bcx - aby * bcy));
+		double angleC = HALF_TURN - angleA - angleB;
+		histograms[Quantity.MIN_ANGLE.ordinal()].add(Math.min(angleA, Math.min(angleB, angleC)));
+		histograms[Quantity.MAX_ANGLE.ordinal()].add(Math.max(angleA, Math.max(angleB, angleC)));
+		histograms[Quantity.AREA.ordinal()].add(abs / 2);
+		double sum = abx * abx + aby * aby + acx * acx + acy * acy + bcx * bcx + bcy * bcy;
+		histograms[Quantity.QUALITY.ordinal()].add(sum > 0 ? QUALITY_FACTOR * abs / 2 / sum : 0);
+		double slope;
+		if(cross == 0){
+			slope = RIGHT_ANGLE;
+		} else {
+			double gx = (abz * acy - acz * aby) / cross;
+			double gy = (acz * abx - abz * acx) / cross;
+			slope = Math.toDegrees(Math.atan(Math.sqrt(gx * gx + gy * gy)));
+		}
+		histograms[Quantity.SLOPE.ordinal()].add(slope);
+		triangles++;
+		if(tri.isFlatSlope()){
+			flatTriangles++;
+		}
+	}
+
+	/**
+	 * Add the measures of an edge to these statistics. An edge violates the
+	 * Delaunay criterion if it is not locked and if the opposite point of one
+	 * of its triangles is strictly inside the circumcircle of the other one.
+	 * This test is made with Tools.isInCircle, so that cocircular points,
+	 * as found in regular grids, are not counted as violations.
+	 * @param ed
+	 */
+	public void addEdge(DEdge ed) {
+		histograms[Quantity.EDGE_LENGTH.ordinal()].add(Math.sqrt(ed.getSquared2DLength()));
+		edges++;
+		if(ed.isLocked()){
+			lockedEdges++;
+			return;
+		}
+		DTriangle left = ed.getLeft();
+		DTriangle right = ed.getRight();
+		if(left != null && right != null){
+			DPoint p3 = left.getAlterPoint(ed.getStartPoint(), ed.getEndPoint());
+			DPoint p4 = right.getAlterPoint(ed.getStartPoint(), ed.getEndPoint());
+			if((p3 != null && Tools.isInCircle(right.getPoint(0), right.getPoint(1), right.getPoint(2), p3))
+				|| (p4 != null && Tools.isInCircle(left.getPoint(0), left.getPoint(1), left.getPoint(2), p4))){
+				delaunayViolations++;
+			}
+		}
+	}
+
+	/**
+	 * Add other to these statistics.
+	 * @param other
+	 */
+	public void merge(MeshStatistics other) {
+		for(int i = 0; i < histograms.length; i++){
+			histograms[i].merge(other.histograms[i]);
+		}
+		triangles += other.triangles;
+		flatTriangles += other.flatTriangles;
+		edges += other.edges;
+		lockedEdges += other.lockedEdges;
+		delaunayViolations += other.delaunayViolations;
+	}
+
+	/**
+	 * Get the distribution of a quantity.
+	 * @param quantity
+	 * @return
+	 */
+	public Histogram getHistogram(Quantity quantity) {
+		return histograms[quantity.ordinal()];
+	}
+
+	/**
+	 * Get an estimation of a percentile of a quantity.
+	 * @param quantity
+	 * @param fraction
+	 *	Between 0 and 1.
+	 * @return
+	 */
+	public double getPercentile(Quantity quantity, double fraction) {
+		return histograms[quantity.ordinal()].getPercentile(fraction);
+	}
+
+	/**
+	 * Get the number of triangles.
+	 * @return
+	 */
+	public long getTriangleCount() {
+		return triangles;
+	}
+
+	/**
+	 * Get the number of triangles whose three points have the same z.
+	 * @return
+	 */
+	public long getFlatTriangleCount() {
+		return flatTriangles;
+	}
+
+	/**
+	 * Get the number of edges.
+	 * @return
+	 */
+	public long getEdgeCount() {
+		return edges;
+	}
+
+	/**
+	 * Get the number of locked edges.
+	 * @return
+	 */
+	public long getLockedEdgeCount() {
+		return lockedEdges;
+	}
+
+	/**
+	 * Get the number of unlocked edges that do not respect the Delaunay
+	 * criterion.
+	 * @return
+	 */
+	public long getDelaunayViolationCount() {
+		return delaunayViolations;
+	}
+
+	@Override
+	public String toString() {
+		StringBuilder sb = new StringBuilder("MeshStatistics[triangles=").append(triangles)
+			.append(", flat=").append(flatTriangles).append(", edges=").append(edges)
+			.append(", locked=").append(lockedEdges).append(", violations=").append(delaunayViolations);
+		for(Quantity q : Quantity.values()){
+			sb.append(", ").append(q).append("=").append(histograms[q.ordinal()]);
+		}
+		return sb.append("]").toString();
+	}
+}
@@ -0,0 +1,223 @@
+/**
+ *
+ * jDelaunay is a library dedicated to the processing of Delaunay and constrained
+ * Delaunay triangulations from PSLG inputs.
+ *
+ * This library is developed at French IRSTV institute as part of the AvuPur and Eval-PDU project,
+ * funded by the French Agence Nationale de la Recherche (ANR) under contract
+ * ANR-07-VULN-01 and ANR-08-VILL-0005-01 .
+ *
+ * jDelaunay is distributed under GPL 3 license. It is produced by the "Atelier SIG" team of
+ * the IRSTV Institute <http://www.irstv.fr/> CNRS FR 2488.
+ *
+ * Copyright (C) 2010-2012 IRSTV FR CNRS 2488
+ *
+ * jDelaunay is free software: you can redistribute it and/or modify it under the
+ * terms of the GNU General Public License as published by the Free Software
+ * Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ *
+ * jDelaunay is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR
+ * A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * jDelaunay. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * For more information, please consult: <http://www.orbisgis.org/>
+ * or contact directly:
+ * info_at_ orbisgis.org
+ */
+package org.jdelaunay.delaunay.tools;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Random;
+import org.jdelaunay.delaunay.geometries.DPoint;
+
+/**
+ * Sort points along a Hilbert curve. Points that are close on the curve are
+ * close in the plane, so that walking from one point to the next one in the
+ * mesh only visits a few triangles.
+ *
+ * The sort is made on primitive keys : the index of the point on the curve is
+ * packed with its position in the input in a long, and the array of keys is
+ * sorted directly.
+ *
+ * @author Alexis Guéganno
+ */
+public final class HilbertOrder {
+
+	//The number of bits used for each coordinate on the curve.
+	private static final int ORDER = 16;
+	private static final int SIDE = 1 << ORDER;
+	//The number of bits used to store the position of the points in the keys.
+	private static final int POSITION_BITS = 31;
+	private static final long POSITION_MASK = (1L << POSITION_BITS) - 1;
+	//The size of the first round of a BRIO order.
+	private static final int MIN_ROUND = 64;
+
+	/**
+	 * Default constructor is private : this is an utility class.
+	 */
+	private HilbertOrder(){
+	}
+
+	/**
+	 * Sort points along a Hilbert curve that covers their bounding box.
+	 * @param <T>
+	 * @param pts
+	 * @return
+	 *	A new list containing the points of pts.
+	 */
+	public static <T extends DPoint> List<T> sort(Collection<T> pts) {
+		List<T> input = new ArrayList<T>(pts);
+		int[] rounds = new int[input.size()];
+		return reorder(input, rounds, 1);
+	}
+
+	/**
+	 * Sort points in a biased randomized insertion order (BRIO) : the points
+	 * are dispatched in rounds whose size doubles from one to the next one,
+	 * randomly, and each round is sorted along a Hilbert curve. The first
+	 * rounds give a coarse sample of the points, so that the incremental
+	 * construction remains efficient even if the input is not random, and
+	 * the curve keeps the points of each round close to each other.
+	 * @param <T>
+	 * @param pts
+	 * @param random
+	 *	The generator used to dispatch the points in the rounds.
+	 * @return
+	 *	A new list containing the points of pts.
+	 */
+	public static <T extends DPoint> List<T> brio(Collection<T> pts, Random random) {
+		List<T> input = new ArrayList<T>(pts);
+		int size = input.size();
+		int count = 1;
+		while(MIN_ROUND << (count - 1) < size){
+			count++;
+		}
+		int[] rounds = new int[size];
+		for(int i = 0; i < size; i++){
+			int r = count - 1;
+			while(r > 0 && random.nextBoolean()){
+				r--;
+			}
+			rounds[i] = r;
+		}
+		return reorder(input, rounds, count);
+	}
+
+	/**
+	 * Get the order of the points of coordinates (x[i], y[i]) along a
+	 * Hilbert curve that covers their bounding box.
+	 * @param x
+	 * @param y
+	 * @return
+	 *	The positions in x and y, sorted along the curve.
+	 */
+	public static int[] sort(double[] x, double[] y) {
+		long[] indices = getIndices(x, y);
+		long[] keys = new long[indices.length];
+		for(int i = 0; i < keys.length; i++){
+			keys[i] = indices[i] << POSITION_BITS | i;
+		}
+		Arrays.sort(keys);
+		int[] ret = new int[keys.length];
+		for(int i = 0; i < keys.length; i++){
+			ret[i] = (int) (keys[i] & POSITION_MASK);
+		}
+		return ret;
+	}
+
+	/**
+	 * Get the index of the cell (x, y) on a Hilbert curve that covers a
+	 * square of 2^16 cells per side.
+	 * @param x
+	 * @param y
+	 * @return
+	 */
+	public static long getIndex(int x, int y) {
+		int cx = x;
+		int cy = y;
+		long d = 0;
+		for(int s = SIDE / 2; s > 0; s /= 2){
+			int rx = (cx & s) > 0 ? 1 : 0;
+			int ry = (cy & s) > 0 ? 1 : 0;
+			d += (long) s * s * ((3 * rx) ^ ry);
+			if(ry == 0){
+				if(rx == 1){
+					cx = SIDE - 1 - cx;
+					cy = SIDE - 1 - cy;
+				}
+				int t = cx;
+				cx = cy;
+				cy = t;
+			}
+		}
+		return d;
+	}
+
+	/**
+	 * Sort the points round by round, and along the curve in each round.
+	 */
+	private static <T extends DPoint> List<T> reorder(List<T> input, int[] rounds, int count) {
+		int size = input.size();
+		double[] x = new double[size];
+		double[] y = new double[size];
+		for(int i = 0; i < size; i++){
+			x[i] = input.get(i).getX();
+			y[i] = input.get(i).getY();
+		}
+		long[] indices = getIndices(x, y);
+		//We place the keys of each round in its own slice of the array.
+		int[] starts = new int[count + 1];
+		for(int r : rounds){
+			starts[r + 1]++;
+		}
+		for(int r = 0; r < count; r++){
+			starts[r + 1] += starts[r];
+		}
+		int[] next = Arrays.copyOf(starts, count);
+		long[] keys = new long[size];
+		for(int i = 0; i < size; i++){
+			keys[next[rounds[i]]++] = indices[i] << POSITION_BITS | i;
+		}
+		List<T> ret = new ArrayList<T>(size);
+		for(int r = 0; r < count; r++){
+			Arrays.sort(keys, starts[r], starts[r + 1]);
+		}
+		for(long k : keys){
+			ret.add(input.get((int) (k & POSITION_MASK)));
+		}
+		return ret;
+	}
+
+	/**
+	 * Compute the index on the curve of each point. The curve covers the
+	 * bounding square of the points.
+	 */
+	private static long[] getIndices(double[] x, double[] y) {
+		double minX = Double.POSITIVE_INFINITY;
+		double minY = Double.POSITIVE_INFINITY;
+		double maxX = Double.NEGATIVE_INFINITY;
+		double maxY = Double.NEGATIVE_INFINITY;
+		for(int i = 0; i < x.length; i++){
+			minX = Math.min(minX, x[i]);
+			minY = Math.min(minY, y[i]);
+			maxX = Math.max(maxX, x[i]);
+			maxY = Math.max(maxY, y[i]);
+		}
+		double extent = Math.max(maxX - minX, maxY - minY);
+		double scale = extent > 0 ? (SIDE - 1) / extent : 0;
+		long[] ret = new long[x.length];
+		for(int i = 0; i < x.length; i++){
+			int cx = (int) ((x[i] - minX) * scale);
+			int cy = (int) ((y[i] - minY) * scale);
+			ret[i] = getIndex(cx, cy);
+		}
+		return ret;
+	}
+}
@@ -0,0 +1,169 @@
+/**
+ *
+ * jDelaunay is a library dedicated to the processing of Delaunay and constrained
+ * Delaunay triangulations from PSLG inputs.
+ *
+ * This library is developed at French IRSTV institute as part of the AvuPur and Eval-PDU project,
+ * funded by the French Agence Nationale de la Recherche (ANR) under contract
+ * ANR-07-VULN-01 and ANR-08-VILL-0005-01 .
+ *
+ * jDelaunay is distributed under GPL 3 license. It is produced by the "Atelier SIG" team of
+ * the IRSTV Institute <http://www.irstv.fr/> CNRS FR 2488.
+ *
+ * Copyright (C) 2010-2012 IRSTV FR CNRS 2488
+ *
+ * jDelaunay is free software: you can redistribute it and/or modify it under the
+ * terms of the GNU General Public License as published by the Free Software
+ * Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ *
+ * jDelaunay is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR
+ * A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * jDelaunay. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * For more information, please consult: <http://www.orbisgis.org/>
+ * or contact directly:
+ * info_at_ orbisgis.org
+ */
+package org.jdelaunay.delaunay.tools;
+
+import java.util.Map;
+
+/**
+ * A map from primitive ints to primitive ints, used to read the weights of
+ * the properties without boxing. It uses open addressing with linear probing.
+ * Entries can't be removed.
+ * @author Alexis Guéganno
+ */
+public final class IntIntMap {
+
+	private static final int MIN_CAPACITY = 16;
+	//The multiplier used to spread the keys in the table.
+	private static final int MIX = 0x9E3779B9;
+
+	private int[] keys;
+	private int[] values;
+	private boolean[] used;
+	private int size;
+	private int mask;
+	private int shift;
+
+	/**
+	 * Build an empty map.
+	 */
+	public IntIntMap(){
+		allocate(MIN_CAPACITY);
+	}
+
+	/**
+	 * Build a map that contains the entries of map.
+	 * @param map
+	 */
+	public IntIntMap(Map<Integer, Integer> map){
+		int capacity = MIN_CAPACITY;
+		while(capacity < 2 * map.size()){
+			capacity <<= 1;
+		}
+		allocate(capacity);
+		for(Map.Entry<Integer, Integer> entry : map.entrySet()){
+			put(entry.getKey(), entry.getValue());
+		}
+	}
+
+	/**
+	 * @return the number of entries in the map.
+	 */
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * @return true if the map does not contain any entry.
+	 */
+	public boolean isEmpty() {
+		return size == 0;
+	}
+
+	/**
+	 * Check if key is in the map.
+	 * @param key
+	 * @return
+	 */
+	public boolean containsKey(int key) {
+		return find(key) >= 0;
+	}
+
+	/**
+	 * Get the value associated to key.
+	 * @param key
+	 * @param defaultValue
+	 *	The value returned if key is not in the map.
+	 * @return
+	 */
+	public int get(int key, int defaultValue) {
+		int i = find(key);
+		return i < 0 ? defaultValue : values[i];
+	}
+
+	/**
+	 * Associate value to key.
+	 * @param key
+	 * @param value
+	 */
+	public void put(int key, int value) {
+		int i = index(key);
+		while(used[i]){
+			if(keys[i] == key){
+				values[i] = value;
+				return;
+			}
+			i = (i + 1) & mask;
+		}
+		keys[i] = key;
+		values[i] = value;
+		used[i] = true;
+		size++;
+		if(2 * size > keys.length){
+			rehash(keys.length << 1);
+		}
+	}
+
+	private int find(int key) {
+		int i = index(key);
+		while(used[i]){
+			if(keys[i] == key){
+				return i;
+			}
+			i = (i + 1) & mask;
+		}
+		return -1;
+	}
+
+	private int index(int key) {
+		return (key * MIX) >>> shift;
+	}
+
+	private void allocate(int capacity) {
+		keys = new int[capacity];
+		values = new int[capacity];
+		used = new boolean[capacity];
+		mask = capacity - 1;
+		shift = Integer.SIZE - Integer.numberOfTrailingZeros(capacity);
+	}
+
+	private void rehash(int capacity) {
+		int[] oldKeys = keys;
+		int[] oldValues = values;
+		boolean[] oldUsed = used;
+		allocate(capacity);
+		size = 0;
+		for(int i = 0; i < oldKeys.length; i++){
+			if(oldUsed[i]){
+				put(oldKeys[i], oldValues[i]);
+			}
+		}
+	}
+}
@@ -0,0 +1,260 @@
+/**
+ *
+ * jDelaunay is a library dedicated to the processing of Delaunay and constrained
+ * Delaunay triangulations from PSLG inputs.
+ *
+ * This library is developed at French IRSTV institute as part of the AvuPur and Eval-PDU project,
+ * funded by the French Agence Nationale de la Recherche (ANR) under contract
+ * ANR-07-VULN-01 and ANR-08-VILL-0005-01 .
+ *
+ * jDelaunay is distributed under GPL 3 license. It is produced by the "Atelier SIG" team of
+ * the IRSTV Institute <http://www.irstv.fr/> CNRS FR 2488.
+ *
+ * Copyright (C) 2010-2012 IRSTV FR CNRS 2488
+ *
+ * jDelaunay is free software: you can redistribute it and/or modify it under the
+ * terms of the GNU General Public License as published by the Free Software
+ * Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ *
+ * jDelaunay is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR
+ * A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * jDelaunay. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * For more information, please consult: <http://www.orbisgis.org/>
+ * or contact directly:
+ * info_at_ orbisgis.org
+ */
+package org.jdelaunay.delaunay.tools;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A map whose keys are primitive ints, used to store elements of the mesh
+ * by GID without boxing the keys. It uses open addressing with linear
+ * probing, and does not accept null values.
+ * @param <V>
+ * @author Alexis Guéganno
+ */
+public final class IntObjectMap<V> {
+
+	private static final int MIN_CAPACITY = 16;
+	//The multiplier used to spread the keys in the table.
+	private static final int MIX = 0x9E3779B9;
+
+	private int[] keys;
+	private Object[] values;
+	private int size;
+	private int mask;
+	private int shift;
+	//The position where the last call to any() found an entry.
+	private int cursor;
+
+	/**
+	 * Build an empty map.
+	 */
+	public IntObjectMap(){
+		this(MIN_CAPACITY);
+	}
+
+	/**
+	 * Build an empty map that can contain expected entries without being
+	 * resized.
+	 * @param expected
+	 */
+	public IntObjectMap(int expected){
+		int capacity = MIN_CAPACITY;
+		while(capacity < 2 * expected){
+			capacity <<= 1;
+		}
+		allocate(capacity);
+	}
+
+	/**
+	 * @return the number of entries in the map.
+	 */
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * @return true if the map does not contain any entry.
+	 */
+	public boolean isEmpty() {
+		return size == 0;
+	}
+
+	/**
+	 * Check if key is in the map.
+	 * @param key
+	 * @return
+	 */
+	public boolean containsKey(int key) {
+		return get(key) != null;
+	}
+
+	/**
+	 * Get the value associated to key.
+	 * @param key
+	 * @return
+	 *	the value, or null if key is not in the map.
+	 */
+	@SuppressWarnings("unchecked")
+	public V get(int key) {
+		int i = index(key);
+		while(values[i] != null){
+			if(keys[i] == key){
+				return (V) values[i];
+			}
+			i = (i + 1) & mask;
+		}
+		return null;
+	}
+
+	/**
+	 * Associate value to key.
+	 * @param key
+	 * @param value
+	 *	must not be null.
+	 * @return
+	 *	the value previously associated to key, or null.
+	 */
+	@SuppressWarnings("unchecked")
+	public V put(int key, V value) {
+		if(value == null){
+			throw new IllegalArgumentException("null values are not supported");
+		}
+		int i = index(key);
+		while(values[i] != null){
+			if(keys[i] == key){
+				V old = (V) values[i];
+				values[i] = value;
+				return old;
+			}
+			i = (i + 1) & mask;
+		}
+		keys[i] = key;
+		values[i] = value;
+		size++;
+		if(2 * size > keys.length){
+			rehash(keys.length << 1);
+		}
+		return null;
+	}
+
+	/**
+	 * Remove key from the map.
+	 * @param key
+	 * @return
+	 *	the value that was associated to key, or null.
+	 */
+	@SuppressWarnings("unchecked")
+	public V remove(int key) {
+		int i = index(key);
+		while(values[i] != null){
+			if(keys[i] == key){
+				V old = (V) values[i];
+				delete(i);
+				return old;
+			}
+			i = (i + 1) & mask;
+		}
+		return null;
+	}
+
+	/**
+	 * Get one of the values of the map. Successive calls walk through the
+	 * table, so that taking and removing values one after the other
+	 * costs a constant time per value.
+	 * @return
+	 *	a value of the map, or null if it is empty.
+	 */
+	@SuppressWarnings("unchecked")
+	public V any() {
+		if(size == 0){
+			return null;
+		}
+		while(values[cursor] == null){
+			cursor = (cursor + 1) & mask;
+		}
+		return (V) values[cursor];
+	}
+
+	/**
+	 * @return a new list that contains the values of the map.
+	 */
+	@SuppressWarnings("unchecked")
+	public List<V> values() {
+		List<V> ret = new ArrayList<V>(size);
+		for(Object v : values){
+			if(v != null){
+				ret.add((V) v);
+			}
+		}
+		return ret;
+	}
+
+	/**
+	 * Remove all the entries of the map.
+	 */
+	public void clear() {
+		for(int i = 0; i < values.length; i++){
+			values[i] = null;
+		}
+		size = 0;
+	}
+
+	private int index(int key) {
+		return (key * MIX) >>> shift;
+	}
+
+	/**
+	 * Empty the slot i, and move back the entries that follow it, so that
+	 * no search is broken by the hole.
+	 */
+	private void delete(int i) {
+		int hole = i;
+		int j = (i + 1) & mask;
+		while(values[j] != null){
+			int home = index(keys[j]);
+			//The entry at j can fill the hole if its home is not between
+			//the hole (excluded) and j (included), cyclically.
+			if(((j - home) & mask) >= ((j - hole) & mask)){
+				keys[hole] = keys[j];
+				values[hole] = values[j];
+				hole = j;
+			}
+			j = (j + 1) & mask;
+		}
+		values[hole] = null;
+		size--;
+	}
+
+	private void allocate(int capacity) {
+		keys = new int[capacity];
+		values = new Object[capacity];
+		mask = capacity - 1;
+		shift = Integer.SIZE - Integer.numberOfTrailingZeros(capacity);
+		cursor = 0;
+	}
+
+	private void rehash(int capacity) {
+		int[] oldKeys = keys;
+		Object[] oldValues = values;
+		allocate(capacity);
+		for(int i = 0; i < oldKeys.length; i++){
+			if(oldValues[i] != null){
+				int j = index(oldKeys[i]);
+				while(values[j] != null){
+					j = (j + 1) & mask;
+				}
+				keys[j] = oldKeys[i];
+				values[j] = oldValues[i];
+			}
+		}
+	}
+}
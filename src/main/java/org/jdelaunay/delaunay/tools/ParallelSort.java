@@ -0,0 +1,207 @@
+/**
+ *
+ * jDelaunay is a library dedicated to the processing of Delaunay and constrained
+ * Delaunay triangulations from PSLG inputs.
+ *
+ * This library is developed at French IRSTV institute as part of the AvuPur and Eval-PDU project,
+ * funded by the French Agence Nationale de la Recherche (ANR) under contract
+ * ANR-07-VULN-01 and ANR-08-VILL-0005-01 .
+ *
+ * jDelaunay is distributed under GPL 3 license. It is produced by the "Atelier SIG" team of
+ * the IRSTV Institute <http://www.irstv.fr/> CNRS FR 2488.
+ *
+ * Copyright (C) 2010-2012 IRSTV FR CNRS 2488
+ *
+ * jDelaunay is free software: you can redistribute it and/or modify it under the
+ * terms of the GNU General Public License as published by the Free Software
+ * Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ *
+ * jDelaunay is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR
+ * A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * jDelaunay. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * For more information, please consult: <http://www.orbisgis.org/>
+ * or contact directly:
+ * info_at_ orbisgis.org
+ */
+package org.jdelaunay.delaunay.tools;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import org.jdelaunay.delaunay.error.DelaunayError;
+
+/**
+ * A stable merge sort of indices, that can use several threads. The input is
+ * split in one run per thread, the runs are sorted in parallel and then
+ * merged two by two. As the sort is stable and the indices start in their
+ * natural order, the result only depends on the comparator, and not on the
+ * number of threads.
+ *
+ * @author Alexis Guéganno
+ */
+public final class ParallelSort {
+
+	//Under this size, the runs are sorted by insertion.
+	private static final int INSERTION_THRESHOLD = 16;
+
+	/**
+	 * Compares two elements known by their index.
+	 */
+	public interface IndexComparator {
+		/**
+		 * Compare the elements i and j.
+		 * @param i
+		 * @param j
+		 * @return
+		 *	A negative number, 0 or a positive number if the element i is
+		 *	lower than, equal to or greater than the element j.
+		 */
+		int compare(int i, int j);
+	}
+
+	/**
+	 * Default constructor is private : this is an utility class.
+	 */
+	private ParallelSort(){
+	}
+
+	/**
+	 * Sort the indices from 0 to size - 1. The equal elements are kept in the
+	 * order of their indices.
+	 * @param size
+	 * @param comparator
+	 *	It must be usable by several threads at the same time.
+	 * @param threads
+	 * @return
+	 *	The indices, sorted.
+	 * @throws DelaunayError
+	 */
+	public static int[] sort(int size, final IndexComparator comparator, int threads) throws DelaunayError {
+		if(threads < 1){
+			throw new IllegalArgumentException("At least one thread is needed");
+		}
+		int[] order = new int[size];
+		for(int i = 0; i < size; i++){
+			order[i] = i;
+		}
+		int runs = Math.max(1, Math.min(threads, size / INSERTION_THRESHOLD));
+		if(runs == 1){
+			mergeSort(order, new int[size], 0, size, comparator);
+			return order;
+		}
+		final int[] bounds = new int[runs + 1];
+		for(int r = 0; r <= runs; r++){
+			bounds[r] = (int) ((long) size * r / runs);
+		}
+		ExecutorService executor = Executors.newFixedThreadPool(threads);
+		try {
+			int[] src = order;
+			int[] dst = new int[size];
+			List<Callable<Object>> tasks = new ArrayList<Callable<Object>>();
+			for(int r = 0; r < runs; r++){
+				final int lo = bounds[r];
+				final int hi = bounds[r + 1];
+				final int[] data = src;
+				final int[] buffer = dst;
+				tasks.add(new Callable<Object>() {
+					@Override
+					public Object call() {
+						mergeSort(data, buffer, lo, hi, comparator);
+						return null;
+					}
+				});
+			}
+			run(executor, tasks);
+			//The runs are merged two by two, until only one remains.
+			for(int width = 1; width < runs; width *= 2){
+				tasks.clear();
+				for(int r = 0; r < runs; r += 2 * width){
+					final int lo = bounds[r];
+					final int mid = bounds[Math.min(r + width, runs)];
+					final int hi = bounds[Math.min(r + 2 * width, runs)];
+					final int[] from = src;
+					final int[] to = dst;
+					tasks.add(new Callable<Object>() {
+						@Override
+						public Object call() {
+							merge(from, to, lo, mid, hi, comparator);
+							return null;
+						}
+					});
+				}
+				run(executor, tasks);
+				int[] tmp = src;
+				src = dst;
+				dst = tmp;
+			}
+			return src;
+		} finally {
+			executor.shutdown();
+		}
+	}
+
+	private static void run(ExecutorService executor, List<Callable<Object>> tasks) throws DelaunayError {
+		try {
+			for(Future<Object> future : executor.invokeAll(tasks)){
+				future.get();
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new DelaunayError(DelaunayError.DELAUNAY_ERROR_INTERNAL_ERROR, "interrupted");
+		} catch (ExecutionException e) {
+			throw new DelaunayError(DelaunayError.DELAUNAY_ERROR_INTERNAL_ERROR, e.getCause().toString());
+		}
+	}
+
+	/**
+	 * Sort data between lo (included) and hi (excluded), using buffer as a
+	 * temporary storage.
+	 */
+	private static void mergeSort(int[] data, int[] buffer, int lo, int hi, IndexComparator comparator) {
+		if(hi - lo <= INSERTION_THRESHOLD){
+			for(int i = lo + 1; i < hi; i++){
+				int v = data[i];
+				int j = i - 1;
+				while(j >= lo && comparator.compare(data[j], v) > 0){
+					data[j + 1] = data[j];
+					j--;
+				}
+				data[j + 1] = v;
+			}
+			return;
+		}
+		int mid = (lo + hi) >>> 1;
+		mergeSort(data, buffer, lo, mid, comparator);
+		mergeSort(data, buffer, mid, hi, comparator);
+		if(comparator.compare(data[mid - 1], data[mid]) <= 0){
+			return;
+		}
+		merge(data, buffer, lo, mid, hi, comparator);
+		System.arraycopy(buffer, lo, data, lo, hi - lo);
+	}
+
+	/**
+	 * Merge the sorted ranges [lo, mid[ and [mid, hi[ of from in the range
+	 * [lo, hi[ of to.
+	 */
+	private static void merge(int[] from, int[] to, int lo, int mid, int hi, IndexComparator comparator) {
+		int i = lo;
+		int j = mid;
+		for(int k = lo; k < hi; k++){
+			if(j >= hi || (i < mid && comparator.compare(from[i], from[j]) <= 0)){
+				to[k] = from[i++];
+			} else {
+				to[k] = from[j++];
+			}
+		}
+	}
+}
@@ -30,6 +30,7 @@
  */
 package org.jdelaunay.delaunay.tools;
 
+import java.math.BigDecimal;
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.List;
@@ -59,6 +60,11 @@ public final class Tools {
 	public static final int BIT_MARKED = 6;
         
         public static final double PI_OVER_2 = Math.PI / 2.0;
+        //Relative bounds of the rounding errors of the orientation and incircle
+        //determinants, computed with doubles. They are a bit larger than the
+        //ones given by Shewchuk.
+        private static final double ORIENTATION_ERROR = 1e-15;
+        private static final double INCIRCLE_ERROR = 1e-14;
         
 
 
@@ -270,4 +276,93 @@ public final class Tools {
         return bisectors;
     }
 
+
+    /**
+     * Check if d lies strictly inside the circle that passes through a, b and c,
+     * whatever the orientation of the triangle abc, considering only the first
+     * two coordinates. The determinants are computed with doubles, and computed
+     * again exactly when they are too close to 0 to be trusted. Consequently,
+     * cocircular points are never seen as inside the circle, whatever the
+     * magnitude of their coordinates.
+     * @param a
+     * @param b
+     * @param c
+     * @param d
+     * @return
+     *      true if d is strictly inside the circumcircle of abc. false if it is on
+     *      the circle, outside of it, or if abc is flat.
+     */
+    public static boolean isInCircle(DPoint a, DPoint b, DPoint c, DPoint d) {
+        int orient = orientation(a, b, c);
+        if(orient == 0){
+            return false;
+        }
+        double adx = a.getX() - d.getX();
+        double ady = a.getY() - d.getY();
+        double bdx = b.getX() - d.getX();
+        double bdy = b.getY() - d.getY();
+        double cdx = c.getX() - d.getX();
+        double cdy = c.getY() - d.getY();
+        double alift = adx * adx + ady * ady;
+        double blift = bdx * bdx + bdy * bdy;
+        double clift = cdx * cdx + cdy * cdy;
+        double det = alift * (bdx * cdy - cdx * bdy) + blift * (cdx * ady - adx * cdy)
+                + clift * (adx * bdy - bdx * ady);
+        double permanent = alift * (Math.abs(bdx * cdy) + Math.abs(cdx * bdy))
+                + blift * (Math.abs(cdx * ady) + Math.abs(adx * cdy))
+                + clift * (Math.abs(adx * bdy) + Math.abs(bdx * ady));
+        int sign;
+        if(det > INCIRCLE_ERROR * permanent){
+            sign = 1;
+        } else if(det < -INCIRCLE_ERROR * permanent){
+            sign = -1;
+        } else {
+            sign = exactInCircle(a, b, c, d);
+        }
+        return sign * orient > 0;
+    }
+
+    /**
+     * Get the orientation of the triangle abc.
+     * @param a
+     * @param b
+     * @param c
+     * @return
+     *      1 if abc is counterclockwise, -1 if it is clockwise, 0 if it is flat.
+     */
+    public static int orientation(DPoint a, DPoint b, DPoint c) {
+        double left = (b.getX() - a.getX()) * (c.getY() - a.getY());
+        double right = (b.getY() - a.getY()) * (c.getX() - a.getX());
+        double det = left - right;
+        double bound = ORIENTATION_ERROR * (Math.abs(left) + Math.abs(right));
+        if(det > bound){
+            return 1;
+        } else if(det < -bound){
+            return -1;
+        }
+        BigDecimal ax = new BigDecimal(a.getX());
+        BigDecimal ay = new BigDecimal(a.getY());
+        return new BigDecimal(b.getX()).subtract(ax).multiply(new BigDecimal(c.getY()).subtract(ay))
+                .subtract(new BigDecimal(b.getY()).subtract(ay).multiply(new BigDecimal(c.getX()).subtract(ax)))
+                .signum();
+    }
+
+    private static int exactInCircle(DPoint a, DPoint b, DPoint c, DPoint d) {
+        BigDecimal dx = new BigDecimal(d.getX());
+        BigDecimal dy = new BigDecimal(d.getY());
+        BigDecimal adx = new BigDecimal(a.getX()).subtract(dx);
+        BigDecimal ady = new BigDecimal(a.getY()).subtract(dy);
+        BigDecimal bdx = new BigDecimal(b.getX()).subtract(dx);
+        BigDecimal bdy = new BigDecimal(b.getY()).subtract(dy);
+        BigDecimal cdx = new BigDecimal(c.getX()).subtract(dx);
+        BigDecimal cdy = new BigDecimal(c.getY()).subtract(dy);
+        BigDecimal alift = adx.multiply(adx).add(ady.multiply(ady));
+        BigDecimal blift = bdx.multiply(bdx).add(bdy.multiply(bdy));
+        BigDecimal clift = cdx.multiply(cdx).add(cdy.multiply(cdy));
+        return alift.multiply(bdx.multiply(cdy).subtract(cdx.multiply(bdy)))
+                .add(blift.multiply(cdx.multiply(ady).subtract(adx.multiply(cdy))))
+                .add(clift.multiply(adx.multiply(bdy).subtract(bdx.multiply(ady))))
+                .signum();
+    }
+
 }
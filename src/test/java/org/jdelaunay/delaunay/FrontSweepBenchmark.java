@@ -0,0 +1,89 @@
+/**
+ *
+ * jDelaunay is a library dedicated to the processing of Delaunay and constrained
+ * Delaunay triangulations from PSLG inputs.
+ *
+ * This library is developed at French IRSTV institute as part of the AvuPur and Eval-PDU project,
+ * funded by the French Agence Nationale de la Recherche (ANR) under contract
+ * ANR-07-VULN-01 and ANR-08-VILL-0005-01 .
+ *
+ * jDelaunay is distributed under GPL 3 license. It is produced by the "Atelier SIG" team of
+ * the IRSTV Institute <http://www.irstv.fr/> CNRS FR 2488.
+ *
+ * Copyright (C) 2010-2012 IRSTV FR CNRS 2488
+ *
+ * jDelaunay is free software: you can redistribute it and/or modify it under the
+ * terms of the GNU General Public License as published by the Free Software
+ * Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ *
+ * jDelaunay is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR
+ * A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * jDelaunay. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * For more information, please consult: <http://www.orbisgis.org/>
+ * or contact directly:
+ * info_at_ orbisgis.org
+ */
+package org.jdelaunay.delaunay;
+
+import java.util.Arrays;
+import java.util.List;
+import org.jdelaunay.delaunay.error.DelaunayError;
+import org.jdelaunay.delaunay.geometries.DPoint;
+import org.jdelaunay.delaunay.metrics.MeshCounter;
+import org.jdelaunay.delaunay.metrics.MeshMetrics;
+
+/**
+ * Compares the number of flips per point and the duration of the
+ * triangulation of a grid and of contour lines, with and without the front
+ * smoothing. This is not a unit test : run it with
+ * <code>java org.jdelaunay.delaunay.FrontSweepBenchmark [grid size] [contour lines] [runs]</code>
+ * on the test classpath.<br/>
+ * Each configuration is run once to warm the JVM up, then runs times. The
+ * median duration is reported.
+ * @author Alexis Guéganno
+ */
+public final class FrontSweepBenchmark {
+
+	private static final int GRID_SIZE = 150;
+	private static final int CONTOUR_LINES = 45;
+	private static final int RUNS = 5;
+
+	private FrontSweepBenchmark() {
+	}
+
+	public static void main(String[] args) throws DelaunayError {
+		int gridSize = args.length > 0 ? Integer.parseInt(args[0]) : GRID_SIZE;
+		int contourLines = args.length > 1 ? Integer.parseInt(args[1]) : CONTOUR_LINES;
+		int runs = args.length > 2 ? Integer.parseInt(args[2]) : RUNS;
+		List<DPoint> grid = TestFrontSweep.getGrid(gridSize);
+		List<DPoint> contours = TestFrontSweep.getContourLines(contourLines);
+		System.out.println("input\tpoints\tsmoothing\tflips/point\tmedian ms");
+		for(boolean smoothing : new boolean[]{false, true}){
+			run("grid", grid, smoothing, runs);
+		}
+		for(boolean smoothing : new boolean[]{false, true}){
+			run("contours", contours, smoothing, runs);
+		}
+	}
+
+	private static void run(String name, List<DPoint> pts, boolean smoothing, int runs) throws DelaunayError {
+		TestFrontSweep.process(pts, smoothing, null);
+		long flips = 0;
+		double[] durations = new double[runs];
+		for(int i = 0; i < runs; i++){
+			MeshMetrics metrics = new MeshMetrics();
+			long start = System.nanoTime();
+			TestFrontSweep.process(pts, smoothing, metrics);
+			durations[i] = (System.nanoTime() - start) / 1e6;
+			flips = metrics.getCount(MeshCounter.FLIPS);
+		}
+		Arrays.sort(durations);
+		System.out.println(String.format("%s\t%d\t%b\t%.3f\t%.1f", name, pts.size(), smoothing,
+			(double) flips / pts.size(), durations[runs / 2]));
+	}
+}
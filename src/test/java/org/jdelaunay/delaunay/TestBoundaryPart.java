@@ -1309,4 +1309,45 @@ public class TestBoundaryPart extends BaseUtility {
 		assertTrue(out.contains(new DTriangle(new DEdge(3,4,0,7,4,0), new DEdge(7,4,0,6,5,0), new DEdge(6,5,0,3,4,0))));
 
 	}
+
+	/**
+	 * Connect points to a boundary part that is large enough to be indexed.
+	 * The result must be the same as the one we get walking from the head
+	 * of the boundary.
+	 * @throws DelaunayError
+	 */
+	public void testConnectLongFront() throws DelaunayError {
+		List<DEdge> bound = new ArrayList<DEdge>();
+		int nb = 3 * BoundaryPart.INDEX_THRESHOLD;
+		DPoint prev = new DPoint(0, -100, 0);
+		for(int i = 1; i <= nb; i++){
+			double ang = Math.PI * i / nb - Math.PI / 2;
+			DPoint next = new DPoint(100 * Math.cos(ang), 100 * Math.sin(ang), 0);
+			bound.add(new DEdge(prev, next));
+			prev = next;
+		}
+		BoundaryPart part = new BoundaryPart(bound);
+		DPoint[] pts = new DPoint[]{new DPoint(120, 10, 0), new DPoint(125, -40, 0), new DPoint(130, 60, 0)};
+		for(DPoint pt : pts){
+			List<DEdge> before = new ArrayList<DEdge>(part.getBoundaryEdges());
+			int visible = 0;
+			for(DEdge ed : before){
+				if(ed.isRight(pt)){
+					visible++;
+				}
+			}
+			List<DTriangle> tri = part.connectPoint(pt);
+			assertTrue(visible > 0);
+			assertEquals(visible, tri.size());
+			List<DEdge> after = part.getBoundaryEdges();
+			assertTrue(after instanceof FrontEdgeList);
+			assertEquals(before.size() - visible + 2, after.size());
+			assertTrue(after.get(0) == before.get(0));
+			assertTrue(after.get(after.size() - 1) == before.get(before.size() - 1));
+			for(int i = 1; i < after.size(); i++){
+				assertTrue(after.get(i - 1).getEndPoint().equals(after.get(i).getStartPoint()));
+			}
+			assertEquals(tri.size() + 1, part.getAddedEdges().size());
+		}
+	}
 }
@@ -32,11 +32,20 @@ package org.jdelaunay.delaunay;
 
 import java.util.ArrayList;
 import java.util.LinkedList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Random;
 import org.jdelaunay.delaunay.error.DelaunayError;
+import org.jdelaunay.delaunay.evaluator.SkinnyEvaluator;
 import org.jdelaunay.delaunay.geometries.DEdge;
 import org.jdelaunay.delaunay.geometries.DPoint;
 import org.jdelaunay.delaunay.geometries.DTriangle;
+import org.jdelaunay.delaunay.geometries.Element;
+import org.jdelaunay.delaunay.metrics.MeshCounter;
+import org.jdelaunay.delaunay.metrics.MeshMetrics;
+import org.jdelaunay.delaunay.metrics.MeshPhase;
 
 /**
  * This class checks that the constrained triangulation is well performed.
@@ -2535,4 +2544,523 @@ public class TestConstrainedMesh extends BaseUtility {
                 assertTrue(ed22 == mesh.getEdges().get(index));
         }
 
+        /**
+         * Check that addPoints gives the same list of points than consecutive
+         * calls to addPoint.
+         * @throws DelaunayError
+         */
+        public void testAddPoints() throws DelaunayError {
+                List<DPoint> pts = getRandomPoints(1000);
+                pts.add(new DPoint(pts.get(10)));
+                pts.add(new DPoint(pts.get(20).getX(), pts.get(20).getY(), 50));
+                ConstrainedMesh single = new ConstrainedMesh();
+                for(DPoint pt : pts){
+                        single.addPoint(new DPoint(pt));
+                }
+                ConstrainedMesh bulk = new ConstrainedMesh();
+                bulk.addPoint(new DPoint(pts.get(5)));
+                bulk.addPoints(pts.subList(0, 500));
+                bulk.addPoints(pts.subList(500, pts.size()));
+                assertEquals(single.getPoints(), bulk.getPoints());
+                assertEquals(single.getExtensionPoints(), bulk.getExtensionPoints());
+                bulk.processDelaunay();
+                assertCoherence(bulk);
+                assertGIDUnicity(bulk);
+        }
+
+        /**
+         * Check that addConstraints gives the same result than consecutive
+         * calls to addConstraintEdge, and that the ends of the constraints
+         * are the points of the mesh.
+         * @throws DelaunayError
+         */
+        public void testAddConstraints() throws DelaunayError {
+                List<DEdge> constraints = new ArrayList<DEdge>();
+                constraints.add(new DEdge(0, 0, 0, 10, 5, 0));
+                constraints.add(new DEdge(10, 5, 0, 20, 0, 0));
+                constraints.add(new DEdge(20, 10, 0, 10, 5, 0));
+                constraints.add(new DEdge(0, 0, 0, 10, 5, 0));
+                constraints.add(new DEdge(5, 8, 0, 5, 8, 0));
+                constraints.add(new DEdge(0, 10, 0, 0, 20, 0));
+                ConstrainedMesh single = new ConstrainedMesh();
+                single.addPoint(new DPoint(4, 9, 0));
+                single.addConstraintEdge(new DEdge(0, 10, 0, 0, 20, 0));
+                for(DEdge ed : constraints){
+                        single.addConstraintEdge(new DEdge(ed));
+                }
+                ConstrainedMesh bulk = new ConstrainedMesh();
+                bulk.addPoint(new DPoint(4, 9, 0));
+                bulk.addConstraintEdge(new DEdge(0, 10, 0, 0, 20, 0));
+                bulk.addConstraints(constraints);
+                assertEquals(single.getPoints(), bulk.getPoints());
+                assertEquals(single.getConstraintEdges(), bulk.getConstraintEdges());
+                assertEquals(4, bulk.getConstraintEdges().size());
+                for(DEdge ed : bulk.getConstraintEdges()){
+                        assertTrue(ed.isLocked());
+                        assertTrue(bulk.getPoints().get(bulk.listContainsPoint(ed.getStartPoint())) == ed.getStartPoint());
+                        assertTrue(bulk.getPoints().get(bulk.listContainsPoint(ed.getEndPoint())) == ed.getEndPoint());
+                }
+                bulk.processDelaunay();
+                assertCoherence(bulk);
+                assertGIDUnicity(bulk);
+                assertConstraintsAreLocked(bulk);
+        }
+
+
+        /**
+         * Insert a batch of points in a computed mesh. The points are sorted
+         * before the insertion : the search of their containing triangle must
+         * be far shorter than when they are inserted in a random order.
+         * @throws DelaunayError
+         */
+        public void testInsertPoints() throws DelaunayError {
+                Random rand = new Random(12);
+                List<DPoint> batch = new ArrayList<DPoint>();
+                for(int i = 0; i < 3000; i++){
+                        batch.add(new DPoint(10 + rand.nextDouble() * 80, 10 + rand.nextDouble() * 80, 0));
+                }
+                batch.add(new DPoint(500, 500, 0));
+                List<DPoint> base = new ArrayList<DPoint>();
+                base.add(new DPoint(0, 0, 0));
+                base.add(new DPoint(100, 0, 0));
+                base.add(new DPoint(0, 100, 0));
+                base.add(new DPoint(100, 100, 0));
+                base.add(new DPoint(50, 50, 0));
+                ConstrainedMesh mesh = new ConstrainedMesh();
+                MeshMetrics metrics = new MeshMetrics();
+                mesh.setMetricsListener(metrics);
+                mesh.setPoints(base);
+                try{
+                        mesh.insertPoints(batch, 0.00001);
+                        assertTrue(false);
+                } catch (DelaunayError d){
+                }
+                mesh.processDelaunay();
+                assertEquals(3000, mesh.insertPoints(batch, 0.00001));
+                assertEquals(3005, mesh.getPoints().size());
+                assertEquals(1, metrics.getCalls(MeshPhase.INSERTION));
+                long sorted = metrics.getCount(MeshCounter.LOCATION_STEPS);
+                assertCoherence(mesh);
+                assertTrianglesTopology(mesh);
+                assertGIDUnicity(mesh);
+                for(DEdge ed : mesh.getEdges()){
+                        if(ed.getLeft() != null && ed.getRight() != null){
+                                assertFalse(ed.getRight().inCircle(ed.getLeft().getOppositePoint(ed)) == 1);
+                        }
+                }
+                //The same insertion, in a random order.
+                mesh = new ConstrainedMesh();
+                metrics = new MeshMetrics();
+                mesh.setPoints(base);
+                mesh.processDelaunay();
+                mesh.setMetricsListener(metrics);
+                Collections.shuffle(batch, rand);
+                DTriangle last = mesh.getTriangleList().get(0);
+                for(DPoint pt : batch){
+                        Element container = last.searchPointContainer(pt, metrics);
+                        if(container instanceof DTriangle){
+                                last = (DTriangle) container;
+                                mesh.insertPointInTriangle(pt, last, 0.00001);
+                        }
+                }
+                assertEquals(3005, mesh.getPoints().size());
+                assertTrue(4 * sorted < metrics.getCount(MeshCounter.LOCATION_STEPS));
+        }
+
+        /**
+         * Reorder a refined mesh, with and without copying its elements.
+         * @throws DelaunayError
+         */
+        public void testCompactAndReorder() throws DelaunayError {
+                ConstrainedMesh mesh = new ConstrainedMesh();
+                mesh.setPoints(getRandomPoints(500));
+                mesh.addConstraintEdge(new DEdge(10, 10, 0, 90, 80, 0));
+                try{
+                        mesh.compactAndReorder(false);
+                        assertTrue(false);
+                } catch (DelaunayError d){
+                }
+                mesh.processDelaunay();
+                mesh.refineMesh(1, new org.jdelaunay.delaunay.evaluator.SkinnyEvaluator(20));
+                List<DTriangle> before = new ArrayList<DTriangle>(mesh.getTriangleList());
+                int edgeCount = mesh.getEdges().size();
+                int pointCount = mesh.getPoints().size();
+                mesh.compactAndReorder(false);
+                assertEquals(pointCount, mesh.getPoints().size());
+                assertEquals(edgeCount, mesh.getEdges().size());
+                assertEquals(before.size(), mesh.getTriangleList().size());
+                assertTrue(mesh.getTriangleList().containsAll(before));
+                assertRenumbered(mesh);
+                //Two consecutive triangles are closer than in the original order.
+                assertTrue(2 * getPathLength(mesh.getTriangleList()) < getPathLength(before));
+                mesh.compactAndReorder(true);
+                assertRenumbered(mesh);
+                assertEquals(before.size(), mesh.getTriangleList().size());
+                Map<Object, Object> elements = new IdentityHashMap<Object, Object>();
+                for(DTriangle tri : before){
+                        elements.put(tri, tri);
+                }
+                for(DTriangle tri : mesh.getTriangleList()){
+                        assertFalse(elements.containsKey(tri));
+                }
+                elements.clear();
+                for(DPoint pt : mesh.getPoints()){
+                        elements.put(pt, pt);
+                }
+                for(DTriangle tri : mesh.getTriangleList()){
+                        elements.put(tri, tri);
+                }
+                for(DEdge ed : mesh.getEdges()){
+                        elements.put(ed, ed);
+                }
+                for(DEdge ed : mesh.getEdges()){
+                        assertTrue(elements.containsKey(ed.getStartPoint()));
+                        assertTrue(elements.containsKey(ed.getEndPoint()));
+                        assertTrue(ed.getLeft() == null || elements.containsKey(ed.getLeft()));
+                        assertTrue(ed.getRight() == null || elements.containsKey(ed.getRight()));
+                }
+                for(DTriangle tri : mesh.getTriangleList()){
+                        for(int i = 0; i < DTriangle.PT_NB; i++){
+                                assertTrue(elements.containsKey(tri.getEdge(i)));
+                        }
+                }
+                for(DEdge ed : mesh.getConstraintEdges()){
+                        assertTrue(elements.containsKey(ed));
+                }
+                assertConstraintsAreLocked(mesh);
+                assertTrianglesTopology(mesh);
+                //The mesh can still be processed.
+                mesh.refineMesh(1, new org.jdelaunay.delaunay.evaluator.SkinnyEvaluator(25));
+                assertCoherence(mesh);
+        }
+
+        /**
+         * Meshes built from the same points in different orders, or by tiles
+         * with different numbers of threads, are identical once canonicalized.
+         * @throws DelaunayError
+         */
+        public void testCanonicalize() throws DelaunayError {
+                List<DPoint> pts = getRandomPoints(1000);
+                ConstrainedMesh mesh = new ConstrainedMesh();
+                try{
+                        mesh.canonicalize();
+                        assertTrue(false);
+                } catch (DelaunayError d){
+                }
+                mesh.setPoints(pts);
+                mesh.processDelaunay();
+                mesh.canonicalize();
+                assertRenumbered(mesh);
+                assertTrue(mesh.validate().isValid());
+                List<String> expected = getSignature(mesh);
+                List<DPoint> shuffled = new ArrayList<DPoint>();
+                for(DPoint pt : pts){
+                        shuffled.add(new DPoint(pt));
+                }
+                Collections.shuffle(shuffled, new Random(7));
+                ConstrainedMesh other = new ConstrainedMesh();
+                other.setPoints(shuffled);
+                other.processDelaunay();
+                other.compactAndReorder(false);
+                other.canonicalize(3);
+                assertEquals(expected, getSignature(other));
+                TiledMesh tiled = new TiledMesh(shuffled, 3, 3, 5);
+                tiled.setThreads(2);
+                ConstrainedMesh fromTiles = tiled.process();
+                fromTiles.canonicalize(2);
+                assertEquals(expected, getSignature(fromTiles));
+                for(int i = 1; i < mesh.getPoints().size(); i++){
+                        assertTrue(mesh.getPoints().get(i - 1).compareTo2D(mesh.getPoints().get(i)) < 0);
+                }
+                for(int i = 1; i < mesh.getEdges().size(); i++){
+                        assertTrue(mesh.getEdges().get(i - 1).sortLeftRight(mesh.getEdges().get(i)) < 0);
+                }
+        }
+
+        /**
+         * Describe the elements of the mesh and their links by their GIDs and
+         * coordinates.
+         */
+        private List<String> getSignature(ConstrainedMesh mesh) {
+                List<String> ret = new ArrayList<String>();
+                for(DPoint pt : mesh.getPoints()){
+                        ret.add(pt.getGID() + " " + pt.getX() + " " + pt.getY() + " " + pt.getZ());
+                }
+                for(DEdge ed : mesh.getEdges()){
+                        ret.add(ed.getGID() + " " + ed.getStartPoint().getGID() + " " + ed.getEndPoint().getGID()
+                                + " " + (ed.getLeft() == null ? 0 : ed.getLeft().getGID())
+                                + " " + (ed.getRight() == null ? 0 : ed.getRight().getGID()));
+                }
+                for(DTriangle tri : mesh.getTriangleList()){
+                        ret.add(tri.getGID() + " " + tri.getEdge(0).getGID() + " " + tri.getEdge(1).getGID()
+                                + " " + tri.getEdge(2).getGID());
+                }
+                return ret;
+        }
+
+        /**
+         * The property index must give the same elements as a scan of the mesh,
+         * and follow the changes made through the mesh.
+         */
+        public void testPropertyIndex() throws DelaunayError {
+                ConstrainedMesh mesh = new ConstrainedMesh();
+                mesh.setPropertyIndexing(true);
+                mesh.setPoints(getRandomPoints(300));
+                DEdge constr = new DEdge(10, 10, 0, 90, 80, 0);
+                constr.setProperty(8);
+                mesh.addConstraintEdge(constr);
+                constr = new DEdge(10, 60, 0, 70, 5, 0);
+                constr.setProperty(16);
+                mesh.addConstraintEdge(constr);
+                mesh.forceConstraintIntegrity();
+                mesh.processDelaunay();
+                assertPropertyIndex(mesh, 8);
+                assertPropertyIndex(mesh, 16);
+                assertPropertyIndex(mesh, 24);
+                assertFalse(mesh.edgesWithProperty(8).isEmpty());
+                DTriangle tri = mesh.getTriangleList().get(5);
+                mesh.addElementProperty(tri, 32);
+                assertEquals(1, mesh.trianglesWithProperty(32).size());
+                assertTrue(mesh.trianglesWithProperty(32).get(0) == tri);
+                mesh.setElementProperty(tri, 0);
+                assertTrue(mesh.trianglesWithProperty(32).isEmpty());
+                DEdge ed = mesh.edgesWithProperty(8).get(0);
+                mesh.setElementProperty(ed, 16);
+                assertFalse(mesh.edgesWithProperty(8).contains(ed));
+                assertTrue(mesh.edgesWithProperty(16).contains(ed));
+                mesh.refineMesh(1, new org.jdelaunay.delaunay.evaluator.SkinnyEvaluator(20));
+                assertPropertyIndex(mesh, 8);
+                assertPropertyIndex(mesh, 16);
+        }
+
+        private void assertPropertyIndex(ConstrainedMesh mesh, int property) throws DelaunayError {
+                List<DEdge> eds = new ArrayList<DEdge>();
+                for(DEdge ed : mesh.getEdges()){
+                        if(ed.hasProperty(property)){
+                                eds.add(ed);
+                        }
+                }
+                List<DEdge> indexed = mesh.edgesWithProperty(property);
+                assertEquals(eds.size(), indexed.size());
+                assertTrue(indexed.containsAll(eds));
+                List<DTriangle> tris = new ArrayList<DTriangle>();
+                for(DTriangle tri : mesh.getTriangleList()){
+                        if(tri.hasProperty(property)){
+                                tris.add(tri);
+                        }
+                }
+                assertEquals(tris.size(), mesh.trianglesWithProperty(property).size());
+        }
+
+        /**
+         * Tags the triangles of adjacent, nested and holed polygons, with a
+         * constraint that crosses them.
+         */
+        public void testTagPolygons() throws DelaunayError {
+                ConstrainedMesh mesh = new ConstrainedMesh();
+                mesh.setPoints(getRandomPoints(400));
+                //A square, given clockwise, with a hole.
+                List<List<DPoint>> holes = new ArrayList<List<DPoint>>();
+                holes.add(getSquare(20, 20, 30, 30, 5));
+                List<DPoint> shell = getSquare(10, 10, 50, 50, 2);
+                Collections.reverse(shell);
+                mesh.addPolygon(shell, holes, 1);
+                //A closed square that shares a side with the first one.
+                shell = getSquare(50, 10, 90, 50, 3);
+                shell.add(shell.get(0));
+                mesh.addPolygon(shell, new ArrayList<List<DPoint>>(), 2);
+                //A square inside the second one.
+                mesh.addPolygon(getSquare(60, 20, 70, 30, 4), new ArrayList<List<DPoint>>(), 3);
+                mesh.addConstraintEdge(new DEdge(15, 5, 0, 15, 95, 0));
+                mesh.forceConstraintIntegrity();
+                mesh.processDelaunay();
+                int count = mesh.tagPolygons(8, 16);
+                int inside = 0;
+                for(DTriangle tri : mesh.getTriangleList()){
+                        DPoint bary = tri.getBarycenter();
+                        int expected = -1;
+                        if(isIn(bary, 60, 20, 70, 30)){
+                                expected = 3;
+                        } else if(isIn(bary, 50, 10, 90, 50)){
+                                expected = 2;
+                        } else if(isIn(bary, 10, 10, 50, 50) && !isIn(bary, 20, 20, 30, 30)){
+                                expected = 1;
+                        }
+                        assertEquals(expected, tri.getExternalGID());
+                        assertEquals(expected > 0, tri.hasProperty(8));
+                        assertEquals(expected < 0, tri.hasProperty(16));
+                        inside += expected > 0 ? 1 : 0;
+                }
+                assertEquals(inside, count);
+                assertTrue(count > 0);
+        }
+
+        /**
+         * The triangles in the holes receive their own property, except the
+         * ones of a polygon inside a hole.
+         */
+        public void testTagPolygonsHoles() throws DelaunayError {
+                ConstrainedMesh mesh = new ConstrainedMesh();
+                mesh.setPoints(getRandomPoints(400));
+                List<List<DPoint>> holes = new ArrayList<List<DPoint>>();
+                holes.add(getSquare(20, 20, 40, 40, 1));
+                holes.add(getSquare(60, 60, 80, 80, 2));
+                mesh.addPolygon(getSquare(10, 10, 90, 90, 0), holes, 1);
+                //An island in the first hole.
+                mesh.addPolygon(getSquare(25, 25, 35, 35, 3), new ArrayList<List<DPoint>>(), 2);
+                mesh.processDelaunay();
+                int count = mesh.tagPolygons(8, 16, 32);
+                int inside = 0;
+                int inHoles = 0;
+                for(DTriangle tri : mesh.getTriangleList()){
+                        DPoint bary = tri.getBarycenter();
+                        int expected = -1;
+                        int property = 16;
+                        if(isIn(bary, 25, 25, 35, 35)){
+                                expected = 2;
+                                property = 8;
+                        } else if(isIn(bary, 20, 20, 40, 40) || isIn(bary, 60, 60, 80, 80)){
+                                property = 32;
+                        } else if(isIn(bary, 10, 10, 90, 90)){
+                                expected = 1;
+                                property = 8;
+                        }
+                        assertEquals(expected, tri.getExternalGID());
+                        assertEquals(property, tri.getProperty());
+                        inside += expected > 0 ? 1 : 0;
+                        inHoles += property == 32 ? 1 : 0;
+                }
+                assertEquals(inside, count);
+                assertTrue(inHoles > 0);
+                assertEquals(inHoles, mesh.trianglesWithProperty(32).size());
+        }
+
+        /**
+         * The points of the mesh are not sorted anymore after a refinement, but
+         * the polygons must still be found.
+         */
+        public void testTagPolygonsAfterRefinement() throws DelaunayError {
+                for(int seed = 0; seed < 5; seed++){
+                        ConstrainedMesh mesh = new ConstrainedMesh();
+                        Random rand = new Random(seed);
+                        List<DPoint> pts = new ArrayList<DPoint>();
+                        for(int i = 0; i < 200; i++){
+                                pts.add(new DPoint(100 * rand.nextDouble(), 100 * rand.nextDouble(), 0));
+                        }
+                        mesh.setPoints(pts);
+                        mesh.addPolygon(getSquare(20, 20, 60, 60, 0), new ArrayList<List<DPoint>>(), 1);
+                        mesh.processDelaunay();
+                        mesh.refineMesh(0.5, new SkinnyEvaluator(20));
+                        if(seed % 2 == 1){
+                                mesh.compactAndReorder(false);
+                        }
+                        int count = mesh.tagPolygons(8, 16);
+                        assertTrue(count > 0);
+                        for(DTriangle tri : mesh.getTriangleList()){
+                                int expected = isIn(tri.getBarycenter(), 20, 20, 60, 60) ? 1 : -1;
+                                assertEquals(expected, tri.getExternalGID());
+                        }
+                }
+        }
+
+        /**
+         * Removes the triangles that are outside a constrained square.
+         */
+        public void testTrimHullConstraints() throws DelaunayError {
+                ConstrainedMesh mesh = new ConstrainedMesh();
+                mesh.setPoints(getRandomPoints(300));
+                List<DPoint> square = getSquare(10, 10, 90, 90, 0);
+                for(int i = 0; i < square.size(); i++){
+                        mesh.addConstraintEdge(new DEdge(square.get(i), square.get((i + 1) % square.size())));
+                }
+                try{
+                        mesh.trimHull(0);
+                        assertTrue(false);
+                } catch (DelaunayError d){
+                }
+                mesh.processDelaunay();
+                int before = mesh.getTriangleList().size();
+                int removed = mesh.trimHull(0);
+                assertTrue(removed > 0);
+                assertEquals(before, removed + mesh.getTriangleList().size());
+                double area = 0;
+                for(DTriangle tri : mesh.getTriangleList()){
+                        assertTrue(isIn(tri.getBarycenter(), 10, 10, 90, 90));
+                        area += tri.getArea();
+                }
+                assertEquals(6400, area, 1e-8);
+                for(DEdge ed : mesh.getEdges()){
+                        assertTrue(ed.getLeft() != null || ed.getRight() != null);
+                }
+                for(DPoint pt : mesh.getPoints()){
+                        assertTrue(isIn(pt, 9, 9, 91, 91));
+                }
+                assertEquals(4, mesh.getConstraintEdges().size());
+                assertTrianglesTopology(mesh);
+                assertEquals(0, mesh.trimHull(0));
+        }
+
+        /**
+         * Computes the concave hull of a L shaped grid.
+         */
+        public void testTrimHullConcave() throws DelaunayError {
+                ConstrainedMesh mesh = new ConstrainedMesh();
+                List<DPoint> pts = new ArrayList<DPoint>();
+                for(int i = 0; i <= 20; i++){
+                        for(int j = 0; j <= 20; j++){
+                                if(i <= 10 || j <= 10){
+                                        pts.add(new DPoint(i, j, 0));
+                                }
+                        }
+                }
+                mesh.setPoints(pts);
+                mesh.processDelaunay();
+                assertTrue(mesh.trimHull(1.2) > 0);
+                double area = 0;
+                for(DTriangle tri : mesh.getTriangleList()){
+                        area += tri.getArea();
+                }
+                assertEquals(300, area, 1e-8);
+                assertEquals(pts.size(), mesh.getPoints().size());
+                assertTrianglesTopology(mesh);
+        }
+
+        private List<DPoint> getSquare(double x1, double y1, double x2, double y2, double z)
+                        throws DelaunayError {
+                List<DPoint> ring = new ArrayList<DPoint>();
+                ring.add(new DPoint(x1, y1, z));
+                ring.add(new DPoint(x2, y1, z));
+                ring.add(new DPoint(x2, y2, z));
+                ring.add(new DPoint(x1, y2, z));
+                return ring;
+        }
+
+        private boolean isIn(DPoint pt, double x1, double y1, double x2, double y2) {
+                return pt.getX() > x1 && pt.getX() < x2 && pt.getY() > y1 && pt.getY() < y2;
+        }
+
+        private void assertRenumbered(ConstrainedMesh mesh) {
+                assertCoherence(mesh);
+                assertTrianglesTopology(mesh);
+                for(int i = 0; i < mesh.getPoints().size(); i++){
+                        assertEquals(i + 1, mesh.getPoints().get(i).getGID());
+                }
+                for(int i = 0; i < mesh.getEdges().size(); i++){
+                        assertEquals(i + 1, mesh.getEdges().get(i).getGID());
+                }
+                for(int i = 0; i < mesh.getTriangleList().size(); i++){
+                        assertEquals(i + 1, mesh.getTriangleList().get(i).getGID());
+                }
+        }
+
+        private double getPathLength(List<DTriangle> triangles) throws DelaunayError {
+                double length = 0;
+                for(int i = 1; i < triangles.size(); i++){
+                        DPoint b1 = triangles.get(i).getBarycenter();
+                        DPoint b2 = triangles.get(i - 1).getBarycenter();
+                        length += Math.hypot(b1.getX() - b2.getX(), b1.getY() - b2.getY());
+                }
+                return length;
+        }
+
 }
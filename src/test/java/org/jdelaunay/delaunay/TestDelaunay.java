@@ -31,6 +31,8 @@
 package org.jdelaunay.delaunay;
 
 import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
 import org.jdelaunay.delaunay.error.DelaunayError;
 import org.jdelaunay.delaunay.geometries.DEdge;
 import org.jdelaunay.delaunay.geometries.DPoint;
@@ -396,4 +398,113 @@ public class TestDelaunay extends BaseUtility {
                 ArrayList<DEdge> resList = (ArrayList<DEdge>)mesh.getConstraintEdges();
 		assertTrue(resList.size() == constrSize-1);
  	}
+	/**
+	 * Points that are closer than epsilon are merged transitively.
+	 * @throws DelaunayError
+	 */
+	public void testDelaunayQualification_Chain() throws DelaunayError {
+		ConstrainedMesh mesh = new ConstrainedMesh();
+		ArrayList<DPoint> pts = new ArrayList<DPoint>();
+                pts.add(new DPoint(0,0,0));
+                pts.add(new DPoint(0.000008,0,0));
+                pts.add(new DPoint(0.000016,0,0));
+                pts.add(new DPoint(0.000016,0.000008,0));
+                pts.add(new DPoint(1,1,0));
+                pts.add(new DPoint(0,1,0));
+		mesh.setPoints(pts);
+                mesh.dataQualification(1.0e-5);
+		assertEquals(3, mesh.getPoints().size());
+		assertTrue(mesh.getPoints().contains(new DPoint(0,0,0)));
+	}
+
+	/**
+	 * A dense cluster of points is merged in a single point.
+	 * @throws DelaunayError
+	 */
+	public void testDelaunayQualification_DenseCluster() throws DelaunayError {
+		ConstrainedMesh mesh = new ConstrainedMesh();
+		ArrayList<DPoint> pts = new ArrayList<DPoint>();
+		Random rand = new Random(3);
+		for(int i = 0; i < 20000; i++){
+			pts.add(new DPoint(10 + rand.nextDouble() * 0.001, 10 + rand.nextDouble() * 0.001, i));
+		}
+                pts.add(new DPoint(0,0,0));
+                pts.add(new DPoint(20,0,0));
+		mesh.setPoints(pts);
+                mesh.dataQualification(0.01);
+		assertEquals(3, mesh.getPoints().size());
+		mesh.processDelaunay();
+		assertEquals(1, mesh.getTriangleList().size());
+	}
+
+	/**
+	 * A point that is closer than epsilon to a constraint is moved on it, and
+	 * the constraint is split.
+	 * @throws DelaunayError
+	 */
+	public void testDelaunayQualification_SnapOnConstraint() throws DelaunayError {
+		ConstrainedMesh mesh = new ConstrainedMesh();
+		DPoint close = new DPoint(4.999999, 5.000001, 3);
+		mesh.addPoint(close);
+		mesh.addPoint(new DPoint(5, 8, 0));
+		mesh.addPoint(new DPoint(2, 6, 0));
+		mesh.addConstraintEdge(new DEdge(0, 0, 0, 10, 10, 0));
+		mesh.dataQualification(1.0e-5);
+		assertEquals(5, mesh.getPoints().size());
+		assertEquals(5.0, close.getX(), 1e-9);
+		assertEquals(5.0, close.getY(), 1e-9);
+		List<DEdge> constraints = mesh.getConstraintEdges();
+		assertEquals(2, constraints.size());
+		assertTrue(constraints.contains(new DEdge(0, 0, 0, 5, 5, 3)));
+		assertTrue(constraints.contains(new DEdge(5, 5, 3, 10, 10, 0)));
+		for(DEdge ed : constraints){
+			assertTrue(ed.isLocked());
+		}
+		mesh.processDelaunay();
+		assertTrue(mesh.getEdges().contains(new DEdge(0, 0, 0, 5, 5, 3)));
+	}
+
+	/**
+	 * The ends of the constraints are not moved on the other constraints,
+	 * even when they have been merged.
+	 * @throws DelaunayError
+	 */
+	public void testDelaunayQualification_ConstraintEnds() throws DelaunayError {
+		ConstrainedMesh mesh = new ConstrainedMesh();
+		mesh.addConstraintEdge(new DEdge(0, 0, 0, 10, 0, 0));
+		mesh.addConstraintEdge(new DEdge(5, 0.05, 0, 5, 10, 0));
+		mesh.addConstraintEdge(new DEdge(5.04, -0.04, 0, 8, 10, 0));
+		mesh.dataQualification(0.1);
+		assertEquals(5, mesh.getPoints().size());
+		assertTrue(mesh.getPoints().contains(new DPoint(5, 0.05, 0)));
+		List<DEdge> constraints = mesh.getConstraintEdges();
+		assertEquals(3, constraints.size());
+		assertTrue(constraints.contains(new DEdge(0, 0, 0, 10, 0, 0)));
+		assertTrue(constraints.contains(new DEdge(5, 0.05, 0, 5, 10, 0)));
+		assertTrue(constraints.contains(new DEdge(5, 0.05, 0, 8, 10, 0)));
+		mesh.processDelaunay();
+		assertTrue(mesh.getEdges().containsAll(constraints));
+	}
+
+	/**
+	 * Points that are projected closer than epsilon are merged.
+	 * @throws DelaunayError
+	 */
+	public void testDelaunayQualification_SnapAndMerge() throws DelaunayError {
+		ConstrainedMesh mesh = new ConstrainedMesh();
+		mesh.addPoint(new DPoint(5, 0.08, 0));
+		mesh.addPoint(new DPoint(5.05, -0.09, 0));
+		mesh.addPoint(new DPoint(5, 5, 0));
+		mesh.addConstraintEdge(new DEdge(0, 0, 0, 10, 0, 0));
+		mesh.dataQualification(0.1);
+		assertEquals(4, mesh.getPoints().size());
+		assertTrue(mesh.getPoints().contains(new DPoint(5, 0, 0)));
+		List<DEdge> constraints = mesh.getConstraintEdges();
+		assertEquals(2, constraints.size());
+		assertTrue(constraints.contains(new DEdge(0, 0, 0, 5, 0, 0)));
+		assertTrue(constraints.contains(new DEdge(5, 0, 0, 10, 0, 0)));
+		mesh.processDelaunay();
+		assertEquals(2, mesh.getTriangleList().size());
+	}
+
 }
@@ -0,0 +1,115 @@
+/**
+ *
+ * jDelaunay is a library dedicated to the processing of Delaunay and constrained
+ * Delaunay triangulations from PSLG inputs.
+ *
+ * This library is developed at French IRSTV institute as part of the AvuPur and Eval-PDU project,
+ * funded by the French Agence Nationale de la Recherche (ANR) under contract
+ * ANR-07-VULN-01 and ANR-08-VILL-0005-01 .
+ *
+ * jDelaunay is distributed under GPL 3 license. It is produced by the "Atelier SIG" team of
+ * the IRSTV Institute <http://www.irstv.fr/> CNRS FR 2488.
+ *
+ * Copyright (C) 2010-2012 IRSTV FR CNRS 2488
+ *
+ * jDelaunay is free software: you can redistribute it and/or modify it under the
+ * terms of the GNU General Public License as published by the Free Software
+ * Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ *
+ * jDelaunay is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR
+ * A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * jDelaunay. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * For more information, please consult: <http://www.orbisgis.org/>
+ * or contact directly:
+ * info_at_ orbisgis.org
+ */
+package org.jdelaunay.delaunay;
+
+import java.util.ArrayList;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.ListIterator;
+import java.util.Random;
+import junit.framework.TestCase;
+import org.jdelaunay.delaunay.error.DelaunayError;
+import org.jdelaunay.delaunay.geometries.DEdge;
+import org.jdelaunay.delaunay.geometries.DPoint;
+
+/**
+ * Tests on the list used to index the boundary edges.
+ * @author Alexis Guéganno
+ */
+public class TestFrontEdgeList extends TestCase {
+
+	/**
+	 * The list must behave like a LinkedList.
+	 */
+	public void testListOperations() throws DelaunayError {
+		Random rand = new Random(12);
+		List<DEdge> ref = new LinkedList<DEdge>();
+		FrontEdgeList fel = new FrontEdgeList();
+		for(int i = 0; i < 500; i++){
+			DEdge ed = new DEdge(rand.nextDouble(), rand.nextDouble(), 0, rand.nextDouble(), rand.nextDouble(), 0);
+			int op = rand.nextInt(4);
+			if(op == 0 || ref.isEmpty()){
+				ref.add(ed);
+				fel.add(ed);
+			} else {
+				int idx = rand.nextInt(ref.size());
+				ListIterator<DEdge> itr = ref.listIterator(idx);
+				ListIterator<DEdge> itf = fel.listIterator(idx);
+				assertTrue(itr.next() == itf.next());
+				if(op == 1){
+					itr.remove();
+					itf.remove();
+				} else if(op == 2){
+					itr.previous();
+					itf.previous();
+					itr.add(ed);
+					itf.add(ed);
+					assertEquals(itr.nextIndex(), itf.nextIndex());
+				} else {
+					itr.set(ed);
+					itf.set(ed);
+				}
+			}
+			assertEquals(ref.size(), fel.size());
+		}
+		assertEquals(ref, fel);
+		assertEquals(ref, new FrontEdgeList(ref));
+	}
+
+	/**
+	 * Checks that we retrieve the first edge visible from a point.
+	 */
+	public void testVisibleRun() throws DelaunayError {
+		List<DEdge> bound = new ArrayList<DEdge>();
+		DPoint prev = new DPoint(0, -100, 0);
+		for(int i = 1; i <= 100; i++){
+			double ang = Math.PI * i / 100 - Math.PI / 2;
+			DPoint next = new DPoint(100 * Math.cos(ang), 100 * Math.sin(ang), 0);
+			bound.add(new DEdge(prev, next));
+			prev = next;
+		}
+		FrontEdgeList fel = new FrontEdgeList(bound);
+		DPoint pt = new DPoint(110, 30, 0);
+		int first = 0;
+		while(!bound.get(first).isRight(pt)){
+			first++;
+		}
+		ListIterator<DEdge> it = fel.visibleRun(pt);
+		assertNotNull(it);
+		assertEquals(first, it.nextIndex());
+		assertTrue(it.next() == bound.get(first));
+		assertTrue(it.previous() == bound.get(first));
+		assertTrue(it.hasPrevious());
+		assertFalse(it.previous().isRight(pt));
+		//Nothing can be seen from this point.
+		assertNull(fel.visibleRun(new DPoint(0, 0, 0)));
+	}
+}
@@ -0,0 +1,220 @@
+/**
+ *
+ * jDelaunay is a library dedicated to the processing of Delaunay and constrained
+ * Delaunay triangulations from PSLG inputs.
+ *
+ * This library is developed at French IRSTV institute as part of the AvuPur and Eval-PDU project,
+ * funded by the French Agence Nationale de la Recherche (ANR) under contract
+ * ANR-07-VULN-01 and ANR-08-VILL-0005-01 .
+ *
+ * jDelaunay is distributed under GPL 3 license. It is produced by the "Atelier SIG" team of
+ * the IRSTV Institute <http://www.irstv.fr/> CNRS FR 2488.
+ *
+ * Copyright (C) 2010-2012 IRSTV FR CNRS 2488
+ *
+ * jDelaunay is free software: you can redistribute it and/or modify it under the
+ * terms of the GNU General Public License as published by the Free Software
+ * Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ *
+ * jDelaunay is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR
+ * A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * jDelaunay. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * For more information, please consult: <http://www.orbisgis.org/>
+ * or contact directly:
+ * info_at_ orbisgis.org
+ */
+package org.jdelaunay.delaunay;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import org.jdelaunay.delaunay.error.DelaunayError;
+import org.jdelaunay.delaunay.geometries.DEdge;
+import org.jdelaunay.delaunay.geometries.DPoint;
+import org.jdelaunay.delaunay.geometries.DTriangle;
+import org.jdelaunay.delaunay.metrics.MeshCounter;
+import org.jdelaunay.delaunay.metrics.MeshMetrics;
+
+/**
+ * Tests the triangulation made with the front smoothing.
+ * @author Alexis Guéganno
+ */
+public class TestFrontSweep extends BaseUtility {
+
+	/**
+	 * Random points are in general position : we must obtain exactly the
+	 * same triangles with and without the front smoothing.
+	 * @throws DelaunayError
+	 */
+	public void testRandomPoints() throws DelaunayError {
+		List<DPoint> pts = getRandomPoints(2000);
+		ConstrainedMesh ref = process(pts, false, null);
+		ConstrainedMesh mesh = process(pts, true, null);
+		assertEquals(getTriangles(ref), getTriangles(mesh));
+		assertEquals(ref.getEdges().size(), mesh.getEdges().size());
+		assertCoherence(mesh);
+		assertTrianglesTopology(mesh);
+		assertGIDUnicity(mesh);
+		assertDelaunay(mesh);
+	}
+
+	/**
+	 * The first points are aligned, and the first point that is not on
+	 * their line is on their right.
+	 * @throws DelaunayError
+	 */
+	public void testAlignedStart() throws DelaunayError {
+		List<DPoint> pts = new ArrayList<DPoint>();
+		pts.add(new DPoint(0, 0, 0));
+		pts.add(new DPoint(0, 1, 0));
+		pts.add(new DPoint(0, 2, 0));
+		pts.add(new DPoint(0, 3, 0));
+		pts.add(new DPoint(1, -1, 0));
+		pts.add(new DPoint(2, 4, 0));
+		pts.add(new DPoint(3, 1.5, 0));
+		ConstrainedMesh ref = process(pts, false, null);
+		ConstrainedMesh mesh = process(pts, true, null);
+		assertEquals(getTriangles(ref), getTriangles(mesh));
+		assertTrianglesTopology(mesh);
+		assertDelaunay(mesh);
+		pts.set(4, new DPoint(1, 5, 0));
+		mesh = process(pts, true, null);
+		assertEquals(getTriangles(process(pts, false, null)), getTriangles(mesh));
+	}
+
+	/**
+	 * The points of a grid are cocircular : we just check we obtain a
+	 * Delaunay triangulation, with far less flips.
+	 * @throws DelaunayError
+	 */
+	public void testGrid() throws DelaunayError {
+		List<DPoint> pts = getGrid(40);
+		MeshMetrics refMetrics = new MeshMetrics();
+		ConstrainedMesh ref = process(pts, false, refMetrics);
+		MeshMetrics metrics = new MeshMetrics();
+		ConstrainedMesh mesh = process(pts, true, metrics);
+		assertEquals(2 * 39 * 39, mesh.getTriangleList().size());
+		assertEquals(ref.getEdges().size(), mesh.getEdges().size());
+		assertCoherence(mesh);
+		assertTrianglesTopology(mesh);
+		assertDelaunay(mesh);
+		assertTrue(metrics.getCount(MeshCounter.FLIPS) < refMetrics.getCount(MeshCounter.FLIPS));
+		assertEquals(pts.size() - 2, metrics.getCount(MeshCounter.SWEEP_INSERTIONS));
+	}
+
+	/**
+	 * The smoothing is not used when the mesh contains constraints.
+	 * @throws DelaunayError
+	 */
+	public void testConstraints() throws DelaunayError {
+		ConstrainedMesh mesh = new ConstrainedMesh();
+		MeshMetrics metrics = new MeshMetrics();
+		mesh.setMetricsListener(metrics);
+		mesh.setFrontSmoothing(true);
+		assertTrue(mesh.isFrontSmoothing());
+		mesh.setPoints(getRandomPoints(200));
+		mesh.addConstraintEdge(new DEdge(0, 0, 0, 100, 100, 0));
+		mesh.processDelaunay();
+		assertTrue(metrics.getCount(MeshCounter.BOUNDARY_PARTS_CONNECTED) > 0);
+		assertConstraintsAreLocked(mesh);
+	}
+
+	/**
+	 * The front smoothing must not increase the number of flips needed to
+	 * process a grid and contour lines.
+	 * @throws DelaunayError
+	 */
+	public void testFlipsPerPoint() throws DelaunayError {
+		List<DPoint> grid = getGrid(100);
+		List<DPoint> contours = getContourLines(30);
+		long[] gridFlips = new long[2];
+		long[] contourFlips = new long[2];
+		for(int i = 0; i < 2; i++){
+			boolean smoothing = i == 1;
+			MeshMetrics metrics = new MeshMetrics();
+			ConstrainedMesh mesh = process(grid, smoothing, metrics);
+			gridFlips[i] = metrics.getCount(MeshCounter.FLIPS);
+			assertEquals(2 * 99 * 99, mesh.getTriangleList().size());
+			metrics = new MeshMetrics();
+			mesh = process(contours, smoothing, metrics);
+			contourFlips[i] = metrics.getCount(MeshCounter.FLIPS);
+			assertDelaunay(mesh);
+		}
+		assertTrue(gridFlips[1] <= gridFlips[0]);
+		assertTrue(contourFlips[1] <= contourFlips[0]);
+	}
+
+	static ConstrainedMesh process(List<DPoint> pts, boolean smoothing, MeshMetrics metrics) throws DelaunayError {
+		ConstrainedMesh mesh = new ConstrainedMesh();
+		mesh.setMetricsListener(metrics);
+		mesh.setFrontSmoothing(smoothing);
+		List<DPoint> copy = new ArrayList<DPoint>();
+		for(DPoint pt : pts){
+			copy.add(new DPoint(pt));
+		}
+		mesh.setPoints(copy);
+		mesh.processDelaunay();
+		return mesh;
+	}
+
+	static List<DPoint> getGrid(int size) throws DelaunayError {
+		List<DPoint> pts = new ArrayList<DPoint>();
+		for(int i = 0; i < size; i++){
+			for(int j = 0; j < size; j++){
+				pts.add(new DPoint(i, j, 0));
+			}
+		}
+		return pts;
+	}
+
+	/**
+	 * Points sampled regularly on concentric ellipses. They are slightly
+	 * moved, so that they are not cocircular.
+	 */
+	static List<DPoint> getContourLines(int number) throws DelaunayError {
+		List<DPoint> pts = new ArrayList<DPoint>();
+		for(int k = 1; k <= number; k++){
+			int count = 20 * k;
+			for(int i = 0; i < count; i++){
+				double angle = 2 * Math.PI * i / count;
+				pts.add(new DPoint(30 * k * Math.cos(angle) + 0.001 * i, 10 * k * Math.sin(angle), k));
+			}
+		}
+		return pts;
+	}
+
+	/**
+	 * Get the triangles of the mesh as sorted strings, to compare meshes
+	 * that do not share their objects.
+	 */
+	private List<String> getTriangles(ConstrainedMesh mesh) {
+		List<String> ret = new ArrayList<String>();
+		for(DTriangle tri : mesh.getTriangleList()){
+			String[] pts = new String[3];
+			for(int i = 0; i < 3; i++){
+				pts[i] = tri.getPoint(i).getX() + " " + tri.getPoint(i).getY();
+			}
+			Arrays.sort(pts);
+			ret.add(pts[0] + ";" + pts[1] + ";" + pts[2]);
+		}
+		Collections.sort(ret);
+		return ret;
+	}
+
+	private void assertDelaunay(ConstrainedMesh mesh) {
+		for(DEdge ed : mesh.getEdges()){
+			DTriangle left = ed.getLeft();
+			DTriangle right = ed.getRight();
+			assertTrue(left != null || right != null);
+			if(left != null && right != null){
+				assertFalse(right.inCircle(left.getOppositePoint(ed)) == 1);
+			}
+		}
+	}
+}
@@ -0,0 +1,101 @@
+/**
+ *
+ * jDelaunay is a library dedicated to the processing of Delaunay and constrained
+ * Delaunay triangulations from PSLG inputs.
+ *
+ * This library is developed at French IRSTV institute as part of the AvuPur and Eval-PDU project,
+ * funded by the French Agence Nationale de la Recherche (ANR) under contract
+ * ANR-07-VULN-01 and ANR-08-VILL-0005-01 .
+ *
+ * jDelaunay is distributed under GPL 3 license. It is produced by the "Atelier SIG" team of
+ * the IRSTV Institute <http://www.irstv.fr/> CNRS FR 2488.
+ *
+ * Copyright (C) 2010-2012 IRSTV FR CNRS 2488
+ *
+ * jDelaunay is free software: you can redistribute it and/or modify it under the
+ * terms of the GNU General Public License as published by the Free Software
+ * Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ *
+ * jDelaunay is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR
+ * A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * jDelaunay. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * For more information, please consult: <http://www.orbisgis.org/>
+ * or contact directly:
+ * info_at_ orbisgis.org
+ */
+package org.jdelaunay.delaunay;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import org.jdelaunay.delaunay.error.DelaunayError;
+import org.jdelaunay.delaunay.geometries.DPoint;
+import org.jdelaunay.delaunay.tools.HilbertOrder;
+
+/**
+ * Tests the sort of points along a Hilbert curve.
+ * @author Alexis Guéganno
+ */
+public class TestHilbertOrder extends BaseUtility {
+
+	/**
+	 * The points of a regular grid are sorted so that two consecutive
+	 * points are always neighbours in the grid.
+	 */
+	public void testGridOrder() {
+		double[] x = new double[256];
+		double[] y = new double[256];
+		for(int i = 0; i < 16; i++){
+			for(int j = 0; j < 16; j++){
+				x[16 * i + j] = i;
+				y[16 * i + j] = j;
+			}
+		}
+		int[] order = HilbertOrder.sort(x, y);
+		assertEquals(256, order.length);
+		assertEquals(0, order[0]);
+		HashSet<Integer> seen = new HashSet<Integer>();
+		for(int i = 0; i < order.length; i++){
+			assertTrue(seen.add(order[i]));
+			if(i > 0){
+				double dist = Math.abs(x[order[i]] - x[order[i - 1]]) + Math.abs(y[order[i]] - y[order[i - 1]]);
+				assertEquals(1.0, dist);
+			}
+		}
+	}
+
+	/**
+	 * The first values of the curve.
+	 */
+	public void testIndex() {
+		assertEquals(0, HilbertOrder.getIndex(0, 0));
+		assertEquals(1, HilbertOrder.getIndex(1, 0));
+		assertEquals(2, HilbertOrder.getIndex(1, 1));
+		assertEquals(3, HilbertOrder.getIndex(0, 1));
+		assertEquals((1L << 32) - 1, HilbertOrder.getIndex(65535, 0));
+	}
+
+	/**
+	 * The BRIO order is a permutation of its input, that depends only on
+	 * the seed of the random generator.
+	 * @throws DelaunayError
+	 */
+	public void testBrio() throws DelaunayError {
+		List<DPoint> pts = getRandomPoints(1000);
+		List<DPoint> order = HilbertOrder.brio(pts, new Random(5));
+		assertEquals(pts.size(), order.size());
+		assertEquals(new HashSet<DPoint>(pts).size(), new HashSet<DPoint>(order).size());
+		assertTrue(order.containsAll(pts));
+		assertEquals(order, HilbertOrder.brio(pts, new Random(5)));
+		List<DPoint> single = new ArrayList<DPoint>();
+		single.add(new DPoint(1, 1, 1));
+		assertEquals(single, HilbertOrder.brio(single, new Random(5)));
+		assertEquals(single, HilbertOrder.sort(single));
+	}
+}
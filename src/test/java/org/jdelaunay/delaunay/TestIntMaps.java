@@ -0,0 +1,116 @@
+/**
+ *
+ * jDelaunay is a library dedicated to the processing of Delaunay and constrained
+ * Delaunay triangulations from PSLG inputs.
+ *
+ * This library is developed at French IRSTV institute as part of the AvuPur and Eval-PDU project,
+ * funded by the French Agence Nationale de la Recherche (ANR) under contract
+ * ANR-07-VULN-01 and ANR-08-VILL-0005-01 .
+ *
+ * jDelaunay is distributed under GPL 3 license. It is produced by the "Atelier SIG" team of
+ * the IRSTV Institute <http://www.irstv.fr/> CNRS FR 2488.
+ *
+ * Copyright (C) 2010-2012 IRSTV FR CNRS 2488
+ *
+ * jDelaunay is free software: you can redistribute it and/or modify it under the
+ * terms of the GNU General Public License as published by the Free Software
+ * Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ *
+ * jDelaunay is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR
+ * A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * jDelaunay. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * For more information, please consult: <http://www.orbisgis.org/>
+ * or contact directly:
+ * info_at_ orbisgis.org
+ */
+package org.jdelaunay.delaunay;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import org.jdelaunay.delaunay.tools.IntIntMap;
+import org.jdelaunay.delaunay.tools.IntObjectMap;
+
+/**
+ * Tests the primitive int-keyed maps.
+ * @author Alexis Guéganno
+ */
+public class TestIntMaps extends BaseUtility {
+
+	/**
+	 * Random puts and removes must give the same content as a HashMap.
+	 */
+	public void testIntObjectMap() {
+		Random rand = new Random(7);
+		IntObjectMap<String> map = new IntObjectMap<String>();
+		Map<Integer, String> ref = new HashMap<Integer, String>();
+		for(int i = 0; i < 20000; i++){
+			int key = rand.nextInt(2000) - 1000;
+			if(rand.nextInt(3) == 0){
+				assertEquals(ref.remove(key), map.remove(key));
+			} else {
+				String v = "v" + i;
+				assertEquals(ref.put(key, v), map.put(key, v));
+			}
+			assertEquals(ref.size(), map.size());
+		}
+		for(int key = -1000; key < 1000; key++){
+			assertEquals(ref.containsKey(key), map.containsKey(key));
+			assertEquals(ref.get(key), map.get(key));
+		}
+		assertEquals(new HashSet<String>(ref.values()), new HashSet<String>(map.values()));
+		map.clear();
+		assertTrue(map.isEmpty());
+		assertNull(map.get(3));
+	}
+
+	/**
+	 * any() must let us drain the map, whatever the order of the removals.
+	 */
+	public void testAny() {
+		IntObjectMap<Integer> map = new IntObjectMap<Integer>(4);
+		for(int i = 0; i < 1000; i++){
+			map.put(i * 31, i * 31);
+		}
+		Set<Integer> seen = new HashSet<Integer>();
+		while(!map.isEmpty()){
+			Integer k = map.any();
+			assertTrue(seen.add(k));
+			map.remove(k);
+			if(k % 310 == 0 && k < 15500){
+				//Entries can be added while draining.
+				map.put(k + 1, k + 1);
+			}
+		}
+		assertEquals(1050, seen.size());
+		assertNull(map.any());
+	}
+
+	/**
+	 * Checks the map used for the weights.
+	 */
+	public void testIntIntMap() {
+		Map<Integer, Integer> ref = new HashMap<Integer, Integer>();
+		ref.put(4, 10);
+		ref.put(-2, 5);
+		IntIntMap map = new IntIntMap(ref);
+		assertEquals(2, map.size());
+		assertEquals(10, map.get(4, -1));
+		assertEquals(-1, map.get(3, -1));
+		for(int i = 0; i < 100; i++){
+			map.put(i, 2 * i);
+		}
+		assertEquals(101, map.size());
+		assertEquals(8, map.get(4, -1));
+		assertEquals(5, map.get(-2, -1));
+		assertTrue(map.containsKey(99));
+		assertFalse(map.containsKey(100));
+	}
+}
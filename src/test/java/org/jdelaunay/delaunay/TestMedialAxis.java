@@ -0,0 +1,192 @@
+/**
+ *
+ * jDelaunay is a library dedicated to the processing of Delaunay and constrained
+ * Delaunay triangulations from PSLG inputs.
+ *
+ * This library is developed at French IRSTV institute as part of the AvuPur and Eval-PDU project,
+ * funded by the French Agence Nationale de la Recherche (ANR) under contract
+ * ANR-07-VULN-01 and ANR-08-VILL-0005-01 .
+ *
+ * jDelaunay is distributed under GPL 3 license. It is produced by the "Atelier SIG" team of
+ * the IRSTV Institute <http://www.irstv.fr/> CNRS FR 2488.
+ *
+ * Copyright (C) 2010-2012 IRSTV FR CNRS 2488
+ *
+ * jDelaunay is free software: you can redistribute it and/or modify it under the
+ * terms of the GNU General Public License as published by the Free Software
+ * Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ *
+ * jDelaunay is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR
+ * A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * jDelaunay. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * For more information, please consult: <http://www.orbisgis.org/>
+ * or contact directly:
+ * info_at_ orbisgis.org
+ */
+package org.jdelaunay.delaunay;
+
+import java.util.ArrayList;
+import java.util.List;
+import org.jdelaunay.delaunay.error.DelaunayError;
+import org.jdelaunay.delaunay.geometries.DEdge;
+import org.jdelaunay.delaunay.geometries.DPoint;
+
+/**
+ * Tests the extraction of the medial axis of the regions of a mesh.
+ * @author Alexis Guéganno
+ */
+public class TestMedialAxis extends BaseUtility {
+
+	/**
+	 * The skeleton of long rectangles is their centreline.
+	 */
+	public void testCentreline() throws DelaunayError {
+		ConstrainedMesh mesh = new ConstrainedMesh();
+		mesh.addPolygon(getRectangle(0, 0, 100, 10, 2), new ArrayList<List<DPoint>>(), 1);
+		mesh.addPolygon(getRectangle(0, 20, 100, 30, 2), new ArrayList<List<DPoint>>(), 2);
+		mesh.processDelaunay();
+		mesh.tagPolygons(8, 16);
+		List<SkeletonLine> lines = new MedialAxis(mesh).getPolygonSkeleton(8);
+		//In each rectangle, a junction near each end links the centreline
+		//to the two corners.
+		assertEquals(10, lines.size());
+		int centrelines = 0;
+		for(SkeletonLine line : lines){
+			assertFalse(line.isClosed());
+			List<DPoint> pts = line.getPoints();
+			if(pts.size() < 50){
+				continue;
+			}
+			centrelines++;
+			double y = line.getExternalGID() == 1 ? 5 : 25;
+			for(int i = 1; i < pts.size() - 1; i++){
+				assertEquals(y, pts.get(i).getY(), 1e-9);
+				//Far from the ends, the closest boundary is a bank.
+				if(pts.get(i).getX() > 10 && pts.get(i).getX() < 90){
+					assertTrue(line.getDistance(i) >= 5 - 1e-9 && line.getDistance(i) < 5.1);
+				}
+			}
+			assertTrue(Math.abs(pts.get(0).getX() - pts.get(pts.size() - 1).getX()) > 90);
+			int connected = 0;
+			for(SkeletonLine other : lines){
+				List<DPoint> otherPts = other.getPoints();
+				DPoint first = otherPts.get(0);
+				DPoint last = otherPts.get(otherPts.size() - 1);
+				if(other != line && (first == pts.get(0) || first == pts.get(pts.size() - 1)
+						|| last == pts.get(0) || last == pts.get(pts.size() - 1))){
+					connected++;
+				}
+			}
+			assertEquals(4, connected);
+		}
+		assertEquals(2, centrelines);
+	}
+
+	/**
+	 * The skeleton of a thin ring is a loop.
+	 */
+	public void testLoop() throws DelaunayError {
+		ConstrainedMesh mesh = new ConstrainedMesh();
+		List<List<DPoint>> holes = new ArrayList<List<DPoint>>();
+		holes.add(getCircle(9, 40));
+		mesh.addPolygon(getCircle(10, 40), holes, 4);
+		mesh.processDelaunay();
+		mesh.tagPolygons(8, 16);
+		List<SkeletonLine> lines = new MedialAxis(mesh).getPolygonSkeleton(8);
+		assertEquals(1, lines.size());
+		SkeletonLine line = lines.get(0);
+		assertTrue(line.isClosed());
+		assertEquals(81, line.getPoints().size());
+		for(int i = 0; i < line.getPoints().size(); i++){
+			DPoint pt = line.getPoints().get(i);
+			double radius = Math.hypot(pt.getX(), pt.getY());
+			assertTrue(radius > 9 && radius < 10);
+			assertTrue(line.getDistance(i) >= 0.5 - 1e-9 && line.getDistance(i) < 1);
+		}
+	}
+
+	/**
+	 * The skeleton of a flat area stays inside it, and at its height.
+	 */
+	public void testFlatSkeleton() throws DelaunayError {
+		ConstrainedMesh mesh = new ConstrainedMesh();
+		addRing(mesh, getRectangle(0, 0, 40, 40, 40), 0);
+		addRing(mesh, getRectangle(15, 15, 25, 25, 1), 10);
+		mesh.processDelaunay();
+		List<SkeletonLine> lines = new MedialAxis(mesh).getFlatSkeleton();
+		assertFalse(lines.isEmpty());
+		int junctions = 0;
+		for(SkeletonLine line : lines){
+			for(DPoint pt : line.getPoints()){
+				assertTrue(pt.getX() > 15 && pt.getX() < 25 && pt.getY() > 15 && pt.getY() < 25);
+				assertEquals(10, pt.getZ(), 1e-9);
+			}
+			DPoint last = line.getPoints().get(line.getPoints().size() - 1);
+			for(SkeletonLine other : lines){
+				if(other != line && other.getPoints().get(0) == last){
+					junctions++;
+				}
+			}
+		}
+		//The skeleton of a square is a X, with two junctions.
+		assertEquals(5, lines.size());
+		assertTrue(junctions > 0);
+	}
+
+	/**
+	 * The mesh must be computed.
+	 */
+	public void testNotComputed() throws DelaunayError {
+		try {
+			new MedialAxis(new ConstrainedMesh());
+			fail();
+		} catch (DelaunayError d) {
+		}
+	}
+
+	private void addRing(ConstrainedMesh mesh, List<DPoint> ring, double z) throws DelaunayError {
+		List<DEdge> edges = new ArrayList<DEdge>();
+		for(DPoint pt : ring){
+			pt.setZ(z);
+		}
+		for(int i = 0; i < ring.size(); i++){
+			edges.add(new DEdge(ring.get(i), ring.get((i + 1) % ring.size())));
+		}
+		mesh.addConstraints(edges);
+	}
+
+	/**
+	 * Get the points of a rectangle, with a point every step on its sides.
+	 */
+	private List<DPoint> getRectangle(double minX, double minY, double maxX, double maxY, double step)
+			throws DelaunayError {
+		List<DPoint> pts = new ArrayList<DPoint>();
+		for(double x = minX; x < maxX; x += step){
+			pts.add(new DPoint(x, minY, 0));
+		}
+		for(double y = minY; y < maxY; y += step){
+			pts.add(new DPoint(maxX, y, 0));
+		}
+		for(double x = maxX; x > minX; x -= step){
+			pts.add(new DPoint(x, maxY, 0));
+		}
+		for(double y = maxY; y > minY; y -= step){
+			pts.add(new DPoint(minX, y, 0));
+		}
+		return pts;
+	}
+
+	private List<DPoint> getCircle(double radius, int n) throws DelaunayError {
+		List<DPoint> pts = new ArrayList<DPoint>();
+		for(int i = 0; i < n; i++){
+			double angle = 2 * Math.PI * i / n;
+			pts.add(new DPoint(radius * Math.cos(angle), radius * Math.sin(angle), 0));
+		}
+		return pts;
+	}
+}
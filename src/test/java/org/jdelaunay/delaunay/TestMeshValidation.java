@@ -0,0 +1,201 @@
+/**
+ *
+ * jDelaunay is a library dedicated to the processing of Delaunay and constrained
+ * Delaunay triangulations from PSLG inputs.
+ *
+ * This library is developed at French IRSTV institute as part of the AvuPur and Eval-PDU project,
+ * funded by the French Agence Nationale de la Recherche (ANR) under contract
+ * ANR-07-VULN-01 and ANR-08-VILL-0005-01 .
+ *
+ * jDelaunay is distributed under GPL 3 license. It is produced by the "Atelier SIG" team of
+ * the IRSTV Institute <http://www.irstv.fr/> CNRS FR 2488.
+ *
+ * Copyright (C) 2010-2012 IRSTV FR CNRS 2488
+ *
+ * jDelaunay is free software: you can redistribute it and/or modify it under the
+ * terms of the GNU General Public License as published by the Free Software
+ * Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ *
+ * jDelaunay is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR
+ * A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * jDelaunay. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * For more information, please consult: <http://www.orbisgis.org/>
+ * or contact directly:
+ * info_at_ orbisgis.org
+ */
+package org.jdelaunay.delaunay;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import org.jdelaunay.delaunay.ValidationReport.Problem;
+import org.jdelaunay.delaunay.error.DelaunayError;
+import org.jdelaunay.delaunay.evaluator.SkinnyEvaluator;
+import org.jdelaunay.delaunay.geometries.DEdge;
+import org.jdelaunay.delaunay.geometries.DPoint;
+import org.jdelaunay.delaunay.geometries.DTriangle;
+
+/**
+ * Tests the validation of the consistency of meshes.
+ * @author Alexis Guéganno
+ */
+public class TestMeshValidation extends BaseUtility {
+
+	private ConstrainedMesh getMesh() throws DelaunayError {
+		ConstrainedMesh mesh = new ConstrainedMesh();
+		Random rand = new Random(7);
+		List<DPoint> pts = new ArrayList<DPoint>();
+		for(int i = 0; i < 500; i++){
+			pts.add(new DPoint(100 * rand.nextDouble(), 100 * rand.nextDouble(), 10 * rand.nextDouble()));
+		}
+		mesh.setPoints(pts);
+		mesh.addConstraintEdge(new DEdge(0, 0, 0, 100, 100, 0));
+		mesh.addConstraintEdge(new DEdge(0, 100, 0, 100, 0, 0));
+		mesh.forceConstraintIntegrity();
+		mesh.processDelaunay();
+		return mesh;
+	}
+
+	/**
+	 * Get an edge that is not locked and that is the diagonal of a convex
+	 * quadrilateral, so that it can be flipped.
+	 */
+	private DEdge getInnerEdge(ConstrainedMesh mesh) {
+		for(DEdge ed : mesh.getEdges()){
+			if(!ed.isLocked() && ed.getLeft() != null && ed.getRight() != null){
+				DPoint p3 = ed.getLeft().getOppositePoint(ed);
+				DPoint p4 = ed.getRight().getOppositePoint(ed);
+				DEdge other = new DEdge(p3, p4);
+				if(other.isLeft(ed.getStartPoint()) != other.isLeft(ed.getEndPoint())){
+					return ed;
+				}
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * Computed and refined meshes are valid, whatever the number of threads.
+	 * @throws DelaunayError
+	 */
+	public void testValidMesh() throws DelaunayError {
+		ConstrainedMesh mesh = getMesh();
+		ValidationReport report = mesh.validate();
+		assertTrue(report.toString(), report.isValid());
+		assertEquals(1, report.getComponentCount());
+		assertEquals(1, report.getBoundaryLoopCount());
+		assertEquals(1, report.getEulerCharacteristic());
+		mesh.refineMesh(1, new SkinnyEvaluator(25));
+		report = mesh.validate(3);
+		assertTrue(report.toString(), report.isValid());
+		ValidationReport single = mesh.validate();
+		for(Problem p : Problem.values()){
+			assertEquals(single.getCount(p), report.getCount(p));
+		}
+		assertEquals(1, report.getEulerCharacteristic());
+		try {
+			new ConstrainedMesh().validate();
+			fail();
+		} catch (DelaunayError e) {
+		}
+	}
+
+	/**
+	 * The points of a regular grid are cocircular four by four. Whatever
+	 * the diagonal chosen in each cell, the mesh is Delaunay.
+	 * @throws DelaunayError
+	 */
+	public void testRegularGrid() throws DelaunayError {
+		double[] steps = {0.1, 3.7, 1000.3};
+		for(double step : steps){
+			ConstrainedMesh mesh = new ConstrainedMesh();
+			List<DPoint> pts = new ArrayList<DPoint>();
+			for(int i = 0; i < 60; i++){
+				for(int j = 0; j < 60; j++){
+					pts.add(new DPoint(i * step, j * step, 0));
+				}
+			}
+			mesh.setPoints(pts);
+			mesh.processDelaunay();
+			ValidationReport report = mesh.validate(2);
+			assertTrue(report.toString(), report.isValid());
+			assertEquals(0, report.getCount(Problem.NOT_DELAUNAY));
+			assertEquals(59 * 59 * 2, mesh.getTriangleList().size());
+		}
+	}
+
+	/**
+	 * A triangle removed from the middle of the mesh makes a hole, that
+	 * is a valid boundary loop.
+	 * @throws DelaunayError
+	 */
+	public void testHole() throws DelaunayError {
+		ConstrainedMesh mesh = getMesh();
+		DTriangle hole = null;
+		for(DTriangle tri : mesh.getTriangleList()){
+			boolean inner = true;
+			for(int i = 0; i < 3; i++){
+				DPoint pt = tri.getPoint(i);
+				inner = inner && pt.getX() > 20 && pt.getX() < 80 && pt.getY() > 20 && pt.getY() < 80;
+			}
+			if(inner){
+				hole = tri;
+				break;
+			}
+		}
+		for(int i = 0; i < 3; i++){
+			DEdge ed = hole.getEdge(i);
+			if(ed.getLeft() == hole){
+				ed.setLeft(null);
+			} else {
+				ed.setRight(null);
+			}
+		}
+		mesh.removeTriangle(hole);
+		ValidationReport report = mesh.validate();
+		assertTrue(report.toString(), report.isValid());
+		assertEquals(2, report.getBoundaryLoopCount());
+		assertEquals(0, report.getEulerCharacteristic());
+	}
+
+	/**
+	 * Broken links, wrong orientations, unregistered locked edges, duplicated
+	 * points and non Delaunay edges are reported.
+	 * @throws DelaunayError
+	 */
+	public void testProblems() throws DelaunayError {
+		ConstrainedMesh mesh = getMesh();
+		DEdge ed = getInnerEdge(mesh);
+		DTriangle left = ed.getLeft();
+		ed.setLeft(null);
+		ValidationReport report = mesh.validate(2);
+		assertFalse(report.isValid());
+		assertEquals(1, report.getCount(Problem.EDGE_NOT_LINKED));
+		assertSame(ed, report.getExamples(Problem.EDGE_NOT_LINKED).get(0));
+		ed.setLeft(ed.getRight());
+		ed.setRight(left);
+		report = mesh.validate();
+		assertEquals(2, report.getCount(Problem.WRONG_ORIENTATION));
+		ed.setRight(ed.getLeft());
+		ed.setLeft(left);
+		ed.setLocked(true);
+		DPoint pt = mesh.getPoints().get(10);
+		mesh.getPoints().add(new DPoint(pt.getX(), pt.getY(), pt.getZ() + 1));
+		report = mesh.validate();
+		assertEquals(1, report.getCount(Problem.UNREGISTERED_CONSTRAINT));
+		assertEquals(1, report.getCount(Problem.DUPLICATE_POINT));
+		assertEquals(0, report.getCount(Problem.EULER_CHARACTERISTIC));
+		ed.setLocked(false);
+		mesh.getPoints().remove(mesh.getPoints().size() - 1);
+		assertTrue(mesh.validate().isValid());
+		mesh.flipFlap(ed);
+		report = mesh.validate();
+		assertEquals(1, report.getCount(Problem.NOT_DELAUNAY));
+		assertTrue(report.getExamples(Problem.NOT_DELAUNAY).get(0) instanceof DEdge);
+	}
+}
@@ -0,0 +1,145 @@
+/**
+ *
+ * jDelaunay is a library dedicated to the processing of Delaunay and constrained
+ * Delaunay triangulations from PSLG inputs.
+ *
+ * This library is developed at French IRSTV institute as part of the AvuPur and Eval-PDU project,
+ * funded by the French Agence Nationale de la Recherche (ANR) under contract
+ * ANR-07-VULN-01 and ANR-08-VILL-0005-01 .
+ *
+ * jDelaunay is distributed under GPL 3 license. It is produced by the "Atelier SIG" team of
+ * the IRSTV Institute <http://www.irstv.fr/> CNRS FR 2488.
+ *
+ * Copyright (C) 2010-2012 IRSTV FR CNRS 2488
+ *
+ * jDelaunay is free software: you can redistribute it and/or modify it under the
+ * terms of the GNU General Public License as published by the Free Software
+ * Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ *
+ * jDelaunay is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR
+ * A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * jDelaunay. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * For more information, please consult: <http://www.orbisgis.org/>
+ * or contact directly:
+ * info_at_ orbisgis.org
+ */
+package org.jdelaunay.delaunay;
+
+import java.awt.Color;
+import java.awt.image.BufferedImage;
+import java.util.Arrays;
+import java.util.List;
+import org.jdelaunay.delaunay.display.OffscreenRenderer;
+import org.jdelaunay.delaunay.error.DelaunayError;
+import org.jdelaunay.delaunay.geometries.BoundaryBox;
+import org.jdelaunay.delaunay.geometries.DEdge;
+import org.jdelaunay.delaunay.geometries.DPoint;
+import org.jdelaunay.delaunay.geometries.DTriangle;
+
+/**
+ * Tests the drawing of meshes in images.
+ * @author Alexis Guéganno
+ */
+public class TestOffscreenRenderer extends BaseUtility {
+
+	/**
+	 * A square whose northern part is higher than its southern part.
+	 */
+	private ConstrainedMesh getSlopedSquare() throws DelaunayError {
+		ConstrainedMesh mesh = new ConstrainedMesh();
+		mesh.addPoint(new DPoint(0, 0, 0));
+		mesh.addPoint(new DPoint(10, 0, 0));
+		mesh.addPoint(new DPoint(0, 10, 10));
+		mesh.addPoint(new DPoint(10, 10, 10));
+		mesh.addPoint(new DPoint(5, 5, 5));
+		mesh.processDelaunay();
+		return mesh;
+	}
+
+	/**
+	 * The whole mesh keeps its proportions, and the colors follow z.
+	 */
+	public void testRenderByZ() throws DelaunayError {
+		OffscreenRenderer renderer = new OffscreenRenderer(getSlopedSquare());
+		BufferedImage image = renderer.render(100);
+		assertEquals(100, image.getWidth());
+		assertEquals(100, image.getHeight());
+		int north = image.getRGB(50, 5);
+		int south = image.getRGB(50, 95);
+		assertFalse(north == south);
+		assertFalse(north == Color.WHITE.getRGB());
+		//The highest triangle is red, the lowest one is blue.
+		assertTrue(new Color(north).getRed() > new Color(north).getBlue());
+		assertTrue(new Color(south).getBlue() > new Color(south).getRed());
+	}
+
+	/**
+	 * The parts of the window that are outside the mesh keep the background
+	 * color.
+	 */
+	public void testWindow() throws DelaunayError {
+		OffscreenRenderer renderer = new OffscreenRenderer(getSlopedSquare());
+		renderer.setBackground(Color.BLACK);
+		BufferedImage image = renderer.render(new BoundaryBox(5, 15, 0, 10, 0, 0), 40, 40);
+		assertEquals(Color.BLACK.getRGB(), image.getRGB(35, 20));
+		assertFalse(Color.BLACK.getRGB() == image.getRGB(5, 20));
+	}
+
+	/**
+	 * The image does not depend on the tiles nor on the number of threads.
+	 */
+	public void testTiles() throws DelaunayError {
+		ConstrainedMesh mesh = new ConstrainedMesh();
+		mesh.setPoints(getRandomPoints(2000));
+		mesh.addConstraintEdge(new DEdge(new DPoint(0, 0, 0), new DPoint(100, 100, 0)));
+		mesh.processDelaunay();
+		OffscreenRenderer renderer = new OffscreenRenderer(mesh);
+		renderer.setEdgeColor(Color.GRAY);
+		int[] expected = getPixels(renderer.render(300));
+		renderer.setTileSize(37);
+		renderer.setThreads(3);
+		assertTrue(Arrays.equals(expected, getPixels(renderer.render(300))));
+		renderer.setColoring(OffscreenRenderer.Coloring.SLOPE);
+		int[] slopes = getPixels(renderer.render(300));
+		renderer.setTileSize(300);
+		renderer.setThreads(1);
+		assertTrue(Arrays.equals(slopes, getPixels(renderer.render(300))));
+	}
+
+	/**
+	 * Triangles that share a property share a color.
+	 */
+	public void testRenderByProperty() throws DelaunayError {
+		ConstrainedMesh mesh = getSlopedSquare();
+		List<DTriangle> triangles = mesh.getTriangleList();
+		for(int i = 0; i < triangles.size(); i++){
+			triangles.get(i).setProperty(i % 2 == 0 ? 1 : 2);
+		}
+		OffscreenRenderer renderer = new OffscreenRenderer(mesh);
+		renderer.setColoring(OffscreenRenderer.Coloring.PROPERTY);
+		BufferedImage image = renderer.render(100);
+		int one = 0;
+		int two = 0;
+		for(int i = 0; i < triangles.size(); i++){
+			DPoint c = triangles.get(i).getBarycenter();
+			int rgb = image.getRGB((int) (c.getX() * 10), 99 - (int) (c.getY() * 10));
+			if(i % 2 == 0){
+				assertTrue(one == 0 || one == rgb);
+				one = rgb;
+			} else {
+				assertTrue(two == 0 || two == rgb);
+				two = rgb;
+			}
+		}
+		assertFalse(one == two);
+	}
+
+	private int[] getPixels(BufferedImage image) {
+		return image.getRGB(0, 0, image.getWidth(), image.getHeight(), null, 0, image.getWidth());
+	}
+}
@@ -0,0 +1,71 @@
+/**
+ *
+ * jDelaunay is a library dedicated to the processing of Delaunay and constrained
+ * Delaunay triangulations from PSLG inputs.
+ *
+ * This library is developed at French IRSTV institute as part of the AvuPur and Eval-PDU project,
+ * funded by the French Agence Nationale de la Recherche (ANR) under contract
+ * ANR-07-VULN-01 and ANR-08-VILL-0005-01 .
+ *
+ * jDelaunay is distributed under GPL 3 license. It is produced by the "Atelier SIG" team of
+ * the IRSTV Institute <http://www.irstv.fr/> CNRS FR 2488.
+ *
+ * Copyright (C) 2010-2012 IRSTV FR CNRS 2488
+ *
+ * jDelaunay is free software: you can redistribute it and/or modify it under the
+ * terms of the GNU General Public License as published by the Free Software
+ * Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ *
+ * jDelaunay is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR
+ * A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * jDelaunay. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * For more information, please consult: <http://www.orbisgis.org/>
+ * or contact directly:
+ * info_at_ orbisgis.org
+ */
+package org.jdelaunay.delaunay;
+
+import java.util.Arrays;
+import java.util.Random;
+import org.jdelaunay.delaunay.error.DelaunayError;
+import org.jdelaunay.delaunay.tools.ParallelSort;
+
+/**
+ * Tests the parallel sort of indices.
+ * @author Alexis Guéganno
+ */
+public class TestParallelSort extends BaseUtility {
+
+	/**
+	 * The sort is stable, and its result does not depend on the number of
+	 * threads.
+	 */
+	public void testSort() throws DelaunayError {
+		Random rand = new Random(5);
+		final int[] values = new int[10000];
+		for(int i = 0; i < values.length; i++){
+			values[i] = rand.nextInt(500);
+		}
+		ParallelSort.IndexComparator comparator = new ParallelSort.IndexComparator() {
+			@Override
+			public int compare(int i, int j) {
+				return values[i] < values[j] ? -1 : (values[i] == values[j] ? 0 : 1);
+			}
+		};
+		int[] expected = ParallelSort.sort(values.length, comparator, 1);
+		for(int i = 1; i < expected.length; i++){
+			int c = comparator.compare(expected[i - 1], expected[i]);
+			assertTrue(c < 0 || (c == 0 && expected[i - 1] < expected[i]));
+		}
+		for(int threads = 2; threads <= 7; threads++){
+			assertTrue(Arrays.equals(expected, ParallelSort.sort(values.length, comparator, threads)));
+		}
+		assertEquals(0, ParallelSort.sort(0, comparator, 3).length);
+		assertTrue(Arrays.equals(ParallelSort.sort(20, comparator, 1), ParallelSort.sort(20, comparator, 4)));
+	}
+}
@@ -30,11 +30,14 @@
  */
 package org.jdelaunay.delaunay;
 
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
+import java.util.Random;
 import org.jdelaunay.delaunay.evaluator.SkinnyEvaluator;
 import org.jdelaunay.delaunay.error.DelaunayError;
 import org.jdelaunay.delaunay.evaluator.InsertionEvaluator;
+import org.jdelaunay.delaunay.evaluator.SizeField;
 import org.jdelaunay.delaunay.evaluator.TriangleQuality;
 import org.jdelaunay.delaunay.geometries.DEdge;
 import org.jdelaunay.delaunay.geometries.DPoint;
@@ -412,4 +415,300 @@ public class TestRefinement extends BaseUtility {
         }
         assertEquals(sumArea, refineArea, 1e-12);
     }
+
+    /**
+     * With a BatchEvaluator, the worst triangle is refined first.
+     */
+    public void testRefinementWorstFirst() throws DelaunayError {
+        ConstrainedMesh mesh = getSquareMesh();
+        final TriangleQuality quality = new TriangleQuality();
+        double worst = 0;
+        for(DTriangle tri : mesh.getTriangleList()){
+            worst = Math.max(worst, quality.score(tri));
+        }
+        assertTrue(worst > 0);
+        final List<Double> scores = new ArrayList<Double>();
+        mesh.refineTriangles(1, new TriangleQuality() {
+            @Override
+            public boolean evaluate(DTriangle dt) {
+                scores.add(quality.score(dt));
+                return super.evaluate(dt);
+            }
+        });
+        assertEquals(worst, scores.get(0), 1e-12);
+        assertTrianglesTopology(mesh);
+    }
+
+    /**
+     * The mesh is refined until its edges are shorter than the local size,
+     * and stays coarse where the size is large.
+     */
+    public void testSizeFieldRefinement() throws DelaunayError {
+        ConstrainedMesh mesh = getSquareMesh();
+        SizeField field = new SizeField() {
+            @Override
+            public double getSize(double x, double y) {
+                return 1 + 0.2 * Math.abs(x - 50);
+            }
+        };
+        mesh.refineMesh(0.1, field);
+        assertTrianglesTopology(mesh);
+        int fine = 0;
+        int coarse = 0;
+        for(DTriangle tri : mesh.getTriangleList()){
+            DPoint bary = tri.getBarycenter();
+            for(int i = 0; i < DTriangle.PT_NB; i++){
+                assertTrue(tri.getEdge(i).get2DLength() <= field.getSize(bary.getX(), bary.getY()));
+            }
+            if(Math.abs(bary.getX() - 50) < 10){
+                fine++;
+            } else if(Math.abs(bary.getX() - 50) > 40){
+                coarse++;
+            }
+        }
+        assertTrue(fine > 10 * coarse);
+        //A uniform mesh with the smallest size would need about 23000 triangles.
+        assertTrue(mesh.getTriangleList().size() < 6000);
+    }
+
+    /**
+     * Size fields computed from the constraints and from the curvature of the mesh.
+     */
+    public void testMeshSizeField() throws DelaunayError {
+        ConstrainedMesh mesh = getSquareMesh();
+        MeshSizeField field = new MeshSizeField(mesh, 1, 20, 1);
+        field.setConstraintGradient(0.5);
+        field.compute();
+        assertEquals(1, field.getSize(50, 50), 1e-9);
+        assertEquals(3.5, field.getSize(55, 50), 1e-9);
+        assertEquals(13.5, field.getSize(75, 50), 1e-9);
+        field = new MeshSizeField(mesh, 1, 5, 1);
+        field.setConstraintGradient(0.5);
+        field.compute();
+        assertEquals(5, field.getSize(75, 50), 1e-9);
+        //A bowl is curved everywhere.
+        ConstrainedMesh bowl = new ConstrainedMesh();
+        Random rand = new Random(4);
+        for(int i = 0; i < 300; i++){
+            double x = rand.nextDouble() * 100;
+            double y = rand.nextDouble() * 100;
+            bowl.addPoint(new DPoint(x, y, ((x - 50) * (x - 50) + (y - 50) * (y - 50)) / 100));
+        }
+        bowl.processDelaunay();
+        field = new MeshSizeField(bowl, 1, 20, 1);
+        field.setZTolerance(0.1);
+        field.compute();
+        //The second derivative is 0.02, so the size is about sqrt(8 * 0.1 / 0.02),
+        //as the estimation of the curvature is noisy on random triangles.
+        double size = field.getSize(50, 50);
+        assertTrue(size > 3 && size < Math.sqrt(40) + 0.5);
+        bowl.refineMesh(0.1, field);
+        assertTrianglesTopology(bowl);
+        assertTrue(bowl.getTriangleList().size() > 600);
+    }
+
+    /**
+     * The protected refinement improves the triangles, and inserts far less
+     * points than refineMesh. The constraints that are split keep their
+     * identity.
+     */
+    public void testRefineProtected() throws DelaunayError {
+        ConstrainedMesh mesh = getRoadMesh(10, 4);
+        List<DEdge> cons = identifyConstraints(mesh);
+        int skinny = countSkinny(mesh, 25);
+        mesh.refineProtected(0.01, 25);
+        assertConstraintsIdentity(mesh, cons);
+        ValidationReport report = mesh.validate();
+        assertTrue(report.toString(), report.isValid());
+        assertCoherence(mesh);
+        assertTrianglesTopology(mesh);
+        assertTrue(countSkinny(mesh, 25) < skinny / 4);
+        ConstrainedMesh ruppert = getRoadMesh(10, 4);
+        ruppert.refineMesh(0.01, new SkinnyEvaluator(25));
+        assertTrue(ruppert.getConstraintEdges().size() > mesh.getConstraintEdges().size());
+        assertTrue(mesh.getTriangleList().size() * 2 < ruppert.getTriangleList().size());
+    }
+
+    /**
+     * Long constraints, that have not been densified, are split where their
+     * triangles can't be improved otherwise.
+     */
+    public void testRefineProtectedLongSegments() throws DelaunayError {
+        ConstrainedMesh mesh = getRoadMesh(1000, 1000);
+        List<DEdge> cons = identifyConstraints(mesh);
+        int skinny = countSkinny(mesh, 25);
+        int size = mesh.getConstraintEdges().size();
+        mesh.refineProtected(0.01, 25);
+        assertConstraintsIdentity(mesh, cons);
+        assertTrue(mesh.getConstraintEdges().size() > size);
+        ValidationReport report = mesh.validate();
+        assertTrue(report.toString(), report.isValid());
+        assertTrianglesTopology(mesh);
+        assertTrue(countSkinny(mesh, 25) < skinny / 3);
+        ConstrainedMesh ruppert = getRoadMesh(1000, 1000);
+        ruppert.refineMesh(0.01, new SkinnyEvaluator(25));
+        assertTrue(mesh.getTriangleList().size() * 2 < ruppert.getTriangleList().size());
+    }
+
+    /**
+     * Constraints that make a very small angle must not cause a cascade of
+     * insertions.
+     */
+    public void testRefineProtectedSmallAngle() throws DelaunayError {
+        ConstrainedMesh mesh = new ConstrainedMesh();
+        addPolyline(mesh, 0, 0, 100, 0, 10);
+        addPolyline(mesh, 100, 0, 100, 100, 10);
+        addPolyline(mesh, 100, 100, 0, 100, 10);
+        addPolyline(mesh, 0, 100, 0, 0, 10);
+        addPolyline(mesh, 20, 50, 80, 50, 5);
+        double t = Math.toRadians(1);
+        addPolyline(mesh, 20, 50, 20 + 60 * Math.cos(t), 50 + 60 * Math.sin(t), 5);
+        mesh.forceConstraintIntegrity();
+        mesh.processDelaunay();
+        int size = mesh.getConstraintEdges().size();
+        mesh.refineProtected(1e-6, 30);
+        assertTrue(mesh.getConstraintEdges().size() < 2 * size);
+        assertTrue(mesh.validate().isValid());
+        assertTrianglesTopology(mesh);
+        assertTrue(mesh.getTriangleList().size() < 1000);
+        //Far from the small angle, the triangles are good, unless they lie
+        //against a constraint.
+        for(DTriangle tri : mesh.getTriangleList()){
+            DPoint bary = tri.getBarycenter();
+            double dx = bary.getX() - 20;
+            double dy = bary.getY() - 50;
+            if(dx * dx + dy * dy > 900 && tri.getMinAngle() < 20){
+                boolean protectedEdge = false;
+                for(int i = 0; i < DTriangle.PT_NB; i++){
+                    DEdge ed = tri.getEdge(i);
+                    protectedEdge |= ed.isLocked() || ed.getLeft() == null || ed.getRight() == null;
+                }
+                assertTrue(protectedEdge);
+            }
+        }
+    }
+
+    public void testRefineProtectedExceptions() throws DelaunayError {
+        ConstrainedMesh mesh = new ConstrainedMesh();
+        mesh.addPoint(new DPoint(0, 0, 0));
+        mesh.addPoint(new DPoint(10, 0, 0));
+        mesh.addPoint(new DPoint(0, 10, 0));
+        try {
+            mesh.refineProtected(0.1, 20);
+            fail();
+        } catch (DelaunayError d) {
+        }
+        mesh.processDelaunay();
+        try {
+            mesh.refineProtected(0, 20);
+            fail();
+        } catch (IllegalArgumentException e) {
+        }
+        try {
+            mesh.refineProtected(0.1, 40);
+            fail();
+        } catch (IllegalArgumentException e) {
+        }
+    }
+
+    /**
+     * Roads, with small angles at some of their junctions. The sides of the
+     * square are made of segments of length squareStep at most, the roads of
+     * segments of length roadStep.
+     */
+    private ConstrainedMesh getRoadMesh(double squareStep, double roadStep) throws DelaunayError {
+        ConstrainedMesh mesh = new ConstrainedMesh();
+        addPolyline(mesh, 0, 0, 100, 0, squareStep);
+        addPolyline(mesh, 100, 0, 100, 100, squareStep);
+        addPolyline(mesh, 100, 100, 0, 100, squareStep);
+        addPolyline(mesh, 0, 100, 0, 0, squareStep);
+        for(double a : new double[]{0, 5, 12, 90, 93, 200, 201.5}){
+            double t = Math.toRadians(a);
+            addPolyline(mesh, 50, 50, 50 + 40 * Math.cos(t), 50 + 40 * Math.sin(t), roadStep);
+        }
+        Random rand = new Random(0);
+        for(int i = 0; i < 20; i++){
+            double x = 10 + 80 * rand.nextDouble();
+            double y = 10 + 80 * rand.nextDouble();
+            double t = 2 * Math.PI * rand.nextDouble();
+            addPolyline(mesh, x, y, x + 15 * Math.cos(t), y + 15 * Math.sin(t), roadStep);
+        }
+        for(int i = 0; i < 100; i++){
+            mesh.addPoint(new DPoint(2 + 96 * rand.nextDouble(), 2 + 96 * rand.nextDouble(), rand.nextDouble()));
+        }
+        mesh.forceConstraintIntegrity();
+        mesh.processDelaunay();
+        return mesh;
+    }
+
+    private void addPolyline(ConstrainedMesh mesh, double x0, double y0, double x1, double y1,
+                double step) throws DelaunayError {
+        int n = (int) Math.ceil(Math.sqrt((x1 - x0) * (x1 - x0) + (y1 - y0) * (y1 - y0)) / step);
+        for(int i = 0; i < n; i++){
+            mesh.addConstraintEdge(new DEdge(x0 + (x1 - x0) * i / n, y0 + (y1 - y0) * i / n, 0,
+                    x0 + (x1 - x0) * (i + 1) / n, y0 + (y1 - y0) * (i + 1) / n, 0));
+        }
+    }
+
+    /**
+     * Give a distinct external GID and property to each constraint of mesh.
+     * @return
+     *      Copies of the constraints.
+     */
+    private List<DEdge> identifyConstraints(ConstrainedMesh mesh) {
+        List<DEdge> copies = new ArrayList<DEdge>();
+        int gid = 1;
+        for(DEdge ed : mesh.getConstraintEdges()){
+            ed.setExternalGID(gid);
+            ed.setProperty(gid % 7 + 1);
+            copies.add(new DEdge(ed));
+            gid++;
+        }
+        return copies;
+    }
+
+    /**
+     * Check that the locked edges of mesh are exactly the pieces of the
+     * original constraints, and that they keep their external GID and property.
+     */
+    private void assertConstraintsIdentity(ConstrainedMesh mesh, List<DEdge> originals) {
+        double[] lengths = new double[originals.size()];
+        List<DEdge> edges = mesh.getEdges();
+        for(DEdge ed : mesh.getConstraintEdges()){
+            assertTrue(ed.isLocked());
+            assertTrue(edges.contains(ed));
+            DEdge original = originals.get(ed.getExternalGID() - 1);
+            assertEquals(original.getProperty(), ed.getProperty());
+            assertTrue(original.contains(ed.getStartPoint()));
+            assertTrue(original.contains(ed.getEndPoint()));
+            lengths[ed.getExternalGID() - 1] += ed.get2DLength();
+        }
+        for(int i = 0; i < originals.size(); i++){
+            assertEquals(originals.get(i).get2DLength(), lengths[i], 1e-9);
+        }
+    }
+
+    private int countSkinny(ConstrainedMesh mesh, double angle) {
+        int ret = 0;
+        for(DTriangle tri : mesh.getTriangleList()){
+            if(tri.getMinAngle() < angle){
+                ret++;
+            }
+        }
+        return ret;
+    }
+
+    /**
+     * A square, with a constraint in its middle.
+     */
+    private ConstrainedMesh getSquareMesh() throws DelaunayError {
+        ConstrainedMesh mesh = new ConstrainedMesh();
+        mesh.addConstraintEdge(new DEdge(0, 0, 0, 100, 0, 0));
+        mesh.addConstraintEdge(new DEdge(100, 0, 0, 100, 100, 0));
+        mesh.addConstraintEdge(new DEdge(100, 100, 0, 0, 100, 0));
+        mesh.addConstraintEdge(new DEdge(0, 100, 0, 0, 0, 0));
+        mesh.addConstraintEdge(new DEdge(50, 10, 0, 50, 90, 0));
+        mesh.processDelaunay();
+        return mesh;
+    }
 }
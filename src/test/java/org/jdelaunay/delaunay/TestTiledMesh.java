@@ -0,0 +1,128 @@
+/**
+ *
+ * jDelaunay is a library dedicated to the processing of Delaunay and constrained
+ * Delaunay triangulations from PSLG inputs.
+ *
+ * This library is developed at French IRSTV institute as part of the AvuPur and Eval-PDU project,
+ * funded by the French Agence Nationale de la Recherche (ANR) under contract
+ * ANR-07-VULN-01 and ANR-08-VILL-0005-01 .
+ *
+ * jDelaunay is distributed under GPL 3 license. It is produced by the "Atelier SIG" team of
+ * the IRSTV Institute <http://www.irstv.fr/> CNRS FR 2488.
+ *
+ * Copyright (C) 2010-2012 IRSTV FR CNRS 2488
+ *
+ * jDelaunay is free software: you can redistribute it and/or modify it under the
+ * terms of the GNU General Public License as published by the Free Software
+ * Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ *
+ * jDelaunay is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR
+ * A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * jDelaunay. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * For more information, please consult: <http://www.orbisgis.org/>
+ * or contact directly:
+ * info_at_ orbisgis.org
+ */
+package org.jdelaunay.delaunay;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import org.jdelaunay.delaunay.error.DelaunayError;
+import org.jdelaunay.delaunay.geometries.DEdge;
+import org.jdelaunay.delaunay.geometries.DPoint;
+import org.jdelaunay.delaunay.geometries.DTriangle;
+
+/**
+ * Tests the triangulation of a set of points by tiles.
+ * @author Alexis Guéganno
+ */
+public class TestTiledMesh extends BaseUtility {
+
+	/**
+	 * The tiled triangulation must be the same as the triangulation of the
+	 * whole set.
+	 */
+	public void testSameAsGlobal() throws DelaunayError {
+		List<DPoint> pts = getPoints(3000, 1);
+		Set<String> expected = getTriangles(getGlobalMesh(pts));
+		TiledMesh tiled = new TiledMesh(pts, 4, 3, 5);
+		ConstrainedMesh mesh = tiled.process();
+		assertEquals(expected, getTriangles(mesh));
+		assertTrue(tiled.getSeamPoints() < pts.size() / 2);
+		assertTrianglesTopology(mesh);
+		assertCoherence(mesh);
+		assertEquals(pts.size(), mesh.getPoints().size());
+	}
+
+	/**
+	 * Without margin, and with many tiles, most of the points are left to
+	 * the last pass, but the result must not change.
+	 */
+	public void testSmallTiles() throws DelaunayError {
+		List<DPoint> pts = getPoints(2000, 2);
+		Set<String> expected = getTriangles(getGlobalMesh(pts));
+		TiledMesh tiled = new TiledMesh(pts, 10, 10, 0);
+		tiled.setFrontSmoothing(true);
+		assertEquals(expected, getTriangles(tiled.process()));
+	}
+
+	/**
+	 * The tiles can be processed in parallel.
+	 */
+	public void testThreads() throws DelaunayError {
+		List<DPoint> pts = getPoints(5000, 3);
+		pts.add(new DPoint(pts.get(10)));
+		Set<String> expected = getTriangles(getGlobalMesh(pts));
+		TiledMesh tiled = new TiledMesh(pts, 5, 5, 3);
+		tiled.setThreads(4);
+		ConstrainedMesh mesh = tiled.process();
+		assertEquals(expected, getTriangles(mesh));
+		assertEquals(pts.size() - 1, mesh.getPoints().size());
+		assertTrue(mesh.isMeshComputed());
+	}
+
+	private List<DPoint> getPoints(int number, long seed) throws DelaunayError {
+		Random rand = new Random(seed);
+		List<DPoint> pts = new ArrayList<DPoint>();
+		for(int i = 0; i < number; i++){
+			pts.add(new DPoint(rand.nextDouble() * 100, rand.nextDouble() * 100, rand.nextDouble()));
+		}
+		return pts;
+	}
+
+	private ConstrainedMesh getGlobalMesh(List<DPoint> pts) throws DelaunayError {
+		List<DPoint> copies = new ArrayList<DPoint>();
+		for(DPoint pt : pts){
+			copies.add(new DPoint(pt));
+		}
+		ConstrainedMesh mesh = new ConstrainedMesh();
+		mesh.setPoints(copies);
+		mesh.processDelaunay();
+		return mesh;
+	}
+
+	private Set<String> getTriangles(ConstrainedMesh mesh) {
+		Set<String> ret = new HashSet<String>();
+		for(DTriangle tri : mesh.getTriangleList()){
+			String[] pts = new String[DTriangle.PT_NB];
+			for(int i = 0; i < DTriangle.PT_NB; i++){
+				pts[i] = tri.getPoint(i).getX() + ";" + tri.getPoint(i).getY();
+			}
+			Arrays.sort(pts);
+			ret.add(Arrays.toString(pts));
+		}
+		for(DEdge ed : mesh.getEdges()){
+			assertTrue(ed.getLeft() != null || ed.getRight() != null);
+		}
+		return ret;
+	}
+}
@@ -0,0 +1,140 @@
+/**
+ *
+ * jDelaunay is a library dedicated to the processing of Delaunay and constrained
+ * Delaunay triangulations from PSLG inputs.
+ *
+ * This library is developed at French IRSTV institute as part of the AvuPur and Eval-PDU project,
+ * funded by the French Agence Nationale de la Recherche (ANR) under contract
+ * ANR-07-VULN-01 and ANR-08-VILL-0005-01 .
+ *
+ * jDelaunay is distributed under GPL 3 license. It is produced by the "Atelier SIG" team of
+ * the IRSTV Institute <http://www.irstv.fr/> CNRS FR 2488.
+ *
+ * Copyright (C) 2010-2012 IRSTV FR CNRS 2488
+ *
+ * jDelaunay is free software: you can redistribute it and/or modify it under the
+ * terms of the GNU General Public License as published by the Free Software
+ * Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ *
+ * jDelaunay is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR
+ * A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * jDelaunay. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * For more information, please consult: <http://www.orbisgis.org/>
+ * or contact directly:
+ * info_at_ orbisgis.org
+ */
+package org.jdelaunay.delaunay;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import org.jdelaunay.delaunay.error.DelaunayError;
+import org.jdelaunay.delaunay.geometries.DEdge;
+import org.jdelaunay.delaunay.geometries.DPoint;
+import org.jdelaunay.delaunay.geometries.DTriangle;
+import org.jdelaunay.delaunay.geometries.Element;
+
+/**
+ * Tests the simplification of a mesh by greedy insertion.
+ * @author Alexis Guéganno
+ */
+public class TestTinSimplifier extends BaseUtility {
+
+	/**
+	 * All the points of the dense mesh must be close to the coarse one.
+	 */
+	public void testMaxError() throws DelaunayError {
+		ConstrainedMesh dense = getTerrain(30, false);
+		TinSimplifier simplifier = new TinSimplifier(dense);
+		simplifier.setMaxError(0.5);
+		ConstrainedMesh coarse = simplifier.simplify();
+		assertTrue(simplifier.getError() <= 0.5);
+		assertTrue(coarse.getPoints().size() < dense.getPoints().size() / 2);
+		assertTrue(getError(dense, coarse) <= 0.5);
+		assertTrianglesTopology(coarse);
+		simplifier.setMaxError(0.05);
+		ConstrainedMesh finer = simplifier.simplify();
+		assertTrue(finer.getPoints().size() > coarse.getPoints().size());
+		assertTrue(getError(dense, finer) <= 0.05);
+	}
+
+	/**
+	 * The simplification stops when the budget of points is reached.
+	 */
+	public void testMaxPoints() throws DelaunayError {
+		ConstrainedMesh dense = getTerrain(20, false);
+		TinSimplifier simplifier = new TinSimplifier(dense);
+		simplifier.setMaxPoints(0);
+		int initial = simplifier.simplify().getPoints().size();
+		double initialError = simplifier.getError();
+		simplifier.setMaxPoints(initial + 30);
+		ConstrainedMesh coarse = simplifier.simplify();
+		assertEquals(initial + 30, coarse.getPoints().size());
+		assertTrue(simplifier.getError() < initialError);
+		assertEquals(simplifier.getError(), getError(dense, coarse), 1e-9);
+	}
+
+	/**
+	 * A plane only needs the points of its hull, and the constraints are kept.
+	 */
+	public void testPlaneWithConstraint() throws DelaunayError {
+		ConstrainedMesh dense = getTerrain(15, true);
+		TinSimplifier simplifier = new TinSimplifier(dense);
+		simplifier.setMaxError(1e-6);
+		ConstrainedMesh coarse = simplifier.simplify();
+		assertEquals(0, simplifier.getError(), 1e-6);
+		assertEquals(1, coarse.getConstraintEdges().size());
+		DEdge constr = coarse.getConstraintEdges().get(0);
+		assertTrue(constr.isLocked());
+		assertEquals(3.05, constr.getStartPoint().getX(), 1e-9);
+		assertEquals(7.05, constr.getEndPoint().getY(), 1e-9);
+		for(DPoint pt : coarse.getPoints()){
+			boolean onHull = pt.getX() < 1 || pt.getX() > 13 || pt.getY() < 1 || pt.getY() > 13;
+			assertTrue(onHull || constr.isExtremity(pt));
+		}
+	}
+
+	/**
+	 * A perturbed grid, with a bump, or a plane if plane is true. A
+	 * constraint is added to the plane.
+	 */
+	private ConstrainedMesh getTerrain(int size, boolean plane) throws DelaunayError {
+		Random rand = new Random(size);
+		List<DPoint> pts = new ArrayList<DPoint>();
+		for(int i = 0; i < size; i++){
+			for(int j = 0; j < size; j++){
+				double x = i + rand.nextDouble() * 0.2;
+				double y = j + rand.nextDouble() * 0.2;
+				double z = plane ? 2 * x + 3 * y
+					: 10 * Math.exp(-((x - size / 2.0) * (x - size / 2.0) + (y - size / 3.0) * (y - size / 3.0)) / 20)
+					+ rand.nextDouble() * 0.1;
+				pts.add(new DPoint(x, y, z));
+			}
+		}
+		ConstrainedMesh mesh = new ConstrainedMesh();
+		mesh.setPoints(pts);
+		if(plane){
+			mesh.addConstraintEdge(new DEdge(3.05, 4.05, 18.25, 6.05, 7.05, 33.25));
+		}
+		mesh.processDelaunay();
+		return mesh;
+	}
+
+	private double getError(ConstrainedMesh dense, ConstrainedMesh coarse) throws DelaunayError {
+		double max = 0;
+		DTriangle start = coarse.getTriangleList().get(0);
+		for(DPoint pt : dense.getPoints()){
+			Element el = start.searchPointContainer(pt);
+			DTriangle tri = el instanceof DTriangle ? (DTriangle) el
+				: ((DEdge) el).getLeft() != null ? ((DEdge) el).getLeft() : ((DEdge) el).getRight();
+			max = Math.max(max, Math.abs(pt.getZ() - tri.interpolateZ(pt)));
+			start = tri;
+		}
+		return max;
+	}
+}
@@ -122,4 +122,30 @@ public class TestTools extends BaseUtility {
         }
         assertEquals(3, count);
     }
+
+    /**
+     * Cocircular points are not inside the circle, whatever the orientation
+     * of the triangle and the magnitude of the coordinates.
+     */
+    public void testIsInCircle() throws DelaunayError {
+        double[] steps = {0.1, 3.7, 1e-7};
+        for (double step : steps) {
+            double x = 123456.789;
+            double y = 9876.54321;
+            DPoint a = new DPoint(x, y, 0);
+            DPoint b = new DPoint(x + 7 * step, y, 0);
+            DPoint c = new DPoint(x + 7 * step, y + 3 * step, 0);
+            DPoint d = new DPoint(x, y + 3 * step, 0);
+            assertFalse(Tools.isInCircle(a, b, c, d));
+            assertFalse(Tools.isInCircle(c, b, a, d));
+            assertTrue(Tools.isInCircle(a, b, c, new DPoint(x + step, y + step, 0)));
+            assertTrue(Tools.isInCircle(c, b, a, new DPoint(x + step, y + step, 0)));
+            assertFalse(Tools.isInCircle(a, b, c, new DPoint(x - step, y - step, 0)));
+        }
+        assertFalse(Tools.isInCircle(new DPoint(0, 0, 0), new DPoint(1, 1, 0),
+                new DPoint(2, 2, 0), new DPoint(1, 0, 0)));
+        assertEquals(1, Tools.orientation(new DPoint(0, 0, 0), new DPoint(1, 0, 0), new DPoint(0, 1, 0)));
+        assertEquals(-1, Tools.orientation(new DPoint(0, 0, 0), new DPoint(0, 1, 0), new DPoint(1, 0, 0)));
+        assertEquals(0, Tools.orientation(new DPoint(0.1, 0.1, 0), new DPoint(0.2, 0.2, 0), new DPoint(0.3, 0.3, 0)));
+    }
 }
@@ -0,0 +1,163 @@
+/**
+ *
+ * jDelaunay is a library dedicated to the processing of Delaunay and constrained
+ * Delaunay triangulations from PSLG inputs.
+ *
+ * This library is developed at French IRSTV institute as part of the AvuPur and Eval-PDU project,
+ * funded by the French Agence Nationale de la Recherche (ANR) under contract
+ * ANR-07-VULN-01 and ANR-08-VILL-0005-01 .
+ *
+ * jDelaunay is distributed under GPL 3 license. It is produced by the "Atelier SIG" team of
+ * the IRSTV Institute <http://www.irstv.fr/> CNRS FR 2488.
+ *
+ * Copyright (C) 2010-2012 IRSTV FR CNRS 2488
+ *
+ * jDelaunay is free software: you can redistribute it and/or modify it under the
+ * terms of the GNU General Public License as published by the Free Software
+ * Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ *
+ * jDelaunay is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR
+ * A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * jDelaunay. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * For more information, please consult: <http://www.orbisgis.org/>
+ * or contact directly:
+ * info_at_ orbisgis.org
+ */
+package org.jdelaunay.delaunay;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import org.jdelaunay.delaunay.error.DelaunayError;
+import org.jdelaunay.delaunay.geometries.BoundaryBox;
+import org.jdelaunay.delaunay.geometries.DEdge;
+import org.jdelaunay.delaunay.geometries.DPoint;
+
+/**
+ * Tests the extraction of the dual of a mesh.
+ * @author Alexis Guéganno
+ */
+public class TestVoronoiDiagram extends BaseUtility {
+
+	/**
+	 * The Voronoi cells must cover the clipping box, and contain their site.
+	 */
+	public void testVoronoiCells() throws DelaunayError {
+		ConstrainedMesh mesh = getRandomMesh(300);
+		BoundaryBox box = new BoundaryBox(-10, 110, -20, 120, 0, 0);
+		List<VoronoiCell> cells = new VoronoiDiagram(mesh).getCells(VoronoiDiagram.CellType.VORONOI, box);
+		assertEquals(300, cells.size());
+		double area = 0;
+		for(VoronoiCell cell : cells){
+			assertTrue(cell.getArea() > 0);
+			assertTrue(contains(cell, cell.getSite()));
+			area += cell.getArea();
+		}
+		assertEquals(120 * 140, area, 1e-6);
+		//Any point is in the cell of its closest site.
+		Random rand = new Random(7);
+		for(int i = 0; i < 100; i++){
+			DPoint pt = new DPoint(rand.nextDouble() * 100, rand.nextDouble() * 100, 0);
+			VoronoiCell closest = cells.get(0);
+			for(VoronoiCell cell : cells){
+				if(distance(cell.getSite(), pt) < distance(closest.getSite(), pt)){
+					closest = cell;
+				}
+			}
+			assertTrue(contains(closest, pt));
+		}
+	}
+
+	/**
+	 * The cells of the barycentric dual cover the mesh.
+	 */
+	public void testBarycentricCells() throws DelaunayError {
+		ConstrainedMesh mesh = new ConstrainedMesh();
+		mesh.addConstraintEdge(new DEdge(10, 10, 0, 90, 90, 0));
+		for(DPoint pt : getRandomPoints(200)){
+			mesh.addPoint(pt);
+		}
+		mesh.processDelaunay();
+		List<VoronoiCell> cells = new VoronoiDiagram(mesh).getCells(VoronoiDiagram.CellType.BARYCENTRIC);
+		double area = 0;
+		for(VoronoiCell cell : cells){
+			assertTrue(cell.getArea() > 0);
+			assertTrue(contains(cell, cell.getSite()));
+			area += cell.getArea();
+		}
+		double meshArea = 0;
+		for(int i = 0; i < mesh.getTriangleList().size(); i++){
+			meshArea += mesh.getTriangleList().get(i).getArea();
+		}
+		assertEquals(meshArea, area, 1e-6);
+	}
+
+	/**
+	 * The power diagram with null weights is the Voronoi diagram, and the
+	 * result does not depend on the number of threads.
+	 */
+	public void testPowerAndThreads() throws DelaunayError {
+		ConstrainedMesh mesh = getRandomMesh(500);
+		VoronoiDiagram diagram = new VoronoiDiagram(mesh);
+		List<VoronoiCell> voronoi = diagram.getCells(VoronoiDiagram.CellType.VORONOI);
+		diagram.setWeights(new double[mesh.getPoints().size() + 1]);
+		diagram.setThreads(3);
+		List<VoronoiCell> power = diagram.getCells(VoronoiDiagram.CellType.POWER);
+		assertEquals(voronoi.size(), power.size());
+		for(int i = 0; i < voronoi.size(); i++){
+			assertTrue(voronoi.get(i).getSite() == power.get(i).getSite());
+			assertEquals(voronoi.get(i).getVertices(), power.get(i).getVertices());
+		}
+		//A heavier point gets a larger cell.
+		double[] weights = new double[mesh.getPoints().size() + 1];
+		DPoint pt = mesh.getPoints().get(250);
+		weights[pt.getGID()] = 1;
+		diagram.setWeights(weights);
+		power = diagram.getCells(VoronoiDiagram.CellType.POWER);
+		assertTrue(power.get(250).getArea() > voronoi.get(250).getArea());
+	}
+
+	/**
+	 * The diagram can't be built on a mesh that has not been computed.
+	 */
+	public void testNotComputed() throws DelaunayError {
+		try {
+			new VoronoiDiagram(new ConstrainedMesh());
+			fail();
+		} catch (DelaunayError d) {
+		}
+	}
+
+	private ConstrainedMesh getRandomMesh(int n) throws DelaunayError {
+		ConstrainedMesh mesh = new ConstrainedMesh();
+		mesh.setPoints(getRandomPoints(n));
+		mesh.processDelaunay();
+		return mesh;
+	}
+
+	private double distance(DPoint p1, DPoint p2) {
+		return Math.hypot(p1.getX() - p2.getX(), p1.getY() - p2.getY());
+	}
+
+	/**
+	 * Checks that pt is inside the convex polygon of the cell.
+	 */
+	private boolean contains(VoronoiCell cell, DPoint pt) {
+		List<DPoint> vertices = cell.getVertices();
+		for(int i = 0; i < vertices.size(); i++){
+			DPoint a = vertices.get(i);
+			DPoint b = vertices.get((i + 1) % vertices.size());
+			double cross = (b.getX() - a.getX()) * (pt.getY() - a.getY())
+				- (b.getY() - a.getY()) * (pt.getX() - a.getX());
+			if(cross < -1e-7){
+				return false;
+			}
+		}
+		return true;
+	}
+}
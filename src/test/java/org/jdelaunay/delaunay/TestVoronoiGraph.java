@@ -31,10 +31,12 @@
 package org.jdelaunay.delaunay;
 
 import java.util.List;
+import java.util.Random;
 import org.jdelaunay.delaunay.error.DelaunayError;
 import org.jdelaunay.delaunay.geometries.DEdge;
 import org.jdelaunay.delaunay.geometries.DPoint;
 import org.jdelaunay.delaunay.geometries.DTriangle;
+import org.jdelaunay.delaunay.tools.Tools;
 
 /**
  * Class that performs test on the voronoi graph
@@ -583,4 +585,30 @@ public class TestVoronoiGraph extends BaseUtility{
 		assertTrue(vg.getNotFlat().getLocation().getZ()>vg.getStartNode().getLocation().getZ());
 	}
 
+
+	/**
+	 * A large flat area must be processed without overflowing the stack. The
+	 * former recursive traversals overflowed from about 5000 points.
+	 * @throws DelaunayError
+	 */
+	public void testLargeFlatArea() throws DelaunayError {
+		ConstrainedMesh mesh = new ConstrainedMesh();
+		Random rand = new Random(1);
+		for(int i = 0; i < 8000; i++){
+			mesh.addPoint(new DPoint(100 * rand.nextDouble(), 100 * rand.nextDouble(), 0));
+		}
+		mesh.addPoint(new DPoint(100.5, 100.5, 10));
+		mesh.processDelaunay();
+		VoronoiGraph vg = new VoronoiGraph(mesh.getTriangleList().get(0));
+		vg.fillUntilNotFlatFound();
+		assertEquals(mesh.getTriangleList().size(), vg.getSortedNodes().size());
+		assertFalse(vg.getNotFlat().getParent().isFlatSlope());
+		assertTrue(vg.getMaxDepth() > 5000);
+		vg.assignZValues();
+		assertTrue(vg.isUseful());
+		for(VoronoiNode vn : vg.getSortedNodes()){
+			assertTrue(vn.getLocation().getZ() > -Tools.EPSILON && vn.getLocation().getZ() < 10);
+		}
+	}
+
 }
@@ -0,0 +1,84 @@
+/**
+ *
+ * jDelaunay is a library dedicated to the processing of Delaunay and constrained
+ * Delaunay triangulations from PSLG inputs.
+ *
+ * This library is developed at French IRSTV institute as part of the AvuPur and Eval-PDU project,
+ * funded by the French Agence Nationale de la Recherche (ANR) under contract
+ * ANR-07-VULN-01 and ANR-08-VILL-0005-01 .
+ *
+ * jDelaunay is distributed under GPL 3 license. It is produced by the "Atelier SIG" team of
+ * the IRSTV Institute <http://www.irstv.fr/> CNRS FR 2488.
+ *
+ * Copyright (C) 2010-2012 IRSTV FR CNRS 2488
+ *
+ * jDelaunay is free software: you can redistribute it and/or modify it under the
+ * terms of the GNU General Public License as published by the Free Software
+ * Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ *
+ * jDelaunay is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR
+ * A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * jDelaunay. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * For more information, please consult: <http://www.orbisgis.org/>
+ * or contact directly:
+ * info_at_ orbisgis.org
+ */
+package org.jdelaunay.delaunay.evaluator;
+
+import junit.framework.TestCase;
+import org.jdelaunay.delaunay.error.DelaunayError;
+import org.jdelaunay.delaunay.geometries.DPoint;
+import org.jdelaunay.delaunay.geometries.DTriangle;
+
+/**
+ * Class used to test the size fields and their evaluator.
+ * @author Alexis Guéganno
+ */
+public class TestSizeEvaluator extends TestCase {
+
+        /**
+         * The raster is interpolated between its nodes, and clamped outside.
+         */
+        public void testRaster() {
+                RasterSizeField field = new RasterSizeField(10, 20, 2, 3, 2, new double[]{1, 2, 3, 4, 5, 6});
+                assertEquals(1, field.getSize(10, 20), 1e-12);
+                assertEquals(6, field.getSize(14, 22), 1e-12);
+                assertEquals(3.5, field.getSize(12, 21), 1e-12);
+                assertEquals(1, field.getSize(0, 0), 1e-12);
+                assertEquals(3, field.getSize(100, 0), 1e-12);
+                try {
+                        new RasterSizeField(0, 0, 1, 2, 2, new double[3]);
+                        fail();
+                } catch (IllegalArgumentException e) {
+                }
+        }
+
+        /**
+         * The field is sampled once per triangle, until its vertices change.
+         */
+        public void testCache() throws DelaunayError {
+                final int[] samples = {0};
+                SizeEvaluator ev = new SizeEvaluator(new SizeField() {
+                        @Override
+                        public double getSize(double x, double y) {
+                                samples[0]++;
+                                return 2;
+                        }
+                });
+                DTriangle dt = new DTriangle(new DPoint(0, 0, 0), new DPoint(3, 0, 0), new DPoint(0, 1, 0));
+                assertTrue(ev.evaluate(dt));
+                assertEquals(10.0 / 4 - 1, ev.score(dt), 1e-12);
+                assertEquals(1, samples[0]);
+                DTriangle small = new DTriangle(new DPoint(0, 0, 0), new DPoint(1, 0, 0), new DPoint(0, 1, 0));
+                assertFalse(ev.evaluate(small));
+                assertEquals(2, samples[0]);
+                ev.clearCache();
+                ev.score(small);
+                assertEquals(3, samples[0]);
+        }
+}
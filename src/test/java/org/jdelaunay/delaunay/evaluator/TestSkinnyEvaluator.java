@@ -30,7 +30,9 @@
  */
 package org.jdelaunay.delaunay.evaluator;
 
+import java.util.Random;
 import junit.framework.TestCase;
+import org.jdelaunay.delaunay.geometries.DPoint;
 import org.jdelaunay.delaunay.geometries.DEdge;
 import org.jdelaunay.delaunay.geometries.DTriangle;
 import org.jdelaunay.delaunay.error.DelaunayError;
@@ -91,4 +93,23 @@ public class TestSkinnyEvaluator extends TestCase{
                 dt = new DTriangle(new DEdge(0,0,0,0,1,0), new DEdge(0,1,0,10,0,0), new DEdge(10,0,0,0,0,0));
                 assertTrue(se.evaluate(dt));
         }
+
+        /**
+         * The evaluation without acos must give the same results as the
+         * comparison of the angles, and the scores must grow with skinniness.
+         */
+        public void testSameAsAngles() throws DelaunayError {
+                Random rand = new Random(3);
+                SkinnyEvaluator se = new SkinnyEvaluator(25);
+                for(int i = 0; i < 1000; i++){
+                        DTriangle dt = new DTriangle(new DPoint(rand.nextDouble(), rand.nextDouble(), 0),
+                                new DPoint(rand.nextDouble(), rand.nextDouble(), 0),
+                                new DPoint(rand.nextDouble(), rand.nextDouble(), 0));
+                        assertEquals(25 > dt.getMinAngle(), se.evaluate(dt));
+                }
+                DTriangle dt1 = new DTriangle(new DEdge(0,0,0,0,1,0), new DEdge(0,1,0,5,0,0), new DEdge(5,0,0,0,0,0));
+                DTriangle dt2 = new DTriangle(new DEdge(0,0,0,0,1,0), new DEdge(0,1,0,10,0,0), new DEdge(10,0,0,0,0,0));
+                assertTrue(se.score(dt2) > se.score(dt1));
+                assertTrue(se.score(dt1) > 0);
+        }
 }
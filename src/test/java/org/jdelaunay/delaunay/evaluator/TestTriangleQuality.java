@@ -0,0 +1,94 @@
+/**
+ *
+ * jDelaunay is a library dedicated to the processing of Delaunay and constrained
+ * Delaunay triangulations from PSLG inputs.
+ *
+ * This library is developed at French IRSTV institute as part of the AvuPur and Eval-PDU project,
+ * funded by the French Agence Nationale de la Recherche (ANR) under contract
+ * ANR-07-VULN-01 and ANR-08-VILL-0005-01 .
+ *
+ * jDelaunay is distributed under GPL 3 license. It is produced by the "Atelier SIG" team of
+ * the IRSTV Institute <http://www.irstv.fr/> CNRS FR 2488.
+ *
+ * Copyright (C) 2010-2012 IRSTV FR CNRS 2488
+ *
+ * jDelaunay is free software: you can redistribute it and/or modify it under the
+ * terms of the GNU General Public License as published by the Free Software
+ * Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ *
+ * jDelaunay is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR
+ * A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * jDelaunay. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * For more information, please consult: <http://www.orbisgis.org/>
+ * or contact directly:
+ * info_at_ orbisgis.org
+ */
+package org.jdelaunay.delaunay.evaluator;
+
+import java.util.Random;
+import junit.framework.TestCase;
+import org.jdelaunay.delaunay.error.DelaunayError;
+import org.jdelaunay.delaunay.geometries.DPoint;
+import org.jdelaunay.delaunay.geometries.DTriangle;
+
+/**
+ * Class used to test the quality evaluator, and the evaluation of triangles
+ * in batches.
+ * @author Alexis Guéganno
+ */
+public class TestTriangleQuality extends TestCase {
+
+        /**
+         * The squared quality must give the same results as the quality.
+         */
+        public void testSameAsQuality() throws DelaunayError {
+                Random rand = new Random(5);
+                TriangleQuality tq = new TriangleQuality();
+                for(int i = 0; i < 1000; i++){
+                        DTriangle dt = getRandomTriangle(rand);
+                        double quality = 4 * Math.sqrt(3) * dt.getArea() / (
+                                Math.pow(dt.getEdge(0).get2DLength(), 2) +
+                                Math.pow(dt.getEdge(1).get2DLength(), 2) +
+                                Math.pow(dt.getEdge(2).get2DLength(), 2));
+                        assertEquals(quality < TriangleQuality.DEFAULT_QUALITY, tq.evaluate(dt));
+                        assertEquals(1 - Math.pow(quality / TriangleQuality.DEFAULT_QUALITY, 2), tq.score(dt), 1e-9);
+                }
+        }
+
+        /**
+         * The triangles scored in a batch must have the same score as when
+         * they are scored one by one.
+         */
+        public void testBatch() throws DelaunayError {
+                Random rand = new Random(6);
+                BatchEvaluator[] evaluators = {new TriangleQuality(0.8), new SkinnyEvaluator(20)};
+                DTriangle[] triangles = new DTriangle[50];
+                double[] x = new double[3 * triangles.length];
+                double[] y = new double[3 * triangles.length];
+                for(int i = 0; i < triangles.length; i++){
+                        triangles[i] = getRandomTriangle(rand);
+                        for(int j = 0; j < DTriangle.PT_NB; j++){
+                                x[3 * i + j] = triangles[i].getPoint(j).getX();
+                                y[3 * i + j] = triangles[i].getPoint(j).getY();
+                        }
+                }
+                double[] scores = new double[triangles.length];
+                for(BatchEvaluator ev : evaluators){
+                        ev.score(x, y, triangles.length, scores);
+                        for(int i = 0; i < triangles.length; i++){
+                                assertEquals(ev.score(triangles[i]), scores[i], 0);
+                        }
+                }
+        }
+
+        private DTriangle getRandomTriangle(Random rand) throws DelaunayError {
+                return new DTriangle(new DPoint(rand.nextDouble(), rand.nextDouble(), 0),
+                        new DPoint(rand.nextDouble(), rand.nextDouble(), 0),
+                        new DPoint(rand.nextDouble(), rand.nextDouble(), 0));
+        }
+}
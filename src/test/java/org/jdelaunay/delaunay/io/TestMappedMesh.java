@@ -0,0 +1,192 @@
+/**
+ *
+ * jDelaunay is a library dedicated to the processing of Delaunay and constrained
+ * Delaunay triangulations from PSLG inputs.
+ *
+ * This library is developed at French IRSTV institute as part of the AvuPur and Eval-PDU project,
+ * funded by the French Agence Nationale de la Recherche (ANR) under contract
+ * ANR-07-VULN-01 and ANR-08-VILL-0005-01 .
+ *
+ * jDelaunay is distributed under GPL 3 license. It is produced by the "Atelier SIG" team of
+ * the IRSTV Institute <http://www.irstv.fr/> CNRS FR 2488.
+ *
+ * Copyright (C) 2010-2012 IRSTV FR CNRS 2488
+ *
+ * jDelaunay is free software: you can redistribute it and/or modify it under the
+ * terms of the GNU General Public License as published by the Free Software
+ * Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ *
+ * jDelaunay is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR
+ * A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * jDelaunay. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * For more information, please consult: <http://www.orbisgis.org/>
+ * or contact directly:
+ * info_at_ orbisgis.org
+ */
+package org.jdelaunay.delaunay.io;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import junit.framework.TestCase;
+import org.jdelaunay.delaunay.ConstrainedMesh;
+import org.jdelaunay.delaunay.error.DelaunayError;
+import org.jdelaunay.delaunay.geometries.DEdge;
+import org.jdelaunay.delaunay.geometries.DPoint;
+import org.jdelaunay.delaunay.geometries.DTriangle;
+
+/**
+ * Tests the memory-mapped view of a mesh.
+ * @author Alexis Guéganno
+ */
+public class TestMappedMesh extends TestCase {
+
+	/**
+	 * Build a mesh whose points lie on the plane z = 2x + 3y + 1.
+	 */
+	private ConstrainedMesh buildMesh() throws DelaunayError {
+		ConstrainedMesh mesh = new ConstrainedMesh();
+		Random rand = new Random(42);
+		List<DPoint> pts = new ArrayList<DPoint>();
+		for(int i = 0; i < 500; i++){
+			double x = rand.nextDouble() * 100;
+			double y = rand.nextDouble() * 50;
+			pts.add(new DPoint(x, y, 2 * x + 3 * y + 1));
+		}
+		mesh.setPoints(pts);
+		mesh.processDelaunay();
+		return mesh;
+	}
+
+	private File writeMesh(ConstrainedMesh mesh) throws IOException, DelaunayError {
+		File f = File.createTempFile("jdelaunay", ".jdm");
+		f.deleteOnExit();
+		MappedMeshWriter.write(mesh, f);
+		return f;
+	}
+
+	/**
+	 * Check the content of the file against the original mesh.
+	 */
+	public void testContent() throws Exception {
+		ConstrainedMesh mesh = buildMesh();
+		MappedMesh mapped = new MappedMesh(writeMesh(mesh));
+		try {
+			assertEquals(mesh.getPoints().size(), mapped.getPointCount());
+			assertEquals(mesh.getTriangleList().size(), mapped.getTriangleCount());
+			for(int i = 0; i < mapped.getPointCount(); i++){
+				DPoint pt = mesh.getPoints().get(i);
+				assertEquals(pt.getX(), mapped.getX(i));
+				assertEquals(pt.getY(), mapped.getY(i));
+				assertEquals(pt.getZ(), mapped.getZ(i));
+			}
+			for(int t = 0; t < mapped.getTriangleCount(); t++){
+				for(int k = 0; k < 3; k++){
+					int n = mapped.getNeighbour(t, k);
+					if(n >= 0){
+						//The relation must be symmetric.
+						assertTrue(t == mapped.getNeighbour(n, 0) || t == mapped.getNeighbour(n, 1)
+							|| t == mapped.getNeighbour(n, 2));
+					}
+				}
+			}
+		} finally {
+			mapped.close();
+		}
+	}
+
+	/**
+	 * Check the point location and the interpolation.
+	 */
+	public void testInterpolateZ() throws Exception {
+		ConstrainedMesh mesh = buildMesh();
+		MappedMesh mapped = new MappedMesh(writeMesh(mesh));
+		try {
+			for(DTriangle tri : mesh.getTriangleList()){
+				DPoint bary = tri.getBarycenter();
+				int t = mapped.locate(bary.getX(), bary.getY());
+				assertTrue(t >= 0);
+				assertEquals(tri.interpolateZ(bary), mapped.interpolateZ(bary.getX(), bary.getY()), 1e-6);
+				assertEquals(2 * bary.getX() + 3 * bary.getY() + 1,
+					mapped.interpolateZ(bary.getX(), bary.getY()), 1e-6);
+			}
+			assertTrue(Double.isNaN(mapped.interpolateZ(-1, 20)));
+			assertTrue(Double.isNaN(mapped.interpolateZ(50, 60)));
+			assertEquals(-1, mapped.locate(200, 200));
+		} finally {
+			mapped.close();
+		}
+	}
+
+	/**
+	 * Check the computation of the slope.
+	 */
+	public void testSlope() throws Exception {
+		ConstrainedMesh mesh = buildMesh();
+		MappedMesh mapped = new MappedMesh(writeMesh(mesh));
+		try {
+			DTriangle tri = mesh.getTriangleList().get(0);
+			DPoint bary = tri.getBarycenter();
+			assertEquals(-Math.sqrt(13), mapped.getSlope(bary.getX(), bary.getY()), 1e-6);
+			assertEquals(tri.getSlope(), mapped.getSlope(bary.getX(), bary.getY()), 1e-6);
+		} finally {
+			mapped.close();
+		}
+	}
+
+	/**
+	 * In a mesh that is not convex, the walk can leave the mesh through a
+	 * concavity while the point is in another part of the mesh.
+	 */
+	public void testLocateNotConvex() throws Exception {
+		//A C-shaped mesh: two arms separated by a narrow slot.
+		double[][] ring = {{0, 0}, {10, 0}, {10, 4.9}, {2, 4.9}, {2, 5.1}, {10, 5.1}, {10, 10}, {0, 10}};
+		ConstrainedMesh mesh = new ConstrainedMesh();
+		for(int i = 0; i < ring.length; i++){
+			double[] p = ring[i];
+			double[] q = ring[(i + 1) % ring.length];
+			mesh.addConstraintEdge(new DEdge(p[0], p[1], 2 * p[0] + 3 * p[1] + 1,
+				q[0], q[1], 2 * q[0] + 3 * q[1] + 1));
+		}
+		mesh.processDelaunay();
+		assertEquals(2, mesh.trimHull(0));
+		MappedMesh mapped = new MappedMesh(writeMesh(mesh));
+		try {
+			Random rand = new Random(3);
+			for(int i = 0; i < 1000; i++){
+				double x = rand.nextDouble() * 10;
+				double y = rand.nextDouble() * 10;
+				if(x < 1.99 || y < 4.89 || y > 5.11){
+					assertTrue(mapped.locate(x, y) >= 0);
+					assertEquals(2 * x + 3 * y + 1, mapped.interpolateZ(x, y), 1e-6);
+				}
+			}
+			assertEquals(-1, mapped.locate(6, 5));
+			assertTrue(Double.isNaN(mapped.interpolateZ(9, 5)));
+		} finally {
+			mapped.close();
+		}
+	}
+
+	/**
+	 * A mesh that has not been computed can't be written.
+	 */
+	public void testNotComputed() throws Exception {
+		ConstrainedMesh mesh = new ConstrainedMesh();
+		mesh.addPoint(new DPoint(0, 0, 0));
+		try {
+			File f = File.createTempFile("jdelaunay", ".jdm");
+			f.deleteOnExit();
+			MappedMeshWriter.write(mesh, f);
+			fail();
+		} catch (DelaunayError d) {
+		}
+	}
+}
@@ -0,0 +1,122 @@
+/**
+ *
+ * jDelaunay is a library dedicated to the processing of Delaunay and constrained
+ * Delaunay triangulations from PSLG inputs.
+ *
+ * This library is developed at French IRSTV institute as part of the AvuPur and Eval-PDU project,
+ * funded by the French Agence Nationale de la Recherche (ANR) under contract
+ * ANR-07-VULN-01 and ANR-08-VILL-0005-01 .
+ *
+ * jDelaunay is distributed under GPL 3 license. It is produced by the "Atelier SIG" team of
+ * the IRSTV Institute <http://www.irstv.fr/> CNRS FR 2488.
+ *
+ * Copyright (C) 2010-2012 IRSTV FR CNRS 2488
+ *
+ * jDelaunay is free software: you can redistribute it and/or modify it under the
+ * terms of the GNU General Public License as published by the Free Software
+ * Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ *
+ * jDelaunay is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR
+ * A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * jDelaunay. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * For more information, please consult: <http://www.orbisgis.org/>
+ * or contact directly:
+ * info_at_ orbisgis.org
+ */
+package org.jdelaunay.delaunay.io;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.URISyntaxException;
+import java.nio.ByteBuffer;
+import junit.framework.TestCase;
+import org.jdelaunay.delaunay.ConstrainedMesh;
+import org.jdelaunay.delaunay.error.DelaunayError;
+import org.jdelaunay.delaunay.geometries.DEdge;
+import org.jdelaunay.delaunay.geometries.DPoint;
+
+/**
+ * Tests the shapefile reader, and the bulk loading of its output in a mesh.
+ * @author Alexis Guéganno
+ */
+public class TestShapefileReader extends TestCase {
+
+	private File getResource(String name) throws URISyntaxException {
+		return new File(TestShapefileReader.class.getResource("/" + name).toURI());
+	}
+
+	/**
+	 * Read a file of PointZ.
+	 */
+	public void testReadPoints() throws Exception {
+		MeshLoader loader = new MeshLoader();
+		ShapefileReader.read(getResource("graph_nodes.shp"), loader);
+		assertEquals(11, loader.getPoints().size());
+		assertTrue(loader.getEdges().isEmpty());
+	}
+
+	/**
+	 * Read a file of PolyLineZ, and load it in a mesh.
+	 */
+	public void testReadPolyLines() throws Exception {
+		MeshLoader loader = new MeshLoader();
+		ShapefileReader.read(getResource("graph_edges.shp"), loader);
+		assertEquals(20, loader.getPoints().size());
+		assertEquals(10, loader.getEdges().size());
+		ConstrainedMesh mesh = new ConstrainedMesh();
+		loader.load(mesh);
+		//The nodes of the graph are shared by the edges.
+		MeshLoader nodes = new MeshLoader();
+		ShapefileReader.read(getResource("graph_nodes.shp"), nodes);
+		assertEquals(nodes.getPoints().size(), mesh.getPoints().size());
+		for(DPoint pt : nodes.getPoints()){
+			assertTrue(mesh.listContainsPoint(pt) >= 0);
+		}
+		assertEquals(10, mesh.getConstraintEdges().size());
+		for(DEdge ed : mesh.getConstraintEdges()){
+			//The ends of the constraints are the points of the mesh.
+			assertTrue(mesh.getPoints().get(mesh.listContainsPoint(ed.getStartPoint())) == ed.getStartPoint());
+			assertTrue(mesh.getPoints().get(mesh.listContainsPoint(ed.getEndPoint())) == ed.getEndPoint());
+		}
+		mesh.processDelaunay();
+		assertFalse(mesh.getTriangleList().isEmpty());
+	}
+
+	/**
+	 * Check that existing data are kept when loading new data in a mesh.
+	 */
+	public void testLoadInNonEmptyMesh() throws Exception {
+		ConstrainedMesh mesh = new ConstrainedMesh();
+		DEdge constr = new DEdge(-10, -10, 0, -5, 0, 0);
+		mesh.addConstraintEdge(constr);
+		mesh.addPoint(new DPoint(-10, 20, 0));
+		MeshLoader loader = new MeshLoader();
+		ShapefileReader.read(getResource("graph_edges.shp"), loader);
+		loader.load(mesh);
+		assertEquals(14, mesh.getPoints().size());
+		assertEquals(11, mesh.getConstraintEdges().size());
+		assertTrue(mesh.getConstraintEdges().contains(constr));
+		mesh.processDelaunay();
+		try {
+			loader.load(mesh);
+			fail();
+		} catch (DelaunayError d) {
+		}
+	}
+
+	/**
+	 * Data that are not a shapefile must be rejected.
+	 */
+	public void testInvalidFile() throws Exception {
+		try {
+			ShapefileReader.read(ByteBuffer.allocate(200), new MeshLoader());
+			fail();
+		} catch (IOException e) {
+		}
+	}
+}
@@ -0,0 +1,140 @@
+/**
+ *
+ * jDelaunay is a library dedicated to the processing of Delaunay and constrained
+ * Delaunay triangulations from PSLG inputs.
+ *
+ * This library is developed at French IRSTV institute as part of the AvuPur and Eval-PDU project,
+ * funded by the French Agence Nationale de la Recherche (ANR) under contract
+ * ANR-07-VULN-01 and ANR-08-VILL-0005-01 .
+ *
+ * jDelaunay is distributed under GPL 3 license. It is produced by the "Atelier SIG" team of
+ * the IRSTV Institute <http://www.irstv.fr/> CNRS FR 2488.
+ *
+ * Copyright (C) 2010-2012 IRSTV FR CNRS 2488
+ *
+ * jDelaunay is free software: you can redistribute it and/or modify it under the
+ * terms of the GNU General Public License as published by the Free Software
+ * Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ *
+ * jDelaunay is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR
+ * A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * jDelaunay. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * For more information, please consult: <http://www.orbisgis.org/>
+ * or contact directly:
+ * info_at_ orbisgis.org
+ */
+package org.jdelaunay.delaunay.io;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import junit.framework.TestCase;
+import org.jdelaunay.delaunay.ConstrainedMesh;
+import org.jdelaunay.delaunay.geometries.DEdge;
+import org.jdelaunay.delaunay.geometries.DPoint;
+
+/**
+ * Tests the WKB reader.
+ * @author Alexis Guéganno
+ */
+public class TestWKBReader extends TestCase {
+
+	/**
+	 * Build a linestring in the given byte order.
+	 */
+	private byte[] lineString(ByteOrder order, int type, double[] coords, int dim) {
+		ByteBuffer buf = ByteBuffer.allocate(9 + 8 * coords.length).order(order);
+		buf.put(order == ByteOrder.BIG_ENDIAN ? (byte) 0 : (byte) 1);
+		buf.putInt(type);
+		buf.putInt(coords.length / dim);
+		for(double d : coords){
+			buf.putDouble(d);
+		}
+		return buf.array();
+	}
+
+	/**
+	 * Read a 2D linestring, in both byte orders.
+	 */
+	public void testLineString() throws Exception {
+		double[] coords = {0, 0, 1, 1, 2, 0};
+		for(ByteOrder order : new ByteOrder[]{ByteOrder.BIG_ENDIAN, ByteOrder.LITTLE_ENDIAN}){
+			MeshLoader loader = new MeshLoader();
+			WKBReader.read(lineString(order, WKBReader.LINESTRING, coords, 2), loader);
+			assertEquals(3, loader.getPoints().size());
+			assertEquals(2, loader.getEdges().size());
+			assertTrue(loader.getEdges().contains(new DEdge(1, 1, 0, 2, 0, 0)));
+		}
+	}
+
+	/**
+	 * Read linestrings with Z, in ISO and extended WKB.
+	 */
+	public void testLineStringZ() throws Exception {
+		double[] coords = {0, 0, 5, 1, 1, 6, 2, 0, 7};
+		MeshLoader loader = new MeshLoader();
+		WKBReader.read(lineString(ByteOrder.LITTLE_ENDIAN, 1002, coords, 3), loader);
+		WKBReader.read(lineString(ByteOrder.BIG_ENDIAN, 0x80000002, coords, 3), loader);
+		assertEquals(6, loader.getPoints().size());
+		assertEquals(new DPoint(1, 1, 6), loader.getPoints().get(1));
+		assertEquals(6.0, loader.getPoints().get(4).getZ());
+		ConstrainedMesh mesh = new ConstrainedMesh();
+		loader.load(mesh);
+		assertEquals(3, mesh.getPoints().size());
+		assertEquals(2, mesh.getConstraintEdges().size());
+	}
+
+	/**
+	 * Read a multipolygon with a SRID. The rings are sent as constraints.
+	 */
+	public void testMultiPolygon() throws Exception {
+		ByteBuffer buf = ByteBuffer.allocate(200).order(ByteOrder.LITTLE_ENDIAN);
+		buf.put((byte) 1);
+		buf.putInt(WKBReader.MULTIPOLYGON | 0x20000000);
+		buf.putInt(2154);
+		buf.putInt(1);
+		buf.put((byte) 1);
+		buf.putInt(WKBReader.POLYGON);
+		buf.putInt(1);
+		buf.putInt(4);
+		double[] ring = {0, 0, 4, 0, 0, 4, 0, 0};
+		for(double d : ring){
+			buf.putDouble(d);
+		}
+		buf.flip();
+		MeshLoader loader = new MeshLoader();
+		WKBReader.read(buf, loader);
+		assertFalse(buf.hasRemaining());
+		ConstrainedMesh mesh = new ConstrainedMesh();
+		loader.load(mesh);
+		assertEquals(3, mesh.getPoints().size());
+		assertEquals(3, mesh.getConstraintEdges().size());
+		mesh.processDelaunay();
+		assertEquals(1, mesh.getTriangleList().size());
+	}
+
+	/**
+	 * Truncated or invalid data must be rejected.
+	 */
+	public void testInvalid() throws Exception {
+		byte[] wkb = lineString(ByteOrder.LITTLE_ENDIAN, WKBReader.LINESTRING, new double[]{0, 0, 1, 1}, 2);
+		byte[] truncated = new byte[wkb.length - 4];
+		System.arraycopy(wkb, 0, truncated, 0, truncated.length);
+		try {
+			WKBReader.read(truncated, new MeshLoader());
+			fail();
+		} catch (IOException e) {
+		}
+		wkb[0] = 3;
+		try {
+			WKBReader.read(wkb, new MeshLoader());
+			fail();
+		} catch (IOException e) {
+		}
+	}
+}
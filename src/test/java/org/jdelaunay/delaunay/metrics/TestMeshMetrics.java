@@ -0,0 +1,110 @@
+/**
+ *
+ * jDelaunay is a library dedicated to the processing of Delaunay and constrained
+ * Delaunay triangulations from PSLG inputs.
+ *
+ * This library is developed at French IRSTV institute as part of the AvuPur and Eval-PDU project,
+ * funded by the French Agence Nationale de la Recherche (ANR) under contract
+ * ANR-07-VULN-01 and ANR-08-VILL-0005-01 .
+ *
+ * jDelaunay is distributed under GPL 3 license. It is produced by the "Atelier SIG" team of
+ * the IRSTV Institute <http://www.irstv.fr/> CNRS FR 2488.
+ *
+ * Copyright (C) 2010-2012 IRSTV FR CNRS 2488
+ *
+ * jDelaunay is free software: you can redistribute it and/or modify it under the
+ * terms of the GNU General Public License as published by the Free Software
+ * Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ *
+ * jDelaunay is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR
+ * A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * jDelaunay. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * For more information, please consult: <http://www.orbisgis.org/>
+ * or contact directly:
+ * info_at_ orbisgis.org
+ */
+package org.jdelaunay.delaunay.metrics;
+
+import org.jdelaunay.delaunay.BaseUtility;
+import org.jdelaunay.delaunay.ConstrainedMesh;
+import org.jdelaunay.delaunay.error.DelaunayError;
+import org.jdelaunay.delaunay.evaluator.SkinnyEvaluator;
+import org.jdelaunay.delaunay.geometries.DEdge;
+import org.jdelaunay.delaunay.geometries.DPoint;
+
+/**
+ * Tests the metrics reported while processing a mesh.
+ * @author Alexis Guéganno
+ */
+public class TestMeshMetrics extends BaseUtility {
+
+	/**
+	 * The phases and the counters of a whole processing are reported.
+	 * @throws DelaunayError
+	 */
+	public void testFullProcessing() throws DelaunayError {
+		ConstrainedMesh mesh = new ConstrainedMesh();
+		MeshMetrics metrics = new MeshMetrics();
+		mesh.setMetricsListener(metrics);
+		mesh.setPoints(getRandomPoints(300));
+		mesh.addConstraintEdge(new DEdge(0, 0, 0, 100, 100, 0));
+		mesh.addConstraintEdge(new DEdge(0, 100, 0, 100, 0, 0));
+		mesh.forceConstraintIntegrity();
+		int size = mesh.getPoints().size();
+		mesh.processDelaunay();
+		assertEquals(size - 2, metrics.getCount(MeshCounter.SWEEP_INSERTIONS));
+		mesh.refineMesh(1, new SkinnyEvaluator(25));
+		assertTrue(metrics.getCalls(MeshPhase.SORT) >= 1);
+		assertEquals(1, metrics.getCalls(MeshPhase.CONSTRAINT_INTEGRITY));
+		assertEquals(1, metrics.getCalls(MeshPhase.SWEEP));
+		assertEquals(1, metrics.getCalls(MeshPhase.FLIP));
+		assertEquals(1, metrics.getCalls(MeshPhase.REFINEMENT));
+		assertEquals(0, metrics.getCalls(MeshPhase.FLAT_REMOVAL));
+		assertTrue(metrics.getNanos(MeshPhase.SWEEP) > 0);
+		assertTrue(metrics.getCount(MeshCounter.BOUNDARY_PARTS_CONNECTED)
+			>= metrics.getCount(MeshCounter.SWEEP_INSERTIONS));
+		assertTrue(metrics.getCount(MeshCounter.FLIPS) > 0);
+		assertTrue(metrics.getCount(MeshCounter.BAD_EDGES_ENQUEUED) >= metrics.getCount(MeshCounter.FLIPS));
+		assertTrue(metrics.getCount(MeshCounter.LOCATION_STEPS) > 0);
+		assertTrue(metrics.toString().contains("FLIPS="));
+		metrics.reset();
+		assertEquals(0, metrics.getCount(MeshCounter.FLIPS));
+		assertEquals(0, metrics.getNanos(MeshPhase.SWEEP));
+	}
+
+	/**
+	 * The removal of flat triangles is measured.
+	 * @throws DelaunayError
+	 */
+	public void testFlatRemoval() throws DelaunayError {
+		ConstrainedMesh mesh = new ConstrainedMesh();
+		MeshMetrics metrics = new MeshMetrics();
+		mesh.addConstraintEdge(new DEdge(0, 0, 0, 10, 0, 0));
+		mesh.addConstraintEdge(new DEdge(10, 0, 0, 10, 10, 0));
+		mesh.addConstraintEdge(new DEdge(10, 10, 0, 0, 10, 0));
+		mesh.addPoint(new DPoint(5, 3, 10));
+		mesh.processDelaunay();
+		mesh.setMetricsListener(metrics);
+		mesh.removeFlatTriangles();
+		assertEquals(1, metrics.getCalls(MeshPhase.FLAT_REMOVAL));
+		assertEquals(1, metrics.getCalls(MeshPhase.SWEEP));
+		assertTrue(metrics.getNanos(MeshPhase.FLAT_REMOVAL) >= metrics.getNanos(MeshPhase.SWEEP));
+	}
+
+	/**
+	 * Nothing is measured without listener.
+	 * @throws DelaunayError
+	 */
+	public void testDisabled() throws DelaunayError {
+		ConstrainedMesh mesh = new ConstrainedMesh();
+		assertNull(mesh.getMetricsListener());
+		mesh.setPoints(getRandomPoints(200));
+		mesh.processDelaunay();
+		assertCoherence(mesh);
+	}
+}
@@ -0,0 +1,199 @@
+/**
+ *
+ * jDelaunay is a library dedicated to the processing of Delaunay and constrained
+ * Delaunay triangulations from PSLG inputs.
+ *
+ * This library is developed at French IRSTV institute as part of the AvuPur and Eval-PDU project,
+ * funded by the French Agence Nationale de la Recherche (ANR) under contract
+ * ANR-07-VULN-01 and ANR-08-VILL-0005-01 .
+ *
+ * jDelaunay is distributed under GPL 3 license. It is produced by the "Atelier SIG" team of
+ * the IRSTV Institute <http://www.irstv.fr/> CNRS FR 2488.
+ *
+ * Copyright (C) 2010-2012 IRSTV FR CNRS 2488
+ *
+ * jDelaunay is free software: you can redistribute it and/or modify it under the
+ * terms of the GNU General Public License as published by the Free Software
+ * Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ *
+ * jDelaunay is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR
+ * A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * jDelaunay. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * For more information, please consult: <http://www.orbisgis.org/>
+ * or contact directly:
+ * info_at_ orbisgis.org
+ */
+package org.jdelaunay.delaunay.metrics;
+
+import java.util.ArrayList;
+import java.util.List;
+import org.jdelaunay.delaunay.BaseUtility;
+import org.jdelaunay.delaunay.ConstrainedMesh;
+import org.jdelaunay.delaunay.error.DelaunayError;
+import org.jdelaunay.delaunay.geometries.DEdge;
+import org.jdelaunay.delaunay.geometries.DPoint;
+import org.jdelaunay.delaunay.geometries.DTriangle;
+
+/**
+ * Tests the statistics computed on meshes.
+ * @author Alexis Guéganno
+ */
+public class TestMeshStatistics extends BaseUtility {
+
+	/**
+	 * Percentiles are interpolated in the bins, and merging two histograms
+	 * is the same as adding all the values in one.
+	 */
+	public void testHistogram() {
+		Histogram first = new Histogram(0, 1000, 100, false);
+		Histogram second = new Histogram(0, 1000, 100, false);
+		Histogram all = new Histogram(0, 1000, 100, false);
+		for(int i = 1; i <= 1000; i++){
+			(i % 3 == 0 ? first : second).add(i);
+			all.add(i);
+		}
+		first.merge(second);
+		assertEquals(1000, first.getCount());
+		assertEquals(1, first.getMin(), 0);
+		assertEquals(1000, first.getMax(), 0);
+		assertEquals(500.5, first.getMean(), 1e-9);
+		assertEquals(500, first.getPercentile(0.5), 1);
+		assertEquals(900, first.getPercentile(0.9), 1);
+		assertEquals(1, first.getPercentile(0), 10);
+		for(int i = 0; i < all.getBinCount(); i++){
+			assertEquals(all.getBin(i), first.getBin(i));
+		}
+		Histogram log = new Histogram(1e-3, 1e3, 60, true);
+		log.add(0.01);
+		log.add(10);
+		log.add(1e6);
+		assertEquals(0.01, log.getPercentile(0.1), 0.01 * 0.26);
+		assertEquals(1e6, log.getMax(), 0);
+		assertEquals(1e3, log.getPercentile(1), 1e-9);
+		assertTrue(Double.isNaN(new Histogram(0, 1, 10, false).getPercentile(0.5)));
+		try {
+			first.merge(log);
+			fail();
+		} catch (IllegalArgumentException e) {
+		}
+	}
+
+	/**
+	 * The measures of a single triangle.
+	 * @throws DelaunayError
+	 */
+	public void testSingleTriangle() throws DelaunayError {
+		ConstrainedMesh mesh = new ConstrainedMesh();
+		mesh.addPoint(new DPoint(0, 0, 0));
+		mesh.addPoint(new DPoint(2, 0, 0));
+		mesh.addPoint(new DPoint(0, 2, 2));
+		mesh.processDelaunay();
+		MeshStatistics stats = MeshStatistics.compute(mesh);
+		assertEquals(1, stats.getTriangleCount());
+		assertEquals(0, stats.getFlatTriangleCount());
+		assertEquals(3, stats.getEdgeCount());
+		assertEquals(0, stats.getDelaunayViolationCount());
+		assertEquals(45, stats.getHistogram(MeshStatistics.Quantity.MIN_ANGLE).getMin(), 1e-9);
+		assertEquals(90, stats.getHistogram(MeshStatistics.Quantity.MAX_ANGLE).getMax(), 1e-9);
+		assertEquals(2, stats.getHistogram(MeshStatistics.Quantity.AREA).getMin(), 1e-9);
+		assertEquals(45, stats.getHistogram(MeshStatistics.Quantity.SLOPE).getMin(), 1e-9);
+		assertEquals(2, stats.getHistogram(MeshStatistics.Quantity.EDGE_LENGTH).getMin(), 1e-9);
+		assertEquals(Math.sqrt(8), stats.getHistogram(MeshStatistics.Quantity.EDGE_LENGTH).getMax(), 1e-9);
+		//4 * sqrt(3) * 2 / (4 + 4 + 8)
+		assertEquals(Math.sqrt(3) / 2, stats.getHistogram(MeshStatistics.Quantity.QUALITY).getMax(), 1e-9);
+	}
+
+	/**
+	 * The angle of tri at its point i, in degrees. DTriangle.getAngle folds
+	 * the obtuse angles, so it can't be used as a reference.
+	 */
+	private double getAngle(DTriangle tri, int i) {
+		DPoint p = tri.getPoint(i);
+		DPoint u = tri.getPoint((i + 1) % 3);
+		DPoint v = tri.getPoint((i + 2) % 3);
+		double ux = u.getX() - p.getX();
+		double uy = u.getY() - p.getY();
+		double vx = v.getX() - p.getX();
+		double vy = v.getY() - p.getY();
+		return Math.toDegrees(Math.acos((ux * vx + uy * vy) / Math.sqrt((ux * ux + uy * uy) * (vx * vx + vy * vy))));
+	}
+
+	/**
+	 * The statistics are the same as the ones computed triangle by triangle,
+	 * and they don't depend on the number of threads.
+	 * @throws DelaunayError
+	 */
+	public void testConstrainedMesh() throws DelaunayError {
+		ConstrainedMesh mesh = new ConstrainedMesh();
+		mesh.setPoints(getRandomPoints(1000));
+		mesh.addConstraintEdge(new DEdge(0, 0, 0, 100, 100, 0));
+		mesh.addConstraintEdge(new DEdge(0, 100, 0, 100, 0, 0));
+		mesh.forceConstraintIntegrity();
+		mesh.processDelaunay();
+		MeshStatistics stats = MeshStatistics.compute(mesh);
+		double minAngle = Double.POSITIVE_INFINITY;
+		double maxAngle = 0;
+		double area = 0;
+		int flat = 0;
+		for(DTriangle tri : mesh.getTriangleList()){
+			for(int i = 0; i < 3; i++){
+				minAngle = Math.min(minAngle, getAngle(tri, i));
+				maxAngle = Math.max(maxAngle, getAngle(tri, i));
+			}
+			area += tri.getArea();
+			flat += tri.isFlatSlope() ? 1 : 0;
+		}
+		Histogram areas = stats.getHistogram(MeshStatistics.Quantity.AREA);
+		assertEquals(mesh.getTriangleList().size(), stats.getTriangleCount());
+		assertEquals(mesh.getEdges().size(), stats.getEdgeCount());
+		assertEquals(flat, stats.getFlatTriangleCount());
+		assertEquals(minAngle, stats.getHistogram(MeshStatistics.Quantity.MIN_ANGLE).getMin(), 1e-6);
+		assertEquals(maxAngle, stats.getHistogram(MeshStatistics.Quantity.MAX_ANGLE).getMax(), 1e-6);
+		assertEquals(area, areas.getMean() * areas.getCount(), 1e-6 * area);
+		assertEquals(mesh.getConstraintEdges().size(), stats.getLockedEdgeCount());
+		assertEquals(0, stats.getDelaunayViolationCount());
+		assertTrue(stats.getPercentile(MeshStatistics.Quantity.MIN_ANGLE, 0.1)
+			<= stats.getPercentile(MeshStatistics.Quantity.MIN_ANGLE, 0.9));
+		MeshStatistics parallel = MeshStatistics.compute(mesh, 3);
+		assertEquals(stats.getTriangleCount(), parallel.getTriangleCount());
+		assertEquals(stats.getLockedEdgeCount(), parallel.getLockedEdgeCount());
+		for(MeshStatistics.Quantity q : MeshStatistics.Quantity.values()){
+			Histogram expected = stats.getHistogram(q);
+			Histogram actual = parallel.getHistogram(q);
+			assertEquals(expected.getMin(), actual.getMin(), 0);
+			assertEquals(expected.getMax(), actual.getMax(), 0);
+			for(int i = 0; i < expected.getBinCount(); i++){
+				assertEquals(expected.getBin(i), actual.getBin(i));
+			}
+		}
+	}
+
+	/**
+	 * The cells of a regular grid are cocircular: they are not counted as
+	 * Delaunay violations, whatever the step of the grid.
+	 * @throws DelaunayError
+	 */
+	public void testRegularGrid() throws DelaunayError {
+		double[] steps = {0.1, 3.7};
+		for(double step : steps){
+			ConstrainedMesh mesh = new ConstrainedMesh();
+			List<DPoint> pts = new ArrayList<DPoint>();
+			for(int i = 0; i < 60; i++){
+				for(int j = 0; j < 60; j++){
+					pts.add(new DPoint(i * step, j * step, 0));
+				}
+			}
+			mesh.setPoints(pts);
+			mesh.processDelaunay();
+			MeshStatistics stats = MeshStatistics.compute(mesh);
+			assertEquals(59 * 59 * 2, stats.getTriangleCount());
+			assertEquals(0, stats.getDelaunayViolationCount());
+			assertEquals(0, MeshStatistics.compute(mesh, 3).getDelaunayViolationCount());
+		}
+	}
+}